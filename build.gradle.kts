@@ -129,6 +129,15 @@ dependencies {
 
     // ProtocolLib - for custom enchantment tooltips
     compileOnly("com.comphenix.protocol:ProtocolLib:5.3.0")
+
+    // Tests, server provided libraries are not on test classpath otherwise
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testImplementation("org.mockito:mockito-core:5.14.2")
+    testImplementation("org.spigotmc:spigot-api:1.21.10-R0.1-SNAPSHOT")
+    testImplementation("com.github.Zrips:CMILib:1.5.6.3")
+    testRuntimeOnly("org.xerial:sqlite-jdbc:3.47.1.0")
 }
 
 tasks {
@@ -144,6 +153,10 @@ tasks {
         }
     }
 
+    test {
+        useJUnitPlatform()
+    }
+
     jar {
         archiveBaseName.set("Jobs")
         archiveVersion.set(project.version.toString())
@@ -19,7 +19,7 @@
 package com.gamingmesh.jobs;
 
 import java.io.File;
-import java.sql.SQLException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 import org.bukkit.Bukkit;
@@ -62,6 +63,7 @@ import com.gamingmesh.jobs.config.LanguageManager;
 import com.gamingmesh.jobs.config.NameTranslatorManager;
 import com.gamingmesh.jobs.config.RestrictedAreaManager;
 import com.gamingmesh.jobs.config.RestrictedBlockManager;
+import com.gamingmesh.jobs.config.ProtectionCacheManager;
 import com.gamingmesh.jobs.config.ScheduleManager;
 import com.gamingmesh.jobs.config.ShopManager;
 import com.gamingmesh.jobs.config.TitleManager;
@@ -69,9 +71,7 @@ import com.gamingmesh.jobs.config.YmlMaker;
 import com.gamingmesh.jobs.container.ActionInfo;
 import com.gamingmesh.jobs.container.ActionType;
 import com.gamingmesh.jobs.container.ArchivedJobs;
-import com.gamingmesh.jobs.container.BlockProtection;
 import com.gamingmesh.jobs.container.Boost;
-import com.gamingmesh.jobs.container.Convert;
 import com.gamingmesh.jobs.container.CurrencyLimit;
 import com.gamingmesh.jobs.container.CurrencyType;
 import com.gamingmesh.jobs.container.FastPayment;
@@ -79,19 +79,20 @@ import com.gamingmesh.jobs.container.Job;
 import com.gamingmesh.jobs.container.JobInfo;
 import com.gamingmesh.jobs.container.JobProgression;
 import com.gamingmesh.jobs.container.JobsPlayer;
-import com.gamingmesh.jobs.container.JobsWorld;
 import com.gamingmesh.jobs.container.LoadStatus;
 import com.gamingmesh.jobs.container.Log;
 import com.gamingmesh.jobs.container.PlayerInfo;
 import com.gamingmesh.jobs.container.PlayerPoints;
 import com.gamingmesh.jobs.container.Quest;
 import com.gamingmesh.jobs.container.QuestProgression;
+import com.gamingmesh.jobs.container.RankingUpdater;
 import com.gamingmesh.jobs.container.blockOwnerShip.BlockOwnerShip;
 import com.gamingmesh.jobs.container.blockOwnerShip.BlockTypes;
 import com.gamingmesh.jobs.dao.JobsClassLoader;
-import com.gamingmesh.jobs.dao.JobsDAO;
+import com.gamingmesh.jobs.dao.JobsStorage;
 import com.gamingmesh.jobs.dao.JobsDAOData;
 import com.gamingmesh.jobs.dao.JobsManager;
+import com.gamingmesh.jobs.dao.JobsSnapshot;
 import com.gamingmesh.jobs.economy.BufferedEconomy;
 import com.gamingmesh.jobs.economy.BufferedPayment;
 import com.gamingmesh.jobs.economy.Economy;
@@ -113,13 +114,13 @@ import com.gamingmesh.jobs.selection.SelectionManager;
 import com.gamingmesh.jobs.stuff.Loging;
 import com.gamingmesh.jobs.stuff.TabComplete;
 import com.gamingmesh.jobs.stuff.ToggleBarHandling;
-import com.gamingmesh.jobs.stuff.Util;
 import com.gamingmesh.jobs.stuff.VersionChecker;
 import com.gamingmesh.jobs.stuff.complement.Complement;
 import com.gamingmesh.jobs.stuff.complement.Complement1;
 import com.gamingmesh.jobs.stuff.complement.JobsChatEvent;
 import com.gamingmesh.jobs.tasks.BufferedPaymentThread;
 import com.gamingmesh.jobs.tasks.DatabaseSaveThread;
+import com.gamingmesh.jobs.tasks.LogRollupThread;
 
 import net.Zrips.CMILib.Items.CMIMaterial;
 import net.Zrips.CMILib.Locale.LC;
@@ -138,6 +139,7 @@ public final class Jobs extends JavaPlugin {
     private static LanguageManager lmManager;
     private static SignUtil signManager;
     private static ScheduleManager scheduleManager;
+    private static ProtectionCacheManager protectionCacheManager;
     private static NameTranslatorManager nameTranslatorManager;
     @Deprecated
     private static ExploreManager exploreManager;
@@ -172,7 +174,7 @@ public final class Jobs extends JavaPlugin {
     private Complement complement;
     private GuiManager guiManager;
 
-    private static JobsDAO dao;
+    private static JobsStorage dao;
 
     private static List<Job> jobs = new ArrayList<Job>();
     private static HashMap<String, Job> jobsByName = new HashMap<>();
@@ -183,6 +185,8 @@ public final class Jobs extends JavaPlugin {
 
     public static BufferedPaymentThread paymentThread;
     private static DatabaseSaveThread saveTask;
+    private static JobsSnapshot warmStart;
+    private static LogRollupThread logRollupTask;
 
     public static LoadStatus status = LoadStatus.Good;
 
@@ -401,6 +405,12 @@ public final class Jobs extends JavaPlugin {
         return scheduleManager;
     }
 
+    public static ProtectionCacheManager getProtectionCacheManager() {
+        if (protectionCacheManager == null)
+            protectionCacheManager = new ProtectionCacheManager(getInstance());
+        return protectionCacheManager;
+    }
+
     public static NameTranslatorManager getNameTranslatorManager() {
         if (nameTranslatorManager == null)
             nameTranslatorManager = new NameTranslatorManager();
@@ -490,7 +500,7 @@ public final class Jobs extends JavaPlugin {
      * Sets the Data Access Object
      * @param dao - the DAO
      */
-    public static void setDAO(JobsDAO dao) {
+    public static void setDAO(JobsStorage dao) {
         Jobs.dao = dao;
     }
 
@@ -498,7 +508,7 @@ public final class Jobs extends JavaPlugin {
      * Get the Data Access Object
      * @return the DAO
      */
-    public static JobsDAO getJobsDAO() {
+    public static JobsStorage getJobsDAO() {
         return dao;
     }
 
@@ -588,16 +598,21 @@ public final class Jobs extends JavaPlugin {
         loadAllPlayersData();
         for (Player online : Bukkit.getServer().getOnlinePlayers())
             getPlayerManager().playerJoin(online);
+
+        // Cleaning starts once data is loaded, so it knows which players are in use
+        dao.cleanJobs();
+        dao.cleanUsers();
     }
 
     public static void loadAllPlayersData() {
         long time = System.currentTimeMillis();
         HashMap<UUID, PlayerInfo> temp = new HashMap<>(getPlayerManager().getPlayersInfoUUIDMap());
-        Map<Integer, List<JobsDAOData>> playersJobs = dao.getAllJobs();
-        Map<Integer, PlayerPoints> playersPoints = dao.getAllPoints();
-        Map<Integer, Map<String, Log>> playersLogs = dao.getAllLogs();
-        Map<Integer, ArchivedJobs> playersArchives = dao.getAllArchivedJobs();
-        Map<Integer, PaymentData> playersLimits = dao.loadPlayerLimits();
+        JobsSnapshot snapshot = warmStart;
+        Map<Integer, List<JobsDAOData>> playersJobs = snapshot != null ? snapshot.getJobs() : dao.supplyAsync(dao::getAllJobs).join();
+        Map<Integer, PlayerPoints> playersPoints = snapshot != null ? snapshot.getPoints() : dao.supplyAsync(dao::getAllPoints).join();
+        Map<Integer, Map<String, Log>> playersLogs = snapshot != null ? snapshot.getLogs() : dao.supplyAsync(dao::getAllLogs).join();
+        Map<Integer, ArchivedJobs> playersArchives = snapshot != null ? snapshot.getArchives() : dao.supplyAsync(dao::getAllArchivedJobs).join();
+        Map<Integer, PaymentData> playersLimits = snapshot != null ? snapshot.getLimits() : dao.supplyAsync(dao::loadPlayerLimits).join();
         for (Iterator<PlayerInfo> it = temp.values().iterator(); it.hasNext();) {
             PlayerInfo one = it.next();
             int id = one.getID();
@@ -612,43 +627,82 @@ public final class Jobs extends JavaPlugin {
                 getPlayerManager().addPlayerToCache(jPlayer);
         }
         if (!getPlayerManager().getPlayersCache().isEmpty())
-            CMIMessages.consoleMessage("&ePreloaded &6" + getPlayerManager().getPlayersCache().size() + " &eplayers data in &6" + ((int) ((System.currentTimeMillis() - time) / 1000.0D * 100.0D) / 100.0D));
+            CMIMessages.consoleMessage("&ePreloaded &6" + getPlayerManager().getPlayersCache().size() + " &eplayers data" + (snapshot != null ? " from warm start snapshot" : "")
+                + " in &6" + ((int) ((System.currentTimeMillis() - time) / 1000.0D * 100.0D) / 100.0D));
     }
 
-    public static void convertDatabase() {
-        try {
-            List<Convert> archivelist = dao.convertDatabase();
-
-            getDBManager().switchDataBase();
-            getPlayerManager().reload();
-
-            dao.truncateAllTables();
+    private static File getWarmStartFile() {
+        return new File(getFolder(), "warmstart.dat");
+    }
 
-            for (Job one : Jobs.getJobs()) {
-                dao.recordNewJobName(one, one.getId());
-            }
-            for (JobsWorld one : Util.getJobsWorlds().values()) {
-                dao.recordNewWorld(one.getName(), one.getId());
-            }
+    /**
+     * Reads warm start snapshot if it matches database. Database marker is removed right away, so snapshot is not
+     * trusted again after plugin starts changing data.
+     */
+    private static JobsSnapshot loadWarmStart() {
+        File file = getWarmStartFile();
+        String marker = dao.supplyAsync(() -> dao.getMeta(JobsSnapshot.MARKER)).join();
+        if (marker != null)
+            dao.runAsync(() -> dao.setMeta(JobsSnapshot.MARKER, null)).join();
 
-            getPlayerManager().convertChacheOfPlayers(true);
+        JobsSnapshot snapshot = null;
+        if (getGCManager().WarmStartUse && !getGCManager().MultiServerCompatability() && !getGCManager().DBCleaningUsersUse && !getGCManager().DBCleaningJobsUse)
+            snapshot = JobsSnapshot.load(file, marker);
 
-            dao.continueConvertions(archivelist);
-            getPlayerManager().clearMaps();
-            getPlayerManager().clearCache();
+        file.delete();
+        return snapshot;
+    }
 
-            if (Jobs.getGeneralConfigManager().ExploreSaveIntoDatabase)
-                dao.saveExplore();
-//    Do we really need to convert Block protection?
-//    Jobs.getJobsDAO().saveBlockProtection();
-        } catch (SQLException e) {
+    /**
+     * Writes warm start snapshot, marker is stored in database after pending saves are done
+     */
+    private static void saveWarmStart() {
+        String marker = UUID.randomUUID().toString();
+        try {
+            JobsSnapshot.save(getWarmStartFile(), marker);
+        } catch (IOException e) {
             e.printStackTrace();
-            CMIMessages.consoleMessage("&cCan't write data to data base, please send error log to dev's.");
             return;
         }
+        dao.runAsync(() -> dao.setMeta(JobsSnapshot.MARKER, marker));
+        CMIMessages.consoleMessage("&eSaved warm start snapshot");
+    }
+
+    /**
+     * Copies data into opposite database type and switches to it
+     * 
+     * @return true if database was converted
+     */
+    public static boolean convertDatabase() {
+        // Data held in memory is written before copying
+        JobsStorage source = dao;
+        if (getGeneralConfigManager().ExploreSaveIntoDatabase) {
+            // Changed chunks are taken on main thread where they change
+            CompletableFuture<Void> explore = new CompletableFuture<>();
+            CMIScheduler.runTask(getInstance(), () -> getExploreManager().save(source).whenComplete((r, e) -> explore.complete(null)));
+            explore.join();
+        }
+        source.runAsync(getPlayerManager()::saveAll).join();
+
+        if (!getDBManager().convertDataBase()) {
+            CMIMessages.consoleMessage("&cDatabase was not converted, check errors above");
+            return false;
+        }
+
+        // Online players data is saved again in case it changed while copying
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            JobsPlayer jPlayer = getPlayerManager().getJobsPlayer(player);
+            if (jPlayer != null)
+                jPlayer.setSaved(false);
+        }
+        dao.runAsync(getPlayerManager()::saveAll).join();
+
+        getPlayerManager().clearMaps();
+        getPlayerManager().clearCache();
 
         reload();
         loadAllPlayersData();
+        return true;
     }
 
     /**
@@ -798,8 +852,8 @@ public final class Jobs extends JavaPlugin {
 
             startup();
 
-            if (status.equals(LoadStatus.MYSQLFailure) || status.equals(LoadStatus.SQLITEFailure)) {
-                CMIMessages.consoleMessage("&cCould not connect to " + (status.equals(LoadStatus.MYSQLFailure) ? "MySQL" : "SqLite") + "!");
+            if (status.equals(LoadStatus.MYSQLFailure) || status.equals(LoadStatus.SQLITEFailure) || status.equals(LoadStatus.EMBEDDEDFailure)) {
+                CMIMessages.consoleMessage("&cCould not connect to " + (status.equals(LoadStatus.MYSQLFailure) ? "MySQL" : status.equals(LoadStatus.SQLITEFailure) ? "SqLite" : "embedded storage") + "!");
                 CMIMessages.consoleMessage("&cPlugin will be disabled");
                 this.onDisable();
                 this.setEnabled(false);
@@ -827,9 +881,14 @@ public final class Jobs extends JavaPlugin {
                 CMIScheduler.runTask(Jobs.getInstance(), () -> new HookPermissionTask(Permission.class));
             }
 
-            dao.loadBlockProtection();
-            if (!getGCManager().useNewExploration)
+            dao.runAsync(dao::loadBlockProtection).join();
+            getBpManager().loadLoadedChunks();
+            getExploitManager().loadLoadedChunks();
+            getProtectionCacheManager().start();
+            getChunkExplorationManager().loadLoadedChunks();
+            if (!getGCManager().useNewExploration && (warmStart == null || !warmStart.loadExplore()))
                 getExploreManager().load();
+            warmStart = null;
             getCommandManager().fillCommands();
             getDBManager().getDB().triggerTableIdUpdate();
 
@@ -919,16 +978,27 @@ public final class Jobs extends JavaPlugin {
             paymentThread.shutdown();
         }
 
+        if (logRollupTask != null) {
+            logRollupTask.shutdown();
+            logRollupTask = null;
+        }
+
         smanager = new SelectionManager();
 
         getGCManager().reload();
         getLanguage().reload();
         getConfigManager().reload();
+        getInstance().getPlaceholderAPIManager().clearCache();
 
         hasLimitedItems = Jobs.getJobs().stream().anyMatch(job -> !job.getLimitedItems().isEmpty());
 
-        getDBManager().getDB().loadAllJobsWorlds();
-        getDBManager().getDB().loadAllJobsNames();
+        dao.runAsync(() -> {
+            dao.loadAllJobsWorlds();
+            dao.loadAllJobsNames();
+        }).join();
+
+        if (startup)
+            warmStart = loadWarmStart();
 
         if (Version.isCurrentEqualOrLower(Version.v1_13_R1)) {
             getInstance().getBlockOwnerShip(CMIMaterial.LEGACY_BREWING_STAND).ifPresent(BlockOwnerShip::load);
@@ -944,9 +1014,13 @@ public final class Jobs extends JavaPlugin {
 
         ToggleBarHandling.init();
         usedSlots.clear();
+        Map<Integer, Integer> jobCounts = dao.supplyAsync(dao::getJobCounts).join();
         for (Job job : jobs) {
-            usedSlots.put(job, dao.getSlotsTaken(job));
+            int count = jobCounts.getOrDefault(job.getId(), 0);
+            usedSlots.put(job, job.getLegacyId() == job.getId() ? count : count + jobCounts.getOrDefault(job.getLegacyId(), 0));
+            job.setTotalPlayers(job.getId() == 0 ? 0 : count);
         }
+        Job.updateAllTotalPlayers();
         getPlayerManager().reload();
         getPermissionHandler().registerPermissions();
 
@@ -958,7 +1032,16 @@ public final class Jobs extends JavaPlugin {
         paymentThread = new BufferedPaymentThread(getGCManager().getEconomyBatchDelay());
         paymentThread.start();
 
-        dao.loadPlayerData();
+        // compact old log entries in background
+        if (getGCManager().LoggingUse && getGCManager().LogRollupUse) {
+            logRollupTask = new LogRollupThread(getGCManager().LogRollupInterval);
+            logRollupTask.start();
+        }
+
+        if (warmStart != null)
+            warmStart.loadPlayerData();
+        else
+            dao.runAsync(dao::loadPlayerData).join();
 
         // Load active boosts from file
         try {
@@ -986,7 +1069,7 @@ public final class Jobs extends JavaPlugin {
         HandlerList.unregisterAll(this);
 
         if (dao != null && Jobs.getGeneralConfigManager().ExploreSaveIntoDatabase)
-            dao.saveExplore();
+            getExploreManager().save(dao).join();
 
         // Save active boosts before shutdown
         try {
@@ -997,6 +1080,23 @@ public final class Jobs extends JavaPlugin {
 
         BlockOwnerShip.onDisable();
 
+        if (protectionCacheManager != null)
+            protectionCacheManager.cancel();
+
+        RankingUpdater.shutdown();
+
+        if (exploitManager != null)
+            exploitManager.saveAll();
+
+        if (chunkExplorationManager != null)
+            chunkExplorationManager.saveAll();
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            JobsPlayer jPlayer = getPlayerManager().getJobsPlayer(player);
+            if (jPlayer != null)
+                jPlayer.saveExploredChunks();
+        }
+
         // Disable custom enchantment system
         if (enchantmentManager != null) {
             enchantmentManager.disable();
@@ -1008,14 +1108,25 @@ public final class Jobs extends JavaPlugin {
         if (paymentThread != null)
             paymentThread.shutdown();
 
+        if (logRollupTask != null)
+            logRollupTask.shutdown();
+
         if (pManager != null) {
             pManager.removePlayerAdditions();
             CMIMessages.consoleMessage("&eCleared boss bar cache");
-            pManager.saveAll();
+            // Waits for saves already queued, so data is written once in order
+            if (dao != null)
+                dao.runAsync(pManager::saveAll).join();
             CMIMessages.consoleMessage("&eSaved player data");
+
+            if (fullyLoaded && dao != null && getGCManager().WarmStartUse && !getGCManager().MultiServerCompatability())
+                saveWarmStart();
         }
 
         if (dao != null) {
+            // Queued after player saves, closing connections waits for both
+            if (getGCManager().MultiServerCompatability())
+                dao.runAsync(dao::releaseAllPlayers);
             dao.closeConnections();
             CMIMessages.consoleMessage("&eClosed database connection");
         }
@@ -1392,17 +1503,16 @@ public final class Jobs extends JavaPlugin {
 
                 if (prog.addExperience(expAmount))
                     getPlayerManager().performLevelUp(jPlayer, prog.getJob(), oldLevel);
+
+                getInstance().getPlaceholderAPIManager().invalidate(jPlayer.getUniqueId());
             }
 
             //need to update bp
             if (block != null && !Jobs.getGCManager().useBlockProtectionBlockTracker) {
-                BlockProtection bp = null;
                 if (Jobs.getGCManager().useNewBlockProtection) {
                     getExploitManager().setPaid(block, true);
                 } else
-                    bp = getBpManager().getBp(block.getLocation());
-                if (bp != null)
-                    bp.setPaid(true);
+                    getBpManager().setPaid(block, true);
             }
 
             expiredJobs.forEach(j -> getPlayerManager().leaveJob(jPlayer, j));
@@ -1498,6 +1608,8 @@ public final class Jobs extends JavaPlugin {
 
         if (prog.addExperience(expPayment))
             getPlayerManager().performLevelUp(jPlayer, prog.getJob(), oldLevel);
+
+        getInstance().getPlaceholderAPIManager().invalidate(jPlayer.getUniqueId());
     }
 
     public static SelectionManager getSelectionManager() {
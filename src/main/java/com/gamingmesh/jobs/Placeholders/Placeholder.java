@@ -3,10 +3,13 @@ package com.gamingmesh.jobs.Placeholders;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,10 +42,57 @@ public class Placeholder {
 
     private final Pattern placeholderPatern = Pattern.compile("(%)([^\"^%]*)(%)");
 
+    // Limit of parsed identifiers and messages, as messages can contain already replaced player names or values
+    private static final int COMPILED_LIMIT = 2000;
+
+    private final Map<String, CompiledPlaceholder> compiledPlaceholders = new ConcurrentHashMap<>();
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final Map<UUID, Map<String, CachedValue>> playerValues = new ConcurrentHashMap<>();
+    private final Map<String, CachedValue> globalValues = new ConcurrentHashMap<>();
+
     public Placeholder(Jobs plugin) {
         this.plugin = plugin;
     }
 
+    /**
+     * Placeholder found in text together with its complex values, so text is matched only once
+     */
+    private static final class CompiledPlaceholder {
+        private final JobsPlaceHolders placeHolder;
+        private final String full;
+        private final List<String> values;
+
+        private CompiledPlaceholder(JobsPlaceHolders placeHolder, String full) {
+            this.placeHolder = placeHolder;
+            this.full = full;
+            this.values = placeHolder == null || !placeHolder.isComplex() ? Collections.emptyList() : placeHolder.getComplexValues(full);
+        }
+    }
+
+    /**
+     * Message split into text parts and placeholders between them
+     */
+    private static final class Template {
+        private final String[] texts;
+        private final CompiledPlaceholder[] placeHolders;
+
+        private Template(String[] texts, CompiledPlaceholder[] placeHolders) {
+            this.texts = texts;
+            this.placeHolders = placeHolders;
+        }
+    }
+
+    private static final class CachedValue {
+        private final String value;
+        private final long time;
+
+        private CachedValue(String value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+
     static String pref = "jobsr";
     private static ChatFilterRule numericalRule = new ChatFilterRule().setPattern("(\\$\\d)");
 
@@ -66,6 +116,7 @@ public class Placeholder {
         user_issaved,
         user_displayhonorific,
         user_joinedjobcount,
+        user_exploredchunks,
         user_points,
         user_points_fixed,
         user_total_points,
@@ -291,6 +342,25 @@ public class Placeholder {
             return rule != null;
         }
 
+        /**
+         * @return true if value does not depend on player and comes from top lists or database
+         */
+        public boolean isGlobal() {
+            switch (this) {
+            case jtop_name_$1_$2:
+            case jtop_displayname_$1_$2:
+            case jtop_level_$1_$2:
+            case jtop_name_total_$1:
+            case jtop_displayname_total_$1:
+            case jtop_level_total_$1:
+            case totalplayers_$1:
+            case total_workers:
+                return true;
+            default:
+                return false;
+            }
+        }
+
         public ChatFilterRule getRule() {
             return rule;
         }
@@ -359,29 +429,110 @@ public class Placeholder {
         if (message == null)
             return null;
 
-        if (message.contains("%")) {
-            Matcher match = placeholderPatern.matcher(message);
-            while (match.find()) {
-                if (!message.contains("%"))
-                    break;
+        if (!message.contains("%"))
+            return message;
 
-                JobsPlaceHolders place = JobsPlaceHolders.getByNameExact(match.group(2));
-                if (place == null)
-                    continue;
+        Template template = templates.get(message);
+        if (template == null) {
+            template = compileTemplate(message);
+            if (templates.size() >= COMPILED_LIMIT)
+                templates.clear();
+            templates.put(message, template);
+        }
 
-                String group = match.group();
-                String with = getValue(player, place, group);
-                if (with == null)
-                    with = "";
+        if (template.placeHolders.length == 0)
+            return message;
 
-                if (with.startsWith("$"))
-                    with = "\\" + with;
+        UUID uuid = player != null ? player.getUniqueId() : null;
+        StringBuilder builder = new StringBuilder(message.length());
+        for (int i = 0; i < template.placeHolders.length; i++) {
+            builder.append(template.texts[i]);
 
-                message = message.replaceFirst(group, with);
-            }
+            CompiledPlaceholder place = template.placeHolders[i];
+            String with = getCachedValue(uuid, place.placeHolder, place.full, place.values);
+            if (with != null)
+                builder.append(with);
         }
+        builder.append(template.texts[template.placeHolders.length]);
 
-        return message;
+        return builder.toString();
+    }
+
+    private Template compileTemplate(String message) {
+        List<String> texts = new ArrayList<>();
+        List<CompiledPlaceholder> places = new ArrayList<>();
+
+        int last = 0;
+        Matcher match = placeholderPatern.matcher(message);
+        while (match.find()) {
+            JobsPlaceHolders place = JobsPlaceHolders.getByNameExact(match.group(2));
+            if (place == null)
+                continue;
+
+            texts.add(message.substring(last, match.start()));
+            places.add(new CompiledPlaceholder(place, match.group()));
+            last = match.end();
+        }
+        texts.add(message.substring(last));
+
+        return new Template(texts.toArray(new String[0]), places.toArray(new CompiledPlaceholder[0]));
+    }
+
+    /**
+     * Gets value of placeholder identifier without plugin prefix, as requested by PlaceholderAPI
+     */
+    public String getValue(Player player, String identifier) {
+        CompiledPlaceholder compiled = compiledPlaceholders.get(identifier);
+        if (compiled == null) {
+            compiled = new CompiledPlaceholder(JobsPlaceHolders.getByName(identifier), "%" + pref + "_" + identifier + "%");
+            if (compiledPlaceholders.size() >= COMPILED_LIMIT)
+                compiledPlaceholders.clear();
+            compiledPlaceholders.put(identifier, compiled);
+        }
+
+        if (compiled.placeHolder == null)
+            return null;
+
+        return getCachedValue(player != null ? player.getUniqueId() : null, compiled.placeHolder, compiled.full, compiled.values);
+    }
+
+    /**
+     * Drops cached placeholder values of player, so they are updated on next request
+     */
+    public void invalidate(UUID uuid) {
+        if (uuid != null)
+            playerValues.remove(uuid);
+    }
+
+    public void clearCache() {
+        playerValues.clear();
+        globalValues.clear();
+    }
+
+    /**
+     * Gets placeholder value from cache, or updates it once its cache time passed. Values of players are kept for
+     * shorter time than global values coming from top lists or database.
+     */
+    private String getCachedValue(UUID uuid, JobsPlaceHolders placeHolder, String value, List<String> complexValues) {
+        boolean global = placeHolder.isGlobal();
+        int cacheTime = global ? Jobs.getGCManager().PlaceholderCacheGlobalTime : Jobs.getGCManager().PlaceholderCachePlayerTime;
+        if (cacheTime <= 0 || !global && uuid == null)
+            return resolveValue(uuid, placeHolder, complexValues);
+
+        String key = placeHolder.isComplex() ? value : placeHolder.name();
+        if (key == null)
+            return resolveValue(uuid, placeHolder, complexValues);
+
+        Map<String, CachedValue> values = global ? globalValues : playerValues.computeIfAbsent(uuid, k -> new ConcurrentHashMap<>());
+
+        long now = System.currentTimeMillis();
+        CachedValue cached = values.get(key);
+        if (cached != null && now - cached.time < cacheTime)
+            return cached.value;
+
+        String result = resolveValue(uuid, placeHolder, complexValues);
+        values.put(key, new CachedValue(result, now));
+        return result;
     }
 
     public String getValue(Player player, JobsPlaceHolders placeHolder) {
@@ -429,6 +580,10 @@ public class Placeholder {
         if (placeHolder == null)
             return null;
 
+        return getCachedValue(uuid, placeHolder, value, placeHolder.getComplexValues(value));
+    }
+
+    private String resolveValue(UUID uuid, JobsPlaceHolders placeHolder, List<String> complexValues) {
         JobsPlayer user = uuid == null ? null : Jobs.getPlayerManager().getJobsPlayer(uuid);
         // Placeholders by JobsPlayer object
         if (user != null) {
@@ -479,6 +634,8 @@ public class Placeholder {
                 return user.getDisplayHonorific();
             case user_joinedjobcount:
                 return Integer.toString(user.getJobProgression().size());
+            case user_exploredchunks:
+                return Integer.toString(user.getExploredChunks().size());
             case user_archived_jobs:
                 return Integer.toString(user.getArchivedJobs().getArchivedJobs().size());
             case user_jobs:
@@ -525,7 +682,7 @@ public class Placeholder {
             }
 
             if (placeHolder.isComplex()) {
-                List<String> vals = placeHolder.getComplexValues(value);
+                List<String> vals = complexValues;
                 if (vals.isEmpty())
                     return "";
 
@@ -625,7 +782,7 @@ public class Placeholder {
                 if (player != null) {
                     switch (placeHolder) {
                     case user_canjoin_$1:
-                        List<String> values = placeHolder.getComplexValues(value);
+                        List<String> values = complexValues;
                         if (values.isEmpty())
                             return "";
 
@@ -653,7 +810,7 @@ public class Placeholder {
         }
 
         if (placeHolder.isComplex()) {
-            List<String> values = placeHolder.getComplexValues(value);
+            List<String> values = complexValues;
             if (values.isEmpty())
                 return "";
 
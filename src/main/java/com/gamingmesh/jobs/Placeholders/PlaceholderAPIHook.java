@@ -3,7 +3,6 @@ package com.gamingmesh.jobs.Placeholders;
 import org.bukkit.entity.Player;
 
 import com.gamingmesh.jobs.Jobs;
-import com.gamingmesh.jobs.Placeholders.Placeholder.JobsPlaceHolders;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 
@@ -17,8 +16,7 @@ public class PlaceholderAPIHook extends PlaceholderExpansion {
 
     @Override
     public String onPlaceholderRequest(Player player, String identifier) {
-	JobsPlaceHolders placeHolder = JobsPlaceHolders.getByName(identifier);
-	return plugin.getPlaceholderAPIManager().getValue(player, placeHolder, "%" + Placeholder.pref + "_" + identifier + "%");
+	return plugin.getPlaceholderAPIManager().getValue(player, identifier);
     }
 
     @Override
@@ -19,15 +19,19 @@
 package com.gamingmesh.jobs;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Color;
@@ -58,7 +62,8 @@ import com.gamingmesh.jobs.container.JobsPlayer;
 import com.gamingmesh.jobs.container.Log;
 import com.gamingmesh.jobs.container.PlayerInfo;
 import com.gamingmesh.jobs.container.PlayerPoints;
-import com.gamingmesh.jobs.dao.JobsDAO;
+import com.gamingmesh.jobs.container.RankingUpdater;
+import com.gamingmesh.jobs.dao.JobsStorage;
 import com.gamingmesh.jobs.dao.JobsDAOData;
 import com.gamingmesh.jobs.economy.PaymentData;
 import com.gamingmesh.jobs.hooks.JobsHook;
@@ -172,6 +177,40 @@ public class PlayerManager {
         playersUUID.remove(player.getUniqueId());
     }
 
+    /**
+     * @return ids of players loaded for playing, their data is not removed by database cleaning
+     */
+    public Set<Integer> getLoadedPlayerIds() {
+        Set<Integer> ids = new HashSet<>();
+        for (JobsPlayer jPlayer : playersUUID.values()) {
+            ids.add(jPlayer.getUserId());
+        }
+        return ids;
+    }
+
+    /**
+     * Drops preloaded data of players whose database rows were removed, so it is read again when they join
+     * 
+     * @param ids players ids
+     * @param removeInfo true if players themselves were removed from database
+     */
+    public void removeFromCache(Collection<Integer> ids, boolean removeInfo) {
+        for (Integer id : ids) {
+            PlayerInfo info = playerIdMap.get(id);
+            if (info == null || playersUUID.containsKey(info.getUuid()))
+                continue;
+
+            JobsPlayer jPlayer = playersUUIDCache.remove(info.getUuid());
+            if (jPlayer != null && jPlayer.getName() != null)
+                playersNameCache.remove(jPlayer.getName().toLowerCase(), jPlayer);
+
+            if (removeInfo) {
+                playerIdMap.remove(id);
+                playerUUIDMap.remove(info.getUuid(), info);
+            }
+        }
+    }
+
     public ConcurrentMap<UUID, JobsPlayer> getPlayersCache() {
         return playersUUIDCache;
     }
@@ -251,27 +290,49 @@ public class PlayerManager {
         JobsPlayer jPlayer = playersUUIDCache.get(player.getUniqueId());
 
         if (jPlayer == null || Jobs.getGCManager().MultiServerCompatability()) {
-            CompletableFuture<JobsPlayer> future = CompletableFuture.supplyAsync(() -> {
-                JobsPlayer jobsPlayer = playersUUIDCache.get(player.getUniqueId());
-                jobsPlayer = jobsPlayer == null ? new JobsPlayer(player) : jobsPlayer;
+            JobsPlayer jobsPlayer = jPlayer == null ? new JobsPlayer(player) : jPlayer;
 
-                return loadPlayer(jobsPlayer).join();
-            });
-
-            future.thenAccept(this::finalizeJoinPlayer);
+            // Loading is done on database thread, everything else is handed back to main thread
+            loadPlayer(jobsPlayer).thenAccept(loaded -> CMIScheduler.runTask(plugin, () -> finalizeJoinPlayer(loaded)));
         } else {
             finalizeJoinPlayer(jPlayer);
         }
     }
 
     private static CompletableFuture<JobsPlayer> loadPlayer(JobsPlayer old) {
-        return CompletableFuture.supplyAsync(() -> {
+        if (!Jobs.getGCManager().MultiServerCompatability())
+            return readPlayer(old);
+
+        long giveUpAt = System.currentTimeMillis() + Jobs.getGCManager().getMultiServerHandoffTimeout() * 1000L;
+        return claimPlayer(old, giveUpAt).thenCompose(v -> readPlayer(old));
+    }
+
+    /**
+     * Waits until server player came from has saved his data and released him
+     */
+    private static CompletableFuture<Void> claimPlayer(JobsPlayer jPlayer, long giveUpAt) {
+        boolean force = System.currentTimeMillis() >= giveUpAt;
+        if (force)
+            CMIMessages.consoleMessage("&e[Jobs] " + jPlayer.getName() + " was not released by other server in time, loading his data anyway");
+
+        return Jobs.getJobsDAO().supplyAsync(() -> Jobs.getJobsDAO().claimPlayer(jPlayer.getUniqueId(), force)).thenCompose(claimed -> {
+            if (claimed)
+                return CompletableFuture.completedFuture(null);
+            return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(250, TimeUnit.MILLISECONDS)).thenCompose(v -> claimPlayer(jPlayer, giveUpAt));
+        });
+    }
+
+    private static CompletableFuture<JobsPlayer> readPlayer(JobsPlayer old) {
+        return Jobs.getJobsDAO().supplyAsync(() -> {
             JobsPlayer jPlayer = Jobs.getJobsDAO().loadFromDao(old);
 
             if (Jobs.getGCManager().MultiServerCompatability()) {
                 jPlayer.setArchivedJobs(Jobs.getJobsDAO().getArchivedJobs(jPlayer));
                 jPlayer.setPaymentLimit(Jobs.getJobsDAO().getPlayersLimits(jPlayer));
                 jPlayer.setPoints(Jobs.getJobsDAO().getPlayerPoints(jPlayer));
+            } else if (!jPlayer.isPaymentLimitLoaded()) {
+                jPlayer.setPaymentLimit(Jobs.getJobsDAO().getPlayersLimits(jPlayer));
             }
 
             // Lets load quest progression
@@ -292,6 +353,7 @@ public class PlayerManager {
     private void finalizeJoinPlayer(JobsPlayer jPlayer) {
 
         addPlayer(jPlayer);
+        plugin.getPlaceholderAPIManager().invalidate(jPlayer.getUniqueId());
         autoJoinJobs(jPlayer.getPlayer());
         jPlayer.onConnect();
         jPlayer.reloadHonorific();
@@ -311,10 +373,15 @@ public class PlayerManager {
             return;
 
         jPlayer.onDisconnect();
+        plugin.getPlaceholderAPIManager().invalidate(jPlayer.getUniqueId());
         if (Jobs.getGCManager().saveOnDisconnect() || Jobs.getGCManager().MultiServerCompatability()) {
             jPlayer.setSaved(false);
             jPlayer.save(true);
         }
+
+        // Queued after save, so next server loads player only after his data is written
+        if (Jobs.getGCManager().MultiServerCompatability())
+            Jobs.getJobsDAO().releasePlayerAsync(jPlayer.getUniqueId());
     }
 
     /**
@@ -359,7 +426,7 @@ public class PlayerManager {
             if (resetID)
                 jPlayer.setUserId(-1);
 
-            JobsDAO dao = Jobs.getJobsDAO();
+            JobsStorage dao = Jobs.getJobsDAO();
             dao.updateSeen(jPlayer);
 
             if (!resetID && jPlayer.getUserId() == -1)
@@ -454,12 +521,14 @@ public class PlayerManager {
                     // Fixing issue with doubled jobs. Picking bigger job by level or exp
                     JobProgression oldProg = jPlayer.getJobProgression(job);
                     if (oldProg != null && (oldProg.getLevel() > jobdata.getLevel() || oldProg.getLevel() == jobdata.getLevel() && oldProg.getExperience() > jobdata.getExperience())) {
-                        Jobs.getDBManager().getDB().removeSpecificJob(jPlayer.getUserId(), job.getName(), job.getJobFullName(), jobdata.getLevel(), jobdata.getExperience());
+                        Jobs.getDBManager().getDB().removeSpecificJobAsync(jPlayer.getUserId(), job.getName(), job.getJobFullName(), jobdata.getLevel(), jobdata.getExperience());
                         CMIMessages.consoleMessage("Cleaned up duplicated jobs record for " + jPlayer.getName() + " Job:" + jobdata.getJobName() + " Level:" + jobdata.getLevel());
                         continue;
                     }
 
-                    jPlayer.progression.add(new JobProgression(job, jPlayer, jobdata.getLevel(), jobdata.getExperience()));
+                    JobProgression prog = new JobProgression(job, jPlayer, jobdata.getLevel(), jobdata.getExperience());
+                    prog.setSynced(jobdata.getLevel(), jobdata.getExperience(), jobdata.getVersion());
+                    jPlayer.progression.add(prog);
                 }
             }
             jPlayer.reloadMaxExperience();
@@ -562,14 +631,13 @@ public class PlayerManager {
         if (jobsLeaveEvent.isCancelled())
             return false;
 
-        Jobs.getJobsDAO().recordToArchive(jPlayer, job);
+        Jobs.getJobsDAO().recordToArchiveAsync(jPlayer, job);
 
         // let the user leave the job
         if (!jPlayer.leaveJob(job))
             return false;
 
-        if (!Jobs.getJobsDAO().quitJob(jPlayer, job))
-            return false;
+        Jobs.getJobsDAO().quitJobAsync(jPlayer, job);
 
         performCommandsOnLeave(jPlayer, job);
         Jobs.leaveSlot(job);
@@ -606,13 +674,15 @@ public class PlayerManager {
      * @param newjob - the new job
      */
     public boolean transferJob(JobsPlayer jPlayer, Job oldjob, Job newjob) {
-        if (!jPlayer.transferJob(oldjob, newjob) || !Jobs.getJobsDAO().quitJob(jPlayer, oldjob))
+        if (!jPlayer.transferJob(oldjob, newjob))
             return false;
 
+        // Database thread keeps these in order, quit is always done before join
+        Jobs.getJobsDAO().quitJobAsync(jPlayer, oldjob);
         oldjob.modifyTotalPlayerWorking(-1);
         Jobs.getJobsDAO().joinJob(jPlayer, jPlayer.getJobProgression(newjob));
         newjob.modifyTotalPlayerWorking(1);
-        jPlayer.save();
+        jPlayer.saveAsync();
         return true;
     }
 
@@ -643,7 +713,7 @@ public class PlayerManager {
 
         jPlayer.promoteJob(job, levels);
 
-        jPlayer.save();
+        jPlayer.saveAsync();
 
         Jobs.getSignUtil().updateAllSign(job);
     }
@@ -657,7 +727,7 @@ public class PlayerManager {
      */
     public void demoteJob(JobsPlayer jPlayer, Job job, int levels) {
         jPlayer.demoteJob(job, levels);
-        jPlayer.save();
+        jPlayer.saveAsync();
 
         Jobs.getSignUtil().updateAllSign(job);
     }
@@ -684,7 +754,7 @@ public class PlayerManager {
             Jobs.getSignUtil().updateAllSign(job);
         }
 
-        jPlayer.save();
+        jPlayer.saveAsync();
     }
 
     /**
@@ -704,7 +774,7 @@ public class PlayerManager {
 
         prog.addExperience(-experience);
 
-        jPlayer.save();
+        jPlayer.saveAsync();
         Jobs.getSignUtil().updateAllSign(job);
     }
 
@@ -720,6 +790,8 @@ public class PlayerManager {
         if (prog == null)
             return;
 
+        plugin.getPlaceholderAPIManager().invalidate(jPlayer.getUniqueId());
+
         Player player = jPlayer.getPlayer();
 
         // when the player loses income
@@ -1026,6 +1098,8 @@ public class PlayerManager {
                 Jobs.getPermissionHandler().recalculatePermissions(jPlayer);
             }
         }
+
+        RankingUpdater.reload();
     }
 
     private final Map<UUID, Map<Job, BoostMultiplier>> cache = new HashMap<>();
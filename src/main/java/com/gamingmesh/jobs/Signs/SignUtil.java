@@ -4,10 +4,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Location;
 import org.bukkit.block.Block;
@@ -19,9 +20,10 @@ import org.bukkit.configuration.file.YamlConfiguration;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.container.Job;
+import com.gamingmesh.jobs.container.JobsQuestTop;
+import com.gamingmesh.jobs.container.JobsTop;
 import com.gamingmesh.jobs.container.TopList;
 
-import net.Zrips.CMILib.Container.CMINumber;
 import net.Zrips.CMILib.FileHandler.ConfigReader;
 import net.Zrips.CMILib.Messages.CMIMessages;
 import net.Zrips.CMILib.Version.Version;
@@ -30,8 +32,16 @@ import net.Zrips.CMILib.Version.Schedulers.CMITask;
 
 public class SignUtil {
 
+    // Rendered value of sign which has no ranking entry to show, its lines are left as they are
+    private static final long EMPTY_RENDER = Long.MIN_VALUE;
+
     private final Map<String, Map<String, jobsSign>> signsByType = new HashMap<>();
     private final Map<String, jobsSign> signsByLocation = new HashMap<>();
+    // Global ranking versions signs of each global type were last rendered from
+    private final Map<String, Integer> renderedVersions = new HashMap<>();
+    // Signs with changed lines or heads by location, in order they were changed
+    private final Map<String, jobsSign> pendingWrites = new LinkedHashMap<>();
+    private CMITask writeTask = null;
 
     private Jobs plugin;
 
@@ -85,6 +95,8 @@ public class SignUtil {
 
         signsByType.clear();
         signsByLocation.clear();
+        renderedVersions.clear();
+        pendingWrites.clear();
 
         File file = new File(Jobs.getFolder(), "Signs.yml");
         ConfigurationSection confCategory = YamlConfiguration.loadConfiguration(file).getConfigurationSection("Signs");
@@ -173,6 +185,16 @@ public class SignUtil {
         }
     }
 
+    /**
+     * Makes all signs to be rendered and written again with their next update
+     */
+    public void clearRendered() {
+        renderedVersions.clear();
+        for (jobsSign jSign : signsByLocation.values()) {
+            jSign.clearRendered();
+        }
+    }
+
     public void updateAllSign(Job job) {
         for (SignTopType types : SignTopType.values()) {
             if (types != SignTopType.questtoplist)
@@ -201,35 +223,31 @@ public class SignUtil {
 
         switch (type) {
         case gtoplist:
-            playerList = Jobs.getJobsDAO().getGlobalTopList();
-            break;
         case questtoplist:
-            playerList = Jobs.getJobsDAO().getQuestTopList();
+            int version = type == SignTopType.gtoplist ? JobsTop.getGlobalVersion() : JobsQuestTop.getGlobalVersion();
+            Integer rendered = renderedVersions.put(jobNameOrType, version);
+            // Nothing to do if global ranking did not change since signs were rendered, unless there are new signs
+            if (rendered != null && rendered == version && signs.values().stream().allMatch(one -> one.getLines() != null))
+                return true;
+
+            playerList = type == SignTopType.gtoplist ? Jobs.getJobsDAO().getGlobalTopList() : Jobs.getJobsDAO().getQuestTopList();
             break;
         default:
             break;
         }
 
-        int timelapse = 1;
-
         Map<String, List<TopList>> temp = new HashMap<>();
 
         boolean save = false;
-        for (jobsSign jSign : new HashMap<>(signs).values()) {
+        for (jobsSign jSign : new ArrayList<>(signs.values())) {
             Location loc = jSign.getLocation();
             if (loc == null)
                 continue;
 
-            Block block = loc.getBlock();
-            if (!(block.getState() instanceof Sign)) {
-                if (!jobNameOrType.isEmpty()) {
-                    Map<String, jobsSign> tt = signsByType.get(jobNameOrType);
-                    if (tt != null) {
-                        tt.remove(jSign.locToBlockString());
-                    }
-                }
-
-                signsByLocation.remove(jSign.locToBlockString());
+            // Checked here too, as sign which did not change is not written again
+            if (!(loc.getBlock().getState() instanceof Sign)) {
+                removeBrokenSign(jSign);
+                pendingWrites.remove(jSign.locToBlockString());
                 save = true;
                 continue;
             }
@@ -240,28 +258,36 @@ public class SignUtil {
                 temp.put(signJobName, playerList);
             }
 
-            if (Jobs.getJob(jSign.getJobName()) != null)
-                signJobName = Jobs.getJob(jSign.getJobName()).getDisplayName();
+            Job signJob = Jobs.getJob(jSign.getJobName());
+            if (signJob != null)
+                signJobName = signJob.getDisplayName();
 
-            if (playerList.isEmpty())
+            if (playerList.isEmpty() || jSign.isSpecial() && jSign.getNumber() > playerList.size()) {
+                // Marked as rendered, so global signs are not rendered again with every update
+                if (jSign.getLines() == null || jSign.getRendered() != EMPTY_RENDER)
+                    jSign.setRendered(EMPTY_RENDER, new String[4], null);
                 continue;
+            }
 
             int number = jSign.getNumber() - 1;
-            Sign sign = (Sign) block.getState();
+
+            // Lines are made again only when ranking entries shown on sign changed
+            long rendered = jSign.isSpecial() ? fingerprint(playerList, number, 1, signJobName) : fingerprint(playerList, number, 4, signJobName);
+            if (jSign.getLines() != null && jSign.getRendered() == rendered)
+                continue;
+
+            String[] lines = new String[4];
+            String head;
 
             if (!jSign.isSpecial()) {
                 for (int i = 0; i < 4; i++) {
                     if (i + number >= playerList.size()) {
-                        plugin.getComplement().setLine(sign, i, "");
+                        lines[i] = "";
                         continue;
                     }
 
                     TopList pl = playerList.get(i + number);
-                    String playerName = Jobs.getPlayerManager().getJobsPlayer(pl.getUuid()).getName();
-                    if (playerName.length() > 15) {
-                        // We need to split 10 char of name, because of sign rows
-                        playerName = playerName.split("(?<=\\G.{10})", 2)[0] + "~";
-                    }
+                    String playerName = getSignName(pl);
 
                     String line = "";
                     switch (type) {
@@ -277,45 +303,35 @@ public class SignUtil {
                     }
 
                     if (!line.isEmpty())
-                        sign.setLine(i, line);
-                }
-                sign.update();
-                if (!updateHead(sign, Jobs.getPlayerManager().getJobsPlayer(playerList.get(0).getUuid()).getName(), timelapse)) {
-                    timelapse--;
+                        lines[i] = line;
                 }
+                head = Jobs.getPlayerManager().getJobsPlayer(playerList.get(0).getUuid()).getName();
             } else {
-                if (jSign.getNumber() > playerList.size())
-                    continue;
-
-                TopList pl = playerList.get(jSign.getNumber() - 1);
-                String playerName = Jobs.getPlayerManager().getJobsPlayer(pl.getUuid()).getName();
-                if (playerName.length() > 15) {
-                    playerName = playerName.split("(?<=\\G.{10})", 2)[0] + "~";
-                }
+                TopList pl = playerList.get(number);
+                String playerName = getSignName(pl);
 
                 int no = jSign.getNumber() + number + 1;
-                sign.setLine(0, translateSignLine("signs.SpecialList.p" + jSign.getNumber(), no, playerName, pl.getLevel(), signJobName));
-                sign.setLine(1, translateSignLine("signs.SpecialList.name", no, playerName, pl.getLevel(), signJobName));
+                lines[0] = translateSignLine("signs.SpecialList.p" + jSign.getNumber(), no, playerName, pl.getLevel(), signJobName);
+                lines[1] = translateSignLine("signs.SpecialList.name", no, playerName, pl.getLevel(), signJobName);
 
                 switch (type) {
                 case toplist:
                 case gtoplist:
-                    sign.setLine(2, translateSignLine("signs.SpecialList.level", no, playerName, pl.getLevel(), signJobName));
+                    lines[2] = translateSignLine("signs.SpecialList.level", no, playerName, pl.getLevel(), signJobName);
                     break;
                 case questtoplist:
-                    sign.setLine(2, Jobs.getLanguage().getMessage("signs.SpecialList.quests", "[number]", no, "[player]", playerName, "[quests]", pl.getLevel(), "[job]", signJobName));
+                    lines[2] = Jobs.getLanguage().getMessage("signs.SpecialList.quests", "[number]", no, "[player]", playerName, "[quests]", pl.getLevel(), "[job]", signJobName);
                     break;
                 default:
                     break;
                 }
 
-                sign.setLine(3, translateSignLine("signs.SpecialList.bottom", no, playerName, pl.getLevel(), signJobName));
-                sign.update();
-                if (!updateHead(sign, Jobs.getPlayerManager().getJobsPlayer(pl.getUuid()).getName(), timelapse)) {
-                    timelapse--;
-                }
+                lines[3] = translateSignLine("signs.SpecialList.bottom", no, playerName, pl.getLevel(), signJobName);
+                head = Jobs.getPlayerManager().getJobsPlayer(pl.getUuid()).getName();
             }
-            timelapse++;
+
+            jSign.setRendered(rendered, lines, head);
+            queueWrite(jSign);
         }
 
         if (save)
@@ -324,6 +340,110 @@ public class SignUtil {
         return true;
     }
 
+    /**
+     * Forgets sign which block is no longer a sign
+     */
+    private void removeBrokenSign(jobsSign jSign) {
+        Map<String, jobsSign> sub = signsByType.get(jSign.getIdentifier().toLowerCase());
+        if (sub != null)
+            sub.remove(jSign.locToBlockString());
+        signsByLocation.remove(jSign.locToBlockString());
+    }
+
+    private static String getSignName(TopList pl) {
+        String playerName = Jobs.getPlayerManager().getJobsPlayer(pl.getUuid()).getName();
+        if (playerName.length() > 15) {
+            // We need to split 10 char of name, because of sign rows
+            playerName = playerName.split("(?<=\\G.{10})", 2)[0] + "~";
+        }
+        return playerName;
+    }
+
+    /**
+     * Combines ranking entries shown on sign, including first entry which is shown as head
+     */
+    private static long fingerprint(List<TopList> playerList, int from, int count, String jobName) {
+        long hash = jobName == null ? 0 : jobName.hashCode();
+        hash = hash * 31 + playerList.get(0).getUuid().hashCode();
+        for (int i = from; i < from + count; i++) {
+            if (i >= playerList.size()) {
+                hash = hash * 31 - 1;
+                continue;
+            }
+            TopList pl = playerList.get(i);
+            hash = (hash * 31 + pl.getUuid().hashCode()) * 31 + pl.getLevel();
+        }
+        return hash;
+    }
+
+    /**
+     * Queues sign to be written, sign queued again before it was written is written once
+     */
+    private void queueWrite(jobsSign jSign) {
+        pendingWrites.put(jSign.locToBlockString(), jSign);
+
+        if (writeTask == null)
+            writeTask = CMIScheduler.scheduleSyncRepeatingTask(plugin, this::writeSigns, 1L, 1L);
+    }
+
+    /**
+     * Writes changed lines and heads of queued signs, limited amount of block updates each tick
+     */
+    private void writeSigns() {
+        int budget = Jobs.getGCManager().SignUpdatesPerTick;
+        boolean save = false;
+
+        Iterator<jobsSign> iterator = pendingWrites.values().iterator();
+        while (budget > 0 && iterator.hasNext()) {
+            jobsSign jSign = iterator.next();
+            iterator.remove();
+
+            Location loc = jSign.getLocation();
+            if (loc == null)
+                continue;
+
+            Block block = loc.getBlock();
+            if (!(block.getState() instanceof Sign)) {
+                removeBrokenSign(jSign);
+                save = true;
+                continue;
+            }
+
+            Sign sign = (Sign) block.getState();
+            String[] lines = jSign.getLines();
+            String[] written = jSign.getWrittenLines();
+
+            boolean changed = false;
+            for (int i = 0; i < 4; i++) {
+                if (lines[i] == null || lines[i].equals(written[i]))
+                    continue;
+                plugin.getComplement().setLine(sign, i, lines[i]);
+                written[i] = lines[i];
+                changed = true;
+            }
+
+            if (changed) {
+                sign.update();
+                budget--;
+            }
+
+            String head = jSign.getHead();
+            if (head != null && !head.equals(jSign.getWrittenHead())) {
+                updateHead(sign, head);
+                jSign.setWrittenHead(head);
+                budget--;
+            }
+        }
+
+        if (save)
+            saveSigns();
+
+        if (pendingWrites.isEmpty() && writeTask != null) {
+            writeTask.cancel();
+            writeTask = null;
+        }
+    }
+
     private static String translateSignLine(String path, int number, String playerName, int level, String jobname) {
         return Jobs.getLanguage().getMessage(path,
             "[number]", number,
@@ -332,21 +452,8 @@ public class SignUtil {
             "[job]", jobname);
     }
 
-    private ConcurrentHashMap<Sign, CMITask> signTasks = new ConcurrentHashMap<Sign, CMITask>();
-
     @SuppressWarnings("deprecation")
-    public boolean updateHead(final Sign sign, final String playerName, int timelapse) {
-        if (playerName == null)
-            return false;
-
-        if (timelapse < 1) {
-            timelapse = 1;
-        }
-
-        CMITask existingTask = signTasks.get(sign);
-        if (existingTask != null)
-            return true;
-
+    private static Location getHeadLocation(Sign sign) {
         BlockFace directionFacing = null;
         if (Version.isCurrentEqualOrLower(Version.v1_13_R2)) {
             org.bukkit.material.Sign signMat = (org.bukkit.material.Sign) sign.getData();
@@ -358,28 +465,28 @@ public class SignUtil {
                 directionFacing = ((org.bukkit.block.data.type.Sign) sign.getBlockData()).getRotation();
         }
 
-        final Location loc = sign.getLocation().clone();
+        Location loc = sign.getLocation().clone();
         loc.add(0, 1, 0);
 
         if (directionFacing != null && !(loc.getBlock().getState() instanceof Skull))
             loc.add(directionFacing.getOppositeFace().getModX(), 0, directionFacing.getOppositeFace().getModZ());
+        return loc;
+    }
 
-        // Limit time to max 60 seconds
-        long timeFrame = CMINumber.clamp(timelapse * Jobs.getGCManager().InfoUpdateInterval, 0, 60);
-
-        signTasks.put(sign, CMIScheduler.runTaskLater(plugin, () -> {
-            if (!(loc.getBlock().getState() instanceof Skull))
-                return;
-
-            Skull skull = (Skull) loc.getBlock().getState();
-            if (playerName.equalsIgnoreCase(skull.getOwner()))
-                return;
+    /**
+     * Sets owner of head above sign right away
+     */
+    @SuppressWarnings("deprecation")
+    private static void updateHead(Sign sign, String playerName) {
+        Location loc = getHeadLocation(sign);
+        if (!(loc.getBlock().getState() instanceof Skull))
+            return;
 
-            skull.setOwner(playerName);
-            skull.update();
+        Skull skull = (Skull) loc.getBlock().getState();
+        if (playerName.equalsIgnoreCase(skull.getOwner()))
+            return;
 
-            signTasks.remove(sign);
-        }, timeFrame * 20L));
-        return true;
+        skull.setOwner(playerName);
+        skull.update();
     }
 }
@@ -23,6 +23,13 @@ public class jobsSign {
     private boolean special = false;
     private SignTopType type;
 
+    // Ranking entries sign was last rendered from, lines and head made from them and ones already written into world
+    private long rendered = 0;
+    private String[] lines = null;
+    private String head = null;
+    private final String[] writtenLines = new String[4];
+    private String writtenHead = null;
+
     public void setSpecial(boolean special) {
         this.special = special;
     }
@@ -132,6 +139,52 @@ public class jobsSign {
         setLoc(new Location(world, x, y, z));
     }
 
+    public long getRendered() {
+        return rendered;
+    }
+
+    /**
+     * @return lines sign should show, null line is left as it is, or null if sign was not rendered yet
+     */
+    public String[] getLines() {
+        return lines;
+    }
+
+    public String getHead() {
+        return head;
+    }
+
+    public void setRendered(long rendered, String[] lines, String head) {
+        this.rendered = rendered;
+        this.lines = lines;
+        this.head = head;
+    }
+
+    public String[] getWrittenLines() {
+        return writtenLines;
+    }
+
+    public String getWrittenHead() {
+        return writtenHead;
+    }
+
+    public void setWrittenHead(String writtenHead) {
+        this.writtenHead = writtenHead;
+    }
+
+    /**
+     * Forgets rendered and written state, so sign is written fully with next update
+     */
+    public void clearRendered() {
+        rendered = 0;
+        lines = null;
+        head = null;
+        writtenHead = null;
+        for (int i = 0; i < writtenLines.length; i++) {
+            writtenLines[i] = null;
+        }
+    }
+
     public SignTopType getType() {
         return type == null ? SignTopType.toplist : type;
     }
@@ -0,0 +1,35 @@
+package com.gamingmesh.jobs.commands.list;
+
+import org.bukkit.command.CommandSender;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.commands.Cmd;
+import com.gamingmesh.jobs.config.BlockProtectionManager;
+import com.gamingmesh.jobs.config.ExploitProtectionManager;
+import com.gamingmesh.jobs.config.ProtectionCacheManager;
+import com.gamingmesh.jobs.i18n.Language;
+
+public class cache implements Cmd {
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Boolean perform(Jobs plugin, final CommandSender sender, final String[] args) {
+
+        ExploitProtectionManager exploit = Jobs.getExploitManager();
+        BlockProtectionManager bp = Jobs.getBpManager();
+
+        Language.sendMessage(sender, "command.cache.output.chunks", "[chunks]", exploit.getChunkCount(), "[entries]", exploit.getSize(),
+            "[dirty]", exploit.getDirtyCount());
+        Language.sendMessage(sender, "command.cache.output.regions", "[regions]", bp.getLoadedRegionCount(), "[evicted]", bp.getEvictedRegionCount(),
+            "[entries]", bp.getSize(), "[pending]", bp.getPendingSize());
+
+        long budget = ProtectionCacheManager.getBudget();
+        Language.sendMessage(sender, "command.cache.output.memory", "[used]", toMegabytes(ProtectionCacheManager.getMemoryUsage()),
+            "[max]", budget <= 0 ? "-" : toMegabytes(budget));
+        return true;
+    }
+
+    private static String toMegabytes(long bytes) {
+        return String.format("%.2f", bytes / 1024D / 1024D);
+    }
+}
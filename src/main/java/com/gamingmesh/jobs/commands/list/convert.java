@@ -24,12 +24,13 @@ public class convert implements Cmd {
             return false;
         }
 
-        String from = Jobs.getDBManager().getDbType() == DataBaseType.SqLite ? "SQLite" : "MySQL";
-        String to = Jobs.getDBManager().getDbType() == DataBaseType.SqLite ? "MySQL" : "SQLite";
+        DataBaseType type = Jobs.getDBManager().getDbType();
+        String from = type == DataBaseType.SqLite ? "SQLite" : type == DataBaseType.MySQL ? "MySQL" : "embedded storage";
+        String to = type == DataBaseType.SqLite ? "MySQL" : "SQLite";
 
         CMIScheduler.runTaskAsynchronously(plugin, () -> {
-            Jobs.convertDatabase();
-            CMIMessages.consoleMessage("&eDatabase was converted from &2" + from + " &eto &2" + to + "&e!");
+            if (Jobs.convertDatabase())
+                CMIMessages.consoleMessage("&eDatabase was converted from &2" + from + " &eto &2" + to + "&e!");
         });
 
         return true;
@@ -61,7 +61,7 @@ public class editpoints implements Cmd {
             break;
         }
 
-        Jobs.getJobsDAO().savePoints(jPlayer);
+        Jobs.getJobsDAO().savePointsAsync(jPlayer);
         return true;
     }
 }
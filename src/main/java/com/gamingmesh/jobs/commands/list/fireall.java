@@ -27,11 +27,11 @@ public class fireall implements Cmd {
                 return true;
             }
 
-            Jobs.getDBManager().getDB().truncate(DBTables.JobsTable.getTableName());
+            Jobs.getDBManager().getDB().runAsync(() -> Jobs.getDBManager().getDB().truncate(DBTables.JobsTable.getTableName()));
 
             for (JobsPlayer one : Jobs.getPlayerManager().getPlayersCache().values()) {
                 for (JobProgression job : one.getJobProgression()) {
-                    Jobs.getJobsDAO().recordToArchive(one, job.getJob());
+                    Jobs.getJobsDAO().recordToArchiveAsync(one, job.getJob());
                 }
                 one.leaveAllJobs();
                 // No need to save as we are clearing database with more efficient method
@@ -1,12 +1,15 @@
 package com.gamingmesh.jobs.commands.list;
 
 import java.text.NumberFormat;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.commands.Cmd;
@@ -15,25 +18,53 @@ import com.gamingmesh.jobs.container.JobsPlayer;
 import com.gamingmesh.jobs.container.Log;
 import com.gamingmesh.jobs.container.LogAmounts;
 import com.gamingmesh.jobs.container.PlayerInfo;
+import com.gamingmesh.jobs.dao.JobsDAO;
 import com.gamingmesh.jobs.i18n.Language;
 import com.gamingmesh.jobs.stuff.Sorting;
 
 import net.Zrips.CMILib.Time.CMITimeManager;
-import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
 
 public class glog implements Cmd {
 
     @Override
     public Boolean perform(Jobs plugin, final CommandSender sender, final String[] args) {
-        if (args.length != 0) {
-            return false;
+        int days = 0;
+        for (String one : args) {
+            if (!one.startsWith("-d:"))
+                return false;
+            try {
+                days = Integer.parseInt(one.substring("-d:".length()));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        final int period = days;
+
+        // Entries gained since last save are only in memory, database result is completed with them
+        Map<Integer, Map<String, Log>> unsaved = new HashMap<>();
+        if (period > 1) {
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                JobsPlayer jPlayer = Jobs.getPlayerManager().getJobsPlayer(online);
+                if (jPlayer != null)
+                    unsaved.put(jPlayer.getUserId(), Jobs.getLoging().getUnsavedLog(jPlayer));
+            }
         }
 
-        CMIScheduler.runTaskAsynchronously(plugin, () -> {
+        Jobs.getJobsDAO().runAsync(() -> {
             Map<LogAmounts, Double> unsortMap = new HashMap<>();
             int time = CMITimeManager.timeInInt();
 
-            for (Integer oneP : Jobs.getJobsDAO().getLognameList(time, time)) {
+            // Older entries are rolled up in database, so we need to sum them up from there
+            Map<Integer, Map<String, Log>> logs = null;
+            if (period > 1) {
+                logs = Jobs.getJobsDAO().getGlobalLog(JobsDAO.toLogTime(LocalDate.now().minusDays(period - 1)));
+                for (Entry<Integer, Map<String, Log>> one : unsaved.entrySet()) {
+                    Jobs.getLoging().addToLog(logs.computeIfAbsent(one.getKey(), k -> new HashMap<>()), one.getValue());
+                }
+            }
+
+            for (Integer oneP : logs != null ? logs.keySet() : Jobs.getJobsDAO().getLognameList(time, time)) {
                 PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(oneP);
                 if (info == null)
                     continue;
@@ -42,11 +73,15 @@ public class glog implements Cmd {
                 if (name == null)
                     continue;
 
-                JobsPlayer jPlayer = Jobs.getPlayerManager().getJobsPlayer(info.getUuid());
-                if (jPlayer == null)
-                    continue;
+                Map<String, Log> logList = null;
+                if (logs != null) {
+                    logList = logs.get(oneP);
+                } else {
+                    JobsPlayer jPlayer = Jobs.getPlayerManager().getJobsPlayer(info.getUuid());
+                    if (jPlayer != null)
+                        logList = Jobs.getLoging().copyLog(jPlayer);
+                }
 
-                Map<String, Log> logList = jPlayer.getLog();
                 if (logList == null || logList.isEmpty())
                     continue;
 
@@ -1,6 +1,7 @@
 package com.gamingmesh.jobs.commands.list;
 
 import java.text.NumberFormat;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -15,6 +16,7 @@ import com.gamingmesh.jobs.container.CurrencyType;
 import com.gamingmesh.jobs.container.JobsPlayer;
 import com.gamingmesh.jobs.container.Log;
 import com.gamingmesh.jobs.container.LogAmounts;
+import com.gamingmesh.jobs.dao.JobsDAO;
 import com.gamingmesh.jobs.i18n.Language;
 
 import net.Zrips.CMILib.Container.CMISort;
@@ -25,23 +27,35 @@ public class log implements Cmd {
 
     @Override
     public Boolean perform(Jobs plugin, final CommandSender sender, final String[] args) {
-        if (!(sender instanceof Player) && args.length != 1) {
-            CMIMessages.sendMessage(sender, LC.info_Ingame);
-            return null;
+        int days = 0;
+        String playerName = null;
+        for (String one : args) {
+            if (one.startsWith("-d:")) {
+                try {
+                    days = Integer.parseInt(one.substring("-d:".length()));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                continue;
+            }
+            if (playerName != null)
+                return false;
+            playerName = one;
         }
 
-        if (args.length != 1 && args.length != 0) {
-            return false;
+        if (!(sender instanceof Player) && playerName == null) {
+            CMIMessages.sendMessage(sender, LC.info_Ingame);
+            return null;
         }
 
         JobsPlayer JPlayer = null;
-        if (args.length == 0)
+        if (playerName == null)
             JPlayer = Jobs.getPlayerManager().getJobsPlayer((Player) sender);
-        else if (args.length == 1) {
+        else {
             if (!Jobs.hasPermission(sender, "jobs.command.log.others", true))
                 return null;
 
-            JPlayer = Jobs.getPlayerManager().getJobsPlayer(args[0]);
+            JPlayer = Jobs.getPlayerManager().getJobsPlayer(playerName);
         }
 
         if (JPlayer == null) {
@@ -49,12 +63,29 @@ public class log implements Cmd {
             return true;
         }
 
-        Map<String, Log> logList = JPlayer.getLog();
+        if (days <= 1) {
+            sendLog(sender, JPlayer, JPlayer.getLog());
+            return true;
+        }
+
+        // Older entries are rolled up in database, so we need to sum them up from there
+        final JobsPlayer target = JPlayer;
+        final int fromTime = JobsDAO.toLogTime(LocalDate.now().minusDays(days - 1));
+        final Map<String, Log> unsaved = Jobs.getLoging().getUnsavedLog(target);
+        Jobs.getJobsDAO().runAsync(() -> {
+            Map<String, Log> logList = Jobs.getJobsDAO().getPlayerLog(target.getUserId(), fromTime);
+            Jobs.getLoging().addToLog(logList, unsaved);
+            sendLog(sender, target, logList);
+        });
+        return true;
+    }
+
+    private static void sendLog(CommandSender sender, JobsPlayer JPlayer, Map<String, Log> logList) {
         if (logList == null || logList.isEmpty()) {
             Language.sendMessage(sender, "command.log.output.bottomline");
             Language.sendMessage(sender, "command.log.output.nodata");
             Language.sendMessage(sender, "command.log.output.bottomline");
-            return true;
+            return;
         }
 
         Map<String, Double> unsortMap = new HashMap<>();
@@ -68,7 +99,7 @@ public class log implements Cmd {
         unsortMap = CMISort.sortDoubleDESC(unsortMap);
         if (unsortMap.isEmpty()) {
             Language.sendMessage(sender, "command.log.output.nodata");
-            return true;
+            return;
         }
 
         int count = 0;
@@ -131,6 +162,5 @@ public class log implements Cmd {
         }
 
         Language.sendMessage(sender, "command.log.output.bottomline");
-        return true;
     }
 }
@@ -4,6 +4,7 @@ import org.bukkit.command.CommandSender;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.commands.Cmd;
+import com.gamingmesh.jobs.container.ExploredChunks;
 import com.gamingmesh.jobs.i18n.Language;
 
 public class resetexploreregion implements Cmd {
@@ -32,6 +33,7 @@ public class resetexploreregion implements Cmd {
             Jobs.getChunkExplorationManager().resetRegion(worldName);
         } else
             Jobs.getExploreManager().resetRegion(worldName);
+        ExploredChunks.reset(worldName);
         Language.sendMessage(sender, "command.resetexploreregion.output.reseted", "%worldname%", worldName);
         return true;
     }
@@ -19,7 +19,7 @@ public class resetlimit implements Cmd {
             for (JobsPlayer jPlayer : Jobs.getPlayerManager().getPlayersCache().values()) {
                 jPlayer.nullPaymentLimits();
             }
-            Jobs.getDBManager().getDB().clearLimitsTable();
+            Jobs.getDBManager().getDB().clearLimitsTableAsync();
             Language.sendMessage(sender, "command.resetlimit.output.reseted", "%playername%", "", "%playerdisplayname%", "");
             return true;
         }
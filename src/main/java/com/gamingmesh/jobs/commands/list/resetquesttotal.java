@@ -31,7 +31,7 @@ public class resetquesttotal implements Cmd {
             for (Entry<UUID, JobsPlayer> pl : Jobs.getPlayerManager().getPlayersCache().entrySet()) {
                 pl.getValue().setDoneQuests(0);
             }
-            Jobs.getJobsDAO().resetDoneQuests();
+            Jobs.getJobsDAO().resetDoneQuestsAsync();
             Language.sendMessage(sender,"command.resetquesttotal.output.reseted", "%playername%", Jobs.getPlayerManager().getPlayersCache().size());
             return true;
         }
@@ -58,7 +58,7 @@ public class resetquesttotal implements Cmd {
 
         jPlayer.setDoneQuests(0);
         jPlayer.setSaved(false);
-        jPlayer.save();
+        jPlayer.saveAsync();
         Language.sendMessage(sender,"command.resetquesttotal.output.reseted", "%playername%", jPlayer.getName(), "%playerdisplayname%", jPlayer.getDisplayName());
         return true;
     }
@@ -23,6 +23,9 @@ public class signupdate implements Cmd {
             return false;
         }
 
+        // Manual update writes signs even if their rankings did not change
+        Jobs.getSignUtil().clearRendered();
+
         if (args[0].equalsIgnoreCase("all")) {
             Jobs.getJobs().forEach(Jobs.getSignUtil()::signUpdate);
             return true;
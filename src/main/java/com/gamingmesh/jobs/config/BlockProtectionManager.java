@@ -1,9 +1,15 @@
 package com.gamingmesh.jobs.config;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Block;
@@ -12,32 +18,94 @@ import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.container.ActionInfo;
 import com.gamingmesh.jobs.container.ActionType;
 import com.gamingmesh.jobs.container.BlockProtection;
+import com.gamingmesh.jobs.container.BlockProtectionMap;
 import com.gamingmesh.jobs.container.DBAction;
 import com.gamingmesh.jobs.container.JobsPlayer;
+import com.gamingmesh.jobs.container.LongHashMap;
+import com.gamingmesh.jobs.container.TimingWheel;
 
 import net.Zrips.CMILib.ActionBar.CMIActionBar;
 import net.Zrips.CMILib.Container.CMIBlock;
 import net.Zrips.CMILib.Container.CMIBlock.Bisect;
 import net.Zrips.CMILib.Items.CMIMaterial;
 import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
+import net.Zrips.CMILib.Version.Schedulers.CMITask;
 
 public class BlockProtectionManager {
 
-    private final HashMap<World, HashMap<String, HashMap<String, HashMap<String, BlockProtection>>>> map = new HashMap<>();
-    private final ConcurrentHashMap<World, ConcurrentHashMap<String, BlockProtection>> tempCache = new ConcurrentHashMap<>();
+    // Rough amount of memory taken by one entry of protection map, including its free slots
+    private static final int ENTRY_SIZE = 30;
+
+    private final HashMap<World, BlockProtectionMap> map = new HashMap<>();
+    // Changed entries waiting to be saved, kept as separate records as they are saved on database thread
+    private final ConcurrentHashMap<World, ConcurrentHashMap<Long, BlockProtection>> tempCache = new ConcurrentHashMap<>();
+    // Regions with loaded chunks by packed region position, protection entries are kept in memory only for these regions
+    private final HashMap<World, LongHashMap<LoadedRegion>> loadedRegions = new HashMap<>();
+    // Entries with timer under 5 minutes by second they expire at
+    private final HashMap<World, TimingWheel> expiry = new HashMap<>();
+    private CMITask expiryTask = null;
+
+    private static class LoadedRegion {
+        private final World world;
+        private final int x;
+        private final int z;
+        private int chunks = 0;
+        private long lastUsed = System.currentTimeMillis();
+        // Entries were dropped to free memory, they are loaded again when region is used
+        private boolean evicted = false;
+
+        private LoadedRegion(World world, int x, int z) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+        }
+    }
 
-    public HashMap<World, HashMap<String, HashMap<String, HashMap<String, BlockProtection>>>> getMap2() {
-        return map;
+    public BlockProtectionMap getMap(World world) {
+        return map.get(world);
     }
 
     public int getSize() {
         int i = 0;
-        for (HashMap<String, HashMap<String, HashMap<String, BlockProtection>>> worlds : map.values()) {
-            for (HashMap<String, HashMap<String, BlockProtection>> regions : worlds.values()) {
-                for (HashMap<String, BlockProtection> chunks : regions.values()) {
-                    i += chunks.size();
-                }
-            }
+        for (BlockProtectionMap blocks : map.values()) {
+            i += blocks.size();
+        }
+        return i;
+    }
+
+    /**
+     * @return estimated amount of memory in bytes taken by protection entries
+     */
+    public long getMemoryUsage() {
+        return (long) getSize() * ENTRY_SIZE;
+    }
+
+    public int getLoadedRegionCount() {
+        int i = 0;
+        for (LongHashMap<LoadedRegion> regions : loadedRegions.values()) {
+            i += regions.size();
+        }
+        return i;
+    }
+
+    public int getEvictedRegionCount() {
+        int[] i = { 0 };
+        for (LongHashMap<LoadedRegion> regions : loadedRegions.values()) {
+            regions.forEach((key, region) -> {
+                if (region.evicted)
+                    i[0]++;
+            });
+        }
+        return i[0];
+    }
+
+    /**
+     * @return amount of changed entries waiting to be saved
+     */
+    public int getPendingSize() {
+        int i = 0;
+        for (ConcurrentHashMap<Long, BlockProtection> pending : tempCache.values()) {
+            i += pending.size();
         }
         return i;
     }
@@ -81,71 +149,341 @@ public class BlockProtectionManager {
             addP(loc, -1L, paid, true);
     }
 
-    public BlockProtection addP(Location loc, Long time, boolean paid, boolean cache) {
+    /**
+     * @return true if protection was added
+     */
+    public boolean addP(Location loc, Long time, boolean paid, boolean cache) {
 
         if (time == null || time == 0)
-            return null;
+            return false;
+
+        World world = loc.getWorld();
+        touch(world, loc.getBlockX(), loc.getBlockZ());
+        BlockProtectionMap blocks = map.computeIfAbsent(world, k -> new BlockProtectionMap());
+        long key = BlockProtectionMap.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+
+        int index = blocks.indexOf(key);
+        if (index < 0) {
+            index = blocks.add(key);
+            blocks.setAction(index, DBAction.INSERT);
+        } else
+            blocks.setAction(index, DBAction.UPDATE);
+
+        blocks.setPaid(index, paid);
+        blocks.setTime(index, time);
+
+        // If timer is under 5 min, we can run scheduler to remove it when time comes
+        boolean schedule = time > -1 && (time - System.currentTimeMillis()) / 1000 < 60 * 5;
+        blocks.setScheduled(index, schedule);
+        if (schedule)
+            scheduleRemoval(world, key, blocks.getTime(index));
+
+        // Only saving into save cache if timer is higher than 5 minutes
+        if (cache && ((time - System.currentTimeMillis()) / 1000 > 60 * 5 || time < 0))
+            addToCache(world, key, blocks.get(index));
+        return true;
+    }
+
+    /**
+     * Adds entry into timing wheel which removes it when its time ends
+     */
+    private void scheduleRemoval(World world, long key, long time) {
+        long now = System.currentTimeMillis() / 1000L;
+        expiry.computeIfAbsent(world, k -> new TimingWheel(now)).schedule(key, time / 1000L);
 
-        String v = loc.getBlockX() + ":" + loc.getBlockY() + ":" + loc.getBlockZ();
+        if (expiryTask == null)
+            expiryTask = CMIScheduler.scheduleSyncRepeatingTask(Jobs.getInstance(), this::expire, 20L, 20L);
+    }
+
+    /**
+     * Moves timing wheels forward every second. Entry which was removed or got new time is left as it is, so wheel entries
+     * never have to be searched for when block is broken or replaced.
+     */
+    private void expire() {
+        long now = System.currentTimeMillis() / 1000L;
+        int waiting = 0;
+        for (Entry<World, TimingWheel> one : expiry.entrySet()) {
+            World world = one.getKey();
+            BlockProtectionMap blocks = map.get(world);
+            one.getValue().advance(now, (key, deadline) -> {
+                if (blocks == null)
+                    return;
+                int index = blocks.indexOf(key);
+                if (index >= 0 && blocks.isScheduled(index) && blocks.getTime(index) / 1000L == deadline)
+                    remove(world, blocks, index, key);
+            });
+            waiting += one.getValue().size();
+        }
 
-        HashMap<String, HashMap<String, HashMap<String, BlockProtection>>> regions = map.getOrDefault(loc.getWorld(), new HashMap<>());
+        // Task is started again with next entry
+        if (waiting == 0 && expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+    }
 
-        String region = locToRegion(loc);
-        HashMap<String, HashMap<String, BlockProtection>> chunks = regions.getOrDefault(region, new HashMap<>());
+    private static boolean isLazyLoaded() {
+        return Jobs.getGCManager().useBlockProtection && !Jobs.getGCManager().useNewBlockProtection;
+    }
 
-        String chunk = locToChunk(loc);
-        HashMap<String, BlockProtection> Bpm = chunks.getOrDefault(chunk, new HashMap<>());
-        BlockProtection Bp = Bpm.get(v);
+    /**
+     * Starts tracking chunks which are already loaded, used on startup
+     */
+    public void loadLoadedChunks() {
+        if (!isLazyLoaded())
+            return;
 
-        if (Bp == null)
-            Bp = new BlockProtection(DBAction.INSERT, loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
-        else {
-            Bp.setAction(DBAction.UPDATE);
-            if (Bp.getScheduler() != null)
-                Bp.getScheduler().cancel();
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                chunkLoaded(chunk);
+            }
         }
+    }
 
-        Bp.setPaid(paid);
-        Bp.setTime(time);
+    /**
+     * Loads protection entries of chunk region from database when first chunk of it loads
+     */
+    public void chunkLoaded(Chunk chunk) {
+        if (!isLazyLoaded())
+            return;
 
-        // If timer is under 5 min, we can run scheduler to remove it when time comes
-        if (time > -1 && (time - System.currentTimeMillis()) / 1000 < 60 * 5)
-            Bp.setScheduler(CMIScheduler.runAtLocationLater(Jobs.getInstance(), loc, () -> remove(loc), (time - System.currentTimeMillis()) / 50));
+        World world = chunk.getWorld();
+        int regionX = chunk.getX() >> 5;
+        int regionZ = chunk.getZ() >> 5;
 
-        Bpm.put(v, Bp);
-        chunks.put(chunk, Bpm);
-        regions.put(region, chunks);
-        map.put(loc.getWorld(), regions);
+        LoadedRegion region = loadedRegions.computeIfAbsent(world, k -> new LongHashMap<>())
+            .computeIfAbsent(LongHashMap.pack(regionX, regionZ), k -> new LoadedRegion(world, regionX, regionZ));
+        region.lastUsed = System.currentTimeMillis();
 
-        // Only saving into save cache if timer is higher than 5 minutes
-        if (cache && ((time - System.currentTimeMillis()) / 1000 > 60 * 5 || time < 0))
-            addToCache(loc, Bp);
-        return Bp;
+        if (region.chunks++ > 0 && !region.evicted)
+            return;
+
+        region.evicted = false;
+        loadRegion(region);
     }
 
-    private void addToCache(Location loc, BlockProtection Bp) {
-        if (!Jobs.getGCManager().useBlockProtection)
+    private void loadRegion(LoadedRegion region) {
+        World world = region.world;
+        String worldName = world.getName();
+        Jobs.getJobsDAO().supplyAsync(() -> Jobs.getJobsDAO().loadBlockProtection(worldName, region.x, region.z))
+            .thenAccept(entries -> CMIScheduler.runTask(Jobs.getInstance(), () -> {
+                LongHashMap<LoadedRegion> regions = loadedRegions.get(world);
+                // Region got unloaded or evicted while its entries were loading
+                if (regions == null || regions.get(LongHashMap.pack(region.x, region.z)) != region || region.evicted)
+                    return;
+
+                for (BlockProtection one : entries) {
+                    putLoaded(world, one);
+                }
+            }));
+    }
+
+    /**
+     * Marks region of block as used, entries of evicted region are loaded again
+     */
+    private void touch(World world, int x, int z) {
+        LongHashMap<LoadedRegion> regions = loadedRegions.get(world);
+        if (regions == null)
+            return;
+
+        LoadedRegion region = regions.get(LongHashMap.pack(x >> 9, z >> 9));
+        if (region == null)
             return;
-        String v = loc.getBlockX() + ":" + loc.getBlockY() + ":" + loc.getBlockZ();
-        ConcurrentHashMap<String, BlockProtection> locations = tempCache.get(loc.getWorld());
-        if (locations == null) {
-            locations = new ConcurrentHashMap<>();
-            tempCache.put(loc.getWorld(), locations);
+
+        region.lastUsed = System.currentTimeMillis();
+        if (region.evicted) {
+            region.evicted = false;
+            loadRegion(region);
         }
+    }
 
-        locations.put(v, Bp);
+    /**
+     * Drops entries of regions which were not used for longest time until given amount of memory is freed. Entries
+     * waiting for their removal task are kept and changed entries stay in save cache, regions are loaded again from
+     * database once they are used.
+     * @return estimated amount of freed memory in bytes
+     */
+    public long evict(long bytes) {
+        if (!isLazyLoaded() || bytes <= 0)
+            return 0;
+
+        List<LoadedRegion> regions = new ArrayList<>();
+        for (LongHashMap<LoadedRegion> one : loadedRegions.values()) {
+            one.forEach((key, region) -> {
+                if (!region.evicted)
+                    regions.add(region);
+            });
+        }
+        regions.sort(Comparator.comparingLong(region -> region.lastUsed));
+
+        long freed = 0;
+        for (LoadedRegion region : regions) {
+            if (freed >= bytes)
+                break;
+            region.evicted = true;
+            freed += (long) dropRegion(region.world, region.x, region.z) * ENTRY_SIZE;
+        }
+        return freed;
+    }
+
+    private int dropRegion(World world, int regionX, int regionZ) {
+        BlockProtectionMap blocks = map.get(world);
+        if (blocks == null)
+            return 0;
+
+        // Removed entries are kept until their records are deleted
+        return blocks.removeIf(i -> !blocks.isScheduled(i) && blocks.getAction(i) != DBAction.DELETE
+            && BlockProtectionMap.unpackX(blocks.getKey(i)) >> 9 == regionX
+            && BlockProtectionMap.unpackZ(blocks.getKey(i)) >> 9 == regionZ);
+    }
+
+    private void putLoaded(World world, BlockProtection loaded) {
+        BlockProtectionMap blocks = map.computeIfAbsent(world, k -> new BlockProtectionMap());
+        long key = BlockProtectionMap.pack(loaded.getX(), loaded.getY(), loaded.getZ());
+
+        int index = blocks.indexOf(key);
+        if (index >= 0) {
+            // Protection was added while region was loading, it should update loaded record
+            if (blocks.getId(index) < 0) {
+                blocks.setId(index, loaded.getId());
+                if (blocks.getAction(index) == DBAction.INSERT)
+                    blocks.setAction(index, DBAction.UPDATE);
+                setPendingId(world, key, loaded.getId());
+            }
+            return;
+        }
+
+        // Changes which are not saved yet are newer than database record
+        ConcurrentHashMap<Long, BlockProtection> pending = tempCache.get(world);
+        BlockProtection changed = pending == null ? null : pending.get(key);
+        if (changed != null) {
+            blocks.put(key, changed);
+            return;
+        }
+
+        long time = loaded.getTime();
+        if (time != -1 && time < System.currentTimeMillis())
+            return;
+
+        index = blocks.put(key, loaded);
+
+        if (time > -1 && (time - System.currentTimeMillis()) / 1000 < 60 * 5) {
+            blocks.setScheduled(index, true);
+            scheduleRemoval(world, key, blocks.getTime(index));
+        }
+    }
+
+    /**
+     * Drops protection entries of chunk region from memory when its last chunk unloads. Changed entries stay in save
+     * cache until they are saved and entries waiting for their removal task are kept.
+     */
+    public void chunkUnloaded(Chunk chunk) {
+        if (!isLazyLoaded())
+            return;
+
+        World world = chunk.getWorld();
+        LongHashMap<LoadedRegion> regions = loadedRegions.get(world);
+        if (regions == null)
+            return;
+
+        long regionKey = LongHashMap.pack(chunk.getX() >> 5, chunk.getZ() >> 5);
+        LoadedRegion region = regions.get(regionKey);
+        if (region == null || --region.chunks > 0)
+            return;
+
+        regions.remove(regionKey);
+
+        if (!region.evicted)
+            dropRegion(world, region.x, region.z);
+    }
+
+    private void addToCache(World world, long key, BlockProtection bp) {
+        if (!Jobs.getGCManager().useBlockProtection)
+            return;
+        tempCache.computeIfAbsent(world, k -> new ConcurrentHashMap<>()).put(key, bp);
+    }
+
+    private void setPendingId(World world, long key, int id) {
+        ConcurrentHashMap<Long, BlockProtection> pending = tempCache.get(world);
+        BlockProtection changed = pending == null ? null : pending.get(key);
+        if (changed == null || changed.getId() >= 0)
+            return;
+
+        changed.setId(id);
+        if (changed.getAction() == DBAction.INSERT)
+            changed.setAction(DBAction.UPDATE);
     }
 
     public void saveCache() {
         if (!Jobs.getGCManager().useBlockProtection)
             return;
-        for (Entry<World, ConcurrentHashMap<String, BlockProtection>> one : tempCache.entrySet()) {
-            Jobs.getJobsDAO().saveBlockProtection(one.getKey().getName(), one.getValue());
+        // Taking out each world changes so entries changed while saving go into new map for next save
+        for (World world : new ArrayList<>(tempCache.keySet())) {
+            ConcurrentHashMap<Long, BlockProtection> changed = tempCache.remove(world);
+            if (changed == null)
+                continue;
+
+            Jobs.getJobsDAO().saveBlockProtection(world.getName(), changed.values());
+
+            if (Jobs.getInstance().isEnabled())
+                CMIScheduler.runTask(Jobs.getInstance(), () -> saved(world, changed));
         }
-        tempCache.clear();
     }
 
-    public BlockProtection remove(Block block) {
+    /**
+     * Gives ids of inserted records to entries in memory so their later changes update same records, and drops entries
+     * which records were deleted
+     */
+    private void saved(World world, Map<Long, BlockProtection> changed) {
+        BlockProtectionMap blocks = map.get(world);
+
+        for (Entry<Long, BlockProtection> one : changed.entrySet()) {
+            int id = one.getValue().getId();
+            if (id < 0)
+                continue;
+
+            long key = one.getKey();
+            if (one.getValue().getAction() == DBAction.DELETE) {
+                deleted(world, blocks, key, id);
+                continue;
+            }
+            if (blocks != null) {
+                int index = blocks.indexOf(key);
+                if (index >= 0 && blocks.getId(index) < 0 && blocks.getAction(index) != DBAction.DELETE) {
+                    blocks.setId(index, id);
+                    if (blocks.getAction(index) == DBAction.INSERT)
+                        blocks.setAction(index, DBAction.UPDATE);
+                }
+            }
+
+            setPendingId(world, key, id);
+        }
+    }
+
+    private void deleted(World world, BlockProtectionMap blocks, long key, int id) {
+        if (blocks != null) {
+            int index = blocks.indexOf(key);
+            if (index >= 0 && blocks.getId(index) == id) {
+                if (blocks.getAction(index) == DBAction.DELETE) {
+                    blocks.removeAt(index);
+                } else {
+                    // Block was protected again while its old record was deleted
+                    blocks.setId(index, -1);
+                    blocks.setAction(index, DBAction.INSERT);
+                }
+            }
+        }
+
+        ConcurrentHashMap<Long, BlockProtection> pending = tempCache.get(world);
+        BlockProtection newer = pending == null ? null : pending.get(key);
+        if (newer != null && newer.getId() == id) {
+            newer.setId(-1);
+            if (newer.getAction() == DBAction.UPDATE)
+                newer.setAction(DBAction.INSERT);
+        }
+    }
+
+    public boolean remove(Block block) {
         // In case double plant was destroyed we should remove both blocks from records
         CMIMaterial cmat = CMIMaterial.get(block);
         switch (cmat) {
@@ -164,30 +502,39 @@ public class BlockProtectionManager {
         return remove(block.getLocation());
     }
 
-    public BlockProtection remove(Location loc) {
-        HashMap<String, HashMap<String, HashMap<String, BlockProtection>>> world = map.get(loc.getWorld());
-        if (world == null)
-            return null;
-        HashMap<String, HashMap<String, BlockProtection>> region = world.get(locToRegion(loc));
-        if (region == null)
-            return null;
-        HashMap<String, BlockProtection> chunk = region.get(locToChunk(loc));
-        if (chunk == null)
-            return null;
-        String v = loc.getBlockX() + ":" + loc.getBlockY() + ":" + loc.getBlockZ();
-        BlockProtection bp = chunk.get(v);
-        if (bp != null)
-            bp.setAction(DBAction.DELETE);
-        if (bp != null && bp.getId() < 0) {
-            chunk.remove(v);
-        }
-
-        if (chunk.isEmpty())
-            region.remove(locToChunk(loc));
-        if (region.isEmpty())
-            world.remove(locToRegion(loc));
+    /**
+     * @return true if there was protection entry in this location
+     */
+    public boolean remove(Location loc) {
+        World world = loc.getWorld();
+        BlockProtectionMap blocks = map.get(world);
+        if (blocks == null)
+            return false;
+
+        long key = BlockProtectionMap.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+        int index = blocks.indexOf(key);
+        if (index < 0)
+            return false;
+
+        remove(world, blocks, index, key);
+        return true;
+    }
 
-        return bp;
+    private void remove(World world, BlockProtectionMap blocks, int index, long key) {
+        blocks.setAction(index, DBAction.DELETE);
+        // Cancels its removal from timing wheel
+        blocks.setScheduled(index, false);
+
+        ConcurrentHashMap<Long, BlockProtection> pending = tempCache.get(world);
+        BlockProtection changed = pending == null ? null : pending.get(key);
+        if (changed != null)
+            changed.setAction(DBAction.DELETE);
+        else if (blocks.getId(index) >= 0)
+            // Saved record is deleted with next save, entry is kept until then so region load does not bring it back
+            addToCache(world, key, blocks.get(index));
+
+        if (blocks.getId(index) < 0)
+            blocks.removeAt(index);
     }
 
     public Long getTime(Block block) {
@@ -195,31 +542,31 @@ public class BlockProtectionManager {
     }
 
     public Long getTime(Location loc) {
-        BlockProtection Bp = getBp(loc);
-        return Bp == null ? null : Bp.getTime();
-    }
-
-    public BlockProtection getBp(Location loc) {
-        HashMap<String, HashMap<String, HashMap<String, BlockProtection>>> world = map.get(loc.getWorld());
-        if (world == null)
-            return null;
-        HashMap<String, HashMap<String, BlockProtection>> region = world.get(locToRegion(loc));
-        if (region == null)
-            return null;
-        HashMap<String, BlockProtection> chunk = region.get(locToChunk(loc));
-        if (chunk == null)
+        BlockProtectionMap blocks = map.get(loc.getWorld());
+        if (blocks == null)
             return null;
-        return chunk.get(loc.getBlockX() + ":" + loc.getBlockY() + ":" + loc.getBlockZ());
+        int index = blocks.indexOf(BlockProtectionMap.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+        return index < 0 ? null : blocks.getTime(index);
     }
 
-    private static String locToChunk(Location loc) {
-        return (int) Math.floor(loc.getBlockX() / 16D) + ":" + (int) Math.floor(loc.getBlockZ() / 16D);
+    public void setPaid(Block block, boolean paid) {
+        BlockProtectionMap blocks = map.get(block.getWorld());
+        if (blocks == null)
+            return;
+        int index = blocks.indexOf(BlockProtectionMap.pack(block.getX(), block.getY(), block.getZ()));
+        if (index >= 0)
+            blocks.setPaid(index, paid);
     }
 
-    private static String locToRegion(Location loc) {
-        int x = (int) Math.floor(loc.getBlockX() / 16D);
-        int z = (int) Math.floor(loc.getBlockZ() / 16D);
-        return (int) Math.floor(x / 32D) + ":" + (int) Math.floor(z / 32D);
+    /**
+     * Creates copy of protection entry, changing it does not change entry itself
+     */
+    public BlockProtection getBp(Location loc) {
+        BlockProtectionMap blocks = map.get(loc.getWorld());
+        if (blocks == null)
+            return null;
+        int index = blocks.indexOf(BlockProtectionMap.pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+        return index < 0 ? null : blocks.get(index);
     }
 
     @Deprecated
@@ -242,9 +589,12 @@ public class BlockProtectionManager {
                 return false;
             }
 
-            BlockProtection bp = getBp(block.getLocation());
-            if (bp != null) {
-                long time = bp.getTime();
+            touch(block.getWorld(), block.getX(), block.getZ());
+            BlockProtectionMap blocks = map.get(block.getWorld());
+            int index = blocks == null ? -1 : blocks.indexOf(BlockProtectionMap.pack(block.getX(), block.getY(), block.getZ()));
+            if (index >= 0) {
+                long time = blocks.getTime(index);
+                boolean deleted = blocks.getAction(index) == DBAction.DELETE;
                 Integer cd = Jobs.getExploitManager().getBlockProtectionTime(info.getType(), block);
 
                 if (time == -1L) {
@@ -252,12 +602,12 @@ public class BlockProtectionManager {
                     return false;
                 }
 
-                if (time < System.currentTimeMillis() && bp.getAction() != DBAction.DELETE) {
+                if (time < System.currentTimeMillis() && !deleted) {
                     remove(block);
                     return true;
                 }
 
-                if ((time > System.currentTimeMillis() || bp.isPaid()) && bp.getAction() != DBAction.DELETE) {
+                if ((time > System.currentTimeMillis() || blocks.isPaid(index)) && !deleted) {
                     if (inform && player.canGetPaid(info)) {
                         int sec = Math.round((time - System.currentTimeMillis()) / 1000L);
                         CMIActionBar.send(player.getPlayer(), Jobs.getLanguage().getMessage("message.blocktimer", "[time]", sec));
@@ -272,17 +622,21 @@ public class BlockProtectionManager {
                 add(block, Jobs.getExploitManager().getBlockProtectionTime(info.getType(), block));
 
         } else if (info.getType() == ActionType.PLACE) {
-            BlockProtection bp = getBp(block.getLocation());
-            if (bp != null) {
-                Long time = bp.getTime();
+            touch(block.getWorld(), block.getX(), block.getZ());
+            BlockProtectionMap blocks = map.get(block.getWorld());
+            int index = blocks == null ? -1 : blocks.indexOf(BlockProtectionMap.pack(block.getX(), block.getY(), block.getZ()));
+            if (index >= 0) {
+                long time = blocks.getTime(index);
+                boolean deleted = blocks.getAction(index) == DBAction.DELETE;
+                boolean paid = blocks.isPaid(index);
                 Integer cd = Jobs.getExploitManager().getBlockProtectionTime(info.getType(), block);
                 if (time != -1L) {
-                    if (time < System.currentTimeMillis() && bp.getAction() != DBAction.DELETE) {
+                    if (time < System.currentTimeMillis() && !deleted) {
                         add(block, cd);
                         return true;
                     }
 
-                    if ((time > System.currentTimeMillis() || bp.isPaid()) && bp.getAction() != DBAction.DELETE) {
+                    if ((time > System.currentTimeMillis() || paid) && !deleted) {
                         if (inform && player.canGetPaid(info)) {
                             int sec = Math.round((time - System.currentTimeMillis()) / 1000L);
                             CMIActionBar.send(player.getPlayer(), Jobs.getLanguage().getMessage("message.blocktimer", "[time]", sec));
@@ -294,7 +648,7 @@ public class BlockProtectionManager {
 
                     // Lets add protection in any case
                     add(block, cd);
-                } else if (bp.isPaid() && bp.getTime() == -1L && cd != null && cd == -1) {
+                } else if (paid && cd != null && cd == -1) {
                     add(block, cd);
                     return false;
                 } else
@@ -1,14 +1,17 @@
 package com.gamingmesh.jobs.config;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.jetbrains.annotations.Nullable;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.container.ExploreRespond;
+import com.gamingmesh.jobs.container.ExplorerSet;
+import com.gamingmesh.jobs.container.LongHashMap;
 
 import net.Zrips.CMILib.Messages.CMIMessages;
 import net.Zrips.CMILib.PersistentData.CMIChunkPersistentDataContainer;
@@ -21,6 +24,20 @@ public class ChunkExplorationManager {
     private boolean exploreEnabled = false;
     private int playerAmount = 1;
 
+    // Explorers of loaded chunks by packed chunk position, written into chunk data only when changed
+    private final HashMap<World, LongHashMap<chunkExplorers>> loaded = new HashMap<>();
+
+    private static class chunkExplorers {
+        private final Chunk chunk;
+        private final ExplorerSet explorers;
+        private boolean dirty = false;
+
+        private chunkExplorers(Chunk chunk) {
+            this.chunk = chunk;
+            this.explorers = new ExplorerSet(new CMIChunkPersistentDataContainer(NAME, chunk).getListInt(SUBNAME));
+        }
+    }
+
     public int getPlayerAmount() {
         return playerAmount;
     }
@@ -38,8 +55,80 @@ public class ChunkExplorationManager {
         exploreEnabled = true;
     }
 
+    private static boolean isUsed() {
+        return Jobs.getChunkExplorationManager().isExploreEnabled() && Jobs.getGCManager().useNewExploration;
+    }
+
+    private chunkExplorers getExplorers(Chunk chunk) {
+        return loaded.computeIfAbsent(chunk.getWorld(), k -> new LongHashMap<>())
+            .computeIfAbsent(LongHashMap.pack(chunk.getX(), chunk.getZ()), k -> new chunkExplorers(chunk));
+    }
+
+    /**
+     * Reads explorers of chunk once when it loads
+     */
+    public void chunkLoaded(Chunk chunk) {
+        if (isUsed())
+            getExplorers(chunk);
+    }
+
+    /**
+     * Reads explorers of chunks which are already loaded, used on startup
+     */
+    public void loadLoadedChunks() {
+        if (!isUsed())
+            return;
+
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                getExplorers(chunk);
+            }
+        }
+    }
+
+    /**
+     * Writes explorers of chunk if they changed and drops them from memory
+     */
+    public void chunkUnloaded(Chunk chunk) {
+        LongHashMap<chunkExplorers> world = loaded.get(chunk.getWorld());
+        if (world == null)
+            return;
+
+        chunkExplorers data = world.remove(LongHashMap.pack(chunk.getX(), chunk.getZ()));
+        if (data != null)
+            write(data);
+    }
+
+    private static void write(chunkExplorers data) {
+        if (!data.dirty)
+            return;
+
+        data.dirty = false;
+        CMIChunkPersistentDataContainer container = new CMIChunkPersistentDataContainer(NAME, data.chunk);
+        container.setIntList(SUBNAME, data.explorers.toList());
+        container.save();
+    }
+
+    /**
+     * Writes changed explorers of world, used when world is saved
+     */
+    public void save(World world) {
+        LongHashMap<chunkExplorers> chunks = loaded.get(world);
+        if (chunks != null)
+            chunks.forEach((key, data) -> write(data));
+    }
+
+    /**
+     * Writes all changed explorers, used on shutdown
+     */
+    public void saveAll() {
+        for (LongHashMap<chunkExplorers> chunks : loaded.values()) {
+            chunks.forEach((key, data) -> write(data));
+        }
+    }
+
     public List<Integer> getVisitors(Chunk chunk) {
-        return new CMIChunkPersistentDataContainer(NAME, chunk).getListInt(SUBNAME);
+        return getExplorers(chunk).explorers.toList();
     }
 
     public ExploreRespond chunkRespond(Player player, Chunk chunk) {
@@ -47,26 +136,16 @@ public class ChunkExplorationManager {
     }
 
     public ExploreRespond chunkRespond(int playerId, Chunk chunk) {
-
-        CMIChunkPersistentDataContainer container = new CMIChunkPersistentDataContainer(NAME, chunk);
-
-        @Nullable
-        List<Integer> list = container.getListInt(SUBNAME);
+        chunkExplorers data = getExplorers(chunk);
 
         ExploreRespond response = new ExploreRespond();
 
-        if (list == null || !list.contains(playerId)) {
-            if (list == null)
-                list = new ArrayList<Integer>();
-            else
-                list = new ArrayList<Integer>(list);
-            list.add(playerId);
-            container.setIntList(SUBNAME, list);
-            container.save();
+        if (data.explorers.add(playerId)) {
+            data.dirty = true;
             response.setNewChunk(true);
         }
-        
-        response.setCount(list.size());
+
+        response.setCount(data.explorers.size());
 
         return response;
     }
@@ -1,19 +1,27 @@
 package com.gamingmesh.jobs.config;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
+import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.util.Vector;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.container.ActionInfo;
 import com.gamingmesh.jobs.container.ActionType;
-import com.gamingmesh.jobs.container.BlockProtection;
+import com.gamingmesh.jobs.container.ChunkColumnFilter;
+import com.gamingmesh.jobs.container.ChunkProtections;
 import com.gamingmesh.jobs.container.ExploitProtection;
 import com.gamingmesh.jobs.container.JobsPlayer;
 
@@ -22,6 +30,9 @@ import net.Zrips.CMILib.Container.CMIBlock;
 import net.Zrips.CMILib.Container.CMIBlock.Bisect;
 import net.Zrips.CMILib.Items.CMIMaterial;
 import net.Zrips.CMILib.PersistentData.CMIChunkPersistentDataContainer;
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
+import net.Zrips.CMILib.Version.Version;
+import net.Zrips.CMILib.Version.Schedulers.CMITask;
 
 public class ExploitProtectionManager {
 
@@ -29,17 +40,45 @@ public class ExploitProtectionManager {
     private static final String NAMETIME = "Time";
     private static final String NAMEPAID = "Paid";
 
-    private final ConcurrentMap<String, ConcurrentMap<String, chunkData>> map = new ConcurrentHashMap<>();
+    // Rough amount of memory taken by chunk entry without its protections
+    private static final int CHUNK_SIZE = 96;
+
+    private static NamespacedKey dataKey = null;
+
+    private final ConcurrentMap<String, ConcurrentMap<Long, chunkData>> map = new ConcurrentHashMap<>();
+    // Columns of loaded chunks which can have protected blocks, lets flowing liquids skip unprotected blocks
+    private final ConcurrentMap<String, ChunkColumnFilter> filters = new ConcurrentHashMap<>();
+    // Chunks with changes which are not written into chunk data yet, in order they were changed
+    private final Queue<chunkData> dirty = new ConcurrentLinkedQueue<>();
+    private CMITask saveTask = null;
 
     class chunkData {
-        private CMIChunkPersistentDataContainer container;
+        private final Chunk chunk;
+        private final String world;
+        private ChunkProtections protections = new ChunkProtections();
+        // Entries saved in old format, kept until they are written in new format
+        private CMIChunkPersistentDataContainer legacy = null;
         private long lastClean = 0;
+        private volatile long changed = 0;
+        private volatile long lastUsed = 0;
 
-        chunkData(CMIChunkPersistentDataContainer container) {
-            this.container = container;
+        chunkData(Chunk chunk, String world) {
+            this.chunk = chunk;
+            this.world = world;
             lastClean = System.currentTimeMillis();
         }
 
+        public String getWorld() {
+            return world;
+        }
+
+        /**
+         * @return time of first change which is not saved yet or 0 if there are none
+         */
+        public long getChanged() {
+            return changed;
+        }
+
         public long getLastClean() {
             return lastClean;
         }
@@ -48,40 +87,340 @@ public class ExploitProtectionManager {
             this.lastClean = lastClean;
         }
 
-        public CMIChunkPersistentDataContainer getContainer() {
-            return container;
+        public ChunkProtections getProtections() {
+            return protections;
         }
     }
 
-    private CMIChunkPersistentDataContainer getPDC(Block block) {
-        if (block == null)
-            return null;
-        return getPDC(block.getChunk());
+    private static long chunkKey(Chunk chunk) {
+        return ((long) chunk.getX() << 32) | (chunk.getZ() & 0xFFFFFFFFL);
     }
 
-    private CMIChunkPersistentDataContainer getPDC(Chunk chunk) {
-        if (chunk == null)
-            return null;
-        chunkData data = getChunkData(chunk);
-        return data == null ? null : data.getContainer();
+    private chunkData getChunkData(Block block) {
+        return block == null ? null : getChunkData(block.getChunk());
     }
 
     private chunkData getChunkData(Chunk chunk) {
         if (chunk == null)
             return null;
-        ConcurrentMap<String, chunkData> world = map.computeIfAbsent(chunk.getWorld().getName(), w -> new ConcurrentHashMap<>());
-        String key = chunk.getX() + ":" + chunk.getZ();
-        return world.computeIfAbsent(key, k -> new chunkData(new CMIChunkPersistentDataContainer(NAMEGENERAL, chunk)));
+        String worldName = chunk.getWorld().getName();
+        ConcurrentMap<Long, chunkData> world = map.computeIfAbsent(worldName, w -> new ConcurrentHashMap<>());
+        chunkData data = world.computeIfAbsent(chunkKey(chunk), k -> load(chunk, worldName));
+        data.lastUsed = System.currentTimeMillis();
+        return data;
+    }
+
+    public int getChunkCount() {
+        int i = 0;
+        for (ConcurrentMap<Long, chunkData> world : map.values()) {
+            i += world.size();
+        }
+        return i;
+    }
+
+    public int getSize() {
+        int i = 0;
+        for (ConcurrentMap<Long, chunkData> world : map.values()) {
+            for (chunkData data : world.values()) {
+                i += data.protections.size();
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @return amount of chunks with changes which are not written yet
+     */
+    public int getDirtyCount() {
+        int i = 0;
+        for (chunkData data : dirty) {
+            if (data.changed != 0)
+                i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return estimated amount of memory in bytes taken by protection entries of chunks
+     */
+    public long getMemoryUsage() {
+        long bytes = 0;
+        for (ConcurrentMap<Long, chunkData> world : map.values()) {
+            for (chunkData data : world.values()) {
+                bytes += CHUNK_SIZE + data.protections.getMemoryUsage();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes and drops entries of chunks which were not used for longest time until given amount of memory is freed.
+     * Entries are loaded again from chunk data when chunk is used, so nothing is lost.
+     * @return estimated amount of freed memory in bytes
+     */
+    public long evict(long bytes) {
+        if (bytes <= 0)
+            return 0;
+
+        List<chunkData> loaded = new ArrayList<>();
+        for (ConcurrentMap<Long, chunkData> world : map.values()) {
+            loaded.addAll(world.values());
+        }
+        loaded.sort(Comparator.comparingLong(data -> data.lastUsed));
+
+        long freed = 0;
+        for (chunkData data : loaded) {
+            if (freed >= bytes)
+                break;
+
+            ConcurrentMap<Long, chunkData> world = map.get(data.world);
+            if (world == null || !world.remove(chunkKey(data.chunk), data))
+                continue;
+
+            // Column filter stays valid as it matches entries written into chunk
+            write(data);
+            freed += CHUNK_SIZE + data.protections.getMemoryUsage();
+        }
+        return freed;
+    }
+
+    /**
+     * Chunk data can hold byte arrays only from 1.16.3, older servers keep entries in old format
+     */
+    private static boolean isPacked() {
+        return Version.isCurrentEqualOrHigher(Version.v1_16_R3);
+    }
+
+    private static NamespacedKey getDataKey() {
+        if (dataKey == null)
+            dataKey = new NamespacedKey(Jobs.getInstance(), "exploitprotection");
+        return dataKey;
+    }
+
+    private chunkData load(Chunk chunk, String worldName) {
+        chunkData data = new chunkData(chunk, worldName);
+
+        if (isPacked()) {
+            ChunkProtections protections = ChunkProtections.fromBytes(chunk.getPersistentDataContainer().get(getDataKey(), PersistentDataType.BYTE_ARRAY));
+            if (protections != null) {
+                data.protections = protections;
+                updateFilter(data);
+                return data;
+            }
+        }
+
+        CMIChunkPersistentDataContainer container = new CMIChunkPersistentDataContainer(NAMEGENERAL, chunk);
+        for (NamespacedKey one : container.getKeys()) {
+            String[] loc = one.getKey().split("\\.");
+            Integer time = container.getInt(one.getKey(), NAMETIME);
+            if (loc.length != 3 || time == null)
+                continue;
+
+            try {
+                Boolean paid = container.getBoolean(one.getKey(), NAMEPAID);
+                data.protections.set(Integer.parseInt(loc[0]), Integer.parseInt(loc[1]), Integer.parseInt(loc[2]), deconvertLong(time), paid == null || paid);
+            } catch (NumberFormatException e) {
+            }
+        }
+
+        if (!isPacked() || !data.protections.isEmpty())
+            data.legacy = container;
+
+        updateFilter(data);
+
+        // Entries are moved into new format
+        if (isPacked() && !data.protections.isEmpty())
+            markDirty(data);
+
+        return data;
+    }
+
+    private void updateFilter(chunkData data) {
+        ChunkColumnFilter filter = filters.computeIfAbsent(data.world, w -> new ChunkColumnFilter());
+        int chunkX = data.chunk.getX(), chunkZ = data.chunk.getZ();
+        filter.clear(chunkX, chunkZ);
+        data.protections.forEach((x, y, z, time, paid) -> filter.mark((chunkX << 4) + x, (chunkZ << 4) + z));
+    }
+
+    /**
+     * Fills protected block columns of chunk from its stored entries. Chunks with data which can not be checked without
+     * loading it stay unknown until their entries are loaded.
+     */
+    public void chunkLoaded(Chunk chunk) {
+        if (!Jobs.getGCManager().useNewBlockProtection || !Jobs.getGCManager().useBlockProtection || !isPacked())
+            return;
+
+        PersistentDataContainer pdc = chunk.getPersistentDataContainer();
+        byte[] bytes = pdc.get(getDataKey(), PersistentDataType.BYTE_ARRAY);
+
+        ChunkColumnFilter filter = filters.computeIfAbsent(chunk.getWorld().getName(), w -> new ChunkColumnFilter());
+        int chunkX = chunk.getX(), chunkZ = chunk.getZ();
+
+        if (bytes == null) {
+            // Other data can be entries in old format
+            if (pdc.isEmpty())
+                filter.clear(chunkX, chunkZ);
+            return;
+        }
+
+        ChunkProtections protections = ChunkProtections.fromBytes(bytes);
+        if (protections == null)
+            return;
+
+        filter.clear(chunkX, chunkZ);
+        protections.forEach((x, y, z, time, paid) -> filter.mark((chunkX << 4) + x, (chunkZ << 4) + z));
+    }
+
+    /**
+     * Fills protected block columns of chunks which are already loaded, used on startup
+     */
+    public void loadLoadedChunks() {
+        if (!Jobs.getGCManager().useNewBlockProtection || !Jobs.getGCManager().useBlockProtection || !isPacked())
+            return;
+
+        for (World world : Bukkit.getWorlds()) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                chunkLoaded(chunk);
+            }
+        }
+    }
+
+    /**
+     * @return false if block is known to have no protection
+     */
+    public boolean mightBeProtected(Block block) {
+        ChunkColumnFilter filter = filters.get(block.getWorld().getName());
+        return filter == null || filter.mightContain(block.getX(), block.getZ());
     }
 
     public void removePDC(Chunk chunk) {
         if (!Jobs.getGCManager().useNewBlockProtection)
             return;
-        ConcurrentMap<String, chunkData> world = map.get(chunk.getWorld().getName());
+
+        ChunkColumnFilter filter = filters.get(chunk.getWorld().getName());
+        if (filter != null)
+            filter.remove(chunk.getX(), chunk.getZ());
+
+        ConcurrentMap<Long, chunkData> world = map.get(chunk.getWorld().getName());
         if (world == null)
             return;
 
-        world.remove(chunk.getX() + ":" + chunk.getZ());
+        chunkData data = world.remove(chunkKey(chunk));
+        // Chunk data is written before chunk itself is saved
+        if (data != null)
+            write(data);
+    }
+
+    /**
+     * Marks chunk data to be written with next save instead of writing it on each change
+     */
+    private void markDirty(chunkData data) {
+        if (data.changed != 0)
+            return;
+
+        data.changed = System.currentTimeMillis();
+        dirty.add(data);
+
+        if (saveTask == null)
+            saveTask = CMIScheduler.scheduleSyncRepeatingTask(Jobs.getInstance(), this::saveDirty, 1L, 1L);
+    }
+
+    private static void write(chunkData data) {
+        if (data.changed == 0)
+            return;
+
+        data.changed = 0;
+
+        if (!isPacked()) {
+            writeLegacy(data);
+            return;
+        }
+
+        PersistentDataContainer pdc = data.chunk.getPersistentDataContainer();
+        if (data.protections.isEmpty())
+            pdc.remove(getDataKey());
+        else
+            pdc.set(getDataKey(), PersistentDataType.BYTE_ARRAY, data.protections.toBytes());
+
+        // Entries in old format are removed once they are written in new format
+        if (data.legacy != null) {
+            for (NamespacedKey one : new ArrayList<>(data.legacy.getKeys())) {
+                data.legacy.remove(one.getKey());
+            }
+            data.legacy.save();
+            data.legacy = null;
+        }
+    }
+
+    private static void writeLegacy(chunkData data) {
+        CMIChunkPersistentDataContainer container = data.legacy;
+        for (NamespacedKey one : new ArrayList<>(container.getKeys())) {
+            container.remove(one.getKey());
+        }
+
+        int chunkX = data.chunk.getX() << 4, chunkZ = data.chunk.getZ() << 4;
+        data.protections.forEach((x, y, z, time, paid) -> {
+            String locString = (chunkX + x) + "." + y + "." + (chunkZ + z);
+            container.set(locString, NAMETIME, shortenLong(time));
+            if (!paid)
+                container.set(locString, NAMEPAID, paid);
+        });
+        container.save();
+    }
+
+    /**
+     * Writes chunks which were changed at least save delay ago, limited amount of chunks each tick
+     */
+    private void saveDirty() {
+        long mark = System.currentTimeMillis() - Jobs.getGCManager().BlockProtectionSaveDelay * 1000L;
+        int limit = Jobs.getGCManager().BlockProtectionSavesPerTick;
+
+        chunkData data;
+        while (limit > 0 && (data = dirty.peek()) != null) {
+            // Already saved on chunk unload or world save
+            if (data.changed == 0) {
+                dirty.poll();
+                continue;
+            }
+
+            if (data.changed > mark)
+                break;
+
+            dirty.poll();
+            write(data);
+            limit--;
+        }
+
+        if (dirty.isEmpty() && saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+    }
+
+    /**
+     * Writes all changed chunks of world, used when world is saved
+     */
+    public void save(World world) {
+        String name = world.getName();
+        for (chunkData data : dirty) {
+            if (data.getWorld().equals(name))
+                write(data);
+        }
+    }
+
+    /**
+     * Writes all changed chunks, used on shutdown
+     */
+    public void saveAll() {
+        chunkData data;
+        while ((data = dirty.poll()) != null) {
+            write(data);
+        }
+
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
     }
 
     public void addProtection(Block block, Integer cd) {
@@ -114,21 +453,13 @@ public class ExploitProtectionManager {
         addProtection(block, cd != -1 ? System.currentTimeMillis() + (cd * 1000) : -1, paid);
     }
 
-    private String convertLoc(Location loc) {
-        return convertLoc(loc.toVector());
-    }
-
-    private String convertLoc(Vector loc) {
-        return loc.getBlockX() + "." + loc.getBlockY() + "." + loc.getBlockZ();
-    }
-
-    private int shortenLong(long value) {
+    private static int shortenLong(long value) {
         if (value == -1)
             return -1;
         return (int) (value / 1000) - 2147483647;
     }
 
-    private Long deconvertLong(Integer value) {
+    private static Long deconvertLong(Integer value) {
         if (value == null)
             return null;
         if (value == -1)
@@ -139,11 +470,12 @@ public class ExploitProtectionManager {
 
     public ExploitProtection addProtection(Block block, Long protectedUntil, boolean paid) {
         if (!Jobs.getGCManager().useNewBlockProtection) {
-            BlockProtection protection = Jobs.getBpManager().addP(block.getLocation(), protectedUntil, paid, true);
+            if (!Jobs.getBpManager().addP(block.getLocation(), protectedUntil, paid, true))
+                return null;
 
             ExploitProtection ep = new ExploitProtection(block.getLocation().toVector());
-            ep.setPaid(protection.isPaid());
-            ep.setProtectedUntil(protection.getTime());
+            ep.setPaid(paid);
+            ep.setProtectedUntil(protectedUntil);
             return ep;
         }
 
@@ -153,19 +485,17 @@ public class ExploitProtectionManager {
         if (block == null)
             return null;
 
-        CMIChunkPersistentDataContainer pdc = getPDC(block);
+        chunkData data = getChunkData(block);
 
-        if (pdc == null)
+        if (data == null)
             return null;
 
-        String locString = convertLoc(block.getLocation());
+        data.getProtections().set(block.getX(), block.getY(), block.getZ(), protectedUntil, paid);
+        markDirty(data);
 
-        pdc.set(locString, NAMETIME, shortenLong(protectedUntil));
-        if (!paid)
-            pdc.set(locString, NAMEPAID, paid);
-        else
-            pdc.remove(locString, NAMEPAID);
-        pdc.save();
+        ChunkColumnFilter filter = filters.get(data.world);
+        if (filter != null)
+            filter.mark(block.getX(), block.getZ());
 
         ExploitProtection ep = new ExploitProtection(block.getLocation().toVector());
         ep.setPaid(paid);
@@ -180,6 +510,10 @@ public class ExploitProtectionManager {
             return;
         }
 
+        // Both parts of double plant are in same column
+        if (!mightBeProtected(block))
+            return;
+
         // In case double plant was destroyed we should remove both blocks from records
         CMIMaterial cmat = CMIMaterial.get(block);
         switch (cmat) {
@@ -196,13 +530,12 @@ public class ExploitProtectionManager {
             break;
         }
 
-        CMIChunkPersistentDataContainer pdc = getPDC(block);
-        if (pdc == null)
+        chunkData data = getChunkData(block);
+        if (data == null)
             return;
 
-        String locString = convertLoc(block.getLocation());
-        pdc.remove(locString);
-        pdc.save();
+        if (data.getProtections().remove(block.getX(), block.getY(), block.getZ()))
+            markDirty(data);
     }
 
     public Long getTime(Block block) {
@@ -210,13 +543,12 @@ public class ExploitProtectionManager {
         if (!Jobs.getGCManager().useNewBlockProtection)
             return Jobs.getBpManager().getTime(block);
 
-        CMIChunkPersistentDataContainer pdc = getPDC(block);
-        if (pdc == null)
+        chunkData data = getChunkData(block);
+        if (data == null)
             return null;
 
-        String locString = convertLoc(block.getLocation());
-
-        return deconvertLong(pdc.getInt(locString, NAMETIME));
+        long time = data.getProtections().getTime(block.getX(), block.getY(), block.getZ());
+        return time == 0 ? null : time;
     }
 
     public Long getTime(Location loc) {
@@ -251,25 +583,26 @@ public class ExploitProtectionManager {
     }
 
     public void setPaid(Block block, boolean paid) {
-        CMIChunkPersistentDataContainer pdc = getPDC(block);
-        String locString = convertLoc(block.getLocation());
-        if (!paid)
-            pdc.set(locString, NAMEPAID, paid);
-        else
-            pdc.remove(locString, NAMEPAID);
-        pdc.save();
+        chunkData data = getChunkData(block);
+        if (data == null)
+            return;
+
+        if (data.getProtections().setPaid(block.getX(), block.getY(), block.getZ(), paid))
+            markDirty(data);
     }
 
     private ExploitProtection getProtection(Block block) {
 
-        ExploitProtection ep = new ExploitProtection(block.getLocation().toVector());
+        ExploitProtection ep = new ExploitProtection(block.getX(), block.getY(), block.getZ());
 
-        CMIChunkPersistentDataContainer pdc = getPDC(block);
+        chunkData data = getChunkData(block);
+        if (data == null) {
+            ep.setProtectedUntil(0L);
+            return ep;
+        }
 
-        String locString = convertLoc(block.getLocation());
-        Boolean paidValue = pdc.getBoolean(locString, NAMEPAID);
-        ep.setPaid(paidValue == null ? true : paidValue);
-        ep.setProtectedUntil(deconvertLong(pdc.getInt(locString, NAMETIME)));
+        ep.setPaid(data.getProtections().isPaid(block.getX(), block.getY(), block.getZ()));
+        ep.setProtectedUntil(data.getProtections().getTime(block.getX(), block.getY(), block.getZ()));
         return ep;
     }
 
@@ -362,15 +695,10 @@ public class ExploitProtectionManager {
             if (pdc.getLastClean() + (30 * 1000L) > System.currentTimeMillis())
                 return;
 
-            Set<NamespacedKey> keys = pdc.getContainer().getKeys();
-
-            for (NamespacedKey one : keys) {
-                Long time = deconvertLong(pdc.getContainer().getInt(one.getKey(), NAMETIME));
-                if (time != null && time != -1 && time < System.currentTimeMillis()) {
-                    pdc.getContainer().remove(one.getKey());
-                }
+            if (pdc.getProtections().removeExpired(System.currentTimeMillis()) > 0) {
+                markDirty(pdc);
+                updateFilter(pdc);
             }
-            pdc.getContainer().save();
             pdc.setLastClean(System.currentTimeMillis());
 
         } catch (Throwable e) {
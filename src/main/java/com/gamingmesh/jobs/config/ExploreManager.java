@@ -3,10 +3,14 @@ package com.gamingmesh.jobs.config;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Chunk;
 import org.bukkit.entity.Player;
@@ -16,18 +20,69 @@ import com.gamingmesh.jobs.container.ExploreChunk;
 import com.gamingmesh.jobs.container.ExploreRegion;
 import com.gamingmesh.jobs.container.ExploreRespond;
 import com.gamingmesh.jobs.container.JobsWorld;
+import com.gamingmesh.jobs.container.LongHashMap;
+import com.gamingmesh.jobs.dao.JobsStorage;
 import com.gamingmesh.jobs.dao.JobsDAO.ExploreDataTableFields;
 import com.gamingmesh.jobs.stuff.Util;
 
 import net.Zrips.CMILib.Messages.CMIMessages;
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
 
 @Deprecated
 public class ExploreManager {
 
-    private final Map<String, Map<String, ExploreRegion>> worlds = new HashMap<>();
+    // Regions by packed region position
+    private final Map<String, LongHashMap<ExploreRegion>> worlds = new HashMap<>();
+    private final Map<String, Set<ExploreRegion>> dirtyRegions = new ConcurrentHashMap<>();
     private boolean exploreEnabled = false;
     private int playerAmount = 1;
 
+    /**
+     * Values of changed chunk taken on main thread, so they can be written on database thread while chunk keeps
+     * changing
+     */
+    public static final class DirtyChunk {
+        private final String world;
+        private final ExploreRegion region;
+        private final short place;
+        private final ExploreChunk chunk;
+        private final int x;
+        private final int z;
+        private final int dbId;
+        private final String names;
+
+        private DirtyChunk(String world, ExploreRegion region, short place, ExploreChunk chunk) {
+            this.world = world;
+            this.region = region;
+            this.place = place;
+            this.chunk = chunk;
+            this.x = region.getChunkGlobalX(place);
+            this.z = region.getChunkGlobalZ(place);
+            this.dbId = chunk.getDbId();
+            this.names = chunk.serializeNames();
+        }
+
+        public String getWorld() {
+            return world;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getZ() {
+            return z;
+        }
+
+        public int getDbId() {
+            return dbId;
+        }
+
+        public String getNames() {
+            return names;
+        }
+    }
+
     public int getPlayerAmount() {
         return playerAmount;
     }
@@ -47,14 +102,12 @@ public class ExploreManager {
 
     public List<Integer> getVisitors(Chunk chunk) {
 
-        Map<String, ExploreRegion> exploreRegion = worlds.get(chunk.getWorld().getName());
+        LongHashMap<ExploreRegion> exploreRegion = worlds.get(chunk.getWorld().getName());
 
         if (exploreRegion == null)
             return null;
 
-        int RegionX = (int) Math.floor(chunk.getX() / 32D);
-        int RegionZ = (int) Math.floor(chunk.getZ() / 32D);
-        ExploreRegion region = exploreRegion.get(RegionX + ":" + RegionZ);
+        ExploreRegion region = exploreRegion.get(LongHashMap.pack(chunk.getX() >> 5, chunk.getZ() >> 5));
         if (region == null)
             return null;
 
@@ -77,24 +130,23 @@ public class ExploreManager {
         if (Jobs.getGeneralConfigManager().ExploreSaveIntoDatabase) {
             CMIMessages.consoleMessage("&eLoading explorer data");
             Long time = System.currentTimeMillis();
-            Jobs.getJobsDAO().loadExplore();
+            JobsStorage dao = Jobs.getJobsDAO();
+            dao.runAsync(dao::loadExplore).join();
             int size = getSize();
             CMIMessages.consoleMessage("&eLoaded explorer data" + (size != 0 ? " (&6" + size + "&e)" : " ") + " in " + (System.currentTimeMillis() - time) + " ms");
         }
     }
 
-    public Map<String, Map<String, ExploreRegion>> getWorlds() {
+    public Map<String, LongHashMap<ExploreRegion>> getWorlds() {
         return worlds;
     }
 
     public int getSize() {
-        int i = 0;
-        for (Map<String, ExploreRegion> one : worlds.values()) {
-            for (Entry<String, ExploreRegion> chunks : one.entrySet()) {
-                i += chunks.getValue().getChunks().size();
-            }
+        int[] i = { 0 };
+        for (LongHashMap<ExploreRegion> one : worlds.values()) {
+            one.forEach((key, region) -> i[0] += region.getChunks().size());
         }
-        return i;
+        return i[0];
     }
 
     public ExploreRespond chunkRespond(Player player, Chunk chunk) {
@@ -106,15 +158,11 @@ public class ExploreManager {
     }
 
     public ExploreRespond chunkRespond(int playerId, String world, int x, int z) {
-        Map<String, ExploreRegion> eRegions = worlds.getOrDefault(world, new HashMap<String, ExploreRegion>());
-
-        int RegionX = (int) Math.floor(x / 32D);
-        int RegionZ = (int) Math.floor(z / 32D);
+        int RegionX = x >> 5;
+        int RegionZ = z >> 5;
 
-        ExploreRegion region = eRegions.get(RegionX + ":" + RegionZ);
-        if (region == null) {
-            region = new ExploreRegion(RegionX, RegionZ);
-        }
+        ExploreRegion region = worlds.computeIfAbsent(world, k -> new LongHashMap<>())
+            .computeIfAbsent(LongHashMap.pack(RegionX, RegionZ), k -> new ExploreRegion(RegionX, RegionZ));
 
         int chunkRelativeX = (RegionX * 32) - x;
         int chunkRelativeZ = (RegionZ * 32) - z;
@@ -125,69 +173,140 @@ public class ExploreManager {
             region.addChunk(chunkRelativeX, chunkRelativeZ, chunk);
         }
 
-        eRegions.put(RegionX + ":" + RegionZ, region);
-
-        worlds.put(world, eRegions);
+        ExploreRespond respond = chunk.addPlayer(playerId);
+        if (chunk.isUpdated() || chunk.getDbId() == -1)
+            markDirty(world, region, chunkRelativeX, chunkRelativeZ);
+        return respond;
+    }
 
-        return chunk.addPlayer(playerId);
+    private void markDirty(String world, ExploreRegion region, int relativeX, int relativeZ) {
+        region.markDirty(relativeX, relativeZ);
+        dirtyRegions.computeIfAbsent(world, k -> ConcurrentHashMap.newKeySet()).add(region);
     }
 
-    public void load(ResultSet res) {
-        try {
-            String worldName = res.getString(ExploreDataTableFields.worldname.getCollumn());
+    /**
+     * Takes values of chunks changed since last save, should be called on main thread where chunks change
+     */
+    public List<DirtyChunk> takeDirtyChunks() {
+        List<DirtyChunk> dirty = new ArrayList<>();
+        for (Entry<String, Set<ExploreRegion>> world : dirtyRegions.entrySet()) {
+            for (ExploreRegion region : new ArrayList<>(world.getValue())) {
+                // Removing region before taking its chunks so chunks marked in between add region back
+                world.getValue().remove(region);
+                for (Short place : region.takeDirtyChunks()) {
+                    ExploreChunk chunk = region.getChunk(place);
+                    if (chunk != null)
+                        dirty.add(new DirtyChunk(world.getKey(), region, place, chunk));
+                }
+            }
+        }
+        return dirty;
+    }
 
-            JobsWorld jobsWorld = Util.getJobsWorld(worldName);
-            if (jobsWorld == null)
-                jobsWorld = Util.getJobsWorld(res.getInt(ExploreDataTableFields.worldid.getCollumn()));
+    /**
+     * Marks chunks taken by {@link #takeDirtyChunks()} as changed again, used when they failed to be saved
+     */
+    public void restoreDirtyChunks(List<DirtyChunk> dirty) {
+        for (DirtyChunk one : dirty) {
+            one.region.markDirty(Collections.singleton(one.place));
+            dirtyRegions.computeIfAbsent(one.world, k -> ConcurrentHashMap.newKeySet()).add(one.region);
+        }
+    }
 
-            if (jobsWorld == null)
+    /**
+     * Takes chunks changed since last save and writes them on database thread, should be called on main thread.
+     * Ids of inserted chunks are given to chunks back on main thread.
+     * @return future which completes after chunks are written
+     */
+    public CompletableFuture<Void> save(JobsStorage dao) {
+        if (!exploreEnabled || Jobs.getGCManager().useNewExploration)
+            return CompletableFuture.completedFuture(null);
+
+        List<DirtyChunk> dirty = takeDirtyChunks();
+        if (dirty.isEmpty())
+            return CompletableFuture.completedFuture(null);
+
+        return dao.runAsync(() -> {
+            Map<DirtyChunk, Integer> ids = dao.saveExplore(dirty);
+            if (ids == null) {
+                restoreDirtyChunks(dirty);
                 return;
+            }
 
-            int x = res.getInt(ExploreDataTableFields.chunkX.getCollumn());
-            int z = res.getInt(ExploreDataTableFields.chunkZ.getCollumn());
-            String names = res.getString(ExploreDataTableFields.playerNames.getCollumn());
-            int id = res.getInt("id");
+            if (Jobs.getInstance().isEnabled())
+                CMIScheduler.runTask(Jobs.getInstance(), () -> saved(dirty, ids));
+        });
+    }
 
-            Map<String, ExploreRegion> eRegions = worlds.getOrDefault(jobsWorld.getName(), new HashMap<String, ExploreRegion>());
+    private void saved(List<DirtyChunk> dirty, Map<DirtyChunk, Integer> ids) {
+        List<DirtyChunk> failed = new ArrayList<>();
+        for (DirtyChunk one : dirty) {
+            if (one.dbId == -1) {
+                Integer id = ids.get(one);
+                // Chunk which was not inserted is saved again in next pass
+                if (id == null) {
+                    failed.add(one);
+                    continue;
+                }
+                if (one.chunk.getDbId() == -1)
+                    one.chunk.setDbId(id);
+            }
+            one.chunk.setUpdated(false);
+        }
+        restoreDirtyChunks(failed);
+    }
 
-            int RegionX = (int) Math.floor(x / 32D);
-            int RegionZ = (int) Math.floor(z / 32D);
+    public void load(ResultSet res) {
+        try {
+            load(res.getString(ExploreDataTableFields.worldname.getCollumn()), res.getInt(ExploreDataTableFields.worldid.getCollumn()),
+                res.getInt(ExploreDataTableFields.chunkX.getCollumn()), res.getInt(ExploreDataTableFields.chunkZ.getCollumn()),
+                res.getString(ExploreDataTableFields.playerNames.getCollumn()), res.getInt("id"));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
-            int chunkRelativeX = RegionX * 32 - x;
-            int chunkRelativeZ = RegionZ * 32 - z;
+    public void load(String worldName, int worldId, int x, int z, String names, int id) {
+        JobsWorld jobsWorld = Util.getJobsWorld(worldName);
+        if (jobsWorld == null)
+            jobsWorld = Util.getJobsWorld(worldId);
 
-            ExploreRegion region = eRegions.get(RegionX + ":" + RegionZ);
-            if (region == null) {
-                region = new ExploreRegion(RegionX, RegionZ);
-            }
-            ExploreChunk chunk = region.getChunk(chunkRelativeX, chunkRelativeZ);
-            if (chunk == null) {
-                chunk = new ExploreChunk();
-                region.addChunk(chunkRelativeX, chunkRelativeZ, chunk);
-            }
-            chunk.deserializeNames(names);
-            chunk.setDbId(id);
+        if (jobsWorld == null)
+            return;
 
-            eRegions.put(RegionX + ":" + RegionZ, region);
-            worlds.put(jobsWorld.getName(), eRegions);
+        int RegionX = x >> 5;
+        int RegionZ = z >> 5;
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+        int chunkRelativeX = RegionX * 32 - x;
+        int chunkRelativeZ = RegionZ * 32 - z;
+
+        ExploreRegion region = worlds.computeIfAbsent(jobsWorld.getName(), k -> new LongHashMap<>())
+            .computeIfAbsent(LongHashMap.pack(RegionX, RegionZ), k -> new ExploreRegion(RegionX, RegionZ));
+        ExploreChunk chunk = region.getChunk(chunkRelativeX, chunkRelativeZ);
+        if (chunk == null) {
+            chunk = new ExploreChunk();
+            region.addChunk(chunkRelativeX, chunkRelativeZ, chunk);
         }
+        chunk.deserializeNames(names);
+        chunk.setDbId(id);
+        if (chunk.isUpdated())
+            markDirty(jobsWorld.getName(), region, chunkRelativeX, chunkRelativeZ);
     }
 
     public void resetRegion(String worldname) {
         CMIMessages.consoleMessage("&eReseting explorer data. World: " + worldname);
 
-        Map<String, Map<String, ExploreRegion>> worlds = getWorlds();
-        worlds.put(worldname, new HashMap<String, ExploreRegion>());
+        worlds.put(worldname, new LongHashMap<>());
+        dirtyRegions.remove(worldname);
 
-        boolean r = Jobs.getJobsDAO().deleteExploredWorld(worldname);
-        if (!r) {
-            CMIMessages.consoleMessage("&eFailed in DAO.");
-            return;
-        }
+        JobsStorage dao = Jobs.getJobsDAO();
+        dao.supplyAsync(() -> dao.deleteExploredWorld(worldname)).thenAccept(r -> {
+            if (!r) {
+                CMIMessages.consoleMessage("&eFailed in DAO.");
+                return;
+            }
 
-        CMIMessages.consoleMessage("&eCompleted to reset explorer data.");
+            CMIMessages.consoleMessage("&eCompleted to reset explorer data.");
+        });
     }
 }
@@ -26,6 +26,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import org.bukkit.Bukkit;
 import org.bukkit.Color;
 import org.bukkit.FireworkEffect;
 import org.bukkit.World;
@@ -76,13 +77,16 @@ public class GeneralConfigManager {
 
     public String modifyChatPrefix, modifyChatSuffix, modifyChatSeparator,
         ServerAccountName, ServertaxesAccountName, localeString = "";
-    private String getSelectionTool, DecimalPlacesMoney, DecimalPlacesExp, DecimalPlacesPoints;
+    private String getSelectionTool, DecimalPlacesMoney, DecimalPlacesExp, DecimalPlacesPoints, MultiServerName;
+    private int MultiServerHandoffTimeout;
 
     public List<String> JobsTopHiddenPlayers;
 
-    public int jobExpiryTime, BlockProtectionDays, FireworkPower, ShootTime, blockOwnershipRange,
-        globalblocktimer, globalBlockBreakTimer, CowMilkingTimer, InfoUpdateInterval, JobsTopAmount, PlaceholdersPage, ConfirmExpiryTime,
-        SegmentCount, BossBarTimer, AutoJobJoinDelay, DBCleaningJobsLvl, DBCleaningUsersDays,
+    public int jobExpiryTime, BlockProtectionDays, BlockProtectionSaveDelay, BlockProtectionSavesPerTick, BlockProtectionCacheMemory, FireworkPower, ShootTime, blockOwnershipRange,
+        globalblocktimer, globalBlockBreakTimer, CowMilkingTimer, InfoUpdateInterval, SignUpdatesPerTick, JobsTopAmount, PlaceholdersPage, ConfirmExpiryTime,
+        PlaceholderCachePlayerTime, PlaceholderCacheGlobalTime,
+        SegmentCount, BossBarTimer, AutoJobJoinDelay, DBCleaningJobsLvl, DBCleaningUsersDays, DBCleaningBatchSize, DBCleaningBatchPause,
+        LogRollupWeeklyAfterDays, LogRollupMonthlyAfterDays, LogRollupBatchSize, LogRollupBatchPause, LogRollupInterval,
         levelLossPercentageFromMax, levelLossPercentage, ToplistInScoreboardInterval;
 
     protected int savePeriod, maxJobs, economyBatchDelay;
@@ -118,9 +122,9 @@ public class GeneralConfigManager {
         DisableJoiningJobThroughGui, FireworkLevelupUse, UseRandom, UsePerPermissionForLeaving,
         EnableConfirmation, jobsInfoOpensBrowse, MonsterDamageUse, MonsterDamageIgnoreBosses, tameablesPayout, useMaxPaymentCurve, blockOwnershipTakeOver, blockOwnershipDisabled,
         hideJobsInfoWithoutPermission, UseTaxes, TransferToServerAccount, TakeFromPlayersPayment, AutoJobJoinUse, AllowDelevel, RomanNumbers,
-        BossBarEnabled = false, ActionBarEnabled, ExploreCompact, ExploreSaveIntoDatabase = false, DBCleaningJobsUse, DBCleaningUsersUse,
+        BossBarEnabled = false, ActionBarEnabled, ExploreCompact, ExploreSaveIntoDatabase = false, WarmStartUse = false, DBCleaningJobsUse, DBCleaningUsersUse,
         DisabledWorldsUse, UseAsWhiteListWorldList, MythicMobsEnabled,
-        LoggingUse, payForCombiningItems, payForStackedEntities, payForAbove = false,
+        LoggingUse, LogRollupUse, payForCombiningItems, payForStackedEntities, payForAbove = false,
         payForEachVTradeItem, allowEnchantingBoostedItems, preventShopItemEnchanting, useCustomFishingOnly = false, boostPersistenceEnabled = true;
     public MessageToggleState BossBarsMessageDefault = MessageToggleState.Rapid;
     public MessageToggleState ActionBarsMessageDefault = MessageToggleState.Rapid;
@@ -258,6 +262,14 @@ public class GeneralConfigManager {
         return MultiServerCompatability;
     }
 
+    public String getMultiServerName() {
+        return MultiServerName;
+    }
+
+    public int getMultiServerHandoffTimeout() {
+        return MultiServerHandoffTimeout;
+    }
+
     public Locale getLocale() {
         return locale;
     }
@@ -291,8 +303,6 @@ public class GeneralConfigManager {
     public synchronized void reload() {
         // general settings
         loadGeneralSettings();
-        Jobs.getJobsDAO().cleanJobs();
-        Jobs.getJobsDAO().cleanUsers();
         // Load locale
         Jobs.getLanguageManager().load();
         // title settings
@@ -390,6 +400,15 @@ public class GeneralConfigManager {
             saveOnDisconnect = true;
         }
 
+        c.addComment("MultiServerName", "Unique name of this server used with MultiServerCompatability",
+            "Player is loaded only after server he came from has saved his data, when left empty server port is used");
+        MultiServerName = c.get("MultiServerName", "");
+        if (MultiServerName.isEmpty())
+            MultiServerName = "port-" + Bukkit.getPort();
+
+        c.addComment("MultiServerHandoffTimeout", "Seconds to wait for other server to save player data before it is loaded anyway");
+        MultiServerHandoffTimeout = c.get("MultiServerHandoffTimeout", 10);
+
         c.addComment("Optimizations.NewVersion",
             "When set to true staff will be informed about new Jobs plugin version", "You need to have jobs.versioncheck permission node");
         ShowNewVersion = c.get("Optimizations.NewVersion", true);
@@ -419,6 +438,12 @@ public class GeneralConfigManager {
         c.addComment("Optimizations.DBCleaning.Users.Days", "Any one who not played for defined amount of days, will be removed from data base");
         DBCleaningUsersDays = c.get("Optimizations.DBCleaning.Users.Days", 60);
 
+        c.addComment("Optimizations.DBCleaning.BatchSize", "Cleaning is done in background by checking this many row ids at once",
+            "Smaller batches keep tables locked for shorter time");
+        DBCleaningBatchSize = c.get("Optimizations.DBCleaning.BatchSize", 1000);
+        c.addComment("Optimizations.DBCleaning.BatchPause", "Pause in milliseconds between cleaning batches");
+        DBCleaningBatchPause = c.get("Optimizations.DBCleaning.BatchPause", 50);
+
         c.addComment("Optimizations.AutoJobJoin.Use", "Use or not auto join jobs feature",
             "If you are not using auto join feature, keep it disabled");
         AutoJobJoinUse = c.get("Optimizations.AutoJobJoin.Use", false);
@@ -459,10 +484,30 @@ public class GeneralConfigManager {
             "While disabled expored chunk data resets on every server startup which will freeup memory and speedup server startups and stop in some cases");
         ExploreSaveIntoDatabase = c.get("Optimizations.Explore.SaveIntoDatabase", false);
 
+        c.addComment("Optimizations.WarmStart.Use",
+            "When enabled player and explorer data is written into warmstart.dat file on clean shutdown",
+            "On next startup data is read from that file instead of database if database was not changed since then",
+            "Not used with MultiServerCompatability or database cleaning");
+        WarmStartUse = c.get("Optimizations.WarmStart.Use", false);
+
         c.addComment("Logging.Use", "With this set to true all players jobs actions will be logged to database for easy to see statistics",
             "This is still in development and in future it will expand");
         LoggingUse = c.get("Logging.Use", false);
 
+        c.addComment("Logging.Rollup.Use", "When set to true old log entries will be compacted in background into weekly and monthly summaries",
+            "This keeps log table size in check while /jobs log and /jobs glog can still show older statistics");
+        LogRollupUse = c.get("Logging.Rollup.Use", true);
+        c.addComment("Logging.Rollup.WeeklyAfterDays", "Log entries older than defined amount of days will be summed up into weekly entries");
+        LogRollupWeeklyAfterDays = Math.max(2, c.get("Logging.Rollup.WeeklyAfterDays", 14));
+        c.addComment("Logging.Rollup.MonthlyAfterDays", "Weekly entries older than defined amount of days will be summed up into monthly entries");
+        LogRollupMonthlyAfterDays = Math.max(LogRollupWeeklyAfterDays + 7, c.get("Logging.Rollup.MonthlyAfterDays", 90));
+        c.addComment("Logging.Rollup.BatchSize", "Max amount of entries compacted in one go, lower it if compaction causes database lag");
+        LogRollupBatchSize = Math.max(100, c.get("Logging.Rollup.BatchSize", 1000));
+        c.addComment("Logging.Rollup.BatchPause", "Pause in milliseconds between compacted batches, so other database calls can run between them");
+        LogRollupBatchPause = Math.max(0, c.get("Logging.Rollup.BatchPause", 50));
+        c.addComment("Logging.Rollup.Interval", "How often in minutes compaction should run");
+        LogRollupInterval = Math.max(1, c.get("Logging.Rollup.Interval", 60));
+
         c.addComment("broadcast.on-skill-up.use", "Do all players get a message when someone goes up a skill level?");
         isBroadcastingSkillups = c.get("broadcast.on-skill-up.use", false);
 
@@ -921,6 +966,24 @@ public class GeneralConfigManager {
             useNewBlockProtection = c.get("ExploitProtections.General.PlaceAndBreak.NewMethod", true);
         }
 
+        c.addComment("ExploitProtections.General.PlaceAndBreak.Saving.Delay",
+            "Only applies when new method is used",
+            "For how long in seconds changed chunk protection data is kept in memory before it is written into chunk",
+            "Changes of same chunk during this time are written at once, chunk data is always written when chunk unloads or world saves");
+        BlockProtectionSaveDelay = c.get("ExploitProtections.General.PlaceAndBreak.Saving.Delay", 5);
+        BlockProtectionSaveDelay = BlockProtectionSaveDelay < 0 ? 0 : BlockProtectionSaveDelay;
+        c.addComment("ExploitProtections.General.PlaceAndBreak.Saving.ChunksPerTick",
+            "Max amount of changed chunks written in one tick, remaining ones are written in next ticks");
+        BlockProtectionSavesPerTick = c.get("ExploitProtections.General.PlaceAndBreak.Saving.ChunksPerTick", 20);
+        BlockProtectionSavesPerTick = BlockProtectionSavesPerTick < 1 ? 1 : BlockProtectionSavesPerTick;
+
+        c.addComment("ExploitProtections.General.PlaceAndBreak.Cache.MaxMemory",
+            "Max amount of memory in megabytes protection entries can take, set to 0 to disable the limit",
+            "Entries of chunks and regions which were not used for longest time are dropped from memory when it is reached",
+            "Dropped entries are loaded again when their chunk or region is used");
+        BlockProtectionCacheMemory = c.get("ExploitProtections.General.PlaceAndBreak.Cache.MaxMemory", 64);
+        BlockProtectionCacheMemory = BlockProtectionCacheMemory < 0 ? 0 : BlockProtectionCacheMemory;
+
         c.addComment("ExploitProtections.General.PlaceAndBreak.BlockTracker.Enabled",
             "Should we use BlockTracker plugin instead of built in block tracker");
         useBlockProtectionBlockTracker = c.get("ExploitProtections.General.PlaceAndBreak.BlockTracker.Enabled", false);
@@ -1136,6 +1199,10 @@ public class GeneralConfigManager {
         c.addComment("Signs.InfoUpdateInterval",
             "This is update for same job signs, to avoid huge lag if you have bunch of same type signs. Keep it from 1 to as many sec you want");
         InfoUpdateInterval = c.get("Signs.InfoUpdateInterval", 5);
+        c.addComment("Signs.UpdatesPerTick", "Max amount of signs and heads updated in one tick, remaining ones are updated in next ticks",
+            "Only signs with changed lines or heads are updated");
+        SignUpdatesPerTick = c.get("Signs.UpdatesPerTick", 5);
+        SignUpdatesPerTick = SignUpdatesPerTick < 1 ? 1 : SignUpdatesPerTick;
 
         c.addComment("Scoreboard.ShowToplist", "This will enable to show top list in scoreboard instead of chat");
         ShowToplistInScoreboard = c.get("Scoreboard.ShowToplist", true);
@@ -1143,6 +1210,13 @@ public class GeneralConfigManager {
         c.addComment("Scoreboard.interval", "For how long to show scoreboard");
         ToplistInScoreboardInterval = c.get("Scoreboard.interval", 10);
 
+        c.addComment("Placeholders.Cache.PlayerValues", "Time in milliseconds player placeholder values are reused before they are updated",
+            "Values are updated sooner after payments, level changes, joins and quits", "Set to 0 to update values on every request");
+        PlaceholderCachePlayerTime = c.get("Placeholders.Cache.PlayerValues", 1000);
+        c.addComment("Placeholders.Cache.GlobalValues", "Time in milliseconds top list and total worker placeholder values are reused before they are updated",
+            "Set to 0 to update values on every request");
+        PlaceholderCacheGlobalTime = c.get("Placeholders.Cache.GlobalValues", 5000);
+
         c.addComment("JobsBrowse.ShowTotalWorkers", "Do you want to show total amount of workers for job in jobs browse window?");
         ShowTotalWorkers = c.get("JobsBrowse.ShowTotalWorkers", true);
         c.addComment("JobsBrowse.ShowPenaltyBonus", "Do you want to show penalty and bonus in jobs browse window? Only works if this feature is enabled");
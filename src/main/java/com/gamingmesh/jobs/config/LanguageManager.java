@@ -533,7 +533,7 @@ public class LanguageManager {
             c.get("command.area.output.wgDontExist", "&eWorldGuard area by this name does not exist");
 
             c.get("command.log.help.info", "Shows statistics.");
-            c.get("command.log.help.args", "[playername]");
+            c.get("command.log.help.args", "[playername] [-d:days]");
             Jobs.getGCManager().getCommandArgs().put("log", Arrays.asList("[playername]"));
             c.get("command.log.output.topline", "&7************************* &6%playerdisplayname% &7*************************");
             c.get("command.log.output.ls", "&7* &6%number%. &3%action%: &6%item% &eqty: %qty% %money%%exp%%points%");
@@ -547,7 +547,7 @@ public class LanguageManager {
             c.get("command.log.output.nodata", "&cData not found");
 
             c.get("command.glog.help.info", "Shows global statistics.");
-            c.get("command.glog.help.args", "");
+            c.get("command.glog.help.args", "[-d:days]");
             c.get("command.glog.output.topline", "&7*********************** &6Global statistics &7***********************");
             c.get("command.glog.output.ls", "&7* &6%number%. &3%action%: &6%item% &eqty: %qty% %money%%exp%%points%");
             c.get("command.glog.output.money", "&6money: %amount% ");
@@ -603,6 +603,12 @@ public class LanguageManager {
             c.get("command.bp.output.found", "&eFound &6%amount% &eprotected blocks around you");
             c.get("command.bp.output.notFound", "&eNo protected blocks found around you");
 
+            c.get("command.cache.help.info", "Shows how many block protection entries are kept in memory");
+            c.get("command.cache.help.args", "");
+            c.get("command.cache.output.chunks", "&eChunks: &6[chunks] &eEntries: &6[entries] &eUnsaved: &6[dirty]");
+            c.get("command.cache.output.regions", "&eRegions: &6[regions] &eEvicted: &6[evicted] &eEntries: &6[entries] &eUnsaved: &6[pending]");
+            c.get("command.cache.output.memory", "&eMemory: &6[used]&e/&6[max] &eMB");
+
             c.get("command.reload.help.info", "Reload configurations.");
 
             c.get("command.toggle.help.info", "Toggles payment output on action bar or bossbar.");
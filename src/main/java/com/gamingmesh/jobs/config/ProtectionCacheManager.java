@@ -0,0 +1,62 @@
+package com.gamingmesh.jobs.config;
+
+import com.gamingmesh.jobs.Jobs;
+
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
+import net.Zrips.CMILib.Version.Schedulers.CMITask;
+
+/**
+ * Keeps block protection entries held in memory under configured memory budget by dropping entries of chunks and
+ * regions which were not used for longest time.
+ */
+public class ProtectionCacheManager {
+
+    private Jobs plugin;
+
+    private CMITask timer;
+
+    public ProtectionCacheManager(Jobs plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        cancel();
+
+        if (!Jobs.getGCManager().useBlockProtection || getBudget() <= 0)
+            return;
+
+        timer = CMIScheduler.scheduleSyncRepeatingTask(plugin, this::trim, 20 * 30L, 20 * 30L);
+    }
+
+    public void cancel() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+    }
+
+    /**
+     * @return memory budget in bytes, 0 if there is no limit
+     */
+    public static long getBudget() {
+        return Jobs.getGCManager().BlockProtectionCacheMemory * 1024L * 1024L;
+    }
+
+    /**
+     * @return estimated amount of memory in bytes taken by protection entries of both protection methods
+     */
+    public static long getMemoryUsage() {
+        return Jobs.getExploitManager().getMemoryUsage() + Jobs.getBpManager().getMemoryUsage();
+    }
+
+    private void trim() {
+        long over = getMemoryUsage() - getBudget();
+        if (over <= 0)
+            return;
+
+        // Chunk entries are written before they are dropped, so they are evicted first
+        over -= Jobs.getExploitManager().evict(over);
+        if (over > 0)
+            Jobs.getBpManager().evict(over);
+    }
+}
@@ -270,7 +270,7 @@ public class ShopManager {
 
                     if (item.getPointPrice() > 0) {
                         jPlayer.getPointsData().takePoints(item.getPointPrice());
-                        Jobs.getJobsDAO().savePoints(jPlayer);
+                        Jobs.getJobsDAO().savePointsAsync(jPlayer);
                         player.sendMessage(Jobs.getLanguage().getMessage("command.shop.info.Paid", "%amount%", item.getPointPrice()));
                     }
 
@@ -40,11 +40,11 @@ public class BlockProtection {
         return deconvert(time);
     }
 
-    private static int convert(long time) {
+    static int convert(long time) {
         return time == -1L ? -1 : (int) ((time - pre) / 1000L);
     }
 
-    private static long deconvert(int time) {
+    static long deconvert(int time) {
         return time == -1 ? -1 : (time * 1000L) + pre;
     }
 
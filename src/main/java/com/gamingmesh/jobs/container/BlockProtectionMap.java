@@ -0,0 +1,267 @@
+package com.gamingmesh.jobs.container;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Block protection entries of one world kept in open addressing hash map keyed by packed block position.
+ * <p>
+ * Entry values are stored in parallel primitive arrays, so lookups do not allocate and each entry takes around 20
+ * bytes instead of separate protection object, string key and map node. Entries are addressed by their slot index
+ * which stays valid until map is changed.
+ */
+public class BlockProtectionMap {
+
+    // Packed position never produced by block inside world border
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6F;
+
+    private static final byte PAID = 1, SCHEDULED = 2;
+    private static final DBAction[] ACTIONS = DBAction.values();
+
+    private long[] keys;
+    private int[] times;
+    private int[] ids;
+    private byte[] actions;
+    private byte[] flags;
+
+    private int size = 0;
+    private int threshold;
+
+    public BlockProtectionMap() {
+        allocate(64);
+    }
+
+    /**
+     * Packs block position into single value, 26 bits for x and z and 12 bits for y
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int unpackY(long key) {
+        return (int) (key << 52 >> 52);
+    }
+
+    public static int unpackZ(long key) {
+        return (int) (key << 26 >> 38);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        times = new int[capacity];
+        ids = new int[capacity];
+        actions = new byte[capacity];
+        flags = new byte[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return slot index of entry or -1 if there is no entry for this position
+     */
+    public int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key)
+                return i;
+            if (current == EMPTY)
+                return -1;
+        }
+    }
+
+    /**
+     * Adds new entry without time, id or action, entry for this position should not exist yet
+     * @return slot index of new entry
+     */
+    public int add(long key) {
+        if (size >= threshold)
+            resize(keys.length * 2);
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        times[i] = -1;
+        ids[i] = -1;
+        actions[i] = 0;
+        flags[i] = 0;
+        size++;
+        return i;
+    }
+
+    /**
+     * Sets entry values from protection record, entry is added if it does not exist
+     * @return slot index of entry
+     */
+    public int put(long key, BlockProtection bp) {
+        int i = indexOf(key);
+        if (i < 0)
+            i = add(key);
+
+        times[i] = BlockProtection.convert(bp.getTime());
+        ids[i] = bp.getId();
+        setAction(i, bp.getAction());
+        setPaid(i, bp.isPaid());
+        return i;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldTimes = times;
+        int[] oldIds = ids;
+        byte[] oldActions = actions;
+        byte[] oldFlags = flags;
+
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int old = 0; old < oldKeys.length; old++) {
+            long key = oldKeys[old];
+            if (key == EMPTY)
+                continue;
+
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = key;
+            times[i] = oldTimes[old];
+            ids[i] = oldIds[old];
+            actions[i] = oldActions[old];
+            flags[i] = oldFlags[old];
+        }
+    }
+
+    /**
+     * Removes entry at slot index. Following entries of same probe chain are shifted back, so no deleted markers are
+     * left behind and slot index can hold different entry afterwards.
+     */
+    public void removeAt(int index) {
+        int mask = keys.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask;; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == EMPTY)
+                break;
+
+            int home = slot(key, mask);
+            // Entry can be moved only if free slot lies between its home slot and its current slot
+            if (((i - home) & mask) < ((i - free) & mask))
+                continue;
+
+            keys[free] = key;
+            times[free] = times[i];
+            ids[free] = ids[i];
+            actions[free] = actions[i];
+            flags[free] = flags[i];
+            free = i;
+        }
+
+        keys[free] = EMPTY;
+        size--;
+    }
+
+    /**
+     * Removes every entry matching filter
+     * @param filter - tested with slot index of entry
+     * @return amount of removed entries
+     */
+    public int removeIf(IntPredicate filter) {
+        int removed = 0;
+        for (int i = 0; i < keys.length;) {
+            // Removal can shift next entry into same slot, so it is checked again
+            if (keys[i] != EMPTY && filter.test(i)) {
+                removeAt(i);
+                removed++;
+            } else
+                i++;
+        }
+
+        if (removed > 0 && size < threshold / 4 && keys.length > 64)
+            resize(Math.max(64, Integer.highestOneBit(Math.max(1, (int) (size / LOAD_FACTOR)) * 2)));
+
+        return removed;
+    }
+
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    public long getTime(int index) {
+        return BlockProtection.deconvert(times[index]);
+    }
+
+    public void setTime(int index, long time) {
+        times[index] = time == -1 ? -1 : BlockProtection.convert(time);
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public void setId(int index, int id) {
+        ids[index] = id;
+    }
+
+    public DBAction getAction(int index) {
+        return ACTIONS[actions[index]];
+    }
+
+    public void setAction(int index, DBAction action) {
+        actions[index] = (byte) (action == null ? 0 : action.ordinal());
+    }
+
+    public boolean isPaid(int index) {
+        return (flags[index] & PAID) != 0;
+    }
+
+    public void setPaid(int index, boolean paid) {
+        flags[index] = (byte) (paid ? flags[index] | PAID : flags[index] & ~PAID);
+    }
+
+    /**
+     * @return true if entry has task which removes it when its time ends
+     */
+    public boolean isScheduled(int index) {
+        return (flags[index] & SCHEDULED) != 0;
+    }
+
+    public void setScheduled(int index, boolean scheduled) {
+        flags[index] = (byte) (scheduled ? flags[index] | SCHEDULED : flags[index] & ~SCHEDULED);
+    }
+
+    /**
+     * Creates protection record with values of entry, used when entry is saved or shown
+     */
+    public BlockProtection get(int index) {
+        long key = keys[index];
+        BlockProtection bp = new BlockProtection(getAction(index), unpackX(key), unpackY(key), unpackZ(key));
+        bp.setId(ids[index]);
+        bp.setPaid(isPaid(index));
+        bp.setTime(getTime(index));
+        return bp;
+    }
+}
@@ -0,0 +1,157 @@
+package com.gamingmesh.jobs.container;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compressed set of chunk positions of one world.
+ * <p>
+ * Chunks are grouped by 32x32 regions keyed by packed region position. Region with few chunks keeps their places as
+ * sorted short array, once it has more than {@link #SPARSE_LIMIT} chunks it is turned into 1024 bit bitmap, which
+ * takes the same amount of memory at that point. Checks are hash lookup of region and binary search or bit test.
+ */
+public class ChunkBitmap {
+
+    // Sorted array of this size takes as much memory as region bitmap
+    private static final int SPARSE_LIMIT = 64;
+    private static final int WORDS = 1024 / 64;
+
+    private static class Container {
+        private short[] places = new short[4];
+        private long[] bits = null;
+        private int size = 0;
+
+        private boolean contains(int place) {
+            if (bits != null)
+                return (bits[place >> 6] & (1L << (place & 63))) != 0;
+            return Arrays.binarySearch(places, 0, size, (short) place) >= 0;
+        }
+
+        private boolean add(int place) {
+            if (bits != null) {
+                long mask = 1L << (place & 63);
+                if ((bits[place >> 6] & mask) != 0)
+                    return false;
+                bits[place >> 6] |= mask;
+                size++;
+                return true;
+            }
+
+            int index = Arrays.binarySearch(places, 0, size, (short) place);
+            if (index >= 0)
+                return false;
+
+            if (size == SPARSE_LIMIT) {
+                bits = new long[WORDS];
+                for (int i = 0; i < size; i++) {
+                    bits[places[i] >> 6] |= 1L << (places[i] & 63);
+                }
+                places = null;
+                bits[place >> 6] |= 1L << (place & 63);
+                size++;
+                return true;
+            }
+
+            index = -index - 1;
+            if (size == places.length)
+                places = Arrays.copyOf(places, Math.min(SPARSE_LIMIT, size * 2));
+            System.arraycopy(places, index, places, index + 1, size - index);
+            places[index] = (short) place;
+            size++;
+            return true;
+        }
+    }
+
+    private final LongHashMap<Container> regions = new LongHashMap<>();
+    private int size = 0;
+
+    private static int place(int chunkX, int chunkZ) {
+        return ((chunkZ & 31) << 5) | (chunkX & 31);
+    }
+
+    /**
+     * @return amount of chunks in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        Container container = regions.get(LongHashMap.pack(chunkX >> 5, chunkZ >> 5));
+        return container != null && container.contains(place(chunkX, chunkZ));
+    }
+
+    /**
+     * @return true if chunk was not in this set
+     */
+    public boolean add(int chunkX, int chunkZ) {
+        Container container = regions.computeIfAbsent(LongHashMap.pack(chunkX >> 5, chunkZ >> 5), k -> new Container());
+        if (!container.add(place(chunkX, chunkZ)))
+            return false;
+        size++;
+        return true;
+    }
+
+    /**
+     * Writes region count and for each region its key, chunk count and either chunk places or region bitmap
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(regions.size());
+        IOException[] error = { null };
+        regions.forEach((key, container) -> {
+            if (error[0] != null)
+                return;
+            try {
+                out.writeLong(key);
+                out.writeShort(container.size);
+                if (container.bits == null) {
+                    for (int i = 0; i < container.size; i++) {
+                        out.writeShort(container.places[i]);
+                    }
+                } else {
+                    for (long word : container.bits) {
+                        out.writeLong(word);
+                    }
+                }
+            } catch (IOException e) {
+                error[0] = e;
+            }
+        });
+        if (error[0] != null)
+            throw error[0];
+    }
+
+    public static ChunkBitmap read(DataInputStream in) throws IOException {
+        ChunkBitmap bitmap = new ChunkBitmap();
+        int count = in.readInt();
+        for (int r = 0; r < count; r++) {
+            long key = in.readLong();
+            int size = in.readUnsignedShort();
+
+            Container container = new Container();
+            if (size > SPARSE_LIMIT) {
+                container.places = null;
+                container.bits = new long[WORDS];
+                for (int i = 0; i < WORDS; i++) {
+                    container.bits[i] = in.readLong();
+                }
+            } else {
+                container.places = new short[Math.max(4, size)];
+                for (int i = 0; i < size; i++) {
+                    container.places[i] = in.readShort();
+                }
+            }
+            container.size = size;
+
+            bitmap.regions.put(key, container);
+            bitmap.size += size;
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,151 @@
+package com.gamingmesh.jobs.container;
+
+import java.util.Arrays;
+
+/**
+ * Block columns of one world which can hold protected blocks, kept for loaded chunks.
+ * <p>
+ * Every known chunk has 256 bits, one for each 1x1 column, stored inline in open addressing hash map keyed by packed
+ * chunk position. Set bit means column might have protected block, clear bit means it has none. Chunks which are not
+ * known yet might have protected blocks anywhere. Checks do not allocate and are synchronized as chunks can be handled
+ * by different threads.
+ */
+public class ChunkColumnFilter {
+
+    // Packed chunk position never produced by chunk inside world border
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int WORDS = 4;
+
+    private long[] keys;
+    private long[] columns;
+    private int size = 0;
+    private int threshold;
+
+    public ChunkColumnFilter() {
+        allocate(64);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        columns = new long[capacity * WORDS];
+        threshold = (int) (capacity * 0.6F);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key)
+                return i;
+            if (current == EMPTY)
+                return -1;
+        }
+    }
+
+    private int add(long key) {
+        if (size >= threshold) {
+            long[] oldKeys = keys;
+            long[] oldColumns = columns;
+            allocate(keys.length * 2);
+            for (int old = 0; old < oldKeys.length; old++) {
+                if (oldKeys[old] != EMPTY)
+                    System.arraycopy(oldColumns, old * WORDS, columns, insert(oldKeys[old]) * WORDS, WORDS);
+            }
+        }
+
+        int i = insert(key);
+        size++;
+        return i;
+    }
+
+    private int insert(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        Arrays.fill(columns, i * WORDS, i * WORDS + WORDS, 0L);
+        return i;
+    }
+
+    private static int column(int x, int z) {
+        return ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * @return false only when block column is known to have no protected blocks
+     */
+    public synchronized boolean mightContain(int x, int z) {
+        int i = indexOf(chunkKey(x >> 4, z >> 4));
+        if (i < 0)
+            return true;
+        int column = column(x, z);
+        return (columns[i * WORDS + (column >> 6)] & (1L << (column & 63))) != 0;
+    }
+
+    /**
+     * Starts tracking chunk without protected blocks, existing columns of chunk are cleared
+     */
+    public synchronized void clear(int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        int i = indexOf(key);
+        if (i < 0)
+            add(key);
+        else
+            Arrays.fill(columns, i * WORDS, i * WORDS + WORDS, 0L);
+    }
+
+    /**
+     * Marks column of block as having protected block, does nothing if chunk is not tracked
+     */
+    public synchronized void mark(int x, int z) {
+        int i = indexOf(chunkKey(x >> 4, z >> 4));
+        if (i < 0)
+            return;
+        int column = column(x, z);
+        columns[i * WORDS + (column >> 6)] |= 1L << (column & 63);
+    }
+
+    /**
+     * Stops tracking chunk, its blocks are considered possibly protected again
+     */
+    public synchronized void remove(int chunkX, int chunkZ) {
+        int index = indexOf(chunkKey(chunkX, chunkZ));
+        if (index < 0)
+            return;
+
+        int mask = keys.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask;; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == EMPTY)
+                break;
+
+            int home = slot(key, mask);
+            if (((i - home) & mask) < ((i - free) & mask))
+                continue;
+
+            keys[free] = key;
+            System.arraycopy(columns, i * WORDS, columns, free * WORDS, WORDS);
+            free = i;
+        }
+
+        keys[free] = EMPTY;
+        size--;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
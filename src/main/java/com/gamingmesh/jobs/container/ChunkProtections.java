@@ -0,0 +1,339 @@
+package com.gamingmesh.jobs.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Block protections of one chunk kept by 16x16x16 sections.
+ * <p>
+ * Each section keeps block positions inside it as sorted short indexes with protection times and flags in parallel
+ * arrays, so lookups are binary search and expired entries are removed with one pass over section arrays. Whole chunk
+ * is stored as packed byte array.
+ */
+public class ChunkProtections {
+
+    private static final byte FORMAT = 1;
+    private static final byte UNPAID = 1;
+
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param x - block x inside chunk, from 0 to 15
+         * @param z - block z inside chunk, from 0 to 15
+         */
+        void accept(int x, int y, int z, long time, boolean paid);
+    }
+
+    private static class Section {
+        private final int y;
+        private short[] positions = new short[4];
+        private int[] times = new int[4];
+        private byte[] flags = new byte[4];
+        private int size = 0;
+
+        private Section(int y) {
+            this.y = y;
+        }
+
+        private int indexOf(short position) {
+            return Arrays.binarySearch(positions, 0, size, position);
+        }
+
+        private void insert(int index, short position, int time, byte flag) {
+            if (size == positions.length) {
+                int capacity = size * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                times = Arrays.copyOf(times, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+
+            int moved = size - index;
+            if (moved > 0) {
+                System.arraycopy(positions, index, positions, index + 1, moved);
+                System.arraycopy(times, index, times, index + 1, moved);
+                System.arraycopy(flags, index, flags, index + 1, moved);
+            }
+
+            positions[index] = position;
+            times[index] = time;
+            flags[index] = flag;
+            size++;
+        }
+
+        private void removeAt(int index) {
+            int moved = size - index - 1;
+            if (moved > 0) {
+                System.arraycopy(positions, index + 1, positions, index, moved);
+                System.arraycopy(times, index + 1, times, index, moved);
+                System.arraycopy(flags, index + 1, flags, index, moved);
+            }
+            size--;
+        }
+    }
+
+    // Sections with entries ordered by their height
+    private Section[] sections = new Section[0];
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return estimated amount of memory in bytes taken by entry arrays, including their free space
+     */
+    public long getMemoryUsage() {
+        long bytes = 16 + sections.length * 4L;
+        for (Section section : sections) {
+            // Object headers and references of section and its three arrays
+            bytes += 80 + section.positions.length * 7L;
+        }
+        return bytes;
+    }
+
+    private static short position(int x, int y, int z) {
+        return (short) (((y & 15) << 8) | ((z & 15) << 4) | (x & 15));
+    }
+
+    private Section getSection(int sectionY) {
+        for (Section section : sections) {
+            if (section.y == sectionY)
+                return section;
+        }
+        return null;
+    }
+
+    private Section getOrAddSection(int sectionY) {
+        Section section = getSection(sectionY);
+        if (section != null)
+            return section;
+
+        int i = 0;
+        while (i < sections.length && sections[i].y < sectionY) {
+            i++;
+        }
+
+        Section[] updated = new Section[sections.length + 1];
+        System.arraycopy(sections, 0, updated, 0, i);
+        System.arraycopy(sections, i, updated, i + 1, sections.length - i);
+        updated[i] = section = new Section(sectionY);
+        sections = updated;
+        return section;
+    }
+
+    private void removeEmptySections() {
+        int count = 0;
+        for (Section section : sections) {
+            if (section.size > 0)
+                count++;
+        }
+
+        if (count == sections.length)
+            return;
+
+        Section[] updated = new Section[count];
+        int i = 0;
+        for (Section section : sections) {
+            if (section.size > 0)
+                updated[i++] = section;
+        }
+        sections = updated;
+    }
+
+    /**
+     * Converts time into seconds stored by protection entries
+     */
+    private static int shorten(long time) {
+        if (time == -1)
+            return -1;
+        return (int) (time / 1000) - 2147483647;
+    }
+
+    private static long extend(int time) {
+        if (time == -1)
+            return -1L;
+        return (time + 2147483647L) * 1000L;
+    }
+
+    /**
+     * @return time protection ends at, -1 if it never ends or 0 if block is not protected
+     */
+    public long getTime(int x, int y, int z) {
+        Section section = getSection(y >> 4);
+        if (section == null)
+            return 0;
+        int index = section.indexOf(position(x, y, z));
+        return index < 0 ? 0 : extend(section.times[index]);
+    }
+
+    /**
+     * @return true if block was paid for or is not protected
+     */
+    public boolean isPaid(int x, int y, int z) {
+        Section section = getSection(y >> 4);
+        if (section == null)
+            return true;
+        int index = section.indexOf(position(x, y, z));
+        return index < 0 || (section.flags[index] & UNPAID) == 0;
+    }
+
+    public void set(int x, int y, int z, long time, boolean paid) {
+        Section section = getOrAddSection(y >> 4);
+        short position = position(x, y, z);
+        byte flag = paid ? 0 : UNPAID;
+
+        int index = section.indexOf(position);
+        if (index >= 0) {
+            section.times[index] = shorten(time);
+            section.flags[index] = flag;
+            return;
+        }
+
+        section.insert(-index - 1, position, shorten(time), flag);
+        size++;
+    }
+
+    /**
+     * @return true if block has protection entry
+     */
+    public boolean setPaid(int x, int y, int z, boolean paid) {
+        Section section = getSection(y >> 4);
+        if (section == null)
+            return false;
+        int index = section.indexOf(position(x, y, z));
+        if (index < 0)
+            return false;
+
+        section.flags[index] = (byte) (paid ? section.flags[index] & ~UNPAID : section.flags[index] | UNPAID);
+        return true;
+    }
+
+    /**
+     * @return true if entry was removed
+     */
+    public boolean remove(int x, int y, int z) {
+        Section section = getSection(y >> 4);
+        if (section == null)
+            return false;
+        int index = section.indexOf(position(x, y, z));
+        if (index < 0)
+            return false;
+
+        section.removeAt(index);
+        size--;
+        if (section.size == 0)
+            removeEmptySections();
+        return true;
+    }
+
+    /**
+     * Removes entries which protection time ended
+     * @return amount of removed entries
+     */
+    public int removeExpired(long now) {
+        int limit = shorten(now);
+        int removed = 0;
+
+        for (Section section : sections) {
+            int kept = 0;
+            for (int i = 0; i < section.size; i++) {
+                int time = section.times[i];
+                if (time != -1 && time < limit)
+                    continue;
+
+                if (kept != i) {
+                    section.positions[kept] = section.positions[i];
+                    section.times[kept] = time;
+                    section.flags[kept] = section.flags[i];
+                }
+                kept++;
+            }
+
+            removed += section.size - kept;
+            section.size = kept;
+        }
+
+        if (removed > 0) {
+            size -= removed;
+            removeEmptySections();
+        }
+        return removed;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (Section section : sections) {
+            for (int i = 0; i < section.size; i++) {
+                int position = section.positions[i];
+                visitor.accept(position & 15, (section.y << 4) | (position >> 8), (position >> 4) & 15, extend(section.times[i]),
+                    (section.flags[i] & UNPAID) == 0);
+            }
+        }
+    }
+
+    /**
+     * Packs entries as format version, section count and for each section its height, entry count and entries as
+     * position, time and flags
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + sections.length * 8 + size * 7);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeShort(sections.length);
+            for (Section section : sections) {
+                out.writeShort(section.y);
+                out.writeShort(section.size);
+                for (int i = 0; i < section.size; i++) {
+                    out.writeShort(section.positions[i]);
+                    out.writeInt(section.times[i]);
+                    out.writeByte(section.flags[i]);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return entries from packed byte array or null if it is not in known format
+     */
+    public static ChunkProtections fromBytes(byte[] data) {
+        if (data == null || data.length < 3 || data[0] != FORMAT)
+            return null;
+
+        ChunkProtections protections = new ChunkProtections();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            in.readByte();
+            int count = in.readUnsignedShort();
+            Section[] sections = new Section[count];
+            for (int s = 0; s < count; s++) {
+                Section section = new Section(in.readShort());
+                int size = in.readUnsignedShort();
+                section.positions = new short[Math.max(4, size)];
+                section.times = new int[Math.max(4, size)];
+                section.flags = new byte[Math.max(4, size)];
+                for (int i = 0; i < size; i++) {
+                    section.positions[i] = in.readShort();
+                    section.times[i] = in.readInt();
+                    section.flags[i] = in.readByte();
+                }
+                section.size = size;
+                protections.size += size;
+                sections[s] = section;
+            }
+            protections.sections = sections;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return protections;
+    }
+}
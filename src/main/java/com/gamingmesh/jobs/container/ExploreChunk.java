@@ -1,6 +1,8 @@
 package com.gamingmesh.jobs.container;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 
 import com.gamingmesh.jobs.Jobs;
@@ -8,7 +10,13 @@ import com.gamingmesh.jobs.Jobs;
 @Deprecated
 public class ExploreChunk {
 
-    private List<Integer> playerIds = new ArrayList<>();
+    /**
+     * Marks player ids which are kept in order they explored, zigzag delta and variable length encoded and written as Base64
+     */
+    private static final String COMPACT_PREFIX = "~";
+
+    // Only first explorers are kept, as they are the only ones who get paid. Null when chunk is fully explored in compact mode
+    private ExplorerSet playerIds = new ExplorerSet();
     private int dbId = -1;
     private boolean updated = false;
 
@@ -27,13 +35,14 @@ public class ExploreChunk {
 	    newChunkForPlayer = true;
 	}
 
-	if (Jobs.getGCManager().ExploreCompact && playerIds.size() >= Jobs.getExploreManager().getPlayerAmount()) {
+	int count = playerIds.size();
+
+	if (Jobs.getGCManager().ExploreCompact && count >= Jobs.getExploreManager().getPlayerAmount()) {
 	    playerIds = null;
+	    count = 0;
 	}
 
-	List<Integer> players = getPlayers();
-	    
-	return new ExploreRespond(newChunkForPlayer ? players.size() : players.size() + 1, newChunkForPlayer);
+	return new ExploreRespond(newChunkForPlayer ? count : count + 1, newChunkForPlayer);
     }
 
     public boolean isAlreadyVisited(int playerId) {
@@ -45,21 +54,29 @@ public class ExploreChunk {
     }
 
     public List<Integer> getPlayers() {
-	return playerIds == null ? new ArrayList<>() : playerIds;
+	return playerIds == null ? new ArrayList<>() : playerIds.toList();
     }
 
     public String serializeNames() {
 	if (playerIds == null)
 	    return null;
 
-	StringBuilder s = new StringBuilder();
-	for (Integer one : playerIds) {
-	    if (s.length() != 0)
-		s.append(';');
-
-	    s.append(one);
+	// Order is kept as it gives explorer places
+	int[] ids = playerIds.toArray();
+
+	byte[] data = new byte[ids.length * 5];
+	int pos = 0, last = 0;
+	for (int id : ids) {
+	    int delta = (id - last) << 1 ^ (id - last) >> 31;
+	    last = id;
+	    while ((delta & ~0x7F) != 0) {
+		data[pos++] = (byte) ((delta & 0x7F) | 0x80);
+		delta >>>= 7;
+	    }
+	    data[pos++] = (byte) delta;
 	}
-	return s.toString();
+
+	return COMPACT_PREFIX + Base64.getEncoder().withoutPadding().encodeToString(Arrays.copyOf(data, pos));
     }
 
     public void deserializeNames(String names) {
@@ -69,18 +86,41 @@ public class ExploreChunk {
 	}
 
 	if (playerIds == null) {
-	    playerIds = new ArrayList<>();
+	    playerIds = new ExplorerSet();
 	}
 
-	for (String one : names.split(";")) {
+	if (names.startsWith(COMPACT_PREFIX)) {
 	    try {
-		int id = Integer.parseInt(one);
-
-		if (Jobs.getPlayerManager().getPlayerInfo(id) != null)
-		    playerIds.add(id);
-	    } catch (NumberFormatException e) {
+		int last = 0, value = 0, shift = 0;
+		for (byte b : Base64.getDecoder().decode(names.substring(COMPACT_PREFIX.length()))) {
+		    value |= (b & 0x7F) << shift;
+		    if ((b & 0x80) != 0) {
+			shift += 7;
+			continue;
+		    }
+
+		    last += value >>> 1 ^ -(value & 1);
+		    value = 0;
+		    shift = 0;
+
+		    if (Jobs.getPlayerManager().getPlayerInfo(last) != null)
+			playerIds.add(last);
+		}
+	    } catch (IllegalArgumentException e) {
 		updated = true;
 	    }
+	} else {
+	    // Older entries are kept as ; separated ids
+	    for (String one : names.split(";")) {
+		try {
+		    int id = Integer.parseInt(one);
+
+		    if (Jobs.getPlayerManager().getPlayerInfo(id) != null)
+			playerIds.add(id);
+		} catch (NumberFormatException e) {
+		    updated = true;
+		}
+	    }
 	}
 
 	if (Jobs.getGCManager().ExploreCompact && playerIds.size() >= Jobs.getExploreManager().getPlayerAmount()) {
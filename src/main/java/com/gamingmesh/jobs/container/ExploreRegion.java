@@ -1,7 +1,8 @@
 package com.gamingmesh.jobs.container;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Chunk;
 
@@ -10,7 +11,9 @@ public class ExploreRegion {
     private int x;
     private int z;
 
-    private final Map<Short, ExploreChunk> chunks = new HashMap<>();
+    // Chunks by their place in region, keyed without boxing
+    private final LongHashMap<ExploreChunk> chunks = new LongHashMap<>();
+    private final Set<Short> dirtyChunks = ConcurrentHashMap.newKeySet();
 
     public ExploreRegion(int x, int z) {
 	this.x = x;
@@ -21,10 +24,37 @@ public class ExploreRegion {
 	chunks.put(getPlace(relativeX, relativeZ), chunk);
     }
 
-    public Map<Short, ExploreChunk> getChunks() {
+    /**
+     * @return chunks keyed by their place in region, place can be cast to short
+     */
+    public LongHashMap<ExploreChunk> getChunks() {
 	return chunks;
     }
 
+    /**
+     * Marks chunk as changed since last save
+     */
+    public void markDirty(int relativeX, int relativeZ) {
+	dirtyChunks.add(getPlace(relativeX, relativeZ));
+    }
+
+    public void markDirty(Set<Short> places) {
+	dirtyChunks.addAll(places);
+    }
+
+    public boolean isDirty() {
+	return !dirtyChunks.isEmpty();
+    }
+
+    /**
+     * Takes places of chunks changed since last save, they should be marked again if saving fails
+     */
+    public Set<Short> takeDirtyChunks() {
+	Set<Short> taken = new HashSet<>(dirtyChunks);
+	dirtyChunks.removeAll(taken);
+	return taken;
+    }
+
     public ExploreChunk getChunk(int relativeX, int relativeZ) {
 	return getChunk(getPlace(relativeX, relativeZ));
     }
@@ -37,10 +67,6 @@ public class ExploreRegion {
 	return chunks.get((short) place);
     }
 
-    public ExploreChunk getChunk(Short place) {
-	return chunks.get(place);
-    }
-
     private long getPlace(Chunk chunk) {
 	return getPlace((x * 32) - chunk.getX(), (z * 32) - chunk.getZ());
     }
@@ -0,0 +1,228 @@
+package com.gamingmesh.jobs.container;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataType;
+
+import com.gamingmesh.jobs.Jobs;
+
+import net.Zrips.CMILib.Version.Version;
+
+/**
+ * Chunks explored by one player by world, used to skip chunks player already explored without checking explorers of
+ * chunk itself.
+ * <p>
+ * Worlds are kept by their unique id, so regenerated world with the same name starts without explored chunks. Chunks
+ * are kept in player data only while explorers of chunks are kept over restarts too, in chunk data or in database,
+ * otherwise they are kept only while player is online.
+ */
+public class ExploredChunks {
+
+    private static final byte FORMAT = 2;
+
+    // Explorer storage chunks were written with, chunks of other storage are dropped
+    private static final byte CHUNK_DATA = 1;
+    private static final byte DATABASE = 2;
+
+    private static NamespacedKey dataKey = null;
+    private static NamespacedKey resetKey = null;
+
+    private final Map<UUID, ChunkBitmap> worlds = new HashMap<>();
+    // Time each world set was started at, sets started before exploration of their world was reset are dropped
+    private final Map<UUID, Long> started = new HashMap<>();
+    private boolean changed = false;
+    private byte storage = getStorage();
+
+    /**
+     * @return explorer storage which keeps explorers over restarts, 0 if explorers are lost on restart
+     */
+    private static byte getStorage() {
+        if (Jobs.getGCManager().useNewExploration)
+            return CHUNK_DATA;
+        return Jobs.getGCManager().ExploreSaveIntoDatabase ? DATABASE : 0;
+    }
+
+    /**
+     * Player and world data can hold values only from 1.14, and explored chunks are kept over restarts only when
+     * explorers of chunks are
+     */
+    private static boolean isStored() {
+        return Version.isCurrentEqualOrHigher(Version.v1_14_R1) && getStorage() != 0;
+    }
+
+    private static NamespacedKey getDataKey() {
+        if (dataKey == null)
+            dataKey = new NamespacedKey(Jobs.getInstance(), "exploredchunks");
+        return dataKey;
+    }
+
+    private static NamespacedKey getResetKey() {
+        if (resetKey == null)
+            resetKey = new NamespacedKey(Jobs.getInstance(), "explorereset");
+        return resetKey;
+    }
+
+    /**
+     * Drops chunks explored while explorers were kept in other storage, after it was changed by reload
+     */
+    private void checkStorage() {
+        byte current = getStorage();
+        if (current == storage)
+            return;
+
+        storage = current;
+        worlds.clear();
+        started.clear();
+        changed = true;
+    }
+
+    public boolean contains(World world, int chunkX, int chunkZ) {
+        checkStorage();
+        ChunkBitmap chunks = worlds.get(world.getUID());
+        return chunks != null && chunks.contains(chunkX, chunkZ);
+    }
+
+    /**
+     * @return true if chunk was not explored before
+     */
+    public boolean add(World world, int chunkX, int chunkZ) {
+        checkStorage();
+        ChunkBitmap chunks = worlds.get(world.getUID());
+        if (chunks == null) {
+            worlds.put(world.getUID(), chunks = new ChunkBitmap());
+            started.put(world.getUID(), System.currentTimeMillis());
+        }
+
+        if (!chunks.add(chunkX, chunkZ))
+            return false;
+        changed = true;
+        return true;
+    }
+
+    /**
+     * @return amount of explored chunks in all worlds
+     */
+    public int size() {
+        int i = 0;
+        for (ChunkBitmap chunks : worlds.values()) {
+            i += chunks.size();
+        }
+        return i;
+    }
+
+    public int size(World world) {
+        ChunkBitmap chunks = worlds.get(world.getUID());
+        return chunks == null ? 0 : chunks.size();
+    }
+
+    public void clear(World world) {
+        if (worlds.remove(world.getUID()) != null) {
+            started.remove(world.getUID());
+            changed = true;
+        }
+    }
+
+    private static long getResetTime(World world) {
+        if (world == null)
+            return 0;
+        Long time = world.getPersistentDataContainer().get(getResetKey(), PersistentDataType.LONG);
+        return time == null ? 0 : time;
+    }
+
+    /**
+     * Marks exploration of world as reset, so explored chunks of players who are not online are dropped when they
+     * join
+     */
+    public static void reset(String worldName) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null)
+            return;
+
+        if (Version.isCurrentEqualOrHigher(Version.v1_14_R1))
+            world.getPersistentDataContainer().set(getResetKey(), PersistentDataType.LONG, System.currentTimeMillis());
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            JobsPlayer jPlayer = Jobs.getPlayerManager().getJobsPlayer(player);
+            if (jPlayer != null)
+                jPlayer.getExploredChunks().clear(world);
+        }
+    }
+
+    public static ExploredChunks load(Player player) {
+        ExploredChunks explored = new ExploredChunks();
+        if (!isStored())
+            return explored;
+
+        byte[] data = player.getPersistentDataContainer().get(getDataKey(), PersistentDataType.BYTE_ARRAY);
+        if (data == null || data.length == 0)
+            return explored;
+
+        // Chunks written in older format or for other explorer storage can be outdated
+        if (data.length < 2 || data[0] != FORMAT || data[1] != getStorage()) {
+            explored.changed = true;
+            return explored;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            in.readByte();
+            in.readByte();
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                UUID world = new UUID(in.readLong(), in.readLong());
+                long since = in.readLong();
+                ChunkBitmap chunks = ChunkBitmap.read(in);
+
+                if (since < getResetTime(Bukkit.getWorld(world))) {
+                    explored.changed = true;
+                    continue;
+                }
+
+                explored.worlds.put(world, chunks);
+                explored.started.put(world, since);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return explored;
+    }
+
+    /**
+     * Writes explored chunks into player data if they changed
+     */
+    public void save(Player player) {
+        checkStorage();
+        if (!changed || !isStored())
+            return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeByte(storage);
+            out.writeShort(worlds.size());
+            for (Entry<UUID, ChunkBitmap> one : worlds.entrySet()) {
+                out.writeLong(one.getKey().getMostSignificantBits());
+                out.writeLong(one.getKey().getLeastSignificantBits());
+                out.writeLong(started.getOrDefault(one.getKey(), 0L));
+                one.getValue().write(out);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        player.getPersistentDataContainer().set(getDataKey(), PersistentDataType.BYTE_ARRAY, bytes.toByteArray());
+        changed = false;
+    }
+}
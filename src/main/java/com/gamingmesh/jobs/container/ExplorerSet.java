@@ -0,0 +1,108 @@
+package com.gamingmesh.jobs.container;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ids of players who explored chunk or region. Ids are kept in order they explored it and as sorted copy, so checks are
+ * binary search without boxing while explorer places stay the same.
+ */
+public class ExplorerSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+    private int[] sorted = EMPTY;
+    private int size = 0;
+
+    public ExplorerSet() {
+    }
+
+    public ExplorerSet(List<Integer> ids) {
+        if (ids == null)
+            return;
+
+        for (Integer id : ids) {
+            if (id != null)
+                add(id);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(sorted, 0, size, id) >= 0;
+    }
+
+    /**
+     * @return true if id was not in this set
+     */
+    public boolean add(int id) {
+        int index = Arrays.binarySearch(sorted, 0, size, id);
+        if (index >= 0)
+            return false;
+
+        if (size == ids.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            sorted = Arrays.copyOf(sorted, capacity);
+        }
+
+        index = -index - 1;
+        System.arraycopy(sorted, index, sorted, index + 1, size - index);
+        sorted[index] = id;
+        ids[size++] = id;
+        return true;
+    }
+
+    /**
+     * @return true if id was in this set
+     */
+    public boolean remove(int id) {
+        int index = Arrays.binarySearch(sorted, 0, size, id);
+        if (index < 0)
+            return false;
+
+        System.arraycopy(sorted, index + 1, sorted, index, size - index - 1);
+
+        int place = 0;
+        while (ids[place] != id) {
+            place++;
+        }
+        System.arraycopy(ids, place + 1, ids, place, size - place - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return id of player who explored in given place, starting from 0
+     */
+    public int get(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return copy of ids in order they explored
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * @return ids in order they explored
+     */
+    public List<Integer> toList() {
+        List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(ids[i]);
+        }
+        return list;
+    }
+}
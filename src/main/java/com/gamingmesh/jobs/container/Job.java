@@ -26,6 +26,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
 
 import javax.annotation.Nonnull;
@@ -52,6 +55,7 @@ import net.Zrips.CMILib.Colors.CMIChatColor;
 import net.Zrips.CMILib.Container.CMINumber;
 import net.Zrips.CMILib.Equations.Parser;
 import net.Zrips.CMILib.Items.CMIMaterial;
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
 
 public class Job {
 
@@ -88,8 +92,14 @@ public class Job {
 
     private long rejoinCd = 0L;
 
-    private int totalPlayers = -1;
-    private Double bonus;
+    // Players working in any job, kept together with counts of each job
+    private static final AtomicInteger allTotalPlayers = new AtomicInteger();
+
+    private final AtomicInteger totalPlayers = new AtomicInteger(-1);
+    private final AtomicReference<DynamicBonus> bonus = new AtomicReference<>();
+
+    // Bonus recalculation of all jobs is waiting for next tick
+    private static final AtomicBoolean bonusUpdateQueued = new AtomicBoolean();
 
     private BoostMultiplier boost = new BoostMultiplier();
     private String bossbar;
@@ -217,56 +227,154 @@ public class Job {
     }
 
     /**
-     * Returns the total players retrieved synchronously from current database.
+     * Returns the total players in this job. When not yet known, amount is loaded from
+     * database in background and 0 is returned until then.
      * 
      * @return the amount of total players in this job
      */
     public int getTotalPlayers() {
-        if (totalPlayers == -1) {
+        int total = totalPlayers.get();
+        if (total == -1) {
             updateTotalPlayers();
+            total = totalPlayers.get();
         }
 
-        return totalPlayers;
+        return Math.max(total, 0);
     }
 
     /**
+     * Changes amount of players in this job. Counts are loaded on startup, so amount which is not known yet is
+     * counted from 0 instead of asking database.
      * 
      * @param change the amount to change
      * @return the new total
      */
     public int modifyTotalPlayerWorking(int change) {
-        totalPlayers = CMINumber.clamp(totalPlayers + change, 0, Integer.MAX_VALUE);
-        updateBonus();
-        return totalPlayers;
+        int old = Math.max(totalPlayers.getAndUpdate(total -> CMINumber.clamp(Math.max(total, 0) + change, 0, Integer.MAX_VALUE)), 0);
+        int total = CMINumber.clamp(old + change, 0, Integer.MAX_VALUE);
+        allTotalPlayers.addAndGet(total - old);
+
+        // Total of all jobs changed, so bonus of every job does
+        queueBonusUpdate();
+        return total;
     }
 
     /**
-     * Updates the total players property from database synchronously.
+     * Sets the total players property, used when counts of all jobs are loaded at once.
+     * Bonus is not recalculated, call {@link #updateAllTotalPlayers()} once all counts are set.
+     * @param totalPlayers the amount of players in this job
      */
-    public void updateTotalPlayers() {
-        totalPlayers = Jobs.getJobsDAO().getTotalPlayerAmountByJobName(jobName);
+    public void setTotalPlayers(int totalPlayers) {
+        int total = Math.max(totalPlayers, 0);
+        allTotalPlayers.addAndGet(total - Math.max(this.totalPlayers.getAndSet(total), 0));
+    }
+
+    /**
+     * @return amount of players working in any job
+     */
+    public static int getAllTotalPlayers() {
+        return allTotalPlayers.get();
+    }
 
-        if (totalPlayers <= 0) {
-            totalPlayers = Jobs.getJobsDAO().getTotalPlayerAmountByJobName(fullName);
+    /**
+     * Counts total of all jobs again and recalculates their bonus, used after counts of all jobs are loaded
+     */
+    public static void updateAllTotalPlayers() {
+        int total = 0;
+        for (Job job : Jobs.getJobs()) {
+            total += Math.max(job.totalPlayers.get(), 0);
+        }
+        allTotalPlayers.set(total);
+        updateAllBonuses();
+    }
+
+    private static void updateAllBonuses() {
+        for (Job job : Jobs.getJobs()) {
+            job.updateBonus();
         }
+    }
+
+    /**
+     * Recalculates bonus of every job on next tick, so joins and leaves within same tick are counted in once
+     */
+    private static void queueBonusUpdate() {
+        if (!Jobs.getGCManager().useDynamicPayment || !bonusUpdateQueued.compareAndSet(false, true))
+            return;
 
-        updateBonus();
+        CMIScheduler.runTask(Jobs.getInstance(), () -> {
+            bonusUpdateQueued.set(false);
+            updateAllBonuses();
+        });
     }
 
+    /**
+     * Updates the total players property from database in background. Amount is 0 until
+     * database answers, then bonus of every job is recalculated on main thread.
+     */
+    public void updateTotalPlayers() {
+        setTotalPlayers(0);
+
+        Jobs.getJobsDAO().supplyAsync(() -> {
+            int total = Jobs.getJobsDAO().getTotalPlayerAmountByJobName(jobName);
+
+            if (total <= 0) {
+                total = Jobs.getJobsDAO().getTotalPlayerAmountByJobName(fullName);
+            }
+
+            return total;
+        }).thenAccept(total -> CMIScheduler.runTask(Jobs.getInstance(), () -> {
+            setTotalPlayers(total);
+            updateAllTotalPlayers();
+        }));
+    }
+
+    /**
+     * Recalculates and publishes dynamic payment bonus, equation is only evaluated when worker counts changed since
+     * published bonus was calculated
+     */
     public void updateBonus() {
         if (!Jobs.getGCManager().useDynamicPayment)
             return;
 
+        int totalWorkers = allTotalPlayers.get(), totalJobs = Jobs.getJobs().size(), jobWorkers = Math.max(totalPlayers.get(), 0);
+        DynamicBonus current = bonus.get();
+        if (current != null && current.isCalculatedFrom(totalWorkers, totalJobs, jobWorkers))
+            return;
+
+        bonus.set(new DynamicBonus(totalWorkers, totalJobs, jobWorkers, calculateBonus(totalWorkers, totalJobs, jobWorkers)));
+    }
+
+    /**
+     * @return last published dynamic payment bonus
+     */
+    public double getBonus() {
+        if (!Jobs.getGCManager().useDynamicPayment)
+            return 0D;
+
+        DynamicBonus current = bonus.get();
+        if (current == null) {
+            updateBonus();
+            current = bonus.get();
+        }
+
+        return current.value;
+    }
+
+    private static double calculateBonus(int totalWorkers, int totalJobs, int jobWorkers) {
         Parser eq = Jobs.getGCManager().DynamicPaymentEquation;
-        eq.setVariable("totalworkers", Jobs.getJobsDAO().getTotalPlayers());
-        eq.setVariable("totaljobs", Jobs.getJobs().size());
-        eq.setVariable("jobstotalplayers", getTotalPlayers());
 
         double now = 0D;
-        try {
-            now = eq.getValue();
-        } catch (Throwable e) {
-            e.printStackTrace();
+        // Equation is shared between jobs and keeps its variables, so it is only used by one thread at a time
+        synchronized (eq) {
+            eq.setVariable("totalworkers", totalWorkers);
+            eq.setVariable("totaljobs", totalJobs);
+            eq.setVariable("jobstotalplayers", jobWorkers);
+
+            try {
+                now = eq.getValue();
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
         }
 
         if (now > Jobs.getGCManager().DynamicPaymentMaxBonus)
@@ -278,14 +386,7 @@ public class Job {
         if (Double.isNaN(now))
             now = 0;
 
-        this.bonus = now;
-    }
-
-    public double getBonus() {
-        if (bonus == null)
-            updateBonus();
-
-        return bonus == null ? 0D : bonus;
+        return now;
     }
 
     public List<String> getCmdOnJoin() {
@@ -484,10 +585,13 @@ public class Job {
      * @return the correct max exp for this level
      */
     public double getMaxExp(Map<String, Double> level) {
-        for (Map.Entry<String, Double> temp : level.entrySet()) {
-            maxExpEquation.setVariable(temp.getKey(), temp.getValue());
+        // Also used on storage thread when progression is merged while saving
+        synchronized (maxExpEquation) {
+            for (Map.Entry<String, Double> temp : level.entrySet()) {
+                maxExpEquation.setVariable(temp.getKey(), temp.getValue());
+            }
+            return maxExpEquation.getValue();
         }
-        return maxExpEquation.getValue();
     }
 
     /**
@@ -829,12 +933,19 @@ public class Job {
         this.legacyId = legacyId;
     }
 
+    /**
+     * Updates ranking of player in this job right away, progression changes go through {@link JobsTop#updateTops}
+     */
     public void updateTop(@NotNull UUID uuid, int level, double experience) {
-        topList.updateAsync(uuid, level, experience);
+        topList.update(uuid, level, experience);
     }
 
     public void removeFromTop(UUID uuid) {
-        topList.removeAsync(uuid);
+        topList.remove(uuid);
+    }
+
+    boolean refreshTop() {
+        return topList.refresh();
     }
 
     public UUID getTop(int index) {
@@ -848,4 +959,24 @@ public class Job {
     public topStats getTopStats(UUID uuid) {
         return topList.getStats(uuid);
     }
+
+    /**
+     * Calculated dynamic payment bonus together with worker counts it was calculated from
+     */
+    private static final class DynamicBonus {
+
+        private final int totalWorkers, totalJobs, jobWorkers;
+        private final double value;
+
+        private DynamicBonus(int totalWorkers, int totalJobs, int jobWorkers, double value) {
+            this.totalWorkers = totalWorkers;
+            this.totalJobs = totalJobs;
+            this.jobWorkers = jobWorkers;
+            this.value = value;
+        }
+
+        private boolean isCalculatedFrom(int totalWorkers, int totalJobs, int jobWorkers) {
+            return this.totalWorkers == totalWorkers && this.totalJobs == totalJobs && this.jobWorkers == jobWorkers;
+        }
+    }
 }
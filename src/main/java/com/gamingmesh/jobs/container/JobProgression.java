@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.dao.JobsDAOData;
 
 import net.Zrips.CMILib.Container.CMINumber;
 import net.Zrips.CMILib.Time.CMITimeManager;
@@ -35,6 +36,13 @@ public class JobProgression {
     private transient int maxExperience = -1;
     private long leftOn = 0;
 
+    // Level, experience and row version as they were last read from or written into database
+    private volatile int savedLevel = -1;
+    private volatile double savedExperience = 0;
+    private volatile int version = -1;
+    // Set while merged row is written but not yet taken on main thread
+    private volatile boolean merging = false;
+
     public JobProgression(Job job, JobsPlayer jPlayer, int level, double experience) {
         this.job = job;
         this.jPlayer = jPlayer;
@@ -283,4 +291,133 @@ public class JobProgression {
         this.lastExperience = lastExperience;
     }
 
+    /**
+     * Checks if level and experience stored in database are known, experience gained since then can be written as a delta
+     */
+    public boolean isSynced() {
+        return savedLevel != -1;
+    }
+
+    public int getSavedLevel() {
+        return savedLevel;
+    }
+
+    public double getSavedExperience() {
+        return savedExperience;
+    }
+
+    /**
+     * Gets database row version, -1 if it is unknown
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Records level and experience as they are stored in database
+     * @param version - database row version or -1 if it is unknown
+     */
+    public void setSynced(int level, double experience, int version) {
+        this.savedLevel = level;
+        this.savedExperience = experience;
+        this.version = version;
+    }
+
+    /**
+     * Adds experience which other server has added into database while it was merged with ours
+     */
+    public void addSyncedExperience(double experience) {
+        this.experience += experience;
+        this.savedExperience += experience;
+    }
+
+    /**
+     * Counts experience gained between two levels and experiences, levels gained or lost on the way are counted in
+     */
+    private double getGained(int fromLevel, double fromExperience, int toLevel, double toExperience) {
+        double gained = toExperience - fromExperience;
+        for (int i = fromLevel; i < toLevel; i++) {
+            gained += getMaxExperience(i);
+        }
+        for (int i = toLevel; i < fromLevel; i++) {
+            gained -= getMaxExperience(i);
+        }
+        return gained;
+    }
+
+    /**
+     * Adds progress made here since last sync on top of row written by other server. Progression itself is not changed,
+     * so this is done on storage thread while saving.
+     * @param level - level this server has
+     * @param experience - experience this server has
+     * @param current - row written by other server
+     * @return merged level and experience
+     */
+    public JobsDAOData mergeWith(int level, double experience, JobsDAOData current) {
+        int mergedLevel = current.getLevel();
+        double merged = current.getExperience() + getGained(savedLevel, savedExperience, level, experience);
+
+        if (merged < 0) {
+            while (merged < 0) {
+                if (mergedLevel <= 1 || !Jobs.getGCManager().AllowDelevel) {
+                    merged = 0;
+                    break;
+                }
+
+                mergedLevel--;
+                merged += getMaxExperience(mergedLevel);
+            }
+        } else {
+            int max = getMaxExperience(mergedLevel);
+            while (merged >= max) {
+                if (job.getMaxLevel() > 0 && mergedLevel >= jPlayer.getMaxJobLevelAllowed(job)) {
+                    merged = max;
+                    break;
+                }
+
+                merged -= max;
+                mergedLevel++;
+                max = getMaxExperience(mergedLevel);
+            }
+        }
+
+        return new JobsDAOData(current.getJobName(), mergedLevel, merged, current.getVersion());
+    }
+
+    /**
+     * Records merged row written into database, progression is not saved again until {@link #applyMerge} takes it
+     */
+    public void setMerged(JobsDAOData merged, int version) {
+        setSynced(merged.getLevel(), merged.getExperience(), version);
+        merging = true;
+    }
+
+    /**
+     * @return true if merged row is written but not yet taken
+     */
+    public boolean isMerging() {
+        return merging;
+    }
+
+    /**
+     * Takes merged row written on storage thread, progress made here after it was merged is added on top
+     * @param level - level merge was based on
+     * @param experience - experience merge was based on
+     * @param merged - merged level and experience
+     */
+    public void applyMerge(int level, double experience, JobsDAOData merged) {
+        double gained = getGained(level, experience, this.level, this.experience);
+
+        this.level = merged.getLevel();
+        this.experience = merged.getExperience();
+        reloadMaxExperience();
+        merging = false;
+
+        if (gained != 0) {
+            jPlayer.setSaved(false);
+            this.experience += gained;
+        }
+        checkLevelUp();
+    }
+
 }
@@ -39,7 +39,7 @@ import com.gamingmesh.jobs.PermissionManager;
 import com.gamingmesh.jobs.Signs.SignTopType;
 import com.gamingmesh.jobs.api.JobsLevelUpEvent;
 import com.gamingmesh.jobs.container.blockOwnerShip.BlockTypes;
-import com.gamingmesh.jobs.dao.JobsDAO;
+import com.gamingmesh.jobs.dao.JobsStorage;
 import com.gamingmesh.jobs.economy.PaymentData;
 
 import net.Zrips.CMILib.ActionBar.CMIActionBar;
@@ -99,6 +99,8 @@ public class JobsPlayer {
 
     private Set<String> blockOwnerShipInform = null;
 
+    private ExploredChunks exploredChunks = null;
+
     public JobsPlayer(OfflinePlayer player) {
         this.userName = player.getName() == null ? "Unknown" : player.getName();
         this.playerUUID = player.getUniqueId();
@@ -211,14 +213,19 @@ public class JobsPlayer {
      * @return the limit of {@link PaymentData}
      */
     public PaymentData getPaymentLimit() {
-        if (paymentLimits == null)
-            paymentLimits = Jobs.getJobsDAO().getPlayersLimits(this);
-
+        // Limits are loaded together with player data, player without them has no limits recorded yet
         if (paymentLimits == null)
             paymentLimits = new PaymentData();
         return paymentLimits;
     }
 
+    /**
+     * @return true if limits were loaded or already used
+     */
+    public boolean isPaymentLimitLoaded() {
+        return paymentLimits != null;
+    }
+
     /**
      * Checks whenever this player is under limit for specific {@link CurrencyType}
      * 
@@ -276,11 +283,11 @@ public class JobsPlayer {
     /**
      * Attempt to load log for this player.
      * 
-     * @deprecated use {@link JobsDAO#loadLog(JobsPlayer)} instead
+     * @deprecated use {@link JobsStorage#loadLog(JobsPlayer)} instead
      */
     @Deprecated
     public void loadLogFromDao() {
-        Jobs.getJobsDAO().loadLog(this);
+        Jobs.getJobsDAO().runAsync(() -> Jobs.getJobsDAO().loadLog(this));
     }
 
     public List<String> getUpdateBossBarFor() {
@@ -586,7 +593,7 @@ public class JobsPlayer {
             if (archived != null) {
                 level = getLevelAfterRejoin(archived);
                 exp = getExpAfterRejoin(archived, level);
-                Jobs.getJobsDAO().deleteArchive(this, job);
+                Jobs.getJobsDAO().deleteArchiveAsync(this, job);
             }
 
             synchronized (progression) {
@@ -653,8 +660,7 @@ public class JobsPlayer {
         synchronized (progression) {
             if (progression.remove(getJobProgression(job))) {
 
-                job.removeFromTop(getUniqueId());
-                JobsTop.updateGlobalTop(getUniqueId(), getJobProgression());
+                JobsTop.removeTops(job, this);
 
                 reloadMaxExperience();
                 reloadLimits();
@@ -933,7 +939,7 @@ public class JobsPlayer {
         if (isSaved)
             return;
 
-        JobsDAO dao = Jobs.getJobsDAO();
+        JobsStorage dao = Jobs.getJobsDAO();
         if (async) {
             dao.saveAsync(this);
             dao.saveLogAsync(this);
@@ -966,6 +972,31 @@ public class JobsPlayer {
         isOnline = true;
     }
 
+    /**
+     * Gets chunks explored by this player, they are read from player data when used first time while player is online
+     *
+     * @return {@link ExploredChunks}
+     */
+    public ExploredChunks getExploredChunks() {
+        if (exploredChunks != null)
+            return exploredChunks;
+
+        Player player = getPlayer();
+        if (player == null)
+            return new ExploredChunks();
+
+        return exploredChunks = ExploredChunks.load(player);
+    }
+
+    /**
+     * Writes explored chunks into player data if they were loaded and changed
+     */
+    public void saveExploredChunks() {
+        Player player = getPlayer();
+        if (exploredChunks != null && player != null)
+            exploredChunks.save(player);
+    }
+
     /**
      * Perform disconnect for this player
      */
@@ -974,6 +1005,9 @@ public class JobsPlayer {
         isOnline = false;
         blockOwnerShipInform = null;
 
+        saveExploredChunks();
+        exploredChunks = null;
+
         PermissionManager.removePermissionCache(getUniqueId());
 
         Jobs.getPlayerManager().addPlayerToCache(this);
@@ -24,13 +24,22 @@ public class JobsQuestTop {
 
     private static JobsQuestTop globalTop = new JobsQuestTop();
 
+    /**
+     * Marks quest ranking of player for update, rankings are updated in batches by {@link RankingUpdater}
+     */
     public static void updateGlobalTop(UUID uuid, int doneQuests) {
-        CompletableFuture.runAsync(() -> {
-            if (doneQuests == 0) {
-                globalTop.remove(uuid);
-            } else
-                globalTop.update(uuid, doneQuests);
-        });
+        RankingUpdater.updateQuests(uuid, doneQuests);
+    }
+
+    static void setGlobalTop(UUID uuid, int doneQuests) {
+        if (doneQuests == 0) {
+            globalTop.remove(uuid);
+        } else
+            globalTop.update(uuid, doneQuests);
+    }
+
+    static boolean refreshGlobalTop() {
+        return globalTop.refresh();
     }
 
     public static void removeFromGlobalTop(UUID uuid) {
@@ -45,6 +54,13 @@ public class JobsQuestTop {
         return globalTop.getTop(limit);
     }
 
+    /**
+     * @return version of global ranking, it changes when any entry or cached order changes
+     */
+    public static int getGlobalVersion() {
+        return globalTop.version;
+    }
+
     public static @Nullable Integer getGlobalCount(UUID uuid) {
         return globalTop.getCount(uuid);
     }
@@ -54,6 +70,8 @@ public class JobsQuestTop {
     private List<UUID> topCache = new ArrayList<>();
 
     private boolean cacheDirty = true;
+    // Changes every time entry changes or cached ranking is rebuilt, entries are read live while order is cached
+    private volatile int version = 0;
     private long lastCacheUpdate = 0L;
     private volatile boolean cacheRebuilding = false;
 
@@ -80,9 +98,7 @@ public class JobsQuestTop {
             }
 
             cacheDirty = true;
-
-            if (Jobs.fullyLoaded)
-                rebuildCacheAsync();
+            version++;
         }
     }
 
@@ -102,12 +118,21 @@ public class JobsQuestTop {
             if (count != null) {
                 removeFromMap(uuid, count);
                 cacheDirty = true;
-
-                rebuildCacheAsync();
+                version++;
             }
         }
     }
 
+    /**
+     * Rebuilds cached ranking after batch of updates, unless it was rebuilt recently
+     * @return true if ranking still has to be rebuilt later
+     */
+    synchronized boolean refresh() {
+        if (Jobs.fullyLoaded)
+            rebuildCache();
+        return cacheDirty;
+    }
+
     private void removeFromMap(UUID uuid, int level) {
         Set<UUID> uuids = rankingMap.get(level);
         if (uuids == null)
@@ -136,6 +161,7 @@ public class JobsQuestTop {
     }
 
     private void cycle() {
+        version++;
         topCache = new ArrayList<>(CACHE_LIMIT);
         for (Entry<Integer, Set<UUID>> levelEntry : rankingMap.entrySet()) {
             for (UUID uuid : levelEntry.getValue()) {
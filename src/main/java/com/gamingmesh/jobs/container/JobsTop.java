@@ -25,29 +25,16 @@ public class JobsTop {
 
     private static JobsTop globalTop = new JobsTop();
 
-    public static void updateGlobalTop(UUID uuid, List<JobProgression> progress) {
-        CompletableFuture.runAsync(() -> {
-            int level = 0;
-            double experience = 0;
-
-            synchronized (progress) {
-                for (JobProgression prog : progress) {
-                    if (prog.getLevel() == 1 && prog.getExperience() == 0)
-                        continue;
-                    level += prog.getLevel();
-                    experience += prog.getExperience();
-                }
-            }
+    static void setGlobalTop(UUID uuid, int level, double experience) {
+        globalTop.update(uuid, level, experience);
+    }
 
-            if (level == 0 && experience == 0) {
-                globalTop.remove(uuid);
-            } else
-                globalTop.update(uuid, level, experience);
-        });
+    static void clearGlobalTop() {
+        globalTop.clear();
     }
 
-    public static void updateGlobalTop(UUID uuid, int level, double experience) {
-        globalTop.update(uuid, level, experience);
+    static boolean refreshGlobalTop() {
+        return globalTop.refresh();
     }
 
     public static void removeFromGlobalTop(UUID uuid) {
@@ -62,15 +49,31 @@ public class JobsTop {
         return globalTop.getTop(limit);
     }
 
+    /**
+     * @return version of global ranking, it changes when any entry or cached order changes
+     */
+    public static int getGlobalVersion() {
+        return globalTop.version;
+    }
+
     public static @Nullable topStats getGlobalStats(UUID uuid) {
         return globalTop.getStats(uuid);
     }
 
+    /**
+     * Marks job and global ranking of player for update, rankings are updated in batches by {@link RankingUpdater}
+     */
     public static void updateTops(@NotNull Job job, @NotNull JobsPlayer jPlayer, int level, double experience) {
         if (jPlayer == null)
             return;
-        job.updateTop(jPlayer.getUniqueId(), level, experience);
-        JobsTop.updateGlobalTop(jPlayer.getUniqueId(), jPlayer.getJobProgression());
+        RankingUpdater.update(job, jPlayer, level, experience);
+    }
+
+    /**
+     * Marks player for removal from job ranking after leaving the job
+     */
+    public static void removeTops(@NotNull Job job, @NotNull JobsPlayer jPlayer) {
+        RankingUpdater.remove(job, jPlayer);
     }
 
     private final NavigableMap<Integer, NavigableMap<Double, Set<UUID>>> rankingMap = new TreeMap<>(Comparator.reverseOrder());
@@ -78,6 +81,8 @@ public class JobsTop {
     private List<UUID> topCache = new ArrayList<>();
 
     private boolean cacheDirty = true;
+    // Changes every time entry changes or cached ranking is rebuilt, entries are read live while order is cached
+    private volatile int version = 0;
     private long lastCacheUpdate = 0L;
     private volatile boolean cacheRebuilding = false;
 
@@ -109,10 +114,10 @@ public class JobsTop {
         if (uuid == null)
             return;
         synchronized (this) {
-            if (uuidToStats.containsKey(uuid)) {
-                topStats prev = uuidToStats.get(uuid);
+            // Entry is dropped, so values which aren't ranked leave no stale total behind
+            topStats prev = uuidToStats.remove(uuid);
+            if (prev != null)
                 removeFromMap(uuid, prev.level, prev.experience);
-            }
 
             // Only add if level > 1 or experience > 0 to avoid empty entries
             if (level > 1 || experience > 0) {
@@ -125,9 +130,7 @@ public class JobsTop {
             }
 
             cacheDirty = true;
-
-            if (Jobs.fullyLoaded)
-                rebuildCacheAsync();
+            version++;
         }
     }
 
@@ -149,12 +152,28 @@ public class JobsTop {
             if (stats != null) {
                 removeFromMap(uuid, stats.level, stats.experience);
                 cacheDirty = true;
-
-                rebuildCacheAsync();
+                version++;
             }
         }
     }
 
+    synchronized void clear() {
+        rankingMap.clear();
+        uuidToStats.clear();
+        cacheDirty = true;
+        version++;
+    }
+
+    /**
+     * Rebuilds cached ranking after batch of updates, unless it was rebuilt recently
+     * @return true if ranking still has to be rebuilt later
+     */
+    synchronized boolean refresh() {
+        if (Jobs.fullyLoaded)
+            rebuildCache();
+        return cacheDirty;
+    }
+
     private void removeFromMap(UUID uuid, int level, double experience) {
         NavigableMap<Double, Set<UUID>> expMap = rankingMap.get(level);
         if (expMap == null)
@@ -190,6 +209,7 @@ public class JobsTop {
     }
 
     private void cycle() {
+        version++;
         topCache = new ArrayList<>(CACHE_LIMIT);
         for (Entry<Integer, NavigableMap<Double, Set<UUID>>> levelEntry : rankingMap.entrySet()) {
             for (Entry<Double, Set<UUID>> expEntry : levelEntry.getValue().entrySet()) {
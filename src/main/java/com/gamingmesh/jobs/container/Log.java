@@ -16,6 +16,11 @@ public final class Log {
 	setDate();
     }
 
+    public Log(String action, int day) {
+	this.action = action;
+	this.day = day;
+    }
+
     public String getActionType() {
 	return action;
     }
@@ -32,6 +37,16 @@ public final class Log {
 	logAmount.setCount(count);
 	logAmount.add(amounts);
 	logAmount.setNewEntry(false);
+	logAmount.setSaved();
+	amountMap.put(item, logAmount);
+    }
+
+    public void sum(String item, int count, Map<CurrencyType, Double> amounts) {
+	LogAmounts logAmount = amountMap.getOrDefault(item, new LogAmounts(item));
+	logAmount.setCount(logAmount.getCount() + count);
+	logAmount.add(amounts);
+	logAmount.setNewEntry(false);
+	logAmount.setSaved();
 	amountMap.put(item, logAmount);
     }
 
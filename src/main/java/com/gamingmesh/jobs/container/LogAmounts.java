@@ -16,6 +16,10 @@ public final class LogAmounts {
 
     private boolean newEntry = true;
 
+    // Values which are already written into database
+    private int savedCount = 0;
+    private Map<CurrencyType, Double> savedAmounts = new HashMap<>();
+
     public LogAmounts(String item) {
 	this.item = item;
     }
@@ -28,6 +32,52 @@ public final class LogAmounts {
 	this.newEntry = newEntry;
     }
 
+    /**
+     * Marks current values as written into database
+     */
+    public void setSaved() {
+	savedCount = count;
+	savedAmounts = new HashMap<>(amounts);
+    }
+
+    /**
+     * @return true if this entry changed since it was written into database
+     */
+    public boolean isChanged() {
+	return newEntry || getUnsavedCount() != 0 || !getUnsavedAmounts().isEmpty();
+    }
+
+    /**
+     * @return copy of current values, including new entry state
+     */
+    public LogAmounts copy() {
+	LogAmounts copy = new LogAmounts(item);
+	copy.count = count;
+	copy.amounts = new HashMap<>(amounts);
+	copy.newEntry = newEntry;
+	return copy;
+    }
+
+    /**
+     * @return count which is not yet written into database
+     */
+    public int getUnsavedCount() {
+	return count - savedCount;
+    }
+
+    /**
+     * @return amounts which are not yet written into database
+     */
+    public Map<CurrencyType, Double> getUnsavedAmounts() {
+	Map<CurrencyType, Double> unsaved = new HashMap<>();
+	for (Entry<CurrencyType, Double> one : amounts.entrySet()) {
+	    double amount = one.getValue() - savedAmounts.getOrDefault(one.getKey(), 0D);
+	    if (amount != 0D)
+		unsaved.put(one.getKey(), amount);
+	}
+	return unsaved;
+    }
+
     public String getItemName() {
 	return item;
     }
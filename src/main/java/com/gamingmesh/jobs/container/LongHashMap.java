@@ -0,0 +1,171 @@
+package com.gamingmesh.jobs.container;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Open addressing hash map with primitive long keys, so lookups do not box keys.
+ */
+public class LongHashMap<V> {
+
+    // Key which is never produced by packed chunk or region positions
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    public interface Visitor<V> {
+        void accept(long key, V value);
+    }
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int threshold;
+
+    public LongHashMap() {
+        allocate(16);
+    }
+
+    /**
+     * Packs two coordinates, like chunk or region position, into single key
+     */
+    public static long pack(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int unpackZ(long key) {
+        return (int) key;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new Object[capacity];
+        threshold = (int) (capacity * 0.6F);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask);; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == key)
+                return i;
+            if (current == EMPTY)
+                return -1;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            V old = (V) values[i];
+            values[i] = value;
+            return old;
+        }
+
+        if (size >= threshold)
+            resize(keys.length * 2);
+
+        insert(key, value);
+        size++;
+        return null;
+    }
+
+    public V computeIfAbsent(long key, LongFunction<V> function) {
+        V value = get(key);
+        if (value == null) {
+            value = function.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    private void insert(long key, Object value) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY)
+                insert(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0)
+            return null;
+
+        V old = (V) values[index];
+        int mask = keys.length - 1;
+        int free = index;
+        for (int i = (index + 1) & mask;; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == EMPTY)
+                break;
+
+            int home = slot(current, mask);
+            if (((i - home) & mask) < ((i - free) & mask))
+                continue;
+
+            keys[free] = current;
+            values[free] = values[i];
+            free = i;
+        }
+
+        keys[free] = EMPTY;
+        values[free] = null;
+        size--;
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY)
+                visitor.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    public void clear() {
+        allocate(16);
+        size = 0;
+    }
+}
@@ -0,0 +1,287 @@
+package com.gamingmesh.jobs.container;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.container.JobsTop.topStats;
+
+/**
+ * Applies job, global and quest ranking changes in batches.
+ * <p>
+ * Changes are recorded as marks where the last value for the same job and player wins, and are applied once per
+ * interval on dedicated ranking thread. Global total of player is kept by adding difference between new and previously
+ * counted values of changed job, instead of summing all jobs of player again.
+ */
+public final class RankingUpdater {
+
+    private static final long UPDATE_INTERVAL_MS = 1000;
+
+    private static final class Mark {
+        private final Job job;
+        private final UUID uuid;
+
+        private Mark(Job job, UUID uuid) {
+            this.job = job;
+            this.uuid = uuid;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Mark))
+                return false;
+            Mark other = (Mark) obj;
+            return job == other.job && uuid.equals(other.uuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(job, uuid);
+        }
+    }
+
+    private static final class Pending {
+        private final JobsPlayer jPlayer;
+        private final int level;
+        private final double experience;
+        private final boolean removed;
+
+        private Pending(JobsPlayer jPlayer, int level, double experience, boolean removed) {
+            this.jPlayer = jPlayer;
+            this.level = level;
+            this.experience = experience;
+            this.removed = removed;
+        }
+    }
+
+    private static final Map<Mark, Pending> pending = new ConcurrentHashMap<>();
+    private static final Map<UUID, Integer> pendingQuests = new ConcurrentHashMap<>();
+
+    // Job values currently counted into global total of each player by job name, used only by ranking thread
+    private static final Map<UUID, Map<String, topStats>> counted = new HashMap<>();
+
+    // Rankings which were changed while their cache was rebuilt recently, used only by ranking thread
+    private static final Set<Job> staleJobs = new HashSet<>();
+    private static boolean staleGlobal = false;
+    private static boolean staleQuests = false;
+
+    private static ScheduledExecutorService service = null;
+
+    private RankingUpdater() {
+    }
+
+    private static synchronized void start() {
+        if (service != null)
+            return;
+        service = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Jobs-Rankings");
+            thread.setDaemon(true);
+            return thread;
+        });
+        service.scheduleWithFixedDelay(RankingUpdater::run, UPDATE_INTERVAL_MS, UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops ranking thread, marks which were not applied yet are dropped
+     */
+    public static synchronized void shutdown() {
+        if (service == null)
+            return;
+        service.shutdownNow();
+        service = null;
+        pending.clear();
+        pendingQuests.clear();
+    }
+
+    public static void update(Job job, JobsPlayer jPlayer, int level, double experience) {
+        pending.put(new Mark(job, jPlayer.getUniqueId()), new Pending(jPlayer, level, experience, false));
+        start();
+    }
+
+    public static void remove(Job job, JobsPlayer jPlayer) {
+        pending.put(new Mark(job, jPlayer.getUniqueId()), new Pending(jPlayer, 0, 0, true));
+        start();
+    }
+
+    public static void updateQuests(UUID uuid, int doneQuests) {
+        pendingQuests.put(uuid, doneQuests);
+        start();
+    }
+
+    /**
+     * Builds job and global rankings again from job progressions of loaded players, after jobs were reloaded and
+     * progressions were moved to new job objects
+     */
+    public static void reload() {
+        start();
+        ScheduledExecutorService current = service;
+        if (current != null)
+            current.execute(() -> {
+                try {
+                    reseed();
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                }
+            });
+    }
+
+    private static String getKey(Job job) {
+        return job.getName().toLowerCase();
+    }
+
+    private static void reseed() {
+        counted.clear();
+        staleJobs.clear();
+        JobsTop.clearGlobalTop();
+
+        for (JobsPlayer jPlayer : Jobs.getPlayerManager().getPlayersCache().values()) {
+            Map<String, topStats> jobs = new HashMap<>();
+            int level = 0;
+            double experience = 0;
+
+            synchronized (jPlayer.progression) {
+                for (JobProgression prog : jPlayer.progression) {
+                    prog.getJob().updateTop(jPlayer.getUniqueId(), prog.getLevel(), prog.getExperience());
+                    staleJobs.add(prog.getJob());
+
+                    if (prog.getLevel() == 1 && prog.getExperience() == 0)
+                        continue;
+                    jobs.put(getKey(prog.getJob()), new topStats(prog.getLevel(), prog.getExperience()));
+                    level += prog.getLevel();
+                    experience += prog.getExperience();
+                }
+            }
+
+            if (jobs.isEmpty())
+                continue;
+
+            counted.put(jPlayer.getUniqueId(), jobs);
+            JobsTop.setGlobalTop(jPlayer.getUniqueId(), level, experience);
+        }
+
+        staleGlobal = JobsTop.refreshGlobalTop();
+    }
+
+    private static void run() {
+        try {
+            apply();
+        } catch (Throwable e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Applies pending marks, called on ranking thread
+     */
+    static void apply() {
+        Set<Job> changedJobs = new HashSet<>();
+        Set<UUID> changedPlayers = new HashSet<>();
+
+        for (Entry<Mark, Pending> entry : pending.entrySet()) {
+            Mark mark = entry.getKey();
+            Pending one = entry.getValue();
+            // Newer mark replaced this one in the meantime, it is applied in next pass
+            if (!pending.remove(mark, one))
+                continue;
+
+            if (one.removed)
+                mark.job.removeFromTop(mark.uuid);
+            else
+                mark.job.updateTop(mark.uuid, one.level, one.experience);
+            changedJobs.add(mark.job);
+
+            if (count(mark, one))
+                changedPlayers.add(mark.uuid);
+        }
+
+        // Rankings changed while their cache was rebuilt recently are rebuilt once their cooldown passes
+        changedJobs.addAll(staleJobs);
+        staleJobs.clear();
+        for (Job job : changedJobs) {
+            if (job.refreshTop())
+                staleJobs.add(job);
+        }
+        if (!changedPlayers.isEmpty() || staleGlobal)
+            staleGlobal = JobsTop.refreshGlobalTop();
+
+        boolean questsChanged = false;
+        Iterator<Entry<UUID, Integer>> quests = pendingQuests.entrySet().iterator();
+        while (quests.hasNext()) {
+            Entry<UUID, Integer> entry = quests.next();
+            UUID uuid = entry.getKey();
+            Integer doneQuests = entry.getValue();
+            if (!pendingQuests.remove(uuid, doneQuests))
+                continue;
+
+            JobsQuestTop.setGlobalTop(uuid, doneQuests);
+            questsChanged = true;
+        }
+        if (questsChanged || staleQuests)
+            staleQuests = JobsQuestTop.refreshGlobalTop();
+    }
+
+    /**
+     * Moves global total of player by difference between new and previously counted values of job. Jobs which player
+     * is not in, like archived ones, and untouched jobs at first level are not counted.
+     * @return true if global total changed
+     */
+    private static boolean count(Mark mark, Pending one) {
+        boolean inJob = false;
+        if (!one.removed && !(one.level == 1 && one.experience == 0)) {
+            synchronized (one.jPlayer.progression) {
+                inJob = one.jPlayer.isInJob(mark.job);
+            }
+        }
+
+        String key = getKey(mark.job);
+        Map<String, topStats> jobs = counted.get(mark.uuid);
+        topStats previous = jobs == null ? null : jobs.get(key);
+        if (previous == null && !inJob)
+            return false;
+
+        int level = 0;
+        double experience = 0;
+        if (previous != null) {
+            level -= previous.level;
+            experience -= previous.experience;
+        }
+
+        if (inJob) {
+            if (jobs == null)
+                counted.put(mark.uuid, jobs = new HashMap<>());
+            jobs.put(key, new topStats(one.level, one.experience));
+            level += one.level;
+            experience += one.experience;
+        } else {
+            jobs.remove(key);
+            if (jobs.isEmpty())
+                counted.remove(mark.uuid);
+        }
+
+        if (level == 0 && experience == 0)
+            return false;
+
+        if (!counted.containsKey(mark.uuid)) {
+            JobsTop.removeFromGlobalTop(mark.uuid);
+            return true;
+        }
+
+        topStats total = JobsTop.getGlobalStats(mark.uuid);
+        if (total != null) {
+            level += total.level;
+            experience += total.experience;
+        }
+        JobsTop.setGlobalTop(mark.uuid, level, experience);
+        return true;
+    }
+}
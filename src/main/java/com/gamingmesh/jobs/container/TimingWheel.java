@@ -0,0 +1,141 @@
+package com.gamingmesh.jobs.container;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel holding packed keys until their deadline.
+ * <p>
+ * There are three levels of 64 slots, each slot of a level covers 64 slots of the level below. Keys are added into the
+ * level their deadline falls in and moved to lower level when wheel reaches their slot, so adding and expiring a key
+ * takes constant time no matter how many keys are waiting. Keys are not removed when cancelled, owner should check
+ * whether key is still valid when it expires.
+ */
+public class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+    // Deadlines further away are kept in last level and placed again when their slot is reached
+    private static final long RANGE = 1L << (BITS * LEVELS);
+
+    @FunctionalInterface
+    public interface Expiry {
+        void expire(long key, long deadline);
+    }
+
+    private final Bucket[][] wheel = new Bucket[LEVELS][SLOTS];
+    private long current;
+    private int size = 0;
+
+    /**
+     * @param now - current tick, ticks can be in any unit as long as the same unit is used for deadlines
+     */
+    public TimingWheel(long now) {
+        this.current = now;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[level][slot] = new Bucket();
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void schedule(long key, long deadline) {
+        long at = Math.max(deadline, current + 1);
+        long delta = at - current;
+
+        int level = 0;
+        if (delta >= RANGE) {
+            at = current + RANGE - 1;
+            level = LEVELS - 1;
+        } else {
+            while (delta >= 1L << (BITS * (level + 1))) {
+                level++;
+            }
+        }
+
+        wheel[level][(int) (at >> (BITS * level)) & MASK].add(key, deadline);
+        size++;
+    }
+
+    /**
+     * Moves wheel forward to given tick
+     * @param expiry - called with every key whose deadline was reached
+     */
+    public void advance(long now, Expiry expiry) {
+        while (current < now) {
+            current++;
+
+            // Higher levels are moved down first, so keys reaching lowest level in this tick expire right away
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((current & ((1L << (BITS * level)) - 1)) == 0)
+                    cascade(wheel[level][(int) (current >> (BITS * level)) & MASK]);
+            }
+
+            Bucket bucket = wheel[0][(int) current & MASK];
+            if (bucket.size == 0)
+                continue;
+
+            int count = bucket.size;
+            long[] keys = bucket.keys;
+            long[] deadlines = bucket.deadlines;
+            bucket.clear();
+            size -= count;
+
+            for (int i = 0; i < count; i++) {
+                if (deadlines[i] > current)
+                    schedule(keys[i], deadlines[i]);
+                else
+                    expiry.expire(keys[i], deadlines[i]);
+            }
+        }
+    }
+
+    private void cascade(Bucket bucket) {
+        if (bucket.size == 0)
+            return;
+
+        int count = bucket.size;
+        long[] keys = bucket.keys;
+        long[] deadlines = bucket.deadlines;
+        bucket.clear();
+        size -= count;
+
+        for (int i = 0; i < count; i++) {
+            schedule(keys[i], deadlines[i]);
+        }
+    }
+
+    private static class Bucket {
+
+        private static final long[] EMPTY = new long[0];
+
+        private long[] keys = EMPTY;
+        private long[] deadlines = EMPTY;
+        private int size = 0;
+
+        private void add(long key, long deadline) {
+            if (size == keys.length) {
+                int capacity = Math.max(8, size * 2);
+                keys = Arrays.copyOf(keys, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+            keys[size] = key;
+            deadlines[size] = deadline;
+            size++;
+        }
+
+        /**
+         * Detaches stored arrays, so they can be read while new keys are added into this bucket
+         */
+        private void clear() {
+            keys = EMPTY;
+            deadlines = EMPTY;
+            size = 0;
+        }
+    }
+}
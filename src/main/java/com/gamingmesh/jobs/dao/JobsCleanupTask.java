@@ -0,0 +1,131 @@
+package com.gamingmesh.jobs.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.gamingmesh.jobs.Jobs;
+
+import net.Zrips.CMILib.Messages.CMIMessages;
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
+
+/**
+ * Removes table rows matching condition in id range batches.
+ * <p>
+ * Every batch is a separate task on database thread, so other database calls can run between them and table is never
+ * locked for long. Batches are separated by a short pause and task can be cancelled between any of them.
+ * <p>
+ * Rows of players loaded for playing are skipped, preloaded data of players whose rows were removed is dropped.
+ */
+public class JobsCleanupTask {
+
+    private final JobsDAO dao;
+    private final String name;
+    private final String tableName;
+    private final String userColumn;
+    private final boolean removeInfo;
+    private final String condition;
+    private final Object[] params;
+    private final int batchSize;
+    private final long pause;
+
+    private volatile boolean cancelled = false;
+    private int minId, maxId;
+    private long removed = 0;
+    private int reported = 0;
+
+    /**
+     * @param name - what is being removed, used in progress messages
+     * @param userColumn - column holding player id
+     * @param removeInfo - true if removed rows are players themselves
+     * @param condition - SQL condition rows have to match to be removed
+     * @param params - condition parameters
+     */
+    JobsCleanupTask(JobsDAO dao, String name, String tableName, String userColumn, boolean removeInfo, String condition, int batchSize, long pause,
+        Object... params) {
+        this.dao = dao;
+        this.name = name;
+        this.tableName = tableName;
+        this.userColumn = userColumn;
+        this.removeInfo = removeInfo;
+        this.condition = condition;
+        this.params = params;
+        this.batchSize = Math.max(1, batchSize);
+        this.pause = Math.max(0, pause);
+    }
+
+    public CompletableFuture<Void> start() {
+        return dao.supplyAsync(() -> dao.getIdRange(tableName)).thenCompose(range -> {
+            if (range == null || range[1] < range[0])
+                return CompletableFuture.completedFuture(null);
+
+            minId = range[0];
+            maxId = range[1];
+            return next(minId);
+        });
+    }
+
+    private CompletableFuture<Void> next(int fromId) {
+        if (cancelled) {
+            CMIMessages.consoleMessage("&e[Jobs] Cleaning of " + name + " was cancelled after removing " + removed + " rows");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (fromId > maxId) {
+            CMIMessages.consoleMessage("&e[Jobs] Removed " + removed + " " + name);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return dao.supplyAsync(() -> dao.deleteRange(tableName, userColumn, condition, fromId, fromId + batchSize, Jobs.getPlayerManager().getLoadedPlayerIds(),
+            params)).thenCompose(deleted -> {
+            if (deleted == null) {
+                CMIMessages.consoleMessage("&c[Jobs] Cleaning of " + name + " stopped after removing " + removed + " rows");
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (!deleted.isEmpty())
+                CMIScheduler.runTask(Jobs.getInstance(), () -> Jobs.getPlayerManager().removeFromCache(deleted, removeInfo));
+
+            removed += deleted.size();
+            report(fromId + batchSize);
+
+            return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(pause, TimeUnit.MILLISECONDS)).thenCompose(v -> next(fromId + batchSize));
+        });
+    }
+
+    /**
+     * Informs about progress every 10 percent
+     */
+    private void report(int checkedId) {
+        long total = (long) maxId - minId + 1;
+        int percent = (int) (Math.min(total, (long) checkedId - minId) * 100 / total);
+        if (percent / 10 <= reported / 10 || percent >= 100)
+            return;
+
+        reported = percent;
+        CMIMessages.consoleMessage("&e[Jobs] Cleaning " + name + " " + percent + "%, removed " + removed + " rows");
+    }
+
+    /**
+     * Stops task before its next batch
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public long getRemoved() {
+        return removed;
+    }
+}
@@ -13,6 +13,7 @@ public class JobsConnectionPool {
     private String url;
     private String username;
     private String password;
+    private boolean readOnly = false;
 
     public JobsConnectionPool(String driverName, String url, String username, String password) throws InstantiationException, IllegalAccessException, ClassNotFoundException, SQLException {
 	Driver driver = (Driver) Class.forName(driverName, true, Jobs.getJobsClassloader()).newInstance();
@@ -33,11 +34,20 @@ public class JobsConnectionPool {
 	}
 	if (this.connection == null) {
 	    Connection conn = DriverManager.getConnection(this.url, this.username, this.password);
+	    if (readOnly)
+		conn.setReadOnly(true);
 	    this.connection = new JobsConnection(conn);
 	}
 	return this.connection;
     }
 
+    /**
+     * Marks connections of this pool as read only, reconnected connections are marked too
+     */
+    public synchronized void setReadOnly(boolean readOnly) {
+	this.readOnly = readOnly;
+    }
+
     public synchronized void closeConnection() {
 	if (this.connection != null)
 	    try {
@@ -0,0 +1,209 @@
+package com.gamingmesh.jobs.dao;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+
+import net.Zrips.CMILib.Messages.CMIMessages;
+
+/**
+ * Copies every table from one database into another in batches ordered by row id, row ids are kept as they are.
+ * <p>
+ * Each batch is committed in its own transaction, so biggest id in target table tells where copying stopped. Checkpoint
+ * file keeps which tables are finished, started conversion continues from there when it is run again. Copied tables are
+ * verified by row count and checksum before conversion is considered done.
+ */
+public class JobsConverter {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String COPYING = "copying", DONE = "done";
+
+    private final JobsStorage source;
+    private final JobsStorage target;
+    private final Map<DBTables, String> sourceTables;
+    private final Map<DBTables, String> targetTables;
+    private final File checkpointFile;
+    private final Properties checkpoint = new Properties();
+
+    JobsConverter(JobsStorage source, JobsStorage target, File checkpointFile) {
+        this.source = source;
+        this.target = target;
+        this.sourceTables = source.getTableNames();
+        this.targetTables = target.getTableNames();
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Copies and verifies all tables. Should be called from source database thread so data is not changed while it is copied.
+     * @return true if all tables were copied and verified
+     */
+    public boolean convert() {
+        String direction = source.getClass().getSimpleName() + ">" + target.getClass().getSimpleName();
+
+        loadCheckpoint();
+        if (!direction.equals(checkpoint.getProperty("direction"))) {
+            checkpoint.clear();
+            checkpoint.setProperty("direction", direction);
+        } else
+            CMIMessages.consoleMessage("&eContinuing previous database conversion");
+
+        try {
+            for (DBTables table : DBTables.values()) {
+                String state = checkpoint.getProperty(table.name());
+                if (!DONE.equals(state))
+                    copy(table, COPYING.equals(state));
+            }
+
+            boolean verified = true;
+            for (DBTables table : DBTables.values()) {
+                if (!verify(table)) {
+                    // Table will be copied from the start next time
+                    checkpoint.remove(table.name());
+                    verified = false;
+                }
+            }
+
+            if (!verified) {
+                saveCheckpoint();
+                return false;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            CMIMessages.consoleMessage("&cDatabase conversion stopped, run it again to continue from last copied batch");
+            return false;
+        }
+
+        checkpointFile.delete();
+        return true;
+    }
+
+    private void copy(DBTables table, boolean resume) throws SQLException {
+        String from = sourceTables.get(table), to = targetTables.get(table);
+
+        int lastId = 0;
+        if (resume)
+            lastId = target.getMaxId(table, to);
+        else
+            target.clearRows(table, to);
+
+        checkpoint.setProperty(table.name(), COPYING);
+        saveCheckpoint();
+
+        long copied = 0, reported = 0;
+        List<Object[]> rows;
+        while (!(rows = source.readRows(table, from, lastId, BATCH_SIZE)).isEmpty()) {
+            target.writeRows(table, to, rows);
+            lastId = ((Number) rows.get(rows.size() - 1)[0]).intValue();
+            copied += rows.size();
+
+            if (copied - reported >= 50000) {
+                reported = copied;
+                CMIMessages.consoleMessage("&e[Jobs] Copied " + copied + " rows of " + from + " table");
+            }
+        }
+
+        checkpoint.setProperty(table.name(), DONE);
+        saveCheckpoint();
+
+        CMIMessages.consoleMessage("&e[Jobs] Copied " + (resume ? "remaining " : "") + copied + " rows of " + from + " table");
+    }
+
+    private boolean verify(DBTables table) throws SQLException {
+        long[] from = checksum(source, table, sourceTables.get(table));
+        long[] to = checksum(target, table, targetTables.get(table));
+
+        if (from[0] == to[0] && from[1] == to[1])
+            return true;
+
+        CMIMessages.consoleMessage("&c[Jobs] " + sourceTables.get(table) + " table verification failed, source has " + from[0] + " rows (checksum " + from[1]
+            + ") while target has " + to[0] + " rows (checksum " + to[1] + ")");
+        return false;
+    }
+
+    /**
+     * Streams table in id order
+     * @return row count and CRC32 checksum of all values
+     */
+    private static long[] checksum(JobsStorage dao, DBTables table, String tableName) throws SQLException {
+        CRC32 crc = new CRC32();
+        long count = 0;
+        int lastId = 0;
+
+        List<Object[]> rows;
+        while (!(rows = dao.readRows(table, tableName, lastId, BATCH_SIZE)).isEmpty()) {
+            for (Object[] row : rows) {
+                for (Object value : row) {
+                    update(crc, value);
+                }
+            }
+            count += rows.size();
+            lastId = ((Number) rows.get(rows.size() - 1)[0]).intValue();
+        }
+
+        return new long[] { count, crc.getValue() };
+    }
+
+    /**
+     * Adds value into checksum. Numbers are compared by their value as drivers return different types for same collumn.
+     */
+    private static void update(CRC32 crc, Object value) {
+        if (value == null) {
+            crc.update(0);
+            return;
+        }
+
+        if (value instanceof Boolean)
+            value = (Boolean) value ? 1 : 0;
+
+        if (value instanceof Number) {
+            long bits;
+            if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+                double d = ((Number) value).doubleValue();
+                bits = d == Math.rint(d) && !Double.isInfinite(d) ? (long) d : Double.doubleToLongBits(d);
+            } else
+                bits = ((Number) value).longValue();
+
+            crc.update(1);
+            for (int i = 0; i < 8; i++) {
+                crc.update((int) (bits >>> (i * 8)));
+            }
+            return;
+        }
+
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        crc.update(2);
+        crc.update(bytes, 0, bytes.length);
+    }
+
+    private void loadCheckpoint() {
+        checkpoint.clear();
+        if (!checkpointFile.isFile())
+            return;
+
+        try (InputStream in = new FileInputStream(checkpointFile)) {
+            checkpoint.load(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void saveCheckpoint() {
+        try (OutputStream out = new FileOutputStream(checkpointFile)) {
+            checkpoint.store(out, "Jobs database conversion progress, remove this file to start conversion from the beginning");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -4,9 +4,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -18,27 +23,22 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.World;
-import org.bukkit.entity.Player;
 
 import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.config.ExploreManager;
+import com.gamingmesh.jobs.config.ExploreManager.DirtyChunk;
 import com.gamingmesh.jobs.container.ArchivedJobs;
 import com.gamingmesh.jobs.container.BlockProtection;
-import com.gamingmesh.jobs.container.Convert;
 import com.gamingmesh.jobs.container.CurrencyType;
 import com.gamingmesh.jobs.container.DBAction;
-import com.gamingmesh.jobs.container.ExploreChunk;
-import com.gamingmesh.jobs.container.ExploreRegion;
 import com.gamingmesh.jobs.container.Job;
 import com.gamingmesh.jobs.container.JobProgression;
 import com.gamingmesh.jobs.container.JobsPlayer;
-import com.gamingmesh.jobs.container.JobsQuestTop;
-import com.gamingmesh.jobs.container.JobsTop;
-import com.gamingmesh.jobs.container.JobsTop.topStats;
 import com.gamingmesh.jobs.container.JobsWorld;
 import com.gamingmesh.jobs.container.Log;
 import com.gamingmesh.jobs.container.LogAmounts;
@@ -55,14 +55,19 @@ import net.Zrips.CMILib.Messages.CMIMessages;
 import net.Zrips.CMILib.Time.CMITimeManager;
 import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
 
-public abstract class JobsDAO {
+public abstract class JobsDAO implements JobsStorage {
 
     private JobsConnectionPool pool;
+    private JobsConnectionPool replicaPool;
+    private volatile long replicaRetryAt = 0L;
     private static String prefix;
     private Jobs plugin;
 
     private static DataBaseType dbType = DataBaseType.SqLite;
 
+    private String ownPrefix;
+    private DataBaseType ownType = DataBaseType.SqLite;
+
     // Not in use currently
     public enum TablesFieldsType {
         decimal, number, text, varchar, stringList, stringLongMap, stringIntMap, locationMap, state, location, longNumber;
@@ -138,7 +143,8 @@ public abstract class JobsDAO {
         seen("bigint"),
         donequests("int"),
         quests("text"),
-        messageOptions("int");
+        messageOptions("int"),
+        server("varchar(36)");
 
         private String type;
 
@@ -167,7 +173,8 @@ public abstract class JobsDAO {
         job("text"),
         experience("double"),
         level("int"),
-        jobid("int");
+        jobid("int"),
+        version("int DEFAULT 0");
 
         private String type;
 
@@ -313,6 +320,39 @@ public abstract class JobsDAO {
         }
     }
 
+    public enum LogRollupTableFields implements JobsTableInterface {
+        userid("int"),
+        tier("varchar(10)"),
+        period("int"),
+        action("varchar(20)"),
+        itemname("text"),
+        count("int"),
+        money("double"),
+        exp("double"),
+        points("double");
+
+        private String type;
+
+        LogRollupTableFields(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public String getCollumn() {
+            return name();
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public boolean isUnique() {
+            return false;
+        }
+    }
+
     public enum PointsTableFields implements JobsTableInterface {
         userid("int"),
         totalpoints("double"),
@@ -340,6 +380,39 @@ public abstract class JobsDAO {
         }
     }
 
+    public enum MetaTableFields implements JobsTableInterface {
+        name("varchar(36)", true),
+        value("text");
+
+        private String type;
+
+        private boolean unique = false;
+
+        MetaTableFields(String type) {
+            this(type, false);
+        }
+
+        MetaTableFields(String type, boolean unique) {
+            this.type = type;
+            this.unique = unique;
+        }
+
+        @Override
+        public String getCollumn() {
+            return name();
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public boolean isUnique() {
+            return unique;
+        }
+    }
+
     public enum ExploreDataTableFields implements JobsTableInterface {
         worldname("varchar(64)"),
         chunkX("int"),
@@ -395,12 +468,18 @@ public abstract class JobsDAO {
         LogTable("log",
             "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` int NOT NULL AUTO_INCREMENT PRIMARY KEY[fields]);",
             "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` INTEGER PRIMARY KEY AUTOINCREMENT[fields]);", LogTableFields.class),
+        LogRollupTable("logRollup",
+            "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` int NOT NULL AUTO_INCREMENT PRIMARY KEY[fields]);",
+            "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` INTEGER PRIMARY KEY AUTOINCREMENT[fields]);", LogRollupTableFields.class),
         ExploreDataTable("exploreData",
             "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` int NOT NULL AUTO_INCREMENT PRIMARY KEY[fields]);",
             "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` INTEGER PRIMARY KEY AUTOINCREMENT[fields]);", ExploreDataTableFields.class),
         PointsTable("points",
             "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` int NOT NULL AUTO_INCREMENT PRIMARY KEY[fields]);",
-            "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` INTEGER PRIMARY KEY AUTOINCREMENT[fields]);", PointsTableFields.class);
+            "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` INTEGER PRIMARY KEY AUTOINCREMENT[fields]);", PointsTableFields.class),
+        MetaTable("meta",
+            "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` int NOT NULL AUTO_INCREMENT PRIMARY KEY[fields]);",
+            "CREATE TABLE IF NOT EXISTS `[tableName]` (`id` INTEGER PRIMARY KEY AUTOINCREMENT[fields]);", MetaTableFields.class);
 
         private String mySQL;
         private String sQlite;
@@ -469,12 +548,20 @@ public abstract class JobsDAO {
         public String getTableName() {
             return prefix + tableName;
         }
+
+        /**
+         * Gets table name with given prefix instead of prefix of current database
+         */
+        String getTableName(String prefix) {
+            return prefix + tableName;
+        }
     }
 
     protected JobsDAO(Jobs plugin, String driverName, String url, String username, String password, String pr) {
         this.plugin = plugin;
 
         prefix = pr;
+        ownPrefix = pr;
 
         try {
             Class.forName(driverName);
@@ -490,7 +577,7 @@ public abstract class JobsDAO {
         }
     }
 
-    public final synchronized boolean setUp() {
+    public boolean setUp() {
         if (getConnection() == null) {
             CMIMessages.consoleMessage("&cFAILED to connect to database");
             return false;
@@ -501,15 +588,71 @@ public abstract class JobsDAO {
         vacuum();
 
         try {
+            migrate(loadSchema());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            CMIMessages.consoleMessage("&cCould not update database structure at once, checking tables one by one");
             for (DBTables one : DBTables.values()) {
                 createDefaultTable(one);
             }
             checkDefaultCollumns();
-        } finally {
         }
+        createBlocksIndex();
         return true;
     }
 
+    /**
+     * Reads existing tables and their collumns with as few queries as database allows
+     * @return lower case table names mapped to their lower case collumn names
+     * @throws SQLException
+     */
+    protected abstract Map<String, Set<String>> loadSchema() throws SQLException;
+
+    /**
+     * Compares existing structure with {@link DBTables} and creates missing tables and collumns in one transaction
+     * @param schema - existing structure from {@link #loadSchema()}
+     * @throws SQLException
+     */
+    private void migrate(Map<String, Set<String>> schema) throws SQLException {
+        List<String> changes = new ArrayList<>();
+        for (DBTables one : DBTables.values()) {
+            Set<String> collumns = schema.get(one.getTableName().toLowerCase());
+            if (collumns == null) {
+                changes.add(one.getQuery());
+                continue;
+            }
+
+            for (JobsTableInterface oneT : one.getInterface()) {
+                if (!collumns.contains(oneT.getCollumn().toLowerCase()))
+                    changes.add("ALTER TABLE `" + one.getTableName() + "` ADD COLUMN `" + oneT.getCollumn() + "` " + oneT.getType() + ";");
+            }
+        }
+
+        if (changes.isEmpty())
+            return;
+
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            throw new SQLException("Not connected to " + dbType + " database");
+
+        Statement statement = null;
+        try {
+            conn.setAutoCommit(false);
+            statement = conn.createStatement();
+            for (String one : changes) {
+                CMIMessages.consoleMessage("Updating database |" + one + "|");
+                statement.execute(one);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.getConnection().rollback();
+            throw e;
+        } finally {
+            close(statement);
+            conn.setAutoCommit(true);
+        }
+    }
+
     protected abstract void checkUpdate() throws SQLException;
 
     public abstract Statement prepareStatement(String query) throws SQLException;
@@ -539,6 +682,35 @@ public abstract class JobsDAO {
         }
     }
 
+    /**
+     * Creates index used to load block protection entries by region
+     */
+    private void createBlocksIndex() {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return;
+
+        String table = DBTables.BlocksTable.getTableName();
+        String index = table + "_location";
+        ResultSet res = null;
+        try {
+            res = conn.getMetaData().getIndexInfo(conn.getConnection().getCatalog(), null, table, false, true);
+            while (res.next()) {
+                if (index.equalsIgnoreCase(res.getString("INDEX_NAME")))
+                    return;
+            }
+            close(res);
+            res = null;
+
+            executeSQL("CREATE INDEX `" + index + "` ON `" + table + "` (`" + BlockTableFields.worldid.getCollumn() + "`, `" + BlockTableFields.x.getCollumn() + "`, `"
+                + BlockTableFields.z.getCollumn() + "`);");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            close(res);
+        }
+    }
+
     private boolean createDefaultTable(DBTables table) {
         if (isTable(table.getTableName()))
             return true;
@@ -576,6 +748,26 @@ public abstract class JobsDAO {
 
     public void setDbType(DataBaseType dabType) {
         dbType = dabType;
+        ownType = dabType;
+    }
+
+    /**
+     * Points shared table names and queries back to this database. Used while two databases are open during conversion.
+     */
+    void makeCurrent() {
+        prefix = ownPrefix;
+        dbType = ownType;
+    }
+
+    /**
+     * Gets full table names of this database, they stay correct while other database is current
+     */
+    public Map<DBTables, String> getTableNames() {
+        Map<DBTables, String> names = new EnumMap<>(DBTables.class);
+        for (DBTables one : DBTables.values()) {
+            names.put(one, one.getTableName(ownPrefix));
+        }
+        return names;
     }
 
     /**
@@ -586,21 +778,38 @@ public abstract class JobsDAO {
         return prefix;
     }
 
-    public CompletableFuture<List<JobsDAOData>> getAllJobsAsync(OfflinePlayer player) {
-        return CompletableFuture.supplyAsync(() -> {
-            return getAllJobs(player.getName(), player.getUniqueId());
-        });
-    }
+    /**
+     * Single database thread, keeps statements in the order they were requested and never blocks the server thread
+     */
+    private final ExecutorService service = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Jobs-Database");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    @Deprecated
-    public List<JobsDAOData> getAllJobs(OfflinePlayer player) {
-        return getAllJobs(player.getName(), player.getUniqueId());
+    private final Map<String, JobsCleanupTask> cleanupTasks = new ConcurrentHashMap<>();
+
+    /**
+     * How many times conflicting job progression write is retried
+     */
+    private static final int SAVE_ATTEMPTS = 3;
+
+    /**
+     * Runs database task on dedicated database thread
+     * @param task - the task
+     * @return future which completes after the task is done
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, service);
     }
 
-    public CompletableFuture<List<JobsDAOData>> getAllJobsSync(String playerName, UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            return getAllJobs(playerName, uuid);
-        });
+    /**
+     * Gets value from database on dedicated database thread
+     * @param supplier - the value supplier
+     * @return future which completes with supplied value
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, service);
     }
 
     /**
@@ -637,11 +846,13 @@ public abstract class JobsDAO {
             while (res.next()) {
                 int jobId = res.getInt(JobsTableFields.jobid.getCollumn());
                 if (jobId == 0) {
-                    jobs.add(new JobsDAOData(res.getString(JobsTableFields.job.getCollumn()), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn())));
+                    jobs.add(new JobsDAOData(res.getString(JobsTableFields.job.getCollumn()), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn()),
+                        res.getInt(JobsTableFields.version.getCollumn())));
                 } else {
                     Job job = Jobs.getJob(jobId);
                     if (job != null)
-                        jobs.add(new JobsDAOData(job.getName(), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn())));
+                        jobs.add(new JobsDAOData(job.getName(), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn()),
+                            res.getInt(JobsTableFields.version.getCollumn())));
                 }
             }
         } catch (SQLException e) {
@@ -672,7 +883,8 @@ public abstract class JobsDAO {
 
                 int jobId = res.getInt(JobsTableFields.jobid.getCollumn());
                 if (jobId == 0) {
-                    ls.add(new JobsDAOData(res.getString(JobsTableFields.job.getCollumn()), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn())));
+                    ls.add(new JobsDAOData(res.getString(JobsTableFields.job.getCollumn()), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn()),
+                        res.getInt(JobsTableFields.version.getCollumn())));
                     converted = false;
                 } else {
                     // This should be removed when we switch over to id only method
@@ -681,7 +893,8 @@ public abstract class JobsDAO {
 
                     Job job = Jobs.getJob(jobId);
                     if (job != null) {
-                        ls.add(new JobsDAOData(job.getName(), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn())));
+                        ls.add(new JobsDAOData(job.getName(), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn()),
+                            res.getInt(JobsTableFields.version.getCollumn())));
                     }
                 }
 
@@ -876,52 +1089,142 @@ public abstract class JobsDAO {
         return map;
     }
 
+    /**
+     * Starts background removal of players who were not seen for configured amount of days
+     */
     public void cleanUsers() {
         if (!Jobs.getGCManager().DBCleaningUsersUse)
             return;
 
-        JobsConnection conn = getConnection();
-        if (conn == null)
-            return;
-
         Calendar cal = Calendar.getInstance();
         cal.add(Calendar.DATE, -Jobs.getGCManager().DBCleaningUsersDays);
-        long mark = cal.getTimeInMillis();
+
+        startCleanup(new JobsCleanupTask(this, "inactive users", DBTables.UsersTable.getTableName(), "id", true, "`" + UserTableFields.seen.getCollumn() + "` < ?",
+            Jobs.getGCManager().DBCleaningBatchSize, Jobs.getGCManager().DBCleaningBatchPause, cal.getTimeInMillis()));
+    }
+
+    /**
+     * Starts background removal of jobs with level up to configured one
+     */
+    public void cleanJobs() {
+        if (!Jobs.getGCManager().DBCleaningJobsUse)
+            return;
+
+        startCleanup(new JobsCleanupTask(this, "low level jobs", getJobsTableName(), JobsTableFields.userid.getCollumn(), false,
+            "`" + JobsTableFields.level.getCollumn() + "` <= ?", Jobs.getGCManager().DBCleaningBatchSize, Jobs.getGCManager().DBCleaningBatchPause, Jobs.getGCManager().DBCleaningJobsLvl));
+    }
+
+    private void startCleanup(JobsCleanupTask task) {
+        JobsCleanupTask old = cleanupTasks.put(task.getTableName(), task);
+        if (old != null)
+            old.cancel();
+
+        task.start().whenComplete((v, e) -> {
+            cleanupTasks.remove(task.getTableName(), task);
+            if (e != null && !task.isCancelled())
+                e.printStackTrace();
+        });
+    }
+
+    /**
+     * Cancels running cleanup tasks, they stop before their next batch
+     */
+    public void cancelCleanup() {
+        for (JobsCleanupTask task : cleanupTasks.values()) {
+            task.cancel();
+        }
+        cleanupTasks.clear();
+    }
+
+    public Collection<JobsCleanupTask> getCleanupTasks() {
+        return Collections.unmodifiableCollection(cleanupTasks.values());
+    }
+
+    /**
+     * @return smallest and biggest row id or null if it could not be read
+     */
+    int[] getIdRange(String tableName) {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return null;
 
         PreparedStatement prest = null;
+        ResultSet res = null;
         try {
-            prest = conn.prepareStatement("DELETE FROM `" + DBTables.UsersTable.getTableName() + "` WHERE `" + UserTableFields.seen.getCollumn() + "` < ?;");
-            prest.setLong(1, mark);
-            prest.execute();
+            prest = conn.prepareStatement("SELECT MIN(`id`), MAX(`id`) FROM `" + tableName + "`;");
+            res = prest.executeQuery();
+            if (res.next())
+                return new int[] { res.getInt(1), res.getInt(2) };
         } catch (SQLException e) {
             e.printStackTrace();
         } finally {
+            close(res);
             close(prest);
         }
+        return null;
     }
 
-    public void cleanJobs() {
-        if (!Jobs.getGCManager().DBCleaningJobsUse)
-            return;
-
+    /**
+     * Removes rows matching condition with id from given range
+     * @param userColumn - column holding player id
+     * @param fromId - first id, inclusive
+     * @param toId - last id, exclusive
+     * @param skipIds - players whose rows are kept
+     * @return player id of every removed row or null if removal failed
+     */
+    List<Integer> deleteRange(String tableName, String userColumn, String condition, int fromId, int toId, Collection<Integer> skipIds, Object... params) {
         JobsConnection conn = getConnection();
         if (conn == null)
-            return;
+            return null;
 
+        StringBuilder where = new StringBuilder(" WHERE `id` >= ? AND `id` < ? AND ").append(condition);
+        if (!skipIds.isEmpty()) {
+            where.append(" AND `").append(userColumn).append("` NOT IN (?");
+            for (int i = 1; i < skipIds.size(); i++) {
+                where.append(", ?");
+            }
+            where.append(')');
+        }
+
+        List<Integer> ids = new ArrayList<>();
         PreparedStatement prest = null;
+        ResultSet res = null;
         try {
-            prest = conn.prepareStatement("DELETE FROM `" + getJobsTableName() + "` WHERE `" + JobsTableFields.level.getCollumn() + "` <= ?;");
-            prest.setInt(1, Jobs.getGCManager().DBCleaningJobsLvl);
-            prest.execute();
+            prest = conn.prepareStatement("SELECT `" + userColumn + "` FROM `" + tableName + "`" + where + ";");
+            setRangeParams(prest, fromId, toId, skipIds, params);
+            res = prest.executeQuery();
+            while (res.next()) {
+                ids.add(res.getInt(1));
+            }
+            close(res);
+            close(prest);
+
+            if (ids.isEmpty())
+                return ids;
+
+            prest = conn.prepareStatement("DELETE FROM `" + tableName + "`" + where + ";");
+            setRangeParams(prest, fromId, toId, skipIds, params);
+            prest.executeUpdate();
+            return ids;
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         } finally {
+            close(res);
             close(prest);
         }
     }
 
-    public void recordNewPlayer(Player player) {
-        recordNewPlayer(player.getName(), player.getUniqueId());
+    private static void setRangeParams(PreparedStatement prest, int fromId, int toId, Collection<Integer> skipIds, Object... params) throws SQLException {
+        int i = 1;
+        prest.setInt(i++, fromId);
+        prest.setInt(i++, toId);
+        for (Object param : params) {
+            prest.setObject(i++, param);
+        }
+        for (Integer id : skipIds) {
+            prest.setInt(i++, id);
+        }
     }
 
     public void recordNewPlayer(String playerName, UUID uuid) {
@@ -984,6 +1287,65 @@ public abstract class JobsDAO {
         }
     }
 
+    /**
+     * Gets value which plugin keeps about database itself
+     * @return value or null if it is not set
+     */
+    public String getMeta(String name) {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return null;
+
+        PreparedStatement prest = null;
+        ResultSet res = null;
+        try {
+            prest = conn.prepareStatement("SELECT `" + MetaTableFields.value.getCollumn() + "` FROM `" + DBTables.MetaTable.getTableName() + "` WHERE `"
+                + MetaTableFields.name.getCollumn() + "` = ?;");
+            prest.setString(1, name);
+            res = prest.executeQuery();
+            if (res.next())
+                return res.getString(1);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            close(res);
+            close(prest);
+        }
+        return null;
+    }
+
+    /**
+     * Sets value which plugin keeps about database itself
+     * @param value - new value or null to remove it
+     */
+    public void setMeta(String name, String value) {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return;
+
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("DELETE FROM `" + DBTables.MetaTable.getTableName() + "` WHERE `" + MetaTableFields.name.getCollumn() + "` = ?;");
+            prest.setString(1, name);
+            prest.execute();
+            close(prest);
+            prest = null;
+
+            if (value == null)
+                return;
+
+            prest = conn.prepareStatement("INSERT INTO `" + DBTables.MetaTable.getTableName() + "` (`" + MetaTableFields.name.getCollumn() + "`, `"
+                + MetaTableFields.value.getCollumn() + "`) VALUES (?, ?);");
+            prest.setString(1, name);
+            prest.setString(2, value);
+            prest.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            close(prest);
+        }
+    }
+
     public void recordNewWorld(String worldName, int id) {
         JobsConnection conn = getConnection();
         if (conn == null)
@@ -1007,7 +1369,7 @@ public abstract class JobsDAO {
         }
     }
 
-    public synchronized void loadAllJobsWorlds() {
+    public void loadAllJobsWorlds() {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -1042,12 +1404,12 @@ public abstract class JobsDAO {
         if (converted)
             return;
 
-        CMIScheduler.runTaskLater(plugin, () -> {
+        CMIScheduler.runTaskLater(plugin, () -> runAsync(() -> {
             CMIMessages.consoleMessage("&6[Jobs] Converting to new database format");
             convertID();
             CMIMessages.consoleMessage("&6[Jobs] Converted to new database format");
             converted = true;
-        }, 60L);
+        }), 60L);
     }
 
     private void convertID() {
@@ -1264,7 +1626,7 @@ public abstract class JobsDAO {
         }
     }
 
-    public synchronized void loadAllJobsNames() {
+    public void loadAllJobsNames() {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -1310,7 +1672,7 @@ public abstract class JobsDAO {
      * @param JobName - the job name
      * @return amount of player currently working.
      */
-    public synchronized int getTotalPlayerAmountByJobName(String JobName) {
+    public int getTotalPlayerAmountByJobName(String JobName) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return 0;
@@ -1339,46 +1701,23 @@ public abstract class JobsDAO {
     }
 
     /**
-     * Get player count for a job.
-     * @return total amount of player currently working.
-     */
-    public synchronized int getTotalPlayers() {
-        int total = 0;
-        for (Job one : Jobs.getJobs()) {
-            total += one.getTotalPlayers();
-        }
-        return total;
-    }
-
-    /**
-     * Get all jobs the player is part of.
-     * @param userName - the player being searched for
-     * @return list of all of the names of the jobs the players are part of.
+     * Counts job entries of every job id with single query
+     * @return job id mapped to amount of players in that job
      */
-    public synchronized List<JobsDAOData> getAllJobsOffline(String userName) {
-        List<JobsDAOData> jobs = new ArrayList<>();
+    public Map<Integer, Integer> getJobCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return counts;
 
-        PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(userName);
-        if (info == null)
-            return jobs;
-
-        JobsConnection conn = getConnection();
-        if (conn == null)
-            return jobs;
         PreparedStatement prest = null;
         ResultSet res = null;
         try {
-            prest = conn.prepareStatement("SELECT * FROM `" + getJobsTableName() + "` WHERE `" + JobsTableFields.userid.getCollumn() + "` = ?;");
-            prest.setInt(1, info.getID());
+            prest = conn.prepareStatement("SELECT `" + JobsTableFields.jobid.getCollumn() + "`, COUNT(*) FROM `" + getJobsTableName() + "` GROUP BY `"
+                + JobsTableFields.jobid.getCollumn() + "`;");
             res = prest.executeQuery();
             while (res.next()) {
-                int jobId = res.getInt(JobsTableFields.jobid.getCollumn());
-                if (jobId == 0) {
-                    jobs.add(new JobsDAOData(res.getString(JobsTableFields.job.getCollumn()), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn())));
-                } else {
-                    Job job = Jobs.getJob(jobId);
-                    jobs.add(new JobsDAOData(job.getName(), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn())));
-                }
+                counts.put(res.getInt(1), res.getInt(2));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1386,14 +1725,48 @@ public abstract class JobsDAO {
             close(res);
             close(prest);
         }
-        return jobs;
+        return counts;
     }
 
-    public void recordPlayersLimitsAsync(JobsPlayer player) {
-        this.service.execute(() -> recordPlayersLimits(player));
+    /**
+     * Get all jobs the player is part of.
+     * @param userName - the player being searched for
+     * @return list of all of the names of the jobs the players are part of.
+     */
+    public List<JobsDAOData> getAllJobsOffline(String userName) {
+        PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(userName);
+        if (info == null)
+            return new ArrayList<>();
+
+        List<JobsDAOData> jobs = read(conn -> {
+            List<JobsDAOData> list = new ArrayList<>();
+            PreparedStatement prest = null;
+            ResultSet res = null;
+            try {
+                prest = conn.prepareStatement("SELECT * FROM `" + getJobsTableName() + "` WHERE `" + JobsTableFields.userid.getCollumn() + "` = ?;");
+                prest.setInt(1, info.getID());
+                res = prest.executeQuery();
+                while (res.next()) {
+                    int jobId = res.getInt(JobsTableFields.jobid.getCollumn());
+                    if (jobId == 0) {
+                        list.add(new JobsDAOData(res.getString(JobsTableFields.job.getCollumn()), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn()),
+                            res.getInt(JobsTableFields.version.getCollumn())));
+                    } else {
+                        Job job = Jobs.getJob(jobId);
+                        list.add(new JobsDAOData(job.getName(), res.getInt(JobsTableFields.level.getCollumn()), res.getDouble(JobsTableFields.experience.getCollumn()),
+                            res.getInt(JobsTableFields.version.getCollumn())));
+                    }
+                }
+            } finally {
+                close(res);
+                close(prest);
+            }
+            return list;
+        });
+        return jobs == null ? new ArrayList<>() : jobs;
     }
 
-    public synchronized void recordPlayersLimits(JobsPlayer jPlayer) {
+    public void recordPlayersLimits(JobsPlayer jPlayer) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -1446,7 +1819,7 @@ public abstract class JobsDAO {
         }
     }
 
-    public synchronized void clearLimitsTable() {
+    public void clearLimitsTable() {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -1461,7 +1834,7 @@ public abstract class JobsDAO {
         }
     }
 
-    public synchronized PaymentData getPlayersLimits(JobsPlayer jPlayer) {
+    public PaymentData getPlayersLimits(JobsPlayer jPlayer) {
         PaymentData data = new PaymentData();
         JobsConnection conn = getConnection();
         if (conn == null)
@@ -1489,7 +1862,7 @@ public abstract class JobsDAO {
         return data;
     }
 
-    public synchronized Map<Integer, PaymentData> loadPlayerLimits() {
+    public Map<Integer, PaymentData> loadPlayerLimits() {
         Map<Integer, PaymentData> map = new HashMap<>();
         JobsConnection conn = getConnection();
         if (conn == null)
@@ -1533,35 +1906,7 @@ public abstract class JobsDAO {
      * @param player - player that wishes to join the job
      * @param job - job that the player wishes to join
      */
-    public synchronized void joinJob(JobsPlayer jPlayer, JobProgression job) {
-        CompletableFuture.runAsync(() -> {
-            JobsConnection conn = getConnection();
-            if (conn == null)
-                return;
-            PreparedStatement prest = null;
-            try {
-                prest = conn.prepareStatement("INSERT INTO `" + getJobsTableName() + "` (`" + JobsTableFields.userid.getCollumn() + "`, `" + JobsTableFields.jobid.getCollumn()
-                    + "`, `" + JobsTableFields.level.getCollumn() + "`, `" + JobsTableFields.experience.getCollumn() + "`, `" + JobsTableFields.job.getCollumn() + "`) VALUES (?, ?, ?, ?, ?);");
-                prest.setInt(1, jPlayer.getUserId());
-                prest.setInt(2, job.getJob().getId());
-                prest.setInt(3, job.getLevel());
-                prest.setDouble(4, job.getExperience());
-                prest.setString(5, job.getJob().getName());
-                prest.execute();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            } finally {
-                close(prest);
-            }
-        });
-    }
-
-    /**
-     * Join a job (create player-job entry from storage)
-     * @param player - player that wishes to join the job
-     * @param job - job that the player wishes to join
-     */
-    public synchronized void insertJob(JobsPlayer jPlayer, JobProgression prog) {
+    public void insertJob(JobsPlayer jPlayer, JobProgression prog) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -1578,6 +1923,7 @@ public abstract class JobsDAO {
             prest.setDouble(4, exp);
             prest.setString(5, prog.getJob().getName());
             prest.execute();
+            prog.setSynced(prog.getLevel(), exp, 0);
         } catch (SQLException e) {
             e.printStackTrace();
         } finally {
@@ -1586,95 +1932,123 @@ public abstract class JobsDAO {
     }
 
     /**
-     * Join a job (create player-job entry from storage)
-     * @param player - player that wishes to join the job
-     * @param job - job that the player wishes to join
+     * Reads next batch of table rows in id order, used by database conversion
+     * @param tableName - full table name in this database
+     * @param afterId - last id which was already read
+     * @param limit - max amount of rows
+     * @return rows with id in first cell followed by table fields in their declaration order
      * @throws SQLException
      */
-    public List<Convert> convertDatabase() throws SQLException {
-        List<Convert> list = new ArrayList<>();
+    public List<Object[]> readRows(DBTables table, String tableName, int afterId, int limit) throws SQLException {
         JobsConnection conn = getConnection();
         if (conn == null)
-            return list;
+            throw new SQLException("Not connected to " + dbType + " database");
+
+        JobsTableInterface[] fields = table.getInterface();
+        StringBuilder collumns = new StringBuilder("`id`");
+        for (JobsTableInterface one : fields) {
+            collumns.append(", `").append(one.getCollumn()).append('`');
+        }
 
+        List<Object[]> rows = new ArrayList<>();
         PreparedStatement prest = null;
         ResultSet res = null;
         try {
-            prest = conn.prepareStatement("SELECT * FROM `" + DBTables.ArchiveTable.getTableName() + "`");
+            prest = conn.prepareStatement("SELECT " + collumns + " FROM `" + tableName + "` WHERE `id` > ? ORDER BY `id` LIMIT ?;");
+            prest.setInt(1, afterId);
+            prest.setInt(2, limit);
             res = prest.executeQuery();
             while (res.next()) {
-                int id = res.getInt(ArchiveTableFields.userid.getCollumn());
-                PlayerInfo pi = Jobs.getPlayerManager().getPlayerInfo(id);
-                if (pi == null)
-                    continue;
-
-                JobsPlayer jPlayer = Jobs.getPlayerManager().getJobsPlayer(pi.getUuid());
-                if (jPlayer == null)
-                    continue;
-
-                String jobName = res.getString(ArchiveTableFields.job.getCollumn());
-                int jobid = res.getInt(ArchiveTableFields.jobid.getCollumn());
-
-                Job job = jobid != 0 ? Jobs.getJob(jobid) : Jobs.getJob(jobName);
-                if (job == null)
-                    continue;
-
-                list.add(new Convert(res.getInt("id"), jPlayer.getUniqueId(), job.getId(), res.getInt(ArchiveTableFields.level.getCollumn()), res.getInt(ArchiveTableFields.experience.getCollumn())));
+                Object[] row = new Object[fields.length + 1];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = res.getObject(i + 1);
+                }
+                rows.add(row);
             }
         } finally {
             close(res);
             close(prest);
         }
-
-        conn.closeConnection();
-        return list;
+        return rows;
     }
 
-    public void continueConvertions(List<Convert> list) throws SQLException {
-        JobsConnection conns = getConnection();
-        if (conns == null)
-            return;
+    /**
+     * Writes batch of rows read by {@link #readRows(DBTables, String, int, int)} in one transaction keeping their ids
+     * @param tableName - full table name in this database
+     * @throws SQLException
+     */
+    public void writeRows(DBTables table, String tableName, List<Object[]> rows) throws SQLException {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            throw new SQLException("Not connected to " + dbType + " database");
+
+        JobsTableInterface[] fields = table.getInterface();
+        StringBuilder collumns = new StringBuilder("`id`");
+        StringBuilder values = new StringBuilder("?");
+        for (JobsTableInterface one : fields) {
+            collumns.append(", `").append(one.getCollumn()).append('`');
+            values.append(", ?");
+        }
+
         PreparedStatement insert = null;
-        Statement statement = null;
-        int i = list.size();
         try {
-            statement = conns.createStatement();
-            if (Jobs.getDBManager().getDbType() == DataBaseType.MySQL) {
-                statement.executeUpdate("TRUNCATE TABLE `" + DBTables.ArchiveTable.getTableName() + "`");
-            } else {
-                statement.executeUpdate("DELETE from `" + DBTables.ArchiveTable.getTableName() + "`");
+            insert = conn.prepareStatement("INSERT INTO `" + tableName + "` (" + collumns + ") VALUES (" + values + ");");
+            conn.setAutoCommit(false);
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    insert.setObject(i + 1, row[i]);
+                }
+                insert.addBatch();
             }
+            insert.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.getConnection().rollback();
+            throw e;
+        } finally {
+            close(insert);
+            conn.setAutoCommit(true);
+        }
+    }
 
-            insert = conns.prepareStatement("INSERT INTO `" + DBTables.ArchiveTable.getTableName() + "` (`" + ArchiveTableFields.userid.getCollumn()
-                + "`, `" + ArchiveTableFields.jobid.getCollumn() + "`, `" + ArchiveTableFields.level.getCollumn() + "`, `" + ArchiveTableFields.experience.getCollumn() + "`, `"
-                + ArchiveTableFields.job.getCollumn() + "`) VALUES (?, ?, ?, ?, ?);");
-            conns.setAutoCommit(false);
-            while (i > 0) {
-                i--;
+    /**
+     * Gets biggest row id in table or 0 if table is empty
+     * @param tableName - full table name in this database
+     * @throws SQLException
+     */
+    public int getMaxId(DBTables table, String tableName) throws SQLException {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            throw new SQLException("Not connected to " + dbType + " database");
 
-                Convert convertData = list.get(i);
+        PreparedStatement prest = null;
+        ResultSet res = null;
+        try {
+            prest = conn.prepareStatement("SELECT MAX(`id`) FROM `" + tableName + "`;");
+            res = prest.executeQuery();
+            return res.next() ? res.getInt(1) : 0;
+        } finally {
+            close(res);
+            close(prest);
+        }
+    }
 
-                JobsPlayer jPlayer = Jobs.getPlayerManager().getJobsPlayer(convertData.getUserUUID());
-                Job job = Jobs.getJob(convertData.getJobId());
+    /**
+     * Removes all rows from table
+     * @param tableName - full table name in this database
+     * @throws SQLException
+     */
+    public void clearRows(DBTables table, String tableName) throws SQLException {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            throw new SQLException("Not connected to " + dbType + " database");
 
-                insert.setInt(1, jPlayer != null ? jPlayer.getUserId() : -1);
-                insert.setInt(2, convertData.getJobId());
-                insert.setInt(3, convertData.getLevel());
-                insert.setInt(4, convertData.getExp());
-                insert.setString(5, job != null ? job.getName() : "");
-                insert.addBatch();
-            }
-            insert.executeBatch();
-            conns.commit();
-            conns.setAutoCommit(true);
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("DELETE FROM `" + tableName + "`;");
+            prest.executeUpdate();
         } finally {
-            close(statement);
-            close(insert);
-            try {
-                conns.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+            close(prest);
         }
     }
 
@@ -1683,7 +2057,7 @@ public abstract class JobsDAO {
      * @param player - player that wishes to quit the job
      * @param job - job that the player wishes to quit
      */
-    public synchronized boolean quitJob(JobsPlayer jPlayer, Job job) {
+    public boolean quitJob(JobsPlayer jPlayer, Job job) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return false;
@@ -1707,7 +2081,7 @@ public abstract class JobsDAO {
     /**
      * Remove duplicated job by specific criteria
      */
-    public synchronized boolean removeSpecificJob(int userId, String jobName, String legacyName, int level, double exp) {
+    public boolean removeSpecificJob(int userId, String jobName, String legacyName, int level, double exp) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return false;
@@ -1732,23 +2106,12 @@ public abstract class JobsDAO {
         return done;
     }
 
-    /**
-     * Record job to archive
-     * @param player - player that wishes to quit the job
-     * @param job - job that the player wishes to quit
-     */
-    public void recordToArchive(JobsPlayer jPlayer, Job job) {
-        JobProgression jp = jPlayer.getJobProgression(job);
-        if (jp == null)
-            return;
-        jp.setLeftOn(System.currentTimeMillis());
-        jPlayer.getArchivedJobs().addArchivedJob(jp);
+    public void insertArchive(int userId, Job job, int level, double exp) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
         PreparedStatement prest = null;
         try {
-            Double exp = jp.getExperience();
             prest = conn.prepareStatement("INSERT INTO `" + DBTables.ArchiveTable.getTableName() + "` (`" + ArchiveTableFields.userid.getCollumn()
                 + "`, `" + ArchiveTableFields.jobid.getCollumn()
                 + "`, `" + ArchiveTableFields.level.getCollumn()
@@ -1756,10 +2119,10 @@ public abstract class JobsDAO {
                 + "`, `" + ArchiveTableFields.left.getCollumn()
                 + "`, `" + ArchiveTableFields.job.getCollumn()
                 + "`) VALUES (?, ?, ?, ?, ?, ?);");
-            prest.setInt(1, jPlayer.getUserId());
+            prest.setInt(1, userId);
             prest.setInt(2, job.getId());
-            prest.setInt(3, jp.getLevel());
-            prest.setInt(4, exp.intValue());
+            prest.setInt(3, level);
+            prest.setInt(4, (int) exp);
             prest.setLong(5, System.currentTimeMillis());
             prest.setString(6, job.getName());
             prest.execute();
@@ -1770,69 +2133,6 @@ public abstract class JobsDAO {
         }
     }
 
-    /**
-     * Get player list by total job level
-     * @param start - starting entry
-     * @return info - information about jobs
-     */
-    @Deprecated
-    public List<TopList> getGlobalTopList() {
-
-        List<UUID> top = JobsTop.getGlobalTopList(0);
-
-        if (top == null || top.isEmpty())
-            return new ArrayList<>();
-
-        List<TopList> gTopNames = Collections.synchronizedList(new ArrayList<>());
-        for (UUID uuid : top) {
-
-            if (uuid == null)
-                continue;
-
-            topStats stats = JobsTop.getGlobalStats(uuid);
-
-            if (stats == null)
-                continue;
-
-            TopList tl = new TopList(uuid, stats.getLevel(), (int) stats.getExperience());
-            gTopNames.add(tl);
-        }
-
-        return new ArrayList<>(gTopNames);
-    }
-
-    /**
-     * Get players by quests done
-     * @param start - starting entry
-     * @param size - max count of entries
-     * @return info - information about jobs
-     */
-    @Deprecated
-    public List<TopList> getQuestTopList() {
-
-        List<UUID> top = JobsQuestTop.getGlobalTopList(0);
-
-        if (top == null || top.isEmpty())
-            return new ArrayList<>();
-
-        List<TopList> gTopNames = Collections.synchronizedList(new ArrayList<>());
-        for (UUID uuid : top) {
-
-            if (uuid == null)
-                continue;
-
-            Integer stats = JobsQuestTop.getGlobalCount(uuid);
-
-            if (stats == null)
-                continue;
-
-            TopList tl = new TopList(uuid, stats, 0);
-            gTopNames.add(tl);
-        }
-
-        return new ArrayList<>(gTopNames);
-    }
-
     public PlayerInfo loadPlayerData(UUID uuid) {
         JobsConnection conn = getConnection();
         if (conn == null)
@@ -1913,49 +2213,7 @@ public abstract class JobsDAO {
         }
     }
 
-    public CompletableFuture<JobsPlayer> loadFromDaoAsync(JobsPlayer jPlayer) {
-        return CompletableFuture.supplyAsync(() -> {
-            return loadFromDao(jPlayer);
-        });
-    }
-
-    public JobsPlayer loadFromDao(JobsPlayer jPlayer) {
-        List<JobsDAOData> list = getAllJobs(jPlayer.getName(), jPlayer.getUniqueId());
-        jPlayer.progression.clear();
-        for (JobsDAOData jobdata : list) {
-            if (!plugin.isEnabled())
-                return null;
-
-            // add the job
-            Job job = Jobs.getJob(jobdata.getJobName());
-            if (job != null)
-                jPlayer.progression.add(new JobProgression(job, jPlayer, jobdata.getLevel(), jobdata.getExperience()));
-        }
-        jPlayer.reloadMaxExperience();
-        jPlayer.reloadLimits();
-        jPlayer.setUserId(Jobs.getPlayerManager().getPlayerId(jPlayer.getUniqueId()));
-        return jPlayer;
-    }
-
-    @Deprecated
-    public CompletableFuture<JobsPlayer> loadFromDaoAsync(OfflinePlayer player) {
-        JobsPlayer jPlayer = new JobsPlayer(player);
-        return loadFromDaoAsync(jPlayer);
-    }
-
-    @Deprecated
-    public JobsPlayer loadFromDao(OfflinePlayer player) {
-        JobsPlayer jPlayer = new JobsPlayer(player);
-        return loadFromDao(jPlayer);
-    }
-
-    /**
-     * Delete job from archive
-     * @param player - player that wishes to quit the job
-     * @param job - job that the player wishes to quit
-     */
-    public synchronized void deleteArchive(JobsPlayer jPlayer, Job job) {
-        jPlayer.getArchivedJobs().removeArchivedJob(job);
+    public void deleteArchive(int userId, Job job) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -1963,7 +2221,7 @@ public abstract class JobsDAO {
         try {
             prest = conn.prepareStatement("DELETE FROM `" + DBTables.ArchiveTable.getTableName() + "` WHERE `" + ArchiveTableFields.userid.getCollumn() + "` = ? AND `" + ArchiveTableFields.jobid
                 .getCollumn() + "` = ?;");
-            prest.setInt(1, jPlayer.getUserId());
+            prest.setInt(1, userId);
             prest.setInt(2, job.getId());
             prest.execute();
         } catch (SQLException e) {
@@ -1973,99 +2231,292 @@ public abstract class JobsDAO {
         }
     }
 
-    private final ExecutorService service = Executors.newCachedThreadPool();
-
-    public void saveAsync(JobsPlayer player) {
-        this.service.execute(() -> save(player));
-    }
-
     /**
      * Save player-job information
+     * <p>
+     * With multi server compatibility changes are only written over row version they were based on. If other server
+     * changed the row, progress made here since last save is added on top of it, so progress made on other server
+     * sharing same database is not lost.
      * @param jobInfo - the information getting saved
      */
     public void save(JobsPlayer player) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
-        PreparedStatement prest = null;
-        try {
-            prest = conn.prepareStatement("UPDATE `" + getJobsTableName() + "` SET `" + JobsTableFields.level.getCollumn() + "` = ?, `" + JobsTableFields.experience.getCollumn()
-                + "` = ? WHERE `" + JobsTableFields.userid.getCollumn() + "` = ? AND `" + JobsTableFields.jobid.getCollumn() + "` = ? "
-                + "OR `" + JobsTableFields.userid.getCollumn() + "` = ? AND `" + JobsTableFields.jobid.getCollumn() + "` = ?;");
-            for (JobProgression progression : player.getJobProgression()) {
-                prest.setInt(1, progression.getLevel());
-                prest.setDouble(2, progression.getExperience());
-                prest.setInt(3, player.getUserId());
-                prest.setInt(4, progression.getJob().getId());
-                prest.setInt(5, player.getUserId());
-                prest.setInt(6, progression.getJob().getLegacyId());
-                prest.execute();
+        for (JobProgression progression : player.getJobProgression()) {
+            try {
+                save(conn, player, progression);
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } finally {
-            close(prest);
         }
     }
 
-    public void updateSeenAsync(JobsPlayer player) {
-        this.service.execute(() -> updateSeen(player));
-    }
+    private void save(JobsConnection conn, JobsPlayer player, JobProgression prog) throws SQLException {
+        int userId = player.getUserId();
+        int level = prog.getLevel();
+        double exp = prog.getExperience();
 
-    public void updateSeen(JobsPlayer player) {
-        if (player.getUserId() == -1) {
-            insertPlayer(player);
+        // Merged row is saved again after main thread takes it
+        if (prog.isMerging())
             return;
-        }
 
-        JobsConnection conn = getConnection();
-        if (conn == null)
+        if (!Jobs.getGCManager().MultiServerCompatability() || !prog.isSynced()) {
+            updateProgression(conn, userId, prog.getJob(), level, exp, -1);
+            prog.setSynced(level, exp, -1);
             return;
+        }
 
-        PreparedStatement prest = null;
-        try {
+        if (level == prog.getSavedLevel()) {
+            double delta = exp - prog.getSavedExperience();
+            if (delta == 0)
+                return;
 
-            Integer options = ToggleBarHandling.getPlayerOptionsAsInt(player.getUniqueId());
-            StringBuilder querry = new StringBuilder();
+            if (addExperience(conn, userId, prog.getJob(), level, delta, prog.getVersion())) {
+                prog.setSynced(level, exp, prog.getVersion() == -1 ? -1 : prog.getVersion() + 1);
+                return;
+            }
+        } else if (prog.getVersion() != -1 && updateProgression(conn, userId, prog.getJob(), level, exp, prog.getVersion())) {
+            prog.setSynced(level, exp, prog.getVersion() + 1);
+            return;
+        }
 
-            querry.append("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.seen.getCollumn()
-                + "` = ?, `" + UserTableFields.username.getCollumn()
-                + "` = ?, `" + UserTableFields.donequests.getCollumn()
-                + "` = ?, `" + UserTableFields.quests.getCollumn());
+        // Row was changed since we have read it
+        for (int i = 0; i < SAVE_ATTEMPTS; i++) {
+            JobsDAOData current = getProgression(conn, userId, prog.getJob());
+            if (current == null)
+                return;
 
-            if (options != null)
-                querry.append("` = ?, `" + UserTableFields.messageOptions.getCollumn());
+            if (current.getLevel() != prog.getSavedLevel()) {
+                // Other server changed level, progress made here since last save is added on top of its row and written
+                // right away, so it is stored before player is released or plugin is stopped
+                JobsDAOData merged = prog.mergeWith(level, exp, current);
+                if (!updateProgression(conn, userId, prog.getJob(), merged.getLevel(), merged.getExperience(), current.getVersion()))
+                    continue;
 
-            querry.append("` = ? WHERE `id` = ?;");
+                prog.setMerged(merged, current.getVersion() + 1);
+                if (plugin.isEnabled())
+                    CMIScheduler.runTask(plugin, () -> prog.applyMerge(level, exp, merged));
+                return;
+            }
 
-            prest = conn.prepareStatement(querry.toString());
-            prest.setLong(1, System.currentTimeMillis());
-            prest.setString(2, player.getName());
-            prest.setInt(3, player.getDoneQuests());
-            prest.setString(4, player.getQuestProgressionString());
-            // Only recording options if its not null
-            if (options != null)
-                prest.setInt(5, options);
-            // Shifting the index based on previous options on what we are saving
-            prest.setInt(options != null ? 6 : 5, player.getUserId());
-            prest.execute();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } finally {
-            close(prest);
+            double foreign = Math.max(0, current.getExperience() - prog.getSavedExperience());
+
+            if (updateProgression(conn, userId, prog.getJob(), level, exp + foreign, current.getVersion())) {
+                prog.setSynced(level, exp, current.getVersion() + 1);
+                if (foreign > 0) {
+                    double merged = foreign;
+                    CMIScheduler.runTask(plugin, () -> prog.addSyncedExperience(merged));
+                }
+                return;
+            }
         }
+
+        CMIMessages.consoleMessage("&c[Jobs] Could not save " + prog.getJob().getName() + " job progression of user " + userId + ", it was changed by other server");
     }
 
-    public void resetDoneQuests() {
+    private String progressionCondition() {
+        return "(`" + JobsTableFields.userid.getCollumn() + "` = ? AND `" + JobsTableFields.jobid.getCollumn() + "` = ? "
+            + "OR `" + JobsTableFields.userid.getCollumn() + "` = ? AND `" + JobsTableFields.jobid.getCollumn() + "` = ?)";
+    }
 
-        JobsConnection conn = getConnection();
-        if (conn == null)
-            return;
+    private static int setProgressionCondition(PreparedStatement prest, int index, int userId, Job job) throws SQLException {
+        prest.setInt(index++, userId);
+        prest.setInt(index++, job.getId());
+        prest.setInt(index++, userId);
+        prest.setInt(index++, job.getLegacyId());
+        return index;
+    }
 
+    /**
+     * Writes level and experience
+     * @param version - row version this change is based on, -1 to write regardless of it
+     * @return true if row was updated
+     */
+    private boolean updateProgression(JobsConnection conn, int userId, Job job, int level, double exp, int version) throws SQLException {
         PreparedStatement prest = null;
         try {
-            prest = conn.prepareStatement("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.donequests.getCollumn() + "` = ?;");
-            prest.setInt(1, 0);
+            prest = conn.prepareStatement("UPDATE `" + getJobsTableName() + "` SET `" + JobsTableFields.level.getCollumn() + "` = ?, `" + JobsTableFields.experience.getCollumn()
+                + "` = ?, `" + JobsTableFields.version.getCollumn() + "` = `" + JobsTableFields.version.getCollumn() + "` + 1 WHERE " + progressionCondition()
+                + (version == -1 ? "" : " AND `" + JobsTableFields.version.getCollumn() + "` = ?") + ";");
+            prest.setInt(1, level);
+            prest.setDouble(2, exp);
+            int index = setProgressionCondition(prest, 3, userId, job);
+            if (version != -1)
+                prest.setInt(index, version);
+            return prest.executeUpdate() > 0;
+        } finally {
+            close(prest);
+        }
+    }
+
+    /**
+     * Adds experience to stored value if stored level and version are still the same
+     * @param version - row version this change is based on, -1 to only check level
+     * @return true if row was updated
+     */
+    private boolean addExperience(JobsConnection conn, int userId, Job job, int level, double delta, int version) throws SQLException {
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("UPDATE `" + getJobsTableName() + "` SET `" + JobsTableFields.experience.getCollumn() + "` = `" + JobsTableFields.experience.getCollumn()
+                + "` + ?, `" + JobsTableFields.version.getCollumn() + "` = `" + JobsTableFields.version.getCollumn() + "` + 1 WHERE " + progressionCondition()
+                + " AND `" + JobsTableFields.level.getCollumn() + "` = ?" + (version == -1 ? "" : " AND `" + JobsTableFields.version.getCollumn() + "` = ?") + ";");
+            prest.setDouble(1, delta);
+            int index = setProgressionCondition(prest, 2, userId, job);
+            prest.setInt(index++, level);
+            if (version != -1)
+                prest.setInt(index, version);
+            return prest.executeUpdate() > 0;
+        } finally {
+            close(prest);
+        }
+    }
+
+    private JobsDAOData getProgression(JobsConnection conn, int userId, Job job) throws SQLException {
+        PreparedStatement prest = null;
+        ResultSet res = null;
+        try {
+            prest = conn.prepareStatement("SELECT `" + JobsTableFields.level.getCollumn() + "`, `" + JobsTableFields.experience.getCollumn() + "`, `"
+                + JobsTableFields.version.getCollumn() + "` FROM `" + getJobsTableName() + "` WHERE " + progressionCondition() + ";");
+            setProgressionCondition(prest, 1, userId, job);
+            res = prest.executeQuery();
+            if (res.next())
+                return new JobsDAOData(job.getName(), res.getInt(1), res.getDouble(2), res.getInt(3));
+            return null;
+        } finally {
+            close(res);
+            close(prest);
+        }
+    }
+
+    /**
+     * Marks player as being played on this server. Player who is still claimed by other server should not be loaded until
+     * that server saves and releases him.
+     * @param force - takes player over even if other server did not release him
+     * @return true if player was claimed or he is not recorded yet
+     */
+    public boolean claimPlayer(UUID uuid, boolean force) {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return true;
+
+        String server = Jobs.getGCManager().getMultiServerName();
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.server.getCollumn() + "` = ? WHERE `"
+                + UserTableFields.player_uuid.getCollumn() + "` = ?" + (force ? "" : " AND (`" + UserTableFields.server.getCollumn() + "` IS NULL OR `"
+                    + UserTableFields.server.getCollumn() + "` = '' OR `" + UserTableFields.server.getCollumn() + "` = ?)") + ";");
+            prest.setString(1, server);
+            prest.setString(2, uuid.toString());
+            if (!force)
+                prest.setString(3, server);
+            if (prest.executeUpdate() > 0)
+                return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return true;
+        } finally {
+            close(prest);
+        }
+
+        return loadPlayerData(uuid) == null;
+    }
+
+    /**
+     * Lets other servers load player, should be called after player data was saved
+     */
+    public void releasePlayer(UUID uuid) {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return;
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.server.getCollumn() + "` = NULL WHERE `"
+                + UserTableFields.player_uuid.getCollumn() + "` = ? AND `" + UserTableFields.server.getCollumn() + "` = ?;");
+            prest.setString(1, uuid.toString());
+            prest.setString(2, Jobs.getGCManager().getMultiServerName());
+            prest.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            close(prest);
+        }
+    }
+
+    /**
+     * Releases every player claimed by this server, used on shutdown after all players are saved
+     */
+    public void releaseAllPlayers() {
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return;
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.server.getCollumn() + "` = NULL WHERE `"
+                + UserTableFields.server.getCollumn() + "` = ?;");
+            prest.setString(1, Jobs.getGCManager().getMultiServerName());
+            prest.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            close(prest);
+        }
+    }
+
+    public void updateSeen(JobsPlayer player) {
+        if (player.getUserId() == -1) {
+            insertPlayer(player);
+            return;
+        }
+
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return;
+
+        PreparedStatement prest = null;
+        try {
+
+            Integer options = ToggleBarHandling.getPlayerOptionsAsInt(player.getUniqueId());
+            StringBuilder querry = new StringBuilder();
+
+            querry.append("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.seen.getCollumn()
+                + "` = ?, `" + UserTableFields.username.getCollumn()
+                + "` = ?, `" + UserTableFields.donequests.getCollumn()
+                + "` = ?, `" + UserTableFields.quests.getCollumn());
+
+            if (options != null)
+                querry.append("` = ?, `" + UserTableFields.messageOptions.getCollumn());
+
+            querry.append("` = ? WHERE `id` = ?;");
+
+            prest = conn.prepareStatement(querry.toString());
+            prest.setLong(1, System.currentTimeMillis());
+            prest.setString(2, player.getName());
+            prest.setInt(3, player.getDoneQuests());
+            prest.setString(4, player.getQuestProgressionString());
+            // Only recording options if its not null
+            if (options != null)
+                prest.setInt(5, options);
+            // Shifting the index based on previous options on what we are saving
+            prest.setInt(options != null ? 6 : 5, player.getUserId());
+            prest.execute();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            close(prest);
+        }
+    }
+
+    public void resetDoneQuests() {
+
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return;
+
+        PreparedStatement prest = null;
+        try {
+            prest = conn.prepareStatement("UPDATE `" + DBTables.UsersTable.getTableName() + "` SET `" + UserTableFields.donequests.getCollumn() + "` = ?;");
+            prest.setInt(1, 0);
             prest.execute();
         } catch (SQLException e) {
             e.printStackTrace();
@@ -2074,7 +2525,7 @@ public abstract class JobsDAO {
         }
     }
 
-    private void insertPlayer(JobsPlayer player) {
+    protected void insertPlayer(JobsPlayer player) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -2122,10 +2573,6 @@ public abstract class JobsDAO {
         }
     }
 
-    public void savePointsAsync(JobsPlayer player) {
-        this.service.execute(() -> savePoints(player));
-    }
-
     public void savePoints(JobsPlayer jPlayer) {
         JobsConnection conn = getConnection();
         if (conn == null)
@@ -2204,15 +2651,14 @@ public abstract class JobsDAO {
         }
     }
 
-    public void saveLogAsync(JobsPlayer player) {
-        this.service.execute(() -> saveLog(player));
-    }
-
     /**
-     * Save player-job information
-     * @param jobInfo - the information getting saved
+     * Save player log entries
+     * @param logs - changed entries
      */
-    public void saveLog(JobsPlayer player) {
+    public void saveLog(JobsPlayer player, Collection<Log> logs) {
+        if (logs.isEmpty())
+            return;
+
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
@@ -2228,7 +2674,7 @@ public abstract class JobsDAO {
                 + "` = ? AND `" + LogTableFields.action.getCollumn() + "` = ? AND `" + LogTableFields.itemname.getCollumn() + "` = ?;");
 
             boolean added = false;
-            for (Log log : player.getLog().values()) {
+            for (Log log : logs) {
                 for (Entry<String, LogAmounts> one : log.getAmountList().entrySet()) {
                     if (one.getValue().isNewEntry())
                         continue;
@@ -2242,12 +2688,12 @@ public abstract class JobsDAO {
                     prest1.setInt(6, log.getDate());
                     prest1.setString(7, log.getActionType());
                     prest1.setString(8, one.getKey());
-//		    prest1.addBatch();
+                    prest1.addBatch();
                     added = true;
                 }
             }
             if (added) {
-                prest1.execute();
+                prest1.executeBatch();
                 conn.commit();
             }
             added = false;
@@ -2255,11 +2701,10 @@ public abstract class JobsDAO {
                 + "` (`" + LogTableFields.userid.getCollumn() + "`, `" + LogTableFields.time.getCollumn() + "`, `" + LogTableFields.action.getCollumn()
                 + "`, `" + LogTableFields.itemname.getCollumn() + "`, `" + LogTableFields.count.getCollumn() + "`, `" + LogTableFields.money.getCollumn()
                 + "`, `" + LogTableFields.exp.getCollumn() + "`, `" + LogTableFields.points.getCollumn() + "`) VALUES (?, ?, ?, ?, ?, ?, ?, ?);");
-            for (Log log : player.getLog().values()) {
+            for (Log log : logs) {
                 for (Entry<String, LogAmounts> one : log.getAmountList().entrySet()) {
                     if (!one.getValue().isNewEntry())
                         continue;
-                    one.getValue().setNewEntry(false);
 
                     prest2.setInt(1, player.getUserId());
                     prest2.setInt(2, log.getDate());
@@ -2269,12 +2714,12 @@ public abstract class JobsDAO {
                     prest2.setDouble(6, one.getValue().get(CurrencyType.MONEY));
                     prest2.setDouble(7, one.getValue().get(CurrencyType.EXP));
                     prest2.setDouble(8, one.getValue().get(CurrencyType.POINTS));
-//		    prest2.addBatch();
+                    prest2.addBatch();
                     added = true;
                 }
             }
             if (added) {
-                prest2.execute();
+                prest2.executeBatch();
                 conn.commit();
             }
         } catch (SQLException e) {
@@ -2331,25 +2776,32 @@ public abstract class JobsDAO {
     }
 
     /**
-     * Save block protection information
-     * @param jobBlockProtection - the information getting saved
+     * Saves changed block protection entries. New entries are inserted, changed ones updated and removed ones deleted
+     * in batches within one transaction. Ids of inserted entries are set so later changes update them.
+     * @param world - world name
+     * @param changed - changed entries
      */
-    public void saveBlockProtection(String world, java.util.concurrent.ConcurrentMap<String, BlockProtection> concurrentHashMap) {
+    @Override
+    public void saveBlockProtection(String world, Collection<BlockProtection> changed) {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
+
+        JobsWorld jobsWorld = Util.getJobsWorld(world);
+        if (jobsWorld == null)
+            return;
+
+        int worldId = jobsWorld.getId();
+        if (worldId == 0)
+            return;
+
         PreparedStatement insert = null;
         PreparedStatement update = null;
         PreparedStatement delete = null;
+        PreparedStatement select = null;
+        ResultSet res = null;
         try {
             conn.setAutoCommit(false);
-            JobsWorld jobsWorld = Util.getJobsWorld(world);
-            if (jobsWorld == null)
-                return;
-
-            int worldId = jobsWorld.getId();
-            if (worldId == 0)
-                return;
 
             insert = conn.prepareStatement("INSERT INTO `" + DBTables.BlocksTable.getTableName() + "` (`" + BlockTableFields.worldid.getCollumn()
                 + "`, `" + BlockTableFields.x.getCollumn()
@@ -2364,50 +2816,65 @@ public abstract class JobsDAO {
                 + "` = ? WHERE `id` = ?;");
             delete = conn.prepareStatement("DELETE from `" + DBTables.BlocksTable.getTableName() + "` WHERE `id` = ?;");
 
+            select = conn.prepareStatement("SELECT MAX(`id`) FROM `" + DBTables.BlocksTable.getTableName() + "`;");
+            res = select.executeQuery();
+            int lastId = res.next() ? res.getInt(1) : 0;
+            close(res);
+            close(select);
+            res = null;
+            select = null;
+
             Long current = System.currentTimeMillis();
             Long mark = System.currentTimeMillis() - (Jobs.getGCManager().BlockProtectionDays * 24L * 60L * 60L * 1000L);
 
-            for (Entry<String, BlockProtection> block : concurrentHashMap.entrySet()) {
-                if (block.getValue() == null)
+            Map<String, BlockProtection> inserted = new HashMap<>();
+
+            for (BlockProtection block : changed) {
+                if (block == null)
                     continue;
-                switch (block.getValue().getAction()) {
+                switch (block.getAction()) {
                 case DELETE:
-                    delete.setInt(1, block.getValue().getId());
-                    delete.addBatch();
-
-                    break;
-                case INSERT:
-                    if (block.getValue().getTime() < current && block.getValue().getTime() != -1)
+                    if (block.getId() < 0)
                         continue;
 
-                    insert.setInt(1, worldId);
-                    insert.setInt(2, block.getValue().getX());
-                    insert.setInt(3, block.getValue().getY());
-                    insert.setInt(4, block.getValue().getZ());
-                    insert.setLong(5, block.getValue().getRecorded());
-                    insert.setLong(6, block.getValue().getTime());
-                    insert.setString(7, world);
-                    insert.addBatch();
-                    block.getValue().setAction(DBAction.NONE);
+                    delete.setInt(1, block.getId());
+                    delete.addBatch();
 
                     break;
+                case INSERT:
                 case UPDATE:
-                    if (block.getValue().getTime() < current && block.getValue().getTime() != -1)
+                    if (block.getTime() < current && block.getTime() != -1)
                         continue;
-                    update.setLong(1, block.getValue().getRecorded());
-                    update.setLong(2, block.getValue().getTime());
-                    update.setInt(3, block.getValue().getId());
-                    update.addBatch();
-                    block.getValue().setAction(DBAction.NONE);
+
+                    // Entry changed before it was saved for the first time is still inserted
+                    if (block.getId() < 0) {
+                        insert.setInt(1, worldId);
+                        insert.setInt(2, block.getX());
+                        insert.setInt(3, block.getY());
+                        insert.setInt(4, block.getZ());
+                        insert.setLong(5, block.getRecorded());
+                        insert.setLong(6, block.getTime());
+                        insert.setString(7, world);
+                        insert.addBatch();
+                        inserted.put(block.getX() + ":" + block.getY() + ":" + block.getZ(), block);
+                    } else {
+                        update.setLong(1, block.getRecorded());
+                        update.setLong(2, block.getTime());
+                        update.setInt(3, block.getId());
+                        update.addBatch();
+                    }
+                    block.setAction(DBAction.NONE);
 
                     break;
                 case NONE:
-                    if (block.getValue().getTime() < current && block.getValue().getTime() != -1)
+                    if (block.getTime() < current && block.getTime() != -1)
+                        continue;
+                    if (block.getTime() == -1 && block.getRecorded() > mark)
                         continue;
-                    if (block.getValue().getTime() == -1 && block.getValue().getRecorded() > mark)
+                    if (block.getId() < 0)
                         continue;
 
-                    delete.setInt(1, block.getValue().getId());
+                    delete.setInt(1, block.getId());
                     delete.addBatch();
 
                     break;
@@ -2419,11 +2886,32 @@ public abstract class JobsDAO {
             insert.executeBatch();
             update.executeBatch();
             delete.executeBatch();
-            conn.commit();
 
+            if (!inserted.isEmpty()) {
+                select = conn.prepareStatement("SELECT `id`, `" + BlockTableFields.x.getCollumn() + "`, `" + BlockTableFields.y.getCollumn() + "`, `" + BlockTableFields.z.getCollumn()
+                    + "` FROM `" + DBTables.BlocksTable.getTableName() + "` WHERE `id` > ? AND `" + BlockTableFields.worldid.getCollumn() + "` = ?;");
+                select.setInt(1, lastId);
+                select.setInt(2, worldId);
+                res = select.executeQuery();
+                while (res.next()) {
+                    BlockProtection block = inserted.get(res.getInt(BlockTableFields.x.getCollumn()) + ":" + res.getInt(BlockTableFields.y.getCollumn()) + ":"
+                        + res.getInt(BlockTableFields.z.getCollumn()));
+                    if (block != null)
+                        block.setId(res.getInt("id"));
+                }
+            }
+
+            conn.commit();
         } catch (SQLException e) {
             e.printStackTrace();
+            try {
+                conn.getConnection().rollback();
+            } catch (SQLException e1) {
+                e1.printStackTrace();
+            }
         } finally {
+            close(res);
+            close(select);
             close(insert);
             close(update);
             close(delete);
@@ -2436,8 +2924,7 @@ public abstract class JobsDAO {
     }
 
     /**
-     * Save block protection information
-     * @param jobBlockProtection - the information getting saved
+     * Removes expired block protection entries, entries themselves are loaded by region when chunks load
      */
     public void loadBlockProtection() {
         if (Jobs.getGCManager().useNewBlockProtection)
@@ -2446,69 +2933,65 @@ public abstract class JobsDAO {
         JobsConnection conn = getConnection();
         if (conn == null)
             return;
-        PreparedStatement prest = null;
-        PreparedStatement prestDel = null;
-        ResultSet res = null;
-
-        long timer = System.currentTimeMillis();
 
+        PreparedStatement prestDel = null;
         try {
             long mark = System.currentTimeMillis() - (Jobs.getGCManager().BlockProtectionDays * 24L * 60L * 60L * 1000L);
             prestDel = conn.prepareStatement("DELETE FROM `" + DBTables.BlocksTable.getTableName() + "` WHERE `" + BlockTableFields.recorded.getCollumn() + "` < ? OR `" +
                 BlockTableFields.resets.getCollumn() + "` < ? AND `" + BlockTableFields.resets.getCollumn() + "` > 0;");
             prestDel.setLong(1, mark);
             prestDel.setLong(2, System.currentTimeMillis());
-            prestDel.execute();
+            int removed = prestDel.executeUpdate();
+            if (removed > 0)
+                CMIMessages.consoleMessage("&e[Jobs] Removed " + removed + " expired block protection entries");
         } catch (SQLException e) {
             e.printStackTrace();
         } finally {
             close(prestDel);
         }
+    }
 
-        try {
-            prest = conn.prepareStatement("SELECT * FROM `" + DBTables.BlocksTable.getTableName() + "`;");
-            res = prest.executeQuery();
-            int i = 0;
-            int ii = 0;
-
-            while (res.next()) {
+    /**
+     * Loads block protection entries of 32x32 chunk region
+     * @param world - world name
+     * @param regionX - region x coordinate
+     * @param regionZ - region z coordinate
+     * @return entries with their database ids
+     */
+    public List<BlockProtection> loadBlockProtection(String world, int regionX, int regionZ) {
+        List<BlockProtection> list = new ArrayList<>();
 
-                String name = res.getString(BlockTableFields.world.getCollumn());
-                int worldId = res.getInt(BlockTableFields.worldid.getCollumn());
+        JobsWorld jobsWorld = Util.getJobsWorld(world);
+        if (jobsWorld == null)
+            return list;
 
-                World world = null;
-                if (worldId != 0) {
-                    JobsWorld jobsWorld = Util.getJobsWorld(worldId);
-                    if (jobsWorld != null)
-                        world = jobsWorld.getWorld();
-                } else {
-                    world = Bukkit.getWorld(name);
-                }
-                if (world == null)
-                    continue;
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return list;
 
-                int id = res.getInt("id");
-                int x = res.getInt(BlockTableFields.x.getCollumn());
-                int y = res.getInt(BlockTableFields.y.getCollumn());
-                int z = res.getInt(BlockTableFields.z.getCollumn());
-                long resets = res.getLong(BlockTableFields.resets.getCollumn());
-                Location loc = new Location(world, x, y, z);
-
-                BlockProtection bp = Jobs.getBpManager().addP(loc, resets, true, false);
-                if (bp != null) {
-                    bp.setId(id);
-                    bp.setRecorded(res.getLong(BlockTableFields.recorded.getCollumn()));
-                    bp.setAction(DBAction.NONE);
-                }
-                i++;
+        PreparedStatement prest = null;
+        ResultSet res = null;
+        try {
+            prest = conn.prepareStatement("SELECT * FROM `" + DBTables.BlocksTable.getTableName() + "` WHERE (`" + BlockTableFields.worldid.getCollumn() + "` = ? OR `"
+                + BlockTableFields.worldid.getCollumn() + "` = 0 AND `" + BlockTableFields.world.getCollumn() + "` = ?) AND `"
+                + BlockTableFields.x.getCollumn() + "` >= ? AND `" + BlockTableFields.x.getCollumn() + "` < ? AND `"
+                + BlockTableFields.z.getCollumn() + "` >= ? AND `" + BlockTableFields.z.getCollumn() + "` < ?;");
+            prest.setInt(1, jobsWorld.getId());
+            prest.setString(2, world);
+            prest.setInt(3, regionX * 512);
+            prest.setInt(4, regionX * 512 + 512);
+            prest.setInt(5, regionZ * 512);
+            prest.setInt(6, regionZ * 512 + 512);
+            res = prest.executeQuery();
 
-                if (ii++ >= 100000) {
-                    CMIMessages.consoleMessage("&6[Jobs] Loading (" + i + ") BP");
-                    ii = 0;
-                }
-            }
-            if (i > 0) {
-                CMIMessages.consoleMessage("&e[Jobs] Loaded " + i + " block protection entries. " + (System.currentTimeMillis() - timer) + "ms");
+            while (res.next()) {
+                BlockProtection bp = new BlockProtection(DBAction.NONE, res.getInt(BlockTableFields.x.getCollumn()), res.getInt(BlockTableFields.y.getCollumn()),
+                    res.getInt(BlockTableFields.z.getCollumn()));
+                bp.setId(res.getInt("id"));
+                bp.setPaid(true);
+                bp.setTime(res.getLong(BlockTableFields.resets.getCollumn()));
+                bp.setRecorded(res.getLong(BlockTableFields.recorded.getCollumn()));
+                list.add(bp);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -2516,127 +2999,110 @@ public abstract class JobsDAO {
             close(res);
             close(prest);
         }
+        return list;
     }
 
     /**
-     * Save player-explore information
+     * Saves explored chunks which changed since last save. New chunks are inserted and changed ones updated in batches
+     * within one transaction.
+     * @param dirty values of changed chunks taken by {@link ExploreManager#takeDirtyChunks()}
+     * @return ids of inserted chunks, or null if nothing was saved
      */
-    public void saveExplore() {
-        insertExplore();
-        updateExplore();
-    }
-
-    public void insertExplore() {
-        if (!Jobs.getExploreManager().isExploreEnabled())
-            return;
-
-        if (Jobs.getGCManager().useNewExploration)
-            return;
-
+    public Map<DirtyChunk, Integer> saveExplore(List<DirtyChunk> dirty) {
         JobsConnection conn = getConnection();
         if (conn == null)
-            return;
-        PreparedStatement prest2 = null;
-        try {
+            return null;
 
-            CMIMessages.consoleMessage("&e[Jobs] Preparing explorer data save.");
+        PreparedStatement insert = null;
+        PreparedStatement update = null;
+        PreparedStatement select = null;
+        ResultSet res = null;
+        int inserted = 0, updated = 0;
+        try {
+            conn.setAutoCommit(false);
 
-            prest2 = conn.prepareStatement("INSERT INTO `" + DBTables.ExploreDataTable.getTableName() + "` (`" + ExploreDataTableFields.worldid.getCollumn()
+            insert = conn.prepareStatement("INSERT INTO `" + DBTables.ExploreDataTable.getTableName() + "` (`" + ExploreDataTableFields.worldid.getCollumn()
                 + "`, `" + ExploreDataTableFields.chunkX.getCollumn()
                 + "`, `" + ExploreDataTableFields.chunkZ.getCollumn()
                 + "`, `" + ExploreDataTableFields.playerNames.getCollumn()
                 + "`, `" + ExploreDataTableFields.worldname.getCollumn()
                 + "`) VALUES (?, ?, ?, ?, ?);");
-            conn.setAutoCommit(false);
-            int i = 0;
+            update = conn.prepareStatement("UPDATE `" + DBTables.ExploreDataTable.getTableName() + "` SET `" + ExploreDataTableFields.playerNames.getCollumn() + "` = ? WHERE `id` = ?;");
 
-            Map<String, Map<String, ExploreRegion>> temp = new HashMap<>(Jobs.getExploreManager().getWorlds());
-
-            for (Entry<String, Map<String, ExploreRegion>> worlds : temp.entrySet()) {
-                JobsWorld jobsWorld = Util.getJobsWorld(worlds.getKey());
+            select = conn.prepareStatement("SELECT MAX(`id`) FROM `" + DBTables.ExploreDataTable.getTableName() + "`;");
+            res = select.executeQuery();
+            int lastId = res.next() ? res.getInt(1) : 0;
+            close(res);
+            close(select);
 
-                int id = jobsWorld == null ? 0 : jobsWorld.getId();
-                if (id == 0)
-                    continue;
+            // New chunks by world id and global coordinates, their ids are picked up after insert
+            Map<String, DirtyChunk> newChunks = new HashMap<>();
 
-                for (Entry<String, ExploreRegion> region : worlds.getValue().entrySet()) {
-                    for (Entry<Short, ExploreChunk> oneChunk : region.getValue().getChunks().entrySet()) {
-                        ExploreChunk chunk = oneChunk.getValue();
-                        if (chunk.getDbId() != -1)
-                            continue;
+            for (DirtyChunk chunk : dirty) {
+                JobsWorld jobsWorld = Util.getJobsWorld(chunk.getWorld());
 
-                        prest2.setInt(1, id);
-                        prest2.setInt(2, region.getValue().getChunkGlobalX(oneChunk.getKey()));
-                        prest2.setInt(3, region.getValue().getChunkGlobalZ(oneChunk.getKey()));
-                        prest2.setString(4, chunk.serializeNames());
-                        prest2.setString(5, jobsWorld != null ? jobsWorld.getName() : "");
-                        prest2.addBatch();
+                int worldId = jobsWorld == null ? 0 : jobsWorld.getId();
+                if (worldId == 0)
+                    continue;
 
-                        i++;
-                    }
+                if (chunk.getDbId() == -1) {
+                    insert.setInt(1, worldId);
+                    insert.setInt(2, chunk.getX());
+                    insert.setInt(3, chunk.getZ());
+                    insert.setString(4, chunk.getNames());
+                    insert.setString(5, jobsWorld.getName());
+                    insert.addBatch();
+                    newChunks.put(worldId + ":" + chunk.getX() + ":" + chunk.getZ(), chunk);
+                    inserted++;
+                } else {
+                    update.setString(1, chunk.getNames());
+                    update.setInt(2, chunk.getDbId());
+                    update.addBatch();
+                    updated++;
                 }
-            }
-            prest2.executeBatch();
-            conn.commit();
-            conn.setAutoCommit(true);
 
-            if (i > 0)
-                CMIMessages.consoleMessage("&e[Jobs] Saved " + i + " new explorer entries.");
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } finally {
-            close(prest2);
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
+                if ((inserted + updated) % 500 == 0) {
+                    insert.executeBatch();
+                    update.executeBatch();
+                }
             }
-        }
-    }
-
-    public void updateExplore() {
-        if (!Jobs.getExploreManager().isExploreEnabled())
-            return;
-
-        if (Jobs.getGCManager().useNewExploration)
-            return;
-
-        JobsConnection conn = getConnection();
-        if (conn == null)
-            return;
-        PreparedStatement prest = null;
-        try {
-            conn.setAutoCommit(false);
-            prest = conn.prepareStatement("UPDATE `" + DBTables.ExploreDataTable.getTableName() + "` SET `" + ExploreDataTableFields.playerNames.getCollumn() + "` = ? WHERE `id` = ?;");
-
-            int i = 0;
-
-            Map<String, Map<String, ExploreRegion>> temp = new HashMap<>(Jobs.getExploreManager().getWorlds());
-
-            for (Entry<String, Map<String, ExploreRegion>> worlds : temp.entrySet()) {
-                for (Entry<String, ExploreRegion> region : worlds.getValue().entrySet()) {
-                    for (ExploreChunk oneChunk : region.getValue().getChunks().values()) {
-                        if (oneChunk.getDbId() == -1 || !oneChunk.isUpdated())
-                            continue;
+            insert.executeBatch();
+            update.executeBatch();
 
-                        prest.setString(1, oneChunk.serializeNames());
-                        prest.setInt(2, oneChunk.getDbId());
-                        prest.addBatch();
-                        i++;
-                    }
+            Map<DirtyChunk, Integer> ids = new HashMap<>();
+            if (!newChunks.isEmpty()) {
+                select = conn.prepareStatement("SELECT `id`, `" + ExploreDataTableFields.worldid.getCollumn() + "`, `" + ExploreDataTableFields.chunkX.getCollumn() + "`, `"
+                    + ExploreDataTableFields.chunkZ.getCollumn() + "` FROM `" + DBTables.ExploreDataTable.getTableName() + "` WHERE `id` > ?;");
+                select.setInt(1, lastId);
+                res = select.executeQuery();
+                while (res.next()) {
+                    DirtyChunk chunk = newChunks.get(res.getInt(ExploreDataTableFields.worldid.getCollumn()) + ":" + res.getInt(ExploreDataTableFields.chunkX.getCollumn()) + ":"
+                        + res.getInt(ExploreDataTableFields.chunkZ.getCollumn()));
+                    if (chunk != null)
+                        ids.put(chunk, res.getInt("id"));
                 }
             }
-            prest.executeBatch();
-            conn.commit();
-            conn.setAutoCommit(true);
 
-            if (i > 0)
-                CMIMessages.consoleMessage("&e[Jobs] Updated " + i + " explorer entries.");
+            conn.commit();
 
+            if (inserted > 0)
+                CMIMessages.consoleMessage("&e[Jobs] Saved " + inserted + " new explorer entries.");
+            if (updated > 0)
+                CMIMessages.consoleMessage("&e[Jobs] Updated " + updated + " explorer entries.");
+            return ids;
         } catch (SQLException e) {
             e.printStackTrace();
+            try {
+                conn.getConnection().rollback();
+            } catch (SQLException e1) {
+                e1.printStackTrace();
+            }
+            return null;
         } finally {
-            close(prest);
+            close(res);
+            close(select);
+            close(insert);
+            close(update);
             try {
                 conn.setAutoCommit(true);
             } catch (SQLException e) {
@@ -2740,30 +3206,300 @@ public abstract class JobsDAO {
     * @return
     */
     public List<Integer> getLognameList(int fromtime, int untiltime) {
+        List<Integer> nameList = read(conn -> {
+            List<Integer> list = new ArrayList<>();
+            PreparedStatement prest = null;
+            ResultSet res = null;
+            try {
+                prest = conn.prepareStatement("SELECT `" + LogTableFields.userid.getCollumn() + "` FROM `" + DBTables.LogTable.getTableName() + "` WHERE `" + LogTableFields.time.getCollumn()
+                    + "` >= ?  AND `" + LogTableFields.time.getCollumn() + "` <= ? ;");
+                prest.setInt(1, fromtime);
+                prest.setInt(2, untiltime);
+                res = prest.executeQuery();
+                while (res.next()) {
+                    int id = res.getInt(LogTableFields.userid.getCollumn());
+                    if (!list.contains(id))
+                        list.add(id);
+                }
+            } finally {
+                close(res);
+                close(prest);
+            }
+            return list;
+        });
+        return nameList == null ? new ArrayList<>() : nameList;
+    }
+
+    public enum LogRollupTier {
+        week, month;
+    }
+
+    private static final class LogRollupEntry {
+        private final int userId;
+        private final int period;
+        private final String action;
+        private final String item;
+        private int count = 0;
+        private double money = 0D, exp = 0D, points = 0D;
+
+        private LogRollupEntry(int userId, int period, String action, String item) {
+            this.userId = userId;
+            this.period = period;
+            this.action = action;
+            this.item = item;
+        }
+    }
+
+    /**
+     * Converts log date to {@link LocalDate}. Log dates are recorded by {@link CMITimeManager#timeInInt()} either as yyMMdd or yyyyMMdd
+     * @param date - recorded date
+     * @return date or null if it can't be parsed
+     */
+    private static LocalDate toLogDate(int date) {
+        try {
+            if (date < 1000000)
+                return LocalDate.of(2000 + date / 10000, date / 100 % 100, date % 100);
+            return LocalDate.of(date / 10000, date / 100 % 100, date % 100);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Converts date into the same int format {@link CMITimeManager#timeInInt()} is using
+     * @param date - the date
+     * @return date as int
+     */
+    public static int toLogTime(LocalDate date) {
+        int value = date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+        return CMITimeManager.timeInInt() < 1000000 ? value - 20000000 : value;
+    }
+
+    static int getRollupPeriod(LogRollupTier tier, int date) {
+        LocalDate local = toLogDate(date);
+        if (local == null)
+            return date;
+        switch (tier) {
+        case month:
+            return toLogTime(local.withDayOfMonth(1));
+        case week:
+        default:
+            return toLogTime(local.with(DayOfWeek.MONDAY));
+        }
+    }
+
+    public int rollupLogBatch(LogRollupTier from, int until, int batchSize) {
         JobsConnection conn = getConnection();
-        List<Integer> nameList = new ArrayList<>();
         if (conn == null)
-            return nameList;
+            return 0;
+
+        LogRollupTier to = from == null ? LogRollupTier.week : LogRollupTier.month;
+
+        Map<String, LogRollupEntry> entries = new HashMap<>();
+        int minId = Integer.MAX_VALUE, maxId = Integer.MIN_VALUE, rows = 0;
+
         PreparedStatement prest = null;
         ResultSet res = null;
         try {
-            prest = conn.prepareStatement("SELECT `" + LogTableFields.userid.getCollumn() + "` FROM `" + DBTables.LogTable.getTableName() + "` WHERE `" + LogTableFields.time.getCollumn() + "` >= ?  AND `"
-                + LogTableFields.time.getCollumn() + "` <= ? ;");
-            prest.setInt(1, fromtime);
-            prest.setInt(2, untiltime);
+            if (from == null) {
+                prest = conn.prepareStatement("SELECT * FROM `" + DBTables.LogTable.getTableName() + "` WHERE `" + LogTableFields.time.getCollumn() + "` < ? ORDER BY `id` LIMIT ?;");
+                prest.setInt(1, until);
+                prest.setInt(2, batchSize);
+            } else {
+                prest = conn.prepareStatement("SELECT * FROM `" + DBTables.LogRollupTable.getTableName() + "` WHERE `" + LogRollupTableFields.tier.getCollumn() + "` = ? AND `"
+                    + LogRollupTableFields.period.getCollumn() + "` < ? ORDER BY `id` LIMIT ?;");
+                prest.setString(1, from.name());
+                prest.setInt(2, until);
+                prest.setInt(3, batchSize);
+            }
             res = prest.executeQuery();
             while (res.next()) {
-                int id = res.getInt(LogTableFields.userid.getCollumn());
-                if (!nameList.contains(id))
-                    nameList.add(id);
+                int id = res.getInt("id");
+                minId = Math.min(minId, id);
+                maxId = Math.max(maxId, id);
+                rows++;
+
+                int userId = res.getInt(LogTableFields.userid.getCollumn());
+                int period = getRollupPeriod(to, res.getInt(from == null ? LogTableFields.time.getCollumn() : LogRollupTableFields.period.getCollumn()));
+                String action = res.getString(LogTableFields.action.getCollumn());
+                String item = res.getString(LogTableFields.itemname.getCollumn());
+
+                LogRollupEntry entry = entries.computeIfAbsent(userId + ":" + period + ":" + action + ":" + item, k -> new LogRollupEntry(userId, period, action, item));
+                entry.count += res.getInt(LogTableFields.count.getCollumn());
+                entry.money += res.getDouble(LogTableFields.money.getCollumn());
+                entry.exp += res.getDouble(LogTableFields.exp.getCollumn());
+                entry.points += res.getDouble(LogTableFields.points.getCollumn());
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return 0;
         } finally {
             close(res);
             close(prest);
         }
-        return nameList;
+
+        if (rows == 0)
+            return 0;
+
+        PreparedStatement update = null;
+        PreparedStatement insert = null;
+        PreparedStatement delete = null;
+        try {
+            conn.setAutoCommit(false);
+
+            update = conn.prepareStatement("UPDATE `" + DBTables.LogRollupTable.getTableName() + "` SET `"
+                + LogRollupTableFields.count.getCollumn() + "` = `" + LogRollupTableFields.count.getCollumn() + "` + ?, `"
+                + LogRollupTableFields.money.getCollumn() + "` = `" + LogRollupTableFields.money.getCollumn() + "` + ?, `"
+                + LogRollupTableFields.exp.getCollumn() + "` = `" + LogRollupTableFields.exp.getCollumn() + "` + ?, `"
+                + LogRollupTableFields.points.getCollumn() + "` = `" + LogRollupTableFields.points.getCollumn() + "` + ? WHERE `"
+                + LogRollupTableFields.userid.getCollumn() + "` = ? AND `" + LogRollupTableFields.tier.getCollumn() + "` = ? AND `"
+                + LogRollupTableFields.period.getCollumn() + "` = ? AND `" + LogRollupTableFields.action.getCollumn() + "` = ? AND `"
+                + LogRollupTableFields.itemname.getCollumn() + "` = ?;");
+            insert = conn.prepareStatement("INSERT INTO `" + DBTables.LogRollupTable.getTableName() + "` (`" + LogRollupTableFields.userid.getCollumn()
+                + "`, `" + LogRollupTableFields.tier.getCollumn() + "`, `" + LogRollupTableFields.period.getCollumn() + "`, `" + LogRollupTableFields.action.getCollumn()
+                + "`, `" + LogRollupTableFields.itemname.getCollumn() + "`, `" + LogRollupTableFields.count.getCollumn() + "`, `" + LogRollupTableFields.money.getCollumn()
+                + "`, `" + LogRollupTableFields.exp.getCollumn() + "`, `" + LogRollupTableFields.points.getCollumn() + "`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);");
+
+            boolean inserted = false;
+            for (LogRollupEntry entry : entries.values()) {
+                update.setInt(1, entry.count);
+                update.setDouble(2, entry.money);
+                update.setDouble(3, entry.exp);
+                update.setDouble(4, entry.points);
+                update.setInt(5, entry.userId);
+                update.setString(6, to.name());
+                update.setInt(7, entry.period);
+                update.setString(8, entry.action);
+                update.setString(9, entry.item);
+                if (update.executeUpdate() > 0)
+                    continue;
+
+                insert.setInt(1, entry.userId);
+                insert.setString(2, to.name());
+                insert.setInt(3, entry.period);
+                insert.setString(4, entry.action);
+                insert.setString(5, entry.item);
+                insert.setInt(6, entry.count);
+                insert.setDouble(7, entry.money);
+                insert.setDouble(8, entry.exp);
+                insert.setDouble(9, entry.points);
+                insert.addBatch();
+                inserted = true;
+            }
+            if (inserted)
+                insert.executeBatch();
+
+            // Selected rows are the first ones by id, so id range together with the same condition matches them exactly
+            if (from == null) {
+                delete = conn.prepareStatement("DELETE FROM `" + DBTables.LogTable.getTableName() + "` WHERE `id` >= ? AND `id` <= ? AND `" + LogTableFields.time.getCollumn() + "` < ?;");
+                delete.setInt(1, minId);
+                delete.setInt(2, maxId);
+                delete.setInt(3, until);
+            } else {
+                delete = conn.prepareStatement("DELETE FROM `" + DBTables.LogRollupTable.getTableName() + "` WHERE `id` >= ? AND `id` <= ? AND `" + LogRollupTableFields.tier.getCollumn()
+                    + "` = ? AND `" + LogRollupTableFields.period.getCollumn() + "` < ?;");
+                delete.setInt(1, minId);
+                delete.setInt(2, maxId);
+                delete.setString(3, from.name());
+                delete.setInt(4, until);
+            }
+            delete.executeUpdate();
+            conn.commit();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            try {
+                conn.getConnection().rollback();
+            } catch (SQLException e1) {
+                e1.printStackTrace();
+            }
+            rows = 0;
+        } finally {
+            close(update);
+            close(insert);
+            close(delete);
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Get player log summed up from raw and rolled up log entries
+     * @param userId - player id
+     * @param fromtime - date from which entries should be included
+     * @return log by action type
+     */
+    public Map<String, Log> getPlayerLog(int userId, int fromtime) {
+        Map<Integer, Map<String, Log>> logs = getLogs(userId, fromtime);
+        Map<String, Log> log = logs.get(userId);
+        return log == null ? new HashMap<>() : log;
+    }
+
+    /**
+     * Get all players logs summed up from raw and rolled up log entries
+     * @param fromtime - date from which entries should be included
+     * @return log by player id and action type
+     */
+    public Map<Integer, Map<String, Log>> getGlobalLog(int fromtime) {
+        return getLogs(-1, fromtime);
+    }
+
+    protected Map<Integer, Map<String, Log>> getLogs(int userId, int fromtime) {
+        String userCondition = userId < 0 ? "" : " AND `" + LogTableFields.userid.getCollumn() + "` = ?";
+
+        Map<Integer, Map<String, Log>> logs = read(conn -> {
+            Map<Integer, Map<String, Log>> map = new HashMap<>();
+            PreparedStatement prest = null;
+            ResultSet res = null;
+            try {
+                prest = conn.prepareStatement("SELECT * FROM `" + DBTables.LogTable.getTableName() + "` WHERE `" + LogTableFields.time.getCollumn() + "` >= ?" + userCondition + ";");
+                prest.setInt(1, fromtime);
+                if (userId >= 0)
+                    prest.setInt(2, userId);
+                res = prest.executeQuery();
+                addLogs(map, res);
+            } finally {
+                close(res);
+                close(prest);
+            }
+
+            // Rolled up rows can't be split, only periods starting within range are included
+            for (LogRollupTier tier : LogRollupTier.values()) {
+                try {
+                    prest = conn.prepareStatement("SELECT * FROM `" + DBTables.LogRollupTable.getTableName() + "` WHERE `" + LogRollupTableFields.tier.getCollumn() + "` = ? AND `"
+                        + LogRollupTableFields.period.getCollumn() + "` >= ?" + userCondition + ";");
+                    prest.setString(1, tier.name());
+                    prest.setInt(2, fromtime);
+                    if (userId >= 0)
+                        prest.setInt(3, userId);
+                    res = prest.executeQuery();
+                    addLogs(map, res);
+                } finally {
+                    close(res);
+                    close(prest);
+                }
+            }
+            return map;
+        });
+        return logs == null ? new HashMap<>() : logs;
+    }
+
+    private static void addLogs(Map<Integer, Map<String, Log>> map, ResultSet res) throws SQLException {
+        while (res.next()) {
+            String action = res.getString(LogTableFields.action.getCollumn());
+
+            Map<CurrencyType, Double> amounts = new HashMap<>();
+            amounts.put(CurrencyType.MONEY, res.getDouble(LogTableFields.money.getCollumn()));
+            amounts.put(CurrencyType.EXP, res.getDouble(LogTableFields.exp.getCollumn()));
+            amounts.put(CurrencyType.POINTS, res.getDouble(LogTableFields.points.getCollumn()));
+
+            map.computeIfAbsent(res.getInt(LogTableFields.userid.getCollumn()), k -> new HashMap<>())
+                .computeIfAbsent(action, Log::new)
+                .sum(res.getString(LogTableFields.itemname.getCollumn()), res.getInt(LogTableFields.count.getCollumn()), amounts);
+        }
     }
 
     Map<String, topCache> topNames = Collections.synchronizedMap(new ConcurrentHashMap<>());
@@ -2803,52 +3539,63 @@ public abstract class JobsDAO {
 
         topCache cached = topNames.computeIfAbsent(jobsname, k -> new topCache(0L, new ArrayList<>()));
 
-        if (cached.getTime() == 0L) {
-            updateTopList(cached, jobsname);
-        }
+        long time = cached.getTime();
+        if (time == 0L || System.currentTimeMillis() - time > 30 * 1000L) {
+            cached.setTime(System.currentTimeMillis());
+            CompletableFuture<Void> update = runAsync(() -> updateTopList(cached, jobsname));
 
-        if (System.currentTimeMillis() - cached.getTime() > 30 * 1000L)
-            CMIScheduler.runTaskAsynchronously(plugin, () -> updateTopList(cached, jobsname));
+            // Signs are shown empty until first load is done
+            if (time == 0L)
+                update.thenRun(() -> CMIScheduler.runTask(plugin, () -> {
+                    Job job = Jobs.getJob(jobsname);
+                    if (job != null)
+                        Jobs.getSignUtil().signUpdate(job);
+                }));
+        }
 
         return new ArrayList<>(cached.getJobs());
     }
 
     private void updateTopList(topCache cached, String jobsname) {
-
-        cached.setTime(System.currentTimeMillis());
-
-        List<TopList> jobs = new ArrayList<>();
-        JobsConnection conn = getConnection();
-        if (conn == null)
-            return;
-
         Job job = Jobs.getJob(jobsname);
         if (job == null)
             return;
 
-        PreparedStatement prest = null;
-        ResultSet res = null;
+        List<TopList> jobs = loadTopList(job);
+        if (jobs != null)
+            cached.setJobs(Collections.synchronizedList(jobs));
+    }
 
-        try {
-            prest = conn.prepareStatement("SELECT `" + JobsTableFields.userid.getCollumn() + "`, `" + JobsTableFields.level.getCollumn() + "`, `" + JobsTableFields.experience.getCollumn() + "` FROM `"
-                + getJobsTableName() + "` WHERE `" + JobsTableFields.jobid.getCollumn() + "` LIKE ? OR `" + JobsTableFields.jobid.getCollumn() + "` LIKE ? ORDER BY `" + JobsTableFields.level.getCollumn()
-                + "` DESC, `" + JobsTableFields.experience.getCollumn() + "` DESC;");
-            prest.setInt(1, job.getId());
-            prest.setInt(2, job.getLegacyId());
-            res = prest.executeQuery();
+    /**
+     * Loads players working in job ordered by their level and experience
+     * @param job - the job
+     * @return top list or null if it can't be loaded
+     */
+    protected List<TopList> loadTopList(Job job) {
+        return read(conn -> {
+            List<TopList> jobs = new ArrayList<>();
+            PreparedStatement prest = null;
+            ResultSet res = null;
 
-            while (res.next()) {
-                PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(res.getInt(JobsTableFields.userid.getCollumn()));
-                if (info != null)
-                    jobs.add(new TopList(info.getUuid(), res.getInt(JobsTableFields.level.getCollumn()), res.getInt(JobsTableFields.experience.getCollumn())));
+            try {
+                prest = conn.prepareStatement("SELECT `" + JobsTableFields.userid.getCollumn() + "`, `" + JobsTableFields.level.getCollumn() + "`, `" + JobsTableFields.experience.getCollumn() + "` FROM `"
+                    + getJobsTableName() + "` WHERE `" + JobsTableFields.jobid.getCollumn() + "` LIKE ? OR `" + JobsTableFields.jobid.getCollumn() + "` LIKE ? ORDER BY `" + JobsTableFields.level.getCollumn()
+                    + "` DESC, `" + JobsTableFields.experience.getCollumn() + "` DESC;");
+                prest.setInt(1, job.getId());
+                prest.setInt(2, job.getLegacyId());
+                res = prest.executeQuery();
+
+                while (res.next()) {
+                    PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(res.getInt(JobsTableFields.userid.getCollumn()));
+                    if (info != null)
+                        jobs.add(new TopList(info.getUuid(), res.getInt(JobsTableFields.level.getCollumn()), res.getInt(JobsTableFields.experience.getCollumn())));
+                }
+            } finally {
+                close(res);
+                close(prest);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        } finally {
-            close(res);
-            close(prest);
-        }
-        cached.setJobs(Collections.synchronizedList(new ArrayList<>(jobs)));
+            return jobs;
+        });
     }
 
     /**
@@ -2856,7 +3603,7 @@ public abstract class JobsDAO {
      * @param job - the job
      * @return  the number of players that have a particular job
      */
-    public synchronized int getSlotsTaken(Job job) {
+    public int getSlotsTaken(Job job) {
         int slot = 0;
         JobsConnection conn = getConnection();
         if (conn == null)
@@ -2898,14 +3645,92 @@ public abstract class JobsDAO {
 
     protected JobsConnection getConnection() {
         try {
-            return isConnected() ? pool.getConnection() : null;
+            return pool != null && isConnected() ? pool.getConnection() : null;
         } catch (SQLException e) {
             Jobs.getPluginLogger().severe("Unable to connect to the database: " + e.getMessage());
             return null;
         }
     }
 
-    public synchronized void vacuum() {
+    /**
+     * Sets up read only replica which heavy read queries are sent to. Replica is not used if it can't be opened read
+     * only or some of tables are missing in it.
+     */
+    protected void setReplica(String driverName, String url, String username, String password) {
+        JobsConnectionPool replica;
+        try {
+            replica = new JobsConnectionPool(driverName, url, username, password);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        }
+        replica.setReadOnly(true);
+
+        try {
+            checkReplica(replica.getConnection());
+        } catch (SQLException e) {
+            replica.closeConnection();
+            CMIMessages.consoleMessage("&cRead replica can't be used, using main database: " + e.getMessage());
+            return;
+        }
+        replicaPool = replica;
+    }
+
+    private static void checkReplica(JobsConnection conn) throws SQLException {
+        if (!conn.getConnection().isReadOnly())
+            throw new SQLException("connection is not read only");
+
+        for (DBTables one : DBTables.values()) {
+            StringBuilder collumns = new StringBuilder("`id`");
+            for (JobsTableInterface oneT : one.getInterface()) {
+                collumns.append(", `").append(oneT.getCollumn()).append('`');
+            }
+
+            try (Statement statement = conn.createStatement()) {
+                statement.executeQuery("SELECT " + collumns + " FROM `" + one.getTableName() + "` LIMIT 1;").close();
+            }
+        }
+    }
+
+    public boolean isReplicaUsed() {
+        return replicaPool != null;
+    }
+
+    /**
+     * Read only query which can run on replica or main database
+     */
+    protected interface ReadQuery<T> {
+        T run(JobsConnection conn) throws SQLException;
+    }
+
+    /**
+     * Runs heavy read only query on replica while it is reachable. When replica fails query runs again on main
+     * database and replica is retried after a minute. Data which was just written should be read from main database
+     * directly, as replica can be behind.
+     * @return query result or null if it failed on main database too
+     */
+    protected <T> T read(ReadQuery<T> query) {
+        if (replicaPool != null && System.currentTimeMillis() >= replicaRetryAt) {
+            try {
+                return query.run(replicaPool.getConnection());
+            } catch (SQLException e) {
+                replicaRetryAt = System.currentTimeMillis() + 60000L;
+                CMIMessages.consoleMessage("&eRead replica is unavailable, using main database: " + e.getMessage());
+            }
+        }
+
+        JobsConnection conn = getConnection();
+        if (conn == null)
+            return null;
+        try {
+            return query.run(conn);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    public void vacuum() {
         if (dbType != DataBaseType.SqLite)
             return;
         JobsConnection conn = getConnection();
@@ -2926,7 +3751,18 @@ public abstract class JobsDAO {
      * Close all active database handles
      */
     public void closeConnections() {
-        pool.closeConnection();
+        cancelCleanup();
+        service.shutdown();
+        try {
+            if (!service.awaitTermination(10, TimeUnit.SECONDS))
+                CMIMessages.consoleMessage("&cDatabase thread did not finish pending tasks in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (pool != null)
+            pool.closeConnection();
+        if (replicaPool != null)
+            replicaPool.closeConnection();
     }
 
     protected static void close(ResultSet res) {
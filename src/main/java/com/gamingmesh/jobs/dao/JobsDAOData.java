@@ -31,6 +31,7 @@ public class JobsDAOData {
     private String job;
     private int level;
     private double experience;
+    private int version = 0;
 
     /**
      * Constructor class for the DAO side of things.
@@ -44,6 +45,14 @@ public class JobsDAOData {
 	this.experience = experience;
     }
 
+    /**
+     * @param version - version of the database row
+     */
+    public JobsDAOData(String job, int level, double experience, int version) {
+	this(job, level, experience);
+	this.version = version;
+    }
+
     /**
      * Getter function for the job name
      * @return the job name
@@ -67,4 +76,12 @@ public class JobsDAOData {
     public double getExperience() {
 	return experience;
     }
+
+    /**
+     * Getter function for the database row version, it is increased with every write
+     * @return the row version
+     */
+    public int getVersion() {
+	return version;
+    }
 }
@@ -0,0 +1,1135 @@
+package com.gamingmesh.jobs.dao;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.config.ExploreManager.DirtyChunk;
+import com.gamingmesh.jobs.container.ArchivedJobs;
+import com.gamingmesh.jobs.container.BlockProtection;
+import com.gamingmesh.jobs.container.CurrencyType;
+import com.gamingmesh.jobs.container.DBAction;
+import com.gamingmesh.jobs.container.Job;
+import com.gamingmesh.jobs.container.JobProgression;
+import com.gamingmesh.jobs.container.JobsPlayer;
+import com.gamingmesh.jobs.container.JobsWorld;
+import com.gamingmesh.jobs.container.Log;
+import com.gamingmesh.jobs.container.LogAmounts;
+import com.gamingmesh.jobs.container.PlayerInfo;
+import com.gamingmesh.jobs.container.PlayerPoints;
+import com.gamingmesh.jobs.container.TopList;
+import com.gamingmesh.jobs.dao.JobsDAO.ArchiveTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.BlockTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+import com.gamingmesh.jobs.dao.JobsDAO.ExploreDataTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.JobsTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.LimitTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.LogRollupTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.LogRollupTier;
+import com.gamingmesh.jobs.dao.JobsDAO.LogTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.MetaTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.PointsTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.UserTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.jobsNameTableFields;
+import com.gamingmesh.jobs.dao.JobsDAO.worldsTableFields;
+import com.gamingmesh.jobs.dao.JobsManager.DataBaseType;
+import com.gamingmesh.jobs.economy.PaymentData;
+import com.gamingmesh.jobs.stuff.ToggleBarHandling;
+import com.gamingmesh.jobs.stuff.Util;
+
+import net.Zrips.CMILib.Messages.CMIMessages;
+import net.Zrips.CMILib.Time.CMITimeManager;
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
+
+/**
+ * Single server storage without database. Data is kept in {@link JobsEmbeddedStore}, all table layouts match SQL storage so data can be
+ * converted between them.
+ */
+public class JobsEmbedded implements JobsStorage {
+
+    private final JobsEmbeddedStore store;
+
+    /**
+     * Single storage thread, keeps changes in the order they were requested and never blocks the server thread
+     */
+    private final ExecutorService service = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Jobs-Database");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    JobsEmbedded(File folder, int snapshotAfter) {
+        store = new JobsEmbeddedStore(folder, snapshotAfter);
+    }
+
+    public void initialize() {
+        setUp();
+    }
+
+    @Override
+    public boolean setUp() {
+        if (!store.open()) {
+            CMIMessages.consoleMessage("&cFAILED to open embedded storage");
+            return false;
+        }
+
+        CMIMessages.consoleMessage("&eOpened embedded storage");
+        return true;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return store.isOpen();
+    }
+
+    @Override
+    public DataBaseType getDbType() {
+        return DataBaseType.Embedded;
+    }
+
+    @Override
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, service);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, service);
+    }
+
+    @Override
+    public void closeConnections() {
+        service.shutdown();
+        try {
+            if (!service.awaitTermination(10, TimeUnit.SECONDS))
+                CMIMessages.consoleMessage("&cDatabase thread did not finish pending tasks in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+    }
+
+    // Embedded storage always records job and world ids, it never holds names written by old versions
+    @Override
+    public void triggerTableIdUpdate() {
+    }
+
+    @Override
+    public boolean truncate(String table) {
+        for (DBTables one : DBTables.values()) {
+            if (one.getTableName("").equals(table)) {
+                store.clear(one);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getInt(Object[] row, Enum<?> field) {
+        Object value = row[field.ordinal()];
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static long getLong(Object[] row, Enum<?> field) {
+        Object value = row[field.ordinal()];
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double getDouble(Object[] row, Enum<?> field) {
+        Object value = row[field.ordinal()];
+        return value instanceof Number ? ((Number) value).doubleValue() : 0D;
+    }
+
+    private static String getString(Object[] row, Enum<?> field) {
+        Object value = row[field.ordinal()];
+        return value == null ? null : value.toString();
+    }
+
+    private static JobsDAOData toJobsData(Object[] row) {
+        int jobId = getInt(row, JobsTableFields.jobid);
+        if (jobId == 0)
+            return new JobsDAOData(getString(row, JobsTableFields.job), getInt(row, JobsTableFields.level), getDouble(row, JobsTableFields.experience));
+
+        Job job = Jobs.getJob(jobId);
+        return job == null ? null : new JobsDAOData(job.getName(), getInt(row, JobsTableFields.level), getDouble(row, JobsTableFields.experience));
+    }
+
+    private List<JobsDAOData> getJobs(int userId) {
+        List<JobsDAOData> jobs = new ArrayList<>();
+        for (Object[] row : store.select(DBTables.JobsTable, userId).values()) {
+            JobsDAOData data = toJobsData(row);
+            if (data != null)
+                jobs.add(data);
+        }
+        return jobs;
+    }
+
+    private static boolean isJob(Object[] row, Job job) {
+        int jobId = getInt(row, JobsTableFields.jobid);
+        return jobId != 0 && (jobId == job.getId() || jobId == job.getLegacyId());
+    }
+
+    @Override
+    public List<JobsDAOData> getAllJobs(String playerName, UUID uuid) {
+        PlayerInfo userData = Jobs.getGCManager().MultiServerCompatability() ? loadPlayerData(uuid) : Jobs.getPlayerManager().getPlayerInfo(uuid);
+        if (userData == null) {
+            recordNewPlayer(playerName, uuid);
+            return new ArrayList<>();
+        }
+        return getJobs(userData.getID());
+    }
+
+    @Override
+    public Map<Integer, List<JobsDAOData>> getAllJobs() {
+        Map<Integer, List<JobsDAOData>> map = new HashMap<>();
+        for (Object[] row : store.select(DBTables.JobsTable).values()) {
+            JobsDAOData data = toJobsData(row);
+            if (data != null)
+                map.computeIfAbsent(getInt(row, JobsTableFields.userid), k -> new ArrayList<>()).add(data);
+        }
+        return map;
+    }
+
+    @Override
+    public List<JobsDAOData> getAllJobsOffline(String userName) {
+        PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(userName);
+        return info == null ? new ArrayList<>() : getJobs(info.getID());
+    }
+
+    @Override
+    public void insertJob(JobsPlayer jPlayer, JobProgression prog) {
+        store.insert(DBTables.JobsTable, jPlayer.getUserId(), prog.getJob().getName(), Math.max(prog.getExperience(), 0D), prog.getLevel(), prog.getJob().getId());
+        prog.setSynced(prog.getLevel(), Math.max(prog.getExperience(), 0D), 0);
+    }
+
+    @Override
+    public boolean quitJob(JobsPlayer jPlayer, Job job) {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.JobsTable, jPlayer.getUserId()).entrySet()) {
+            if (getInt(row.getValue(), JobsTableFields.jobid) == job.getId())
+                store.delete(DBTables.JobsTable, row.getKey());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeSpecificJob(int userId, String jobName, String legacyName, int level, double exp) {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.JobsTable, userId).entrySet()) {
+            String name = getString(row.getValue(), JobsTableFields.job);
+            if ((jobName.equals(name) || legacyName.equals(name)) && getInt(row.getValue(), JobsTableFields.level) == level
+                && getDouble(row.getValue(), JobsTableFields.experience) == exp)
+                store.delete(DBTables.JobsTable, row.getKey());
+        }
+        return true;
+    }
+
+    @Override
+    public void save(JobsPlayer player) {
+        Map<Integer, Object[]> rows = store.select(DBTables.JobsTable, player.getUserId());
+        for (JobProgression progression : player.getJobProgression()) {
+            for (Entry<Integer, Object[]> row : rows.entrySet()) {
+                if (!isJob(row.getValue(), progression.getJob()))
+                    continue;
+                Object[] values = row.getValue().clone();
+                values[JobsTableFields.level.ordinal()] = progression.getLevel();
+                values[JobsTableFields.experience.ordinal()] = progression.getExperience();
+                store.put(DBTables.JobsTable, row.getKey(), values);
+            }
+        }
+    }
+
+    @Override
+    public int getSlotsTaken(Job job) {
+        int slot = 0;
+        for (Object[] row : store.select(DBTables.JobsTable).values()) {
+            if (isJob(row, job))
+                slot++;
+        }
+        return slot;
+    }
+
+    @Override
+    public Map<Integer, Integer> getJobCounts() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Object[] row : store.select(DBTables.JobsTable).values()) {
+            counts.merge(getInt(row, JobsTableFields.jobid), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public int getTotalPlayerAmountByJobName(String JobName) {
+        Job job = Jobs.getJob(JobName);
+        if (job == null || job.getId() == 0)
+            return 0;
+
+        int count = 0;
+        for (Object[] row : store.select(DBTables.JobsTable).values()) {
+            if (getInt(row, JobsTableFields.jobid) == job.getId())
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Builds top list from rows kept in memory, so it isn't cached like database top list
+     */
+    @Override
+    public List<TopList> toplist(String jobsname) {
+        Job job = Jobs.getJob(jobsname);
+        if (job == null)
+            return new ArrayList<>();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Object[] row : store.select(DBTables.JobsTable).values()) {
+            if (isJob(row, job))
+                rows.add(row);
+        }
+
+        rows.sort((o1, o2) -> {
+            int compare = Integer.compare(getInt(o2, JobsTableFields.level), getInt(o1, JobsTableFields.level));
+            return compare != 0 ? compare : Double.compare(getDouble(o2, JobsTableFields.experience), getDouble(o1, JobsTableFields.experience));
+        });
+
+        List<TopList> jobs = new ArrayList<>();
+        for (Object[] row : rows) {
+            PlayerInfo info = Jobs.getPlayerManager().getPlayerInfo(getInt(row, JobsTableFields.userid));
+            if (info != null)
+                jobs.add(new TopList(info.getUuid(), getInt(row, JobsTableFields.level), (int) getDouble(row, JobsTableFields.experience)));
+        }
+        return jobs;
+    }
+
+    @Override
+    public void cleanJobs() {
+        if (!Jobs.getGCManager().DBCleaningJobsUse)
+            return;
+
+        runAsync(() -> {
+            Set<Integer> skip = Jobs.getPlayerManager().getLoadedPlayerIds();
+            List<Integer> removed = new ArrayList<>();
+            for (Entry<Integer, Object[]> row : store.select(DBTables.JobsTable).entrySet()) {
+                int userId = getInt(row.getValue(), JobsTableFields.userid);
+                if (getInt(row.getValue(), JobsTableFields.level) <= Jobs.getGCManager().DBCleaningJobsLvl && !skip.contains(userId)) {
+                    store.delete(DBTables.JobsTable, row.getKey());
+                    removed.add(userId);
+                }
+            }
+            removeFromCache(removed, false);
+        });
+    }
+
+    /**
+     * Drops preloaded data of players whose rows were cleaned
+     */
+    private void removeFromCache(List<Integer> removed, boolean removeInfo) {
+        if (!removed.isEmpty())
+            CMIScheduler.runTask(Jobs.getInstance(), () -> Jobs.getPlayerManager().removeFromCache(removed, removeInfo));
+    }
+
+    private static PlayerInfo toPlayerInfo(int id, UUID uuid, Object[] row) {
+        return new PlayerInfo(getString(row, UserTableFields.username), id, uuid, getLong(row, UserTableFields.seen), getInt(row, UserTableFields.donequests),
+            getString(row, UserTableFields.quests), getInt(row, UserTableFields.messageOptions));
+    }
+
+    @Override
+    public void loadPlayerData() {
+        Jobs.getPlayerManager().clearMaps();
+
+        for (Entry<Integer, Object[]> row : store.select(DBTables.UsersTable).entrySet()) {
+            UUID uuid = null;
+            try {
+                uuid = UUID.fromString(getString(row.getValue(), UserTableFields.player_uuid));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                store.delete(DBTables.UsersTable, row.getKey());
+                continue;
+            }
+            Jobs.getPlayerManager().addPlayerToMap(toPlayerInfo(row.getKey(), uuid, row.getValue()));
+        }
+    }
+
+    @Override
+    public PlayerInfo loadPlayerData(UUID uuid) {
+        PlayerInfo pInfo = null;
+        for (Entry<Integer, Object[]> row : store.select(DBTables.UsersTable, uuid.toString()).entrySet()) {
+            pInfo = toPlayerInfo(row.getKey(), uuid, row.getValue());
+            Jobs.getPlayerManager().addPlayerToMap(pInfo);
+        }
+        return pInfo;
+    }
+
+    @Override
+    public void recordNewPlayer(String playerName, UUID uuid) {
+        // Checking possible record to avoid duplicates
+        PlayerInfo info = loadPlayerData(uuid);
+        if (info != null) {
+            Jobs.getPlayerManager().addPlayerToMap(info);
+            return;
+        }
+
+        long seen = System.currentTimeMillis();
+        int id = store.insert(DBTables.UsersTable, uuid.toString(), playerName, seen, 0);
+        Jobs.getPlayerManager().addPlayerToMap(new PlayerInfo(playerName, id, uuid, seen, 0));
+    }
+
+    private void insertPlayer(JobsPlayer player) {
+        int id = store.insert(DBTables.UsersTable, player.getUniqueId().toString(), player.getName(), player.getSeen(), 0);
+        if (id == 0)
+            return;
+        player.setUserId(id);
+        Jobs.getPlayerManager().addPlayerToMap(new PlayerInfo(player.getName(), id, player.getUniqueId(), player.getSeen(), 0));
+    }
+
+    @Override
+    public void updateSeen(JobsPlayer player) {
+        if (player.getUserId() == -1) {
+            insertPlayer(player);
+            return;
+        }
+
+        Object[] row = store.get(DBTables.UsersTable, player.getUserId());
+        if (row == null)
+            return;
+
+        row = row.clone();
+        row[UserTableFields.seen.ordinal()] = System.currentTimeMillis();
+        row[UserTableFields.username.ordinal()] = player.getName();
+        row[UserTableFields.donequests.ordinal()] = player.getDoneQuests();
+        row[UserTableFields.quests.ordinal()] = player.getQuestProgressionString();
+        // Only recording options if its not null
+        Integer options = ToggleBarHandling.getPlayerOptionsAsInt(player.getUniqueId());
+        if (options != null)
+            row[UserTableFields.messageOptions.ordinal()] = options;
+        store.put(DBTables.UsersTable, player.getUserId(), row);
+    }
+
+    @Override
+    public void resetDoneQuests() {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.UsersTable).entrySet()) {
+            if (getInt(row.getValue(), UserTableFields.donequests) != 0)
+                store.update(DBTables.UsersTable, row.getKey(), UserTableFields.donequests, 0);
+        }
+    }
+
+    @Override
+    public void cleanUsers() {
+        if (!Jobs.getGCManager().DBCleaningUsersUse)
+            return;
+
+        Calendar cal = Calendar.getInstance();
+        cal.add(Calendar.DATE, -Jobs.getGCManager().DBCleaningUsersDays);
+        long mark = cal.getTimeInMillis();
+
+        runAsync(() -> {
+            Set<Integer> skip = Jobs.getPlayerManager().getLoadedPlayerIds();
+            List<Integer> removed = new ArrayList<>();
+            for (Entry<Integer, Object[]> row : store.select(DBTables.UsersTable).entrySet()) {
+                if (getLong(row.getValue(), UserTableFields.seen) < mark && !skip.contains(row.getKey())) {
+                    store.delete(DBTables.UsersTable, row.getKey());
+                    removed.add(row.getKey());
+                }
+            }
+            removeFromCache(removed, true);
+        });
+    }
+
+    // Embedded store is owned by single server, there is nothing to hand over
+
+    @Override
+    public boolean claimPlayer(UUID uuid, boolean force) {
+        return true;
+    }
+
+    @Override
+    public void releasePlayer(UUID uuid) {
+    }
+
+    @Override
+    public void releaseAllPlayers() {
+    }
+
+    @Override
+    public String getMeta(String name) {
+        for (Object[] row : store.select(DBTables.MetaTable).values()) {
+            if (name.equals(getString(row, MetaTableFields.name)))
+                return getString(row, MetaTableFields.value);
+        }
+        return null;
+    }
+
+    @Override
+    public void setMeta(String name, String value) {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.MetaTable).entrySet()) {
+            if (name.equals(getString(row.getValue(), MetaTableFields.name)))
+                store.delete(DBTables.MetaTable, row.getKey());
+        }
+        if (value != null)
+            store.insert(DBTables.MetaTable, name, value);
+    }
+
+    @Override
+    public void loadAllJobsWorlds() {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.WorldTable).entrySet()) {
+            Util.addJobsWorld(new JobsWorld(getString(row.getValue(), worldsTableFields.name), row.getKey()));
+        }
+
+        for (World one : Bukkit.getWorlds()) {
+            if (Util.getJobsWorld(one.getName()) == null)
+                recordNewWorld(one.getName());
+        }
+    }
+
+    @Override
+    public void recordNewWorld(String worldName) {
+        Util.addJobsWorld(new JobsWorld(worldName, store.insert(DBTables.WorldTable, worldName)));
+    }
+
+    @Override
+    public void recordNewWorld(String worldName, int id) {
+        Util.addJobsWorld(new JobsWorld(worldName, store.put(DBTables.WorldTable, id, worldName) ? id : 0));
+    }
+
+    @Override
+    public void loadAllJobsNames() {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.JobNameTable).entrySet()) {
+            String name = getString(row.getValue(), jobsNameTableFields.name);
+            int id = row.getKey();
+
+            Job job = Jobs.getJob(name);
+            if (job == null)
+                continue;
+
+            if (job.getId() == 0)
+                job.setId(id);
+            else {
+                // Prioritizing id which matches actual job name and not full name which can be different
+                if (job.getName().equals(name)) {
+                    job.setLegacyId(job.getId());
+                    job.setId(id);
+                } else
+                    job.setLegacyId(id);
+            }
+        }
+
+        for (Job one : Jobs.getJobs()) {
+            if (one.getId() == 0)
+                recordNewJobName(one);
+        }
+    }
+
+    @Override
+    public void recordNewJobName(Job job) {
+        job.setId(store.insert(DBTables.JobNameTable, job.getName()));
+    }
+
+    @Override
+    public void recordNewJobName(Job job, int id) {
+        job.setId(store.put(DBTables.JobNameTable, id, job.getName()) ? id : 0);
+    }
+
+    @Override
+    public Map<Integer, PlayerPoints> getAllPoints() {
+        Map<Integer, PlayerPoints> map = new HashMap<>();
+        for (Object[] row : store.select(DBTables.PointsTable).values()) {
+            map.put(getInt(row, PointsTableFields.userid), new PlayerPoints(getDouble(row, PointsTableFields.currentpoints), getDouble(row, PointsTableFields.totalpoints)));
+        }
+        return map;
+    }
+
+    @Override
+    public PlayerPoints getPlayerPoints(JobsPlayer player) {
+        PlayerPoints points = new PlayerPoints();
+        for (Object[] row : store.select(DBTables.PointsTable, player.getUserId()).values()) {
+            points = new PlayerPoints(getDouble(row, PointsTableFields.currentpoints), getDouble(row, PointsTableFields.totalpoints));
+        }
+        return points;
+    }
+
+    @Override
+    public void loadPoints(JobsPlayer player) {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.PointsTable, player.getUserId()).entrySet()) {
+            player.getPointsData().setDbId(row.getKey());
+            player.getPointsData().setPoints(getDouble(row.getValue(), PointsTableFields.currentpoints));
+            player.getPointsData().setTotalPoints(getDouble(row.getValue(), PointsTableFields.totalpoints));
+            return;
+        }
+    }
+
+    @Override
+    public void savePoints(JobsPlayer jPlayer) {
+        PlayerPoints pointInfo = jPlayer.getPointsData();
+
+        if (pointInfo.getDbId() != 0 && store.get(DBTables.PointsTable, pointInfo.getDbId()) != null) {
+            store.put(DBTables.PointsTable, pointInfo.getDbId(), jPlayer.getUserId(), pointInfo.getTotalPoints(), pointInfo.getCurrentPoints());
+            return;
+        }
+
+        // Removing existing entry by user id as we don't have actual entry id
+        for (Integer id : store.select(DBTables.PointsTable, jPlayer.getUserId()).keySet()) {
+            store.delete(DBTables.PointsTable, id);
+        }
+        int id = store.insert(DBTables.PointsTable, jPlayer.getUserId(), pointInfo.getTotalPoints(), pointInfo.getCurrentPoints());
+        if (id != 0)
+            pointInfo.setDbId(id);
+    }
+
+    private static CurrencyType getLimitType(Object[] row) {
+        int typeId = getInt(row, LimitTableFields.typeid);
+        return typeId != 0 ? CurrencyType.get(typeId) : CurrencyType.getByName(getString(row, LimitTableFields.type));
+    }
+
+    @Override
+    public Map<Integer, PaymentData> loadPlayerLimits() {
+        Map<Integer, PaymentData> map = new HashMap<>();
+        for (Object[] row : store.select(DBTables.LimitsTable).values()) {
+            CurrencyType type = getLimitType(row);
+            if (type != null)
+                map.computeIfAbsent(getInt(row, LimitTableFields.userid), k -> new PaymentData())
+                    .addNewAmount(type, getDouble(row, LimitTableFields.collected), getLong(row, LimitTableFields.started));
+        }
+        return map;
+    }
+
+    @Override
+    public PaymentData getPlayersLimits(JobsPlayer jPlayer) {
+        PaymentData data = new PaymentData();
+        for (Object[] row : store.select(DBTables.LimitsTable, jPlayer.getUserId()).values()) {
+            CurrencyType type = getLimitType(row);
+            if (type != null)
+                data.addNewAmount(type, getDouble(row, LimitTableFields.collected), getLong(row, LimitTableFields.started));
+        }
+        return data;
+    }
+
+    @Override
+    public void recordPlayersLimits(JobsPlayer jPlayer) {
+        for (Integer id : store.select(DBTables.LimitsTable, jPlayer.getUserId()).keySet()) {
+            store.delete(DBTables.LimitsTable, id);
+        }
+
+        PaymentData limit = jPlayer.getPaymentLimit();
+        if (limit == null)
+            return;
+
+        for (CurrencyType type : CurrencyType.values()) {
+            if (limit.getAmount(type) == 0D || limit.getLeftTime(type) < 0)
+                continue;
+            store.insert(DBTables.LimitsTable, jPlayer.getUserId(), type.toString(), limit.getAmount(type), limit.getTime(type), type.getId());
+        }
+    }
+
+    @Override
+    public void clearLimitsTable() {
+        store.clear(DBTables.LimitsTable);
+    }
+
+    private static void addLog(Map<String, Log> map, Object[] row, boolean sum) {
+        String action = getString(row, LogTableFields.action);
+
+        Map<CurrencyType, Double> amounts = new HashMap<>();
+        amounts.put(CurrencyType.MONEY, getDouble(row, LogTableFields.money));
+        amounts.put(CurrencyType.EXP, getDouble(row, LogTableFields.exp));
+        amounts.put(CurrencyType.POINTS, getDouble(row, LogTableFields.points));
+
+        Log log = map.computeIfAbsent(action, Log::new);
+        if (sum)
+            log.sum(getString(row, LogTableFields.itemname), getInt(row, LogTableFields.count), amounts);
+        else
+            log.add(getString(row, LogTableFields.itemname), getInt(row, LogTableFields.count), amounts);
+    }
+
+    @Override
+    public Map<Integer, Map<String, Log>> getAllLogs() {
+        int time = CMITimeManager.timeInInt();
+        Map<Integer, Map<String, Log>> map = new HashMap<>();
+        for (Object[] row : store.select(DBTables.LogTable).values()) {
+            if (getInt(row, LogTableFields.time) == time)
+                addLog(map.computeIfAbsent(getInt(row, LogTableFields.userid), k -> new HashMap<>()), row, false);
+        }
+        return map;
+    }
+
+    @Override
+    public void loadLog(JobsPlayer player) {
+        int time = CMITimeManager.timeInInt();
+        for (Object[] row : store.select(DBTables.LogTable, player.getUserId()).values()) {
+            if (getInt(row, LogTableFields.time) != time)
+                continue;
+
+            Map<CurrencyType, Double> amounts = new HashMap<>();
+            amounts.put(CurrencyType.MONEY, getDouble(row, LogTableFields.money));
+            amounts.put(CurrencyType.EXP, getDouble(row, LogTableFields.exp));
+            amounts.put(CurrencyType.POINTS, getDouble(row, LogTableFields.points));
+
+            Jobs.getLoging().loadToLog(player, getString(row, LogTableFields.action), getString(row, LogTableFields.itemname), getInt(row, LogTableFields.count), amounts);
+        }
+    }
+
+    @Override
+    public void saveLog(JobsPlayer player, Collection<Log> logs) {
+        Map<String, Integer> existing = null;
+
+        for (Log log : logs) {
+            for (Entry<String, LogAmounts> one : log.getAmountList().entrySet()) {
+                LogAmounts amounts = one.getValue();
+                Object[] values = { player.getUserId(), log.getDate(), log.getActionType(), one.getKey(), amounts.getCount(), amounts.get(CurrencyType.MONEY),
+                    amounts.get(CurrencyType.EXP), amounts.get(CurrencyType.POINTS) };
+
+                if (amounts.isNewEntry()) {
+                    store.insert(DBTables.LogTable, values);
+                    continue;
+                }
+
+                if (existing == null) {
+                    existing = new HashMap<>();
+                    for (Entry<Integer, Object[]> row : store.select(DBTables.LogTable, player.getUserId()).entrySet()) {
+                        existing.put(getLogKey(getInt(row.getValue(), LogTableFields.time), getString(row.getValue(), LogTableFields.action),
+                            getString(row.getValue(), LogTableFields.itemname)), row.getKey());
+                    }
+                }
+
+                Integer id = existing.get(getLogKey(log.getDate(), log.getActionType(), one.getKey()));
+                if (id != null)
+                    store.put(DBTables.LogTable, id, values);
+            }
+        }
+    }
+
+    private static String getLogKey(int time, String action, String item) {
+        return time + ":" + action + ":" + item;
+    }
+
+    @Override
+    public List<Integer> getLognameList(int fromtime, int untiltime) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Object[] row : store.select(DBTables.LogTable).values()) {
+            int time = getInt(row, LogTableFields.time);
+            if (time >= fromtime && time <= untiltime)
+                ids.add(getInt(row, LogTableFields.userid));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    @Override
+    public Map<String, Log> getPlayerLog(int userId, int fromtime) {
+        Map<String, Log> log = getLogs(userId, fromtime).get(userId);
+        return log == null ? new HashMap<>() : log;
+    }
+
+    @Override
+    public Map<Integer, Map<String, Log>> getGlobalLog(int fromtime) {
+        return getLogs(-1, fromtime);
+    }
+
+    private Map<Integer, Map<String, Log>> getLogs(int userId, int fromtime) {
+        Map<Integer, Map<String, Log>> map = new HashMap<>();
+        Map<Integer, Object[]> rows = userId < 0 ? store.select(DBTables.LogTable) : store.select(DBTables.LogTable, userId);
+        for (Object[] row : rows.values()) {
+            if (getInt(row, LogTableFields.time) >= fromtime)
+                addLog(map.computeIfAbsent(getInt(row, LogTableFields.userid), k -> new HashMap<>()), row, true);
+        }
+
+        // Rolled up rows can't be split, only periods starting within range are included
+        rows = userId < 0 ? store.select(DBTables.LogRollupTable) : store.select(DBTables.LogRollupTable, userId);
+        for (Object[] row : rows.values()) {
+            if (getTier(row) == null || getInt(row, LogRollupTableFields.period) < fromtime)
+                continue;
+
+            Map<CurrencyType, Double> amounts = new HashMap<>();
+            amounts.put(CurrencyType.MONEY, getDouble(row, LogRollupTableFields.money));
+            amounts.put(CurrencyType.EXP, getDouble(row, LogRollupTableFields.exp));
+            amounts.put(CurrencyType.POINTS, getDouble(row, LogRollupTableFields.points));
+
+            map.computeIfAbsent(getInt(row, LogRollupTableFields.userid), k -> new HashMap<>())
+                .computeIfAbsent(getString(row, LogRollupTableFields.action), Log::new)
+                .sum(getString(row, LogRollupTableFields.itemname), getInt(row, LogRollupTableFields.count), amounts);
+        }
+        return map;
+    }
+
+    private static LogRollupTier getTier(Object[] row) {
+        String tier = getString(row, LogRollupTableFields.tier);
+        for (LogRollupTier one : LogRollupTier.values()) {
+            if (one.name().equals(tier))
+                return one;
+        }
+        return null;
+    }
+
+    @Override
+    public int rollupLogBatch(LogRollupTier from, int until, int batchSize) {
+        LogRollupTier to = from == null ? LogRollupTier.week : LogRollupTier.month;
+        DBTables source = from == null ? DBTables.LogTable : DBTables.LogRollupTable;
+
+        Map<String, Object[]> entries = new HashMap<>();
+        List<Integer> moved = new ArrayList<>();
+        for (Entry<Integer, Object[]> row : store.select(source).entrySet()) {
+            if (moved.size() >= batchSize)
+                break;
+
+            Object[] values = row.getValue();
+            int userId, date, count;
+            String action, item;
+            double money, exp, points;
+            if (from == null) {
+                if (getInt(values, LogTableFields.time) >= until)
+                    continue;
+                userId = getInt(values, LogTableFields.userid);
+                date = getInt(values, LogTableFields.time);
+                action = getString(values, LogTableFields.action);
+                item = getString(values, LogTableFields.itemname);
+                count = getInt(values, LogTableFields.count);
+                money = getDouble(values, LogTableFields.money);
+                exp = getDouble(values, LogTableFields.exp);
+                points = getDouble(values, LogTableFields.points);
+            } else {
+                if (getTier(values) != from || getInt(values, LogRollupTableFields.period) >= until)
+                    continue;
+                userId = getInt(values, LogRollupTableFields.userid);
+                date = getInt(values, LogRollupTableFields.period);
+                action = getString(values, LogRollupTableFields.action);
+                item = getString(values, LogRollupTableFields.itemname);
+                count = getInt(values, LogRollupTableFields.count);
+                money = getDouble(values, LogRollupTableFields.money);
+                exp = getDouble(values, LogRollupTableFields.exp);
+                points = getDouble(values, LogRollupTableFields.points);
+            }
+            moved.add(row.getKey());
+
+            int period = JobsDAO.getRollupPeriod(to, date);
+            Object[] entry = entries.computeIfAbsent(getRollupKey(userId, period, action, item), k -> new Object[] { userId, to.name(), period, action, item, 0, 0D, 0D, 0D });
+            entry[LogRollupTableFields.count.ordinal()] = getInt(entry, LogRollupTableFields.count) + count;
+            entry[LogRollupTableFields.money.ordinal()] = getDouble(entry, LogRollupTableFields.money) + money;
+            entry[LogRollupTableFields.exp.ordinal()] = getDouble(entry, LogRollupTableFields.exp) + exp;
+            entry[LogRollupTableFields.points.ordinal()] = getDouble(entry, LogRollupTableFields.points) + points;
+        }
+
+        if (moved.isEmpty())
+            return 0;
+
+        // Adding into existing rolled up rows of the same period
+        for (Entry<Integer, Object[]> row : store.select(DBTables.LogRollupTable).entrySet()) {
+            Object[] values = row.getValue();
+            if (getTier(values) != to)
+                continue;
+
+            Object[] entry = entries.remove(getRollupKey(getInt(values, LogRollupTableFields.userid), getInt(values, LogRollupTableFields.period),
+                getString(values, LogRollupTableFields.action), getString(values, LogRollupTableFields.itemname)));
+            if (entry == null)
+                continue;
+
+            values = values.clone();
+            values[LogRollupTableFields.count.ordinal()] = getInt(values, LogRollupTableFields.count) + getInt(entry, LogRollupTableFields.count);
+            values[LogRollupTableFields.money.ordinal()] = getDouble(values, LogRollupTableFields.money) + getDouble(entry, LogRollupTableFields.money);
+            values[LogRollupTableFields.exp.ordinal()] = getDouble(values, LogRollupTableFields.exp) + getDouble(entry, LogRollupTableFields.exp);
+            values[LogRollupTableFields.points.ordinal()] = getDouble(values, LogRollupTableFields.points) + getDouble(entry, LogRollupTableFields.points);
+            store.put(DBTables.LogRollupTable, row.getKey(), values);
+        }
+
+        for (Object[] entry : entries.values()) {
+            store.insert(DBTables.LogRollupTable, entry);
+        }
+
+        for (Integer id : moved) {
+            store.delete(source, id);
+        }
+        return moved.size();
+    }
+
+    private static String getRollupKey(int userId, int period, String action, String item) {
+        return userId + ":" + period + ":" + action + ":" + item;
+    }
+
+    private static JobProgression toArchived(Object[] row, JobsPlayer player) {
+        int jobid = getInt(row, ArchiveTableFields.jobid);
+        Job job = jobid != 0 ? Jobs.getJob(jobid) : Jobs.getJob(getString(row, ArchiveTableFields.job));
+        if (job == null)
+            return null;
+
+        JobProgression jp = new JobProgression(job, player, getInt(row, ArchiveTableFields.level), getInt(row, ArchiveTableFields.experience));
+        long left = getLong(row, ArchiveTableFields.left);
+        if (left != 0L)
+            jp.setLeftOn(left);
+        return jp;
+    }
+
+    @Override
+    public Map<Integer, ArchivedJobs> getAllArchivedJobs() {
+        Map<Integer, ArchivedJobs> map = new HashMap<>();
+        for (Object[] row : store.select(DBTables.ArchiveTable).values()) {
+            JobProgression jp = toArchived(row, null);
+            if (jp != null)
+                map.computeIfAbsent(getInt(row, ArchiveTableFields.userid), k -> new ArchivedJobs()).addArchivedJob(jp);
+        }
+        return map;
+    }
+
+    @Override
+    public ArchivedJobs getArchivedJobs(JobsPlayer player) {
+        ArchivedJobs jobs = new ArchivedJobs();
+        if (player == null)
+            return jobs;
+
+        for (Object[] row : store.select(DBTables.ArchiveTable, player.getUserId()).values()) {
+            JobProgression jp = toArchived(row, player);
+            if (jp != null)
+                jobs.addArchivedJob(jp);
+        }
+        return jobs;
+    }
+
+    @Override
+    public void insertArchive(int userId, Job job, int level, double exp) {
+        store.insert(DBTables.ArchiveTable, userId, job.getName(), (int) exp, level, System.currentTimeMillis(), job.getId());
+    }
+
+    @Override
+    public void deleteArchive(int userId, Job job) {
+        for (Entry<Integer, Object[]> row : store.select(DBTables.ArchiveTable, userId).entrySet()) {
+            if (getInt(row.getValue(), ArchiveTableFields.jobid) == job.getId())
+                store.delete(DBTables.ArchiveTable, row.getKey());
+        }
+    }
+
+    @Override
+    public Map<DBTables, String> getTableNames() {
+        Map<DBTables, String> names = new EnumMap<>(DBTables.class);
+        for (DBTables one : DBTables.values()) {
+            names.put(one, one.getTableName(""));
+        }
+        return names;
+    }
+
+    @Override
+    public List<Object[]> readRows(DBTables table, String tableName, int afterId, int limit) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (Entry<Integer, Object[]> row : store.selectAfter(table, afterId, limit).entrySet()) {
+            Object[] values = new Object[row.getValue().length + 1];
+            values[0] = row.getKey();
+            System.arraycopy(row.getValue(), 0, values, 1, row.getValue().length);
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    @Override
+    public void writeRows(DBTables table, String tableName, List<Object[]> rows) throws SQLException {
+        for (Object[] row : rows) {
+            Object[] values = new Object[row.length - 1];
+            System.arraycopy(row, 1, values, 0, values.length);
+            if (!store.put(table, ((Number) row[0]).intValue(), values))
+                throw new SQLException("Can't record row into embedded storage");
+        }
+    }
+
+    @Override
+    public int getMaxId(DBTables table, String tableName) throws SQLException {
+        return store.maxId(table);
+    }
+
+    @Override
+    public void clearRows(DBTables table, String tableName) throws SQLException {
+        store.clear(table);
+    }
+
+    @Override
+    public Map<DirtyChunk, Integer> saveExplore(List<DirtyChunk> dirty) {
+        int inserted = 0, updated = 0;
+
+        // Chunks which failed to be inserted are left without id and saved again in next pass
+        Map<DirtyChunk, Integer> ids = new HashMap<>();
+        for (DirtyChunk chunk : dirty) {
+            JobsWorld jobsWorld = Util.getJobsWorld(chunk.getWorld());
+            int worldId = jobsWorld == null ? 0 : jobsWorld.getId();
+            if (worldId == 0)
+                continue;
+
+            Object[] values = { jobsWorld.getName(), chunk.getX(), chunk.getZ(), chunk.getNames(), worldId };
+
+            if (chunk.getDbId() == -1) {
+                int id = store.insert(DBTables.ExploreDataTable, values);
+                if (id == 0)
+                    continue;
+                ids.put(chunk, id);
+                inserted++;
+            } else {
+                store.put(DBTables.ExploreDataTable, chunk.getDbId(), values);
+                updated++;
+            }
+        }
+
+        if (inserted > 0)
+            CMIMessages.consoleMessage("&e[Jobs] Saved " + inserted + " new explorer entries.");
+        if (updated > 0)
+            CMIMessages.consoleMessage("&e[Jobs] Updated " + updated + " explorer entries.");
+        return ids;
+    }
+
+    @Override
+    public void loadExplore() {
+        if (!Jobs.getExploreManager().isExploreEnabled() || Jobs.getGCManager().useNewExploration)
+            return;
+
+        Set<Integer> missingWorlds = new HashSet<>();
+        for (Entry<Integer, Object[]> row : store.select(DBTables.ExploreDataTable).entrySet()) {
+            Object[] values = row.getValue();
+            int worldId = getInt(values, ExploreDataTableFields.worldid);
+            JobsWorld jworld = Util.getJobsWorld(worldId);
+            if (jworld == null || jworld.getWorld() == null) {
+                missingWorlds.add(worldId);
+                continue;
+            }
+
+            Jobs.getExploreManager().load(getString(values, ExploreDataTableFields.worldname), worldId, getInt(values, ExploreDataTableFields.chunkX),
+                getInt(values, ExploreDataTableFields.chunkZ), getString(values, ExploreDataTableFields.playerNames), row.getKey());
+        }
+
+        if (!missingWorlds.isEmpty()) {
+            for (Entry<Integer, Object[]> row : store.select(DBTables.ExploreDataTable).entrySet()) {
+                if (missingWorlds.contains(getInt(row.getValue(), ExploreDataTableFields.worldid)))
+                    store.delete(DBTables.ExploreDataTable, row.getKey());
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteExploredWorld(String worldName) {
+        if (!Jobs.getExploreManager().isExploreEnabled() || Jobs.getGCManager().useNewExploration)
+            return false;
+
+        JobsWorld target = Util.getJobsWorld(worldName);
+        if (target == null)
+            return false;
+
+        for (Entry<Integer, Object[]> row : store.select(DBTables.ExploreDataTable).entrySet()) {
+            if (getInt(row.getValue(), ExploreDataTableFields.worldid) == target.getId())
+                store.delete(DBTables.ExploreDataTable, row.getKey());
+        }
+        return true;
+    }
+
+    @Override
+    public void saveBlockProtection(String world, Collection<BlockProtection> changed) {
+        JobsWorld jobsWorld = Util.getJobsWorld(world);
+        if (jobsWorld == null || jobsWorld.getId() == 0)
+            return;
+
+        long current = System.currentTimeMillis();
+        long mark = current - (Jobs.getGCManager().BlockProtectionDays * 24L * 60L * 60L * 1000L);
+
+        for (BlockProtection block : changed) {
+            if (block == null)
+                continue;
+
+            switch (block.getAction()) {
+            case DELETE:
+                if (block.getId() > 0)
+                    store.delete(DBTables.BlocksTable, block.getId());
+                break;
+            case INSERT:
+            case UPDATE:
+                if (block.getTime() < current && block.getTime() != -1)
+                    continue;
+
+                Object[] values = { world, block.getX(), block.getY(), block.getZ(), block.getRecorded(), block.getTime(), jobsWorld.getId() };
+                if (block.getId() > 0) {
+                    store.put(DBTables.BlocksTable, block.getId(), values);
+                } else {
+                    int id = store.insert(DBTables.BlocksTable, values);
+                    if (id != 0)
+                        block.setId(id);
+                }
+                block.setAction(DBAction.NONE);
+                break;
+            case NONE:
+                if (block.getTime() < current && block.getTime() != -1)
+                    continue;
+                if (block.getTime() == -1 && block.getRecorded() > mark)
+                    continue;
+
+                store.delete(DBTables.BlocksTable, block.getId());
+                break;
+            default:
+                continue;
+            }
+        }
+    }
+
+    @Override
+    public void loadBlockProtection() {
+        if (Jobs.getGCManager().useNewBlockProtection)
+            return;
+
+        long timer = System.currentTimeMillis();
+        long mark = timer - (Jobs.getGCManager().BlockProtectionDays * 24L * 60L * 60L * 1000L);
+
+        int removed = 0;
+        for (Entry<Integer, Object[]> row : store.select(DBTables.BlocksTable).entrySet()) {
+            long recorded = getLong(row.getValue(), BlockTableFields.recorded);
+            long resets = getLong(row.getValue(), BlockTableFields.resets);
+            if (recorded < mark || resets < timer && resets > 0) {
+                store.delete(DBTables.BlocksTable, row.getKey());
+                removed++;
+            }
+        }
+
+        if (removed > 0)
+            CMIMessages.consoleMessage("&e[Jobs] Removed " + removed + " expired block protection entries");
+    }
+
+    @Override
+    public List<BlockProtection> loadBlockProtection(String world, int regionX, int regionZ) {
+        List<BlockProtection> list = new ArrayList<>();
+
+        JobsWorld jobsWorld = Util.getJobsWorld(world);
+        if (jobsWorld == null)
+            return list;
+
+        int minX = regionX * 512, minZ = regionZ * 512;
+        // Blocks table is indexed by world name
+        for (Entry<Integer, Object[]> row : store.select(DBTables.BlocksTable, world).entrySet()) {
+            Object[] values = row.getValue();
+            int worldId = getInt(values, BlockTableFields.worldid);
+            if (worldId != 0 && worldId != jobsWorld.getId())
+                continue;
+
+            int x = getInt(values, BlockTableFields.x), z = getInt(values, BlockTableFields.z);
+            if (x < minX || x >= minX + 512 || z < minZ || z >= minZ + 512)
+                continue;
+
+            BlockProtection bp = new BlockProtection(DBAction.NONE, x, getInt(values, BlockTableFields.y), z);
+            bp.setId(row.getKey());
+            bp.setPaid(true);
+            bp.setTime(getLong(values, BlockTableFields.resets));
+            bp.setRecorded(getLong(values, BlockTableFields.recorded));
+            list.add(bp);
+        }
+        return list;
+    }
+
+    @Override
+    public void truncateAllTables() {
+        for (DBTables one : DBTables.values()) {
+            store.clear(one);
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.gamingmesh.jobs.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+
+import net.Zrips.CMILib.Messages.CMIMessages;
+
+/**
+ * Embedded table store.
+ * <p>
+ * Tables are kept in memory with an index on their owner column (user id, uuid or name). Every change is appended to log file
+ * before it is applied, the log is folded into snapshot file once it grows past configured amount of records and when store is closed.
+ * Rows are value arrays ordered the same way as table fields enum. Biggest id ever given in each table is kept in snapshot,
+ * so ids of removed rows are not given again after restart.
+ */
+public class JobsEmbeddedStore {
+
+    private static final int MAGIC = 0x4A4F4253;
+    private static final int VERSION = 2;
+
+    private static final byte PUT = 1, DELETE = 2, CLEAR = 3, LAST_ID = 4;
+    private static final byte NULL = 0, INT = 1, LONG = 2, DOUBLE = 3, STRING = 4;
+
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+
+    private static final Set<String> INDEXED = new HashSet<>();
+
+    static {
+        INDEXED.add("userid");
+        INDEXED.add("player_uuid");
+        INDEXED.add("name");
+    }
+
+    private final File snapshotFile;
+    private final File logFile;
+    private final int snapshotAfter;
+
+    private final Map<DBTables, Table> tables = new EnumMap<>(DBTables.class);
+
+    private DataOutputStream log;
+    private int logRecords = 0;
+
+    private static final class Table {
+        private final TreeMap<Integer, Object[]> rows = new TreeMap<>();
+        private final Map<Object, Set<Integer>> index = new HashMap<>();
+        private final int indexColumn;
+        private int lastId = 0;
+
+        private Table(DBTables table) {
+            int column = -1;
+            JobsTableInterface[] fields = table.getInterface();
+            for (int i = 0; i < fields.length; i++) {
+                if (INDEXED.contains(fields[i].getCollumn())) {
+                    column = i;
+                    break;
+                }
+            }
+            indexColumn = column;
+        }
+
+        private void put(int id, Object[] values) {
+            Object[] old = rows.put(id, values);
+            if (id > lastId)
+                lastId = id;
+            if (indexColumn < 0)
+                return;
+            if (old != null)
+                unindex(id, old);
+            if (values[indexColumn] != null)
+                index.computeIfAbsent(values[indexColumn], k -> new HashSet<>()).add(id);
+        }
+
+        private boolean remove(int id) {
+            Object[] old = rows.remove(id);
+            if (old == null)
+                return false;
+            if (indexColumn >= 0)
+                unindex(id, old);
+            return true;
+        }
+
+        private void unindex(int id, Object[] old) {
+            if (old[indexColumn] == null)
+                return;
+            Set<Integer> ids = index.get(old[indexColumn]);
+            if (ids == null)
+                return;
+            ids.remove(id);
+            if (ids.isEmpty())
+                index.remove(old[indexColumn]);
+        }
+
+        private void clear() {
+            rows.clear();
+            index.clear();
+        }
+    }
+
+    public JobsEmbeddedStore(File folder, int snapshotAfter) {
+        if (!folder.exists())
+            folder.mkdirs();
+        snapshotFile = new File(folder, "jobs.embedded.snapshot");
+        logFile = new File(folder, "jobs.embedded.log");
+        this.snapshotAfter = Math.max(snapshotAfter, 1000);
+
+        for (DBTables one : DBTables.values()) {
+            tables.put(one, new Table(one));
+        }
+    }
+
+    /**
+     * Loads snapshot, replays log written after it and opens log for appending
+     * @return true if store is ready
+     */
+    public synchronized boolean open() {
+        try {
+            if (snapshotFile.isFile())
+                read(snapshotFile, true);
+
+            int replayed = logFile.isFile() ? read(logFile, false) : 0;
+
+            log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+
+            // Folding replayed log right away, this also drops partially written record from the end of log
+            if (replayed > 0 || logFile.length() > 0)
+                snapshot();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            CMIMessages.consoleMessage("&cFailed to open embedded storage: " + e.getMessage());
+            close(log);
+            log = null;
+            return false;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return log != null;
+    }
+
+    /**
+     * Writes snapshot and closes the log
+     */
+    public synchronized void close() {
+        if (log == null)
+            return;
+        try {
+            snapshot();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        close(log);
+        log = null;
+    }
+
+    /**
+     * Inserts new row
+     * @return id of the new row or 0 if it failed to be recorded
+     */
+    public synchronized int insert(DBTables table, Object... values) {
+        int id = tables.get(table).lastId + 1;
+        return put(table, id, values) ? id : 0;
+    }
+
+    /**
+     * Inserts or replaces row with given id
+     * @return true if change was recorded
+     */
+    public synchronized boolean put(DBTables table, int id, Object... values) {
+        Object[] row = new Object[table.getInterface().length];
+        System.arraycopy(values, 0, row, 0, Math.min(values.length, row.length));
+        if (!append(PUT, table, id, row))
+            return false;
+        tables.get(table).put(id, row);
+        recorded();
+        return true;
+    }
+
+    /**
+     * Replaces single value of existing row
+     * @return true if row exists and change was recorded
+     */
+    public synchronized boolean update(DBTables table, int id, Enum<?> field, Object value) {
+        Object[] old = tables.get(table).rows.get(id);
+        if (old == null)
+            return false;
+        Object[] row = old.clone();
+        row[field.ordinal()] = value;
+        return put(table, id, row);
+    }
+
+    public synchronized boolean delete(DBTables table, int id) {
+        if (!tables.get(table).rows.containsKey(id) || !append(DELETE, table, id, null))
+            return false;
+        tables.get(table).remove(id);
+        recorded();
+        return true;
+    }
+
+    public synchronized void clear(DBTables table) {
+        if (!append(CLEAR, table, 0, null))
+            return;
+        tables.get(table).clear();
+        recorded();
+    }
+
+    /**
+     * Gets row by its id. Returned row should not be modified.
+     */
+    public synchronized Object[] get(DBTables table, int id) {
+        return tables.get(table).rows.get(id);
+    }
+
+    /**
+     * Gets copy of all rows in table. Returned rows should not be modified.
+     */
+    public synchronized Map<Integer, Object[]> select(DBTables table) {
+        return new LinkedHashMap<>(tables.get(table).rows);
+    }
+
+    /**
+     * Gets rows by indexed owner column value (user id, uuid or name). Returned rows should not be modified.
+     */
+    public synchronized Map<Integer, Object[]> select(DBTables table, Object owner) {
+        Table t = tables.get(table);
+        Set<Integer> ids = t.index.get(owner);
+        if (ids == null || ids.isEmpty())
+            return Collections.emptyMap();
+        Map<Integer, Object[]> result = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            result.put(id, t.rows.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Gets up to limit rows with id bigger than given one in id order. Returned rows should not be modified.
+     */
+    public synchronized Map<Integer, Object[]> selectAfter(DBTables table, int afterId, int limit) {
+        Map<Integer, Object[]> result = new LinkedHashMap<>();
+        for (Entry<Integer, Object[]> row : tables.get(table).rows.tailMap(afterId, false).entrySet()) {
+            if (result.size() >= limit)
+                break;
+            result.put(row.getKey(), row.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Gets biggest row id currently in table or 0 if table is empty
+     */
+    public synchronized int maxId(DBTables table) {
+        TreeMap<Integer, Object[]> rows = tables.get(table).rows;
+        return rows.isEmpty() ? 0 : rows.lastKey();
+    }
+
+    public synchronized int count(DBTables table) {
+        return tables.get(table).rows.size();
+    }
+
+    /**
+     * Folds current tables into new snapshot file and starts empty log
+     */
+    public synchronized void snapshot() throws IOException {
+        File temp = new File(snapshotFile.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (Entry<DBTables, Table> table : tables.entrySet()) {
+                for (Entry<Integer, Object[]> row : table.getValue().rows.entrySet()) {
+                    writeRecord(out, PUT, table.getKey(), row.getKey(), row.getValue());
+                }
+                if (table.getValue().lastId > 0)
+                    writeRecord(out, LAST_ID, table.getKey(), table.getValue().lastId, null);
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        close(log);
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, false)));
+        logRecords = 0;
+    }
+
+    private boolean append(byte op, DBTables table, int id, Object[] row) {
+        if (log == null)
+            return false;
+        try {
+            writeRecord(log, op, table, id, row);
+            log.flush();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Folds log into snapshot once change is applied to tables and log grew too large
+     */
+    private void recorded() {
+        if (++logRecords < snapshotAfter)
+            return;
+        try {
+            snapshot();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int read(File file, boolean snapshot) throws IOException {
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (snapshot && (in.readInt() != MAGIC || in.readInt() > VERSION))
+                throw new IOException("Unknown embedded storage snapshot format " + file.getName());
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (length < 0 || length > MAX_RECORD) {
+                    if (snapshot)
+                        throw new IOException("Embedded storage snapshot is corrupted");
+                    CMIMessages.consoleMessage("&eDropped damaged record from end of " + file.getName());
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                long crc;
+                try {
+                    in.readFully(payload);
+                    crc = in.readLong();
+                } catch (EOFException e) {
+                    CMIMessages.consoleMessage("&eDropped incomplete record from end of " + file.getName());
+                    break;
+                }
+
+                CRC32 check = new CRC32();
+                check.update(payload);
+                if (check.getValue() != crc) {
+                    if (snapshot)
+                        throw new IOException("Embedded storage snapshot is corrupted");
+                    CMIMessages.consoleMessage("&eDropped damaged record from end of " + file.getName());
+                    break;
+                }
+
+                apply(new DataInputStream(new ByteArrayInputStream(payload)));
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        byte op = in.readByte();
+        DBTables table = DBTables.valueOf(in.readUTF());
+        int id = in.readInt();
+        Table t = tables.get(table);
+        switch (op) {
+        case PUT:
+            int size = in.readUnsignedByte();
+            Object[] row = new Object[table.getInterface().length];
+            for (int i = 0; i < size; i++) {
+                Object value = readValue(in);
+                if (i < row.length)
+                    row[i] = value;
+            }
+            t.put(id, row);
+            break;
+        case DELETE:
+            t.remove(id);
+            break;
+        case CLEAR:
+            t.clear();
+            break;
+        case LAST_ID:
+            t.lastId = Math.max(t.lastId, id);
+            break;
+        default:
+            throw new IOException("Unknown embedded storage record " + op);
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte op, DBTables table, int id, Object[] row) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(op);
+        payload.writeUTF(table.name());
+        payload.writeInt(id);
+        if (op == PUT) {
+            payload.writeByte(row.length);
+            for (Object value : row) {
+                writeValue(payload, value);
+            }
+        }
+        payload.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.writeLong(crc.getValue());
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else {
+            byte[] text = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+        case NULL:
+            return null;
+        case INT:
+            return in.readInt();
+        case LONG:
+            return in.readLong();
+        case DOUBLE:
+            return in.readDouble();
+        case STRING:
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            return new String(text, StandardCharsets.UTF_8);
+        default:
+            throw new IOException("Unknown embedded storage value " + type);
+        }
+    }
+
+    private static void close(DataOutputStream out) {
+        if (out == null)
+            return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
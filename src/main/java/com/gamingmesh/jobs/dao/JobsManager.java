@@ -1,5 +1,6 @@
 package com.gamingmesh.jobs.dao;
 
+import java.io.File;
 import java.io.IOException;
 
 import com.gamingmesh.jobs.Jobs;
@@ -9,19 +10,19 @@ import net.Zrips.CMILib.FileHandler.ConfigReader;
 import net.Zrips.CMILib.Messages.CMIMessages;
 
 public class JobsManager {
-    private JobsDAO dao;
+    private JobsStorage dao;
     private Jobs plugin;
     private DataBaseType dbType = DataBaseType.SqLite;
 
     public enum DataBaseType {
-	MySQL, SqLite
+	MySQL, SqLite, Embedded
     }
 
     public JobsManager(Jobs plugin) {
 	this.plugin = plugin;
     }
 
-    public JobsDAO getDB() {
+    public JobsStorage getDB() {
 	return dao;
     }
 
@@ -35,22 +36,65 @@ public class JobsManager {
 	    // If it MySQL lets change to SqLite
 	    dbType = DataBaseType.SqLite;
 	    dao = startSqlite();
-
-	    if (dao != null)
-		dao.setDbType(dbType);
 	    break;
 	case SqLite:
 	    // If it SqLite lets change to MySQL
 	    dbType = DataBaseType.MySQL;
 	    dao = startMysql();
-
-	    if (dao != null)
-		dao.setDbType(dbType);
+	    break;
+	case Embedded:
+	    // Embedded storage is moved into SqLite which can be moved to MySQL later
+	    dbType = DataBaseType.SqLite;
+	    dao = startSqlite();
 	    break;
 	default:
 	    break;
 	}
 
+	saveDataBaseType();
+	Jobs.setDAO(dao);
+    }
+
+    /**
+     * Copies current database into opposite one and switches to it when copy is verified. Current database is used
+     * until then and stays untouched.
+     * @return true if database was switched
+     */
+    public boolean convertDataBase() {
+	JobsStorage source = dao;
+	DataBaseType targetType = dbType == DataBaseType.SqLite ? DataBaseType.MySQL : DataBaseType.SqLite;
+
+	JobsDAO target = targetType == DataBaseType.MySQL ? startMysql() : startSqlite();
+	// Starting database changes shared table prefix, giving it back to database in use
+	if (source instanceof JobsDAO)
+	    ((JobsDAO) source).makeCurrent();
+
+	if (target == null || !target.isConnected()) {
+	    CMIMessages.consoleMessage("&cCan't connect to " + targetType + " database, conversion canceled");
+	    if (target != null)
+		target.closeConnections();
+	    return false;
+	}
+
+	JobsConverter converter = new JobsConverter(source, target, new File(Jobs.getFolder(), "convert.checkpoint"));
+	if (!source.supplyAsync(converter::convert).join()) {
+	    target.closeConnections();
+	    return false;
+	}
+
+	// Finishes tasks queued while copying on old database
+	source.closeConnections();
+
+	dbType = targetType;
+	dao = target;
+	target.makeCurrent();
+
+	saveDataBaseType();
+	Jobs.setDAO(dao);
+	return true;
+    }
+
+    private void saveDataBaseType() {
 	ConfigReader config = Jobs.getGCManager().getConfig();
 
 	config.set("storage.method", dbType.toString().toLowerCase());
@@ -59,13 +103,15 @@ public class JobsManager {
 	} catch (IOException e) {
 	    e.printStackTrace();
 	}
-
-	Jobs.setDAO(dao);
     }
 
     private String username = "root", password = "", hostname = "localhost:3306", database = "minecraft", prefix = "jobs_",
 	characterEncoding = "utf8", encoding = "UTF-8";
     private boolean certificate = false, ssl = false, autoReconnect = false;
+    private int embeddedSnapshotAfter = 50000;
+    private boolean replica = false;
+    private String replicaUsername = "root", replicaPassword = "", replicaHostname = "localhost:3306", replicaDatabase = "minecraft",
+	replicaFile = "jobs.replica.sqlite.db";
 
     public void start() {
 
@@ -77,8 +123,11 @@ public class JobsManager {
 
 	ConfigReader c = Jobs.getGCManager().getConfig();
 
-	c.addComment("storage.method", "storage method, can be MySQL or sqlite");
+	c.addComment("storage.method", "storage method, can be MySQL, sqlite or embedded",
+	    "embedded keeps data in append only file with periodic snapshots, fastest option for single server setups");
 	String storageMethod = c.get("storage.method", "sqlite");
+	c.addComment("embedded.snapshot-after", "Amount of changes recorded in embedded storage log before they are folded into snapshot file");
+	embeddedSnapshotAfter = c.get("embedded.snapshot-after", 50000);
 	c.addComment("mysql", "Requires Mysql");
 
 	username = c.get("mysql.username", c.getC().getString("mysql-username", "root"));
@@ -92,12 +141,29 @@ public class JobsManager {
 	characterEncoding = c.get("mysql.characterEncoding", "utf8");
 	encoding = c.get("mysql.encoding", "UTF-8");
 
+	c.addComment("replica.use", "Sends heavy read queries like top lists, global logs and offline player lookups to read only replica",
+	    "Main database is used while replica is unavailable");
+	replica = c.get("replica.use", false);
+	c.addComment("replica.mysql", "Replica connection details when MySQL is used, table prefix is the same as main database");
+	replicaUsername = c.get("replica.mysql.username", username);
+	replicaPassword = c.get("replica.mysql.password", password);
+	replicaHostname = c.get("replica.mysql.hostname", hostname);
+	replicaDatabase = c.get("replica.mysql.database", database);
+	c.addComment("replica.sqlite-file", "Replica file name in plugin folder when sqlite is used");
+	replicaFile = c.get("replica.sqlite-file", "jobs.replica.sqlite.db");
+
 	if (storageMethod.equalsIgnoreCase("mysql")) {
 	    dbType = DataBaseType.MySQL;
 	    dao = startMysql();
-	    if (dao == null || dao.getConnection() == null) {
+	    if (dao == null || !dao.isConnected()) {
 		Jobs.status = LoadStatus.MYSQLFailure;
 	    }
+	} else if (storageMethod.equalsIgnoreCase("embedded")) {
+	    dbType = DataBaseType.Embedded;
+	    dao = startEmbedded();
+	    if (!dao.isConnected()) {
+		Jobs.status = LoadStatus.EMBEDDEDFailure;
+	    }
 	} else {
 	    if (!storageMethod.equalsIgnoreCase("sqlite")) {
 		CMIMessages.consoleMessage("&cInvalid storage method! Changing method to sqlite!");
@@ -107,7 +173,7 @@ public class JobsManager {
 	    dbType = DataBaseType.SqLite;
 	    dao = startSqlite();
 
-	    if (dao.getConnection() == null) {
+	    if (!dao.isConnected()) {
 		Jobs.status = LoadStatus.SQLITEFailure;
 	    }
 	}
@@ -141,6 +207,9 @@ public class JobsManager {
 	if (plugin.isEnabled()) {
 	    JobsMySQL data = new JobsMySQL(plugin, hostname, database, username, password, prefix, certificate, ssl, autoReconnect,
 		characterEncoding, encoding);
+	    if (replica)
+		data.setReplica(replicaHostname, replicaDatabase, replicaUsername, replicaPassword, certificate, ssl, autoReconnect,
+		    characterEncoding, encoding);
 	    data.initialize();
 	    return data;
 	}
@@ -150,6 +219,14 @@ public class JobsManager {
 
     private synchronized JobsSQLite startSqlite() {
 	JobsSQLite data = new JobsSQLite(plugin, Jobs.getFolder());
+	if (replica)
+	    data.setReplica(Jobs.getFolder(), replicaFile);
+	data.initialize();
+	return data;
+    }
+
+    private synchronized JobsEmbedded startEmbedded() {
+	JobsEmbedded data = new JobsEmbedded(Jobs.getFolder(), embeddedSnapshotAfter);
 	data.initialize();
 	return data;
     }
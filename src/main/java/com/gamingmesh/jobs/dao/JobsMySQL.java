@@ -4,6 +4,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.dao.JobsManager.DataBaseType;
@@ -27,14 +31,26 @@ public class JobsMySQL extends JobsDAO {
 
     JobsMySQL(Jobs plugin, String hostname, String database, String username, String password, String prefix, boolean certificate, boolean ssl, boolean autoReconnect,
 	String characterEncoding, String encoding) {
-	super(plugin, path, "jdbc:mysql://" + hostname + "/" + database
-	    + "?maxReconnects=1&characterEncoding=" + characterEncoding + "&encoding="
-	    + encoding + "&useUnicode=true&autoReconnect=" + autoReconnect + "&useSSL=" + ssl
-	    + "&verifyServerCertificate=" + certificate, username, password, prefix);
+	super(plugin, path, getUrl(hostname, database, certificate, ssl, autoReconnect, characterEncoding, encoding), username, password, prefix);
         this.database = database;
 	setDbType(DataBaseType.MySQL);
     }
 
+    private static String getUrl(String hostname, String database, boolean certificate, boolean ssl, boolean autoReconnect, String characterEncoding, String encoding) {
+	return "jdbc:mysql://" + hostname + "/" + database
+	    + "?maxReconnects=1&characterEncoding=" + characterEncoding + "&encoding="
+	    + encoding + "&useUnicode=true&autoReconnect=" + autoReconnect + "&useSSL=" + ssl
+	    + "&verifyServerCertificate=" + certificate;
+    }
+
+    /**
+     * Sets up read only MySQL replica, tables are expected to use same prefix as main database
+     */
+    public void setReplica(String hostname, String database, String username, String password, boolean certificate, boolean ssl, boolean autoReconnect,
+	String characterEncoding, String encoding) {
+	setReplica(path, getUrl(hostname, database, certificate, ssl, autoReconnect, characterEncoding, encoding), username, password);
+    }
+
     public void initialize() {
 	setUp();
     }
@@ -60,6 +76,29 @@ public class JobsMySQL extends JobsDAO {
 	    + "users` (`id` int NOT NULL AUTO_INCREMENT PRIMARY KEY, `player_uuid` varchar(36) NOT NULL, `username` varchar(20), `seen` bigint);");
     }
 
+    @Override
+    protected Map<String, Set<String>> loadSchema() throws SQLException {
+	JobsConnection conn = getConnection();
+	if (conn == null)
+	    throw new SQLException("Not connected to MySQL database");
+
+	Map<String, Set<String>> schema = new HashMap<>();
+	PreparedStatement prest = null;
+	ResultSet res = null;
+	try {
+	    prest = conn.prepareStatement("SELECT `TABLE_NAME`, `COLUMN_NAME` FROM INFORMATION_SCHEMA.COLUMNS WHERE `TABLE_SCHEMA` = ?;");
+	    prest.setString(1, database);
+	    res = prest.executeQuery();
+	    while (res.next()) {
+		schema.computeIfAbsent(res.getString(1).toLowerCase(), k -> new HashSet<>()).add(res.getString(2).toLowerCase());
+	    }
+	} finally {
+	    close(res);
+	    close(prest);
+	}
+	return schema;
+    }
+
     @Override
     public Statement prepareStatement(String query) throws SQLException {
 	JobsConnection conn = getConnection();
@@ -4,6 +4,10 @@ import java.io.File;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import com.gamingmesh.jobs.Jobs;
 import com.gamingmesh.jobs.dao.JobsManager.DataBaseType;
@@ -30,6 +34,20 @@ public class JobsSQLite extends JobsDAO {
 	setDbType(DataBaseType.SqLite);
     }
 
+    /**
+     * Sets up read only replica from another SQLite file in plugin folder. File is opened read only, so missing file
+     * is not created.
+     */
+    public void setReplica(File folder, String fileName) {
+	File file = new File(folder, fileName);
+	if (!file.isFile()) {
+	    CMIMessages.consoleMessage("&cRead replica file " + file.getName() + " does not exist, using main database");
+	    return;
+	}
+	// Open mode 1 is read only without create flag
+	setReplica("org.sqlite.JDBC", "jdbc:sqlite:" + file.getPath() + "?open_mode=1", null, null);
+    }
+
     @Override
     protected void checkUpdate() throws SQLException {
 	JobsConnection conn = getConnection();
@@ -42,6 +60,45 @@ public class JobsSQLite extends JobsDAO {
 	    + "users` (`id` INTEGER PRIMARY KEY AUTOINCREMENT, `player_uuid` varchar(36) NOT NULL, `username` varchar(20), `data` text);");
     }
 
+    /**
+     * SQLite has no collumn listing for whole database, so table list is read once and then collumns of each table
+     */
+    @Override
+    protected Map<String, Set<String>> loadSchema() throws SQLException {
+	JobsConnection conn = getConnection();
+	if (conn == null)
+	    throw new SQLException("Not connected to SQLite database");
+
+	Map<String, Set<String>> schema = new HashMap<>();
+	Statement statement = null;
+	ResultSet res = null;
+	try {
+	    statement = conn.createStatement();
+	    res = statement.executeQuery("SELECT `name` FROM `sqlite_master` WHERE `type` = 'table';");
+	    while (res.next()) {
+		schema.put(res.getString(1).toLowerCase(), new HashSet<>());
+	    }
+	    close(res);
+
+	    for (DBTables one : DBTables.values()) {
+		Set<String> collumns = schema.get(one.getTableName().toLowerCase());
+		if (collumns == null)
+		    continue;
+
+		res = statement.executeQuery("PRAGMA table_info(`" + one.getTableName() + "`);");
+		while (res.next()) {
+		    collumns.add(res.getString("name").toLowerCase());
+		}
+		close(res);
+	    }
+	    res = null;
+	} finally {
+	    close(res);
+	    close(statement);
+	}
+	return schema;
+    }
+
     @Override
     public Statement prepareStatement(String query) throws SQLException {
 	JobsConnection conn = getConnection();
@@ -136,11 +193,10 @@ public class JobsSQLite extends JobsDAO {
 		return false;
 	    }
 	    statement = getConnection().createStatement();
-	    statement.executeQuery("DELETE FROM `" + table + "`;");
+	    statement.executeUpdate("DELETE FROM `" + table + "`;");
 	    return true;
 	} catch (SQLException e) {
-	    if (!(e.getMessage().toLowerCase().contains("locking") || e.getMessage().toLowerCase().contains("locked")) &&
-		!e.toString().contains("not return ResultSet"))
+	    if (!(e.getMessage().toLowerCase().contains("locking") || e.getMessage().toLowerCase().contains("locked")))
 		CMIMessages.consoleMessage("&cError in wipeTable() query: " + e);
 	    return false;
 	} finally {
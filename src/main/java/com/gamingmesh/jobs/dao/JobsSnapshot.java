@@ -0,0 +1,403 @@
+package com.gamingmesh.jobs.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.config.ExploreManager;
+import com.gamingmesh.jobs.container.ArchivedJobs;
+import com.gamingmesh.jobs.container.CurrencyType;
+import com.gamingmesh.jobs.container.ExploreRegion;
+import com.gamingmesh.jobs.container.Job;
+import com.gamingmesh.jobs.container.JobProgression;
+import com.gamingmesh.jobs.container.JobsPlayer;
+import com.gamingmesh.jobs.container.Log;
+import com.gamingmesh.jobs.container.LogAmounts;
+import com.gamingmesh.jobs.container.LongHashMap;
+import com.gamingmesh.jobs.container.PlayerInfo;
+import com.gamingmesh.jobs.container.PlayerPoints;
+import com.gamingmesh.jobs.economy.PaymentData;
+import com.gamingmesh.jobs.stuff.ToggleBarHandling;
+
+import net.Zrips.CMILib.Messages.CMIMessages;
+import net.Zrips.CMILib.Time.CMITimeManager;
+
+/**
+ * Binary copy of preloaded player and explorer data, written on clean shutdown and read on next startup instead of
+ * loading same data from database.
+ * <p>
+ * Snapshot carries random marker which is stored in database only after all data was saved. Marker is removed from
+ * database as soon as plugin starts, so snapshot is trusted only while database was not changed by plugin since it was
+ * written. File content is protected by format version and CRC32 checksum.
+ */
+public class JobsSnapshot {
+
+    public static final String MARKER = "snapshot";
+
+    private static final int MAGIC = 0x4A4F4253;
+    private static final int VERSION = 1;
+
+    private final Map<UUID, PlayerInfo> users = new HashMap<>();
+    private final Map<Integer, List<JobsDAOData>> jobs = new HashMap<>();
+    private final Map<Integer, PlayerPoints> points = new HashMap<>();
+    private final Map<Integer, Map<String, Log>> logs = new HashMap<>();
+    private final Map<Integer, ArchivedJobs> archives = new HashMap<>();
+    private final Map<Integer, PaymentData> limits = new HashMap<>();
+    private final List<Object[]> explore = new ArrayList<>();
+    private boolean hasExplore = false;
+
+    private JobsSnapshot() {
+    }
+
+    /**
+     * Writes current player and explorer data, should be called after everything was saved into database
+     * @param marker - random marker which will be stored in database once writing succeeds
+     * @throws IOException
+     */
+    public static void save(File file, String marker) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+
+        body.writeInt(CMITimeManager.timeInInt());
+
+        Map<UUID, PlayerInfo> infos = Jobs.getPlayerManager().getPlayersInfoUUIDMap();
+        body.writeInt(infos.size());
+        for (PlayerInfo info : infos.values()) {
+            JobsPlayer jPlayer = Jobs.getPlayerManager().getPlayersCache().get(info.getUuid());
+
+            body.writeInt(info.getID());
+            body.writeLong(info.getUuid().getMostSignificantBits());
+            body.writeLong(info.getUuid().getLeastSignificantBits());
+            writeString(body, info.getName());
+            if (jPlayer == null) {
+                body.writeLong(info.getSeen() == null ? 0L : info.getSeen());
+                body.writeInt(info.getQuestsDone() == null ? 0 : info.getQuestsDone());
+                writeString(body, info.getQuestProgression());
+                writeInteger(body, info.getMessageOptions());
+            } else {
+                body.writeLong(jPlayer.getSeen());
+                body.writeInt(jPlayer.getDoneQuests());
+                writeString(body, jPlayer.getQuestProgressionString());
+                writeInteger(body, ToggleBarHandling.getPlayerOptionsAsInt(jPlayer.getUniqueId()));
+            }
+        }
+
+        List<JobsPlayer> players = new ArrayList<>();
+        for (JobsPlayer jPlayer : Jobs.getPlayerManager().getPlayersCache().values()) {
+            if (jPlayer.getUserId() > 0)
+                players.add(jPlayer);
+        }
+
+        body.writeInt(players.size());
+        for (JobsPlayer jPlayer : players) {
+            writePlayer(body, jPlayer);
+        }
+
+        boolean withExplore = Jobs.getExploreManager().isExploreEnabled() && Jobs.getGCManager().ExploreSaveIntoDatabase && !Jobs.getGCManager().useNewExploration;
+        body.writeBoolean(withExplore);
+        if (withExplore)
+            writeExplore(body, Jobs.getExploreManager());
+
+        body.flush();
+        byte[] data = bytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp.toPath()))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(marker);
+            out.writeLong(crc.getValue());
+            out.writeInt(data.length);
+            out.write(data);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writePlayer(DataOutputStream out, JobsPlayer jPlayer) throws IOException {
+        out.writeInt(jPlayer.getUserId());
+
+        List<JobProgression> progression = jPlayer.getJobProgression();
+        out.writeInt(progression.size());
+        for (JobProgression prog : progression) {
+            writeString(out, prog.getJob().getName());
+            out.writeInt(prog.getLevel());
+            out.writeDouble(prog.getExperience());
+            out.writeInt(prog.getVersion());
+        }
+
+        PlayerPoints pointsData = jPlayer.getPointsData();
+        out.writeDouble(pointsData.getCurrentPoints());
+        out.writeDouble(pointsData.getTotalPoints());
+
+        List<JobProgression> archived = new ArrayList<>(jPlayer.getArchivedJobs().getArchivedJobs());
+        out.writeInt(archived.size());
+        for (JobProgression prog : archived) {
+            writeString(out, prog.getJob().getName());
+            out.writeInt(prog.getLevel());
+            out.writeDouble(prog.getExperience());
+            out.writeLong(prog.getLeftOn());
+        }
+
+        PaymentData limit = jPlayer.getPaymentLimit();
+        out.writeInt(CurrencyType.values().length);
+        for (CurrencyType type : CurrencyType.values()) {
+            Long time = limit.getTime(type);
+            out.writeInt(type.getId());
+            out.writeDouble(limit.getAmount(type));
+            out.writeLong(time == null ? 0L : time);
+        }
+
+        Map<String, Log> log = jPlayer.getLog();
+        out.writeInt(log.size());
+        for (Log one : log.values()) {
+            writeString(out, one.getActionType());
+            out.writeInt(one.getAmountList().size());
+            for (LogAmounts amounts : one.getAmountList().values()) {
+                writeString(out, amounts.getItemName());
+                out.writeInt(amounts.getCount());
+                out.writeDouble(amounts.get(CurrencyType.MONEY));
+                out.writeDouble(amounts.get(CurrencyType.EXP));
+                out.writeDouble(amounts.get(CurrencyType.POINTS));
+            }
+        }
+    }
+
+    private static void writeExplore(DataOutputStream out, ExploreManager manager) throws IOException {
+        List<Object[]> chunks = new ArrayList<>();
+        for (Entry<String, LongHashMap<ExploreRegion>> world : manager.getWorlds().entrySet()) {
+            world.getValue().forEach((regionKey, region) -> region.getChunks().forEach((place, chunk) -> {
+                // Chunks without database id were not saved, they would be missing from database
+                if (chunk.getDbId() == -1)
+                    return;
+                chunks.add(new Object[] { world.getKey(), region.getChunkGlobalX((short) place), region.getChunkGlobalZ((short) place),
+                    chunk.serializeNames(), chunk.getDbId() });
+            }));
+        }
+
+        out.writeInt(chunks.size());
+        for (Object[] chunk : chunks) {
+            writeString(out, (String) chunk[0]);
+            out.writeInt((int) chunk[1]);
+            out.writeInt((int) chunk[2]);
+            writeString(out, (String) chunk[3]);
+            out.writeInt((int) chunk[4]);
+        }
+    }
+
+    /**
+     * Reads snapshot if it was written with given marker
+     * @return snapshot or null if it is missing, damaged or does not belong to current database state
+     */
+    public static JobsSnapshot load(File file, String marker) {
+        if (marker == null || marker.isEmpty() || !file.isFile())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file.toPath()))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !marker.equals(in.readUTF()))
+                return null;
+
+            long checksum = in.readLong();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, data.length);
+            if (crc.getValue() != checksum) {
+                CMIMessages.consoleMessage("&cWarm start snapshot is damaged, loading data from database");
+                return null;
+            }
+
+            JobsSnapshot snapshot = new JobsSnapshot();
+            snapshot.read(new DataInputStream(new ByteArrayInputStream(data)));
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void read(DataInputStream in) throws IOException {
+        // Logs are only kept for current day
+        boolean sameDay = in.readInt() == CMITimeManager.timeInInt();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int id = in.readInt();
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            String name = readString(in);
+            long seen = in.readLong();
+            int questsDone = in.readInt();
+            String quests = readString(in);
+            Integer options = readInteger(in);
+            users.put(uuid, new PlayerInfo(name, id, uuid, seen, questsDone, quests, options));
+        }
+
+        count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            readPlayer(in, sameDay);
+        }
+
+        hasExplore = in.readBoolean();
+        if (hasExplore) {
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                explore.add(new Object[] { readString(in), in.readInt(), in.readInt(), readString(in), in.readInt() });
+            }
+        }
+    }
+
+    private void readPlayer(DataInputStream in, boolean sameDay) throws IOException {
+        int id = in.readInt();
+
+        int count = in.readInt();
+        List<JobsDAOData> progression = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            progression.add(new JobsDAOData(readString(in), in.readInt(), in.readDouble(), in.readInt()));
+        }
+        jobs.put(id, progression);
+
+        points.put(id, new PlayerPoints(in.readDouble(), in.readDouble()));
+
+        count = in.readInt();
+        ArchivedJobs archive = new ArchivedJobs();
+        for (int i = 0; i < count; i++) {
+            Job job = Jobs.getJob(readString(in));
+            int level = in.readInt();
+            double exp = in.readDouble();
+            long left = in.readLong();
+            if (job == null)
+                continue;
+            JobProgression jp = new JobProgression(job, null, level, exp);
+            if (left != 0L)
+                jp.setLeftOn(left);
+            archive.addArchivedJob(jp);
+        }
+        archives.put(id, archive);
+
+        count = in.readInt();
+        PaymentData limit = new PaymentData();
+        for (int i = 0; i < count; i++) {
+            CurrencyType type = CurrencyType.get(in.readInt());
+            double amount = in.readDouble();
+            long time = in.readLong();
+            if (type != null)
+                limit.addNewAmount(type, amount, time == 0L ? null : time);
+        }
+        limits.put(id, limit);
+
+        count = in.readInt();
+        Map<String, Log> log = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Log one = new Log(readString(in));
+            int entries = in.readInt();
+            for (int e = 0; e < entries; e++) {
+                String item = readString(in);
+                int amount = in.readInt();
+                Map<CurrencyType, Double> amounts = new HashMap<>();
+                amounts.put(CurrencyType.MONEY, in.readDouble());
+                amounts.put(CurrencyType.EXP, in.readDouble());
+                amounts.put(CurrencyType.POINTS, in.readDouble());
+                one.add(item, amount, amounts);
+            }
+            log.put(one.getActionType(), one);
+        }
+        if (sameDay)
+            logs.put(id, log);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeInt(value);
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    /**
+     * Fills player info map the same way {@link JobsDAO#loadPlayerData()} does
+     */
+    public void loadPlayerData() {
+        Jobs.getPlayerManager().clearMaps();
+        for (PlayerInfo info : users.values()) {
+            Jobs.getPlayerManager().addPlayerToMap(info);
+        }
+    }
+
+    /**
+     * Fills explorer data the same way {@link JobsDAO#loadExplore()} does
+     * @return false if snapshot was written without explorer data
+     */
+    public boolean loadExplore() {
+        if (!hasExplore || !Jobs.getExploreManager().isExploreEnabled() || !Jobs.getGCManager().ExploreSaveIntoDatabase)
+            return false;
+
+        ExploreManager manager = Jobs.getExploreManager();
+        for (Object[] chunk : explore) {
+            manager.load((String) chunk[0], 0, (int) chunk[1], (int) chunk[2], (String) chunk[3], (int) chunk[4]);
+        }
+        explore.clear();
+        return true;
+    }
+
+    public int getUserCount() {
+        return users.size();
+    }
+
+    public Map<Integer, List<JobsDAOData>> getJobs() {
+        return jobs;
+    }
+
+    public Map<Integer, PlayerPoints> getPoints() {
+        return points;
+    }
+
+    public Map<Integer, Map<String, Log>> getLogs() {
+        return logs;
+    }
+
+    public Map<Integer, ArchivedJobs> getArchives() {
+        return archives;
+    }
+
+    public Map<Integer, PaymentData> getLimits() {
+        return limits;
+    }
+}
@@ -0,0 +1,521 @@
+package com.gamingmesh.jobs.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.config.ExploreManager.DirtyChunk;
+import com.gamingmesh.jobs.container.ArchivedJobs;
+import com.gamingmesh.jobs.container.BlockProtection;
+import com.gamingmesh.jobs.container.Job;
+import com.gamingmesh.jobs.container.JobProgression;
+import com.gamingmesh.jobs.container.JobsPlayer;
+import com.gamingmesh.jobs.container.JobsQuestTop;
+import com.gamingmesh.jobs.container.JobsTop;
+import com.gamingmesh.jobs.container.JobsTop.topStats;
+import com.gamingmesh.jobs.container.Log;
+import com.gamingmesh.jobs.container.PlayerInfo;
+import com.gamingmesh.jobs.container.PlayerPoints;
+import com.gamingmesh.jobs.container.TopList;
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+import com.gamingmesh.jobs.dao.JobsDAO.LogRollupTier;
+import com.gamingmesh.jobs.dao.JobsManager.DataBaseType;
+import com.gamingmesh.jobs.economy.PaymentData;
+
+/**
+ * Storage operations every storage backend has to provide.
+ * <p>
+ * {@link JobsDAO} implements these on top of SQL tables while {@link JobsEmbedded} keeps them in embedded append only store.
+ * Operations block until they are done and are only called on storage thread through {@link #runAsync(Runnable)} or
+ * {@link #supplyAsync(Supplier)}, methods ending with Async do that on their own. Only {@link #setUp()} and
+ * {@link #toplist(String)}, which returns cached list, are called directly.
+ */
+public interface JobsStorage {
+
+    /**
+     * Opens storage and prepares its structure
+     * @return true if storage is ready to be used
+     */
+    boolean setUp();
+
+    boolean isConnected();
+
+    DataBaseType getDbType();
+
+    /**
+     * Runs storage task on dedicated storage thread
+     * @param task - the task
+     * @return future which completes after the task is done
+     */
+    CompletableFuture<Void> runAsync(Runnable task);
+
+    /**
+     * Gets value from storage on dedicated storage thread
+     * @param supplier - the value supplier
+     * @return future which completes with supplied value
+     */
+    <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier);
+
+    boolean truncate(String table);
+
+    void truncateAllTables();
+
+    /**
+     * Converts job and world names recorded by old versions into their ids
+     */
+    void triggerTableIdUpdate();
+
+    /**
+     * Finishes pending tasks and closes storage
+     */
+    void closeConnections();
+
+    // Players
+
+    void loadPlayerData();
+
+    PlayerInfo loadPlayerData(UUID uuid);
+
+    void recordNewPlayer(String playerName, UUID uuid);
+
+    default void recordNewPlayer(Player player) {
+        recordNewPlayer(player.getName(), player.getUniqueId());
+    }
+
+    void updateSeen(JobsPlayer player);
+
+    default void updateSeenAsync(JobsPlayer player) {
+        runAsync(() -> updateSeen(player));
+    }
+
+    void resetDoneQuests();
+
+    default CompletableFuture<Void> resetDoneQuestsAsync() {
+        return runAsync(this::resetDoneQuests);
+    }
+
+    void cleanUsers();
+
+    /**
+     * Marks player as being played on this server when several servers share same storage
+     * @return true if player can be loaded
+     */
+    boolean claimPlayer(UUID uuid, boolean force);
+
+    void releasePlayer(UUID uuid);
+
+    default CompletableFuture<Void> releasePlayerAsync(UUID uuid) {
+        return runAsync(() -> releasePlayer(uuid));
+    }
+
+    void releaseAllPlayers();
+
+    default CompletableFuture<JobsPlayer> loadFromDaoAsync(JobsPlayer jPlayer) {
+        return supplyAsync(() -> loadFromDao(jPlayer));
+    }
+
+    default JobsPlayer loadFromDao(JobsPlayer jPlayer) {
+        List<JobsDAOData> list = getAllJobs(jPlayer.getName(), jPlayer.getUniqueId());
+        jPlayer.progression.clear();
+        for (JobsDAOData jobdata : list) {
+            if (!Jobs.getInstance().isEnabled())
+                return null;
+
+            // add the job
+            Job job = Jobs.getJob(jobdata.getJobName());
+            if (job != null) {
+                JobProgression prog = new JobProgression(job, jPlayer, jobdata.getLevel(), jobdata.getExperience());
+                prog.setSynced(jobdata.getLevel(), jobdata.getExperience(), jobdata.getVersion());
+                jPlayer.progression.add(prog);
+            }
+        }
+        jPlayer.reloadMaxExperience();
+        jPlayer.reloadLimits();
+        jPlayer.setUserId(Jobs.getPlayerManager().getPlayerId(jPlayer.getUniqueId()));
+        return jPlayer;
+    }
+
+    @Deprecated
+    default CompletableFuture<JobsPlayer> loadFromDaoAsync(OfflinePlayer player) {
+        return loadFromDaoAsync(new JobsPlayer(player));
+    }
+
+    @Deprecated
+    default JobsPlayer loadFromDao(OfflinePlayer player) {
+        return loadFromDao(new JobsPlayer(player));
+    }
+
+    // Job progression
+
+    List<JobsDAOData> getAllJobs(String playerName, UUID uuid);
+
+    default CompletableFuture<List<JobsDAOData>> getAllJobsSync(String playerName, UUID uuid) {
+        return supplyAsync(() -> getAllJobs(playerName, uuid));
+    }
+
+    default CompletableFuture<List<JobsDAOData>> getAllJobsAsync(OfflinePlayer player) {
+        return supplyAsync(() -> getAllJobs(player.getName(), player.getUniqueId()));
+    }
+
+    @Deprecated
+    default List<JobsDAOData> getAllJobs(OfflinePlayer player) {
+        return getAllJobs(player.getName(), player.getUniqueId());
+    }
+
+    Map<Integer, List<JobsDAOData>> getAllJobs();
+
+    List<JobsDAOData> getAllJobsOffline(String userName);
+
+    /**
+     * Get all jobs the player is part of.
+     * @param userName - the player being searched for
+     * @return future with list of all of the names of the jobs the players are part of.
+     */
+    default CompletableFuture<List<JobsDAOData>> getAllJobsOfflineAsync(String userName) {
+        return supplyAsync(() -> getAllJobsOffline(userName));
+    }
+
+    void insertJob(JobsPlayer jPlayer, JobProgression prog);
+
+    /**
+     * Join a job (create player-job entry from storage)
+     * @param player - player that wishes to join the job
+     * @param job - job that the player wishes to join
+     */
+    default CompletableFuture<Void> joinJob(JobsPlayer jPlayer, JobProgression job) {
+        return runAsync(() -> insertJob(jPlayer, job));
+    }
+
+    boolean quitJob(JobsPlayer jPlayer, Job job);
+
+    /**
+     * Quit a job (delete player-job entry from storage) on storage thread
+     * @param player - player that wishes to quit the job
+     * @param job - job that the player wishes to quit
+     */
+    default CompletableFuture<Boolean> quitJobAsync(JobsPlayer jPlayer, Job job) {
+        return supplyAsync(() -> quitJob(jPlayer, job));
+    }
+
+    boolean removeSpecificJob(int userId, String jobName, String legacyName, int level, double exp);
+
+    /**
+     * Remove duplicated job by specific criteria on storage thread
+     */
+    default CompletableFuture<Boolean> removeSpecificJobAsync(int userId, String jobName, String legacyName, int level, double exp) {
+        return supplyAsync(() -> removeSpecificJob(userId, jobName, legacyName, level, exp));
+    }
+
+    void save(JobsPlayer player);
+
+    default void saveAsync(JobsPlayer player) {
+        runAsync(() -> save(player));
+    }
+
+    int getSlotsTaken(Job job);
+
+    /**
+     * Get the number of players that have a particular job
+     * @param job - the job
+     * @return  the number of players that have a particular job
+     */
+    default CompletableFuture<Integer> getSlotsTakenAsync(Job job) {
+        return supplyAsync(() -> getSlotsTaken(job));
+    }
+
+    int getTotalPlayerAmountByJobName(String jobName);
+
+    default CompletableFuture<Integer> getTotalPlayerAmountByJobNameAsync(String jobName) {
+        return supplyAsync(() -> getTotalPlayerAmountByJobName(jobName));
+    }
+
+    /**
+     * Get player count for a job.
+     * @return total amount of player currently working.
+     */
+    default int getTotalPlayers() {
+        return Job.getAllTotalPlayers();
+    }
+
+    /**
+     * @return job id mapped to amount of players in that job
+     */
+    Map<Integer, Integer> getJobCounts();
+
+    List<TopList> toplist(String jobsname);
+
+    /**
+     * Get player list by total job level
+     * @return info - information about jobs
+     */
+    @Deprecated
+    default List<TopList> getGlobalTopList() {
+        List<TopList> list = new ArrayList<>();
+        List<UUID> top = JobsTop.getGlobalTopList(0);
+        if (top == null)
+            return list;
+
+        for (UUID uuid : top) {
+            topStats stats = uuid == null ? null : JobsTop.getGlobalStats(uuid);
+            if (stats != null)
+                list.add(new TopList(uuid, stats.getLevel(), (int) stats.getExperience()));
+        }
+        return list;
+    }
+
+    /**
+     * Get players by quests done
+     * @return info - information about jobs
+     */
+    @Deprecated
+    default List<TopList> getQuestTopList() {
+        List<TopList> list = new ArrayList<>();
+        List<UUID> top = JobsQuestTop.getGlobalTopList(0);
+        if (top == null)
+            return list;
+
+        for (UUID uuid : top) {
+            Integer done = uuid == null ? null : JobsQuestTop.getGlobalCount(uuid);
+            if (done != null)
+                list.add(new TopList(uuid, done, 0));
+        }
+        return list;
+    }
+
+    void cleanJobs();
+
+    // Database information
+
+    String getMeta(String name);
+
+    void setMeta(String name, String value);
+
+    // World and job name ids
+
+    void loadAllJobsWorlds();
+
+    void recordNewWorld(String worldName);
+
+    void recordNewWorld(String worldName, int id);
+
+    void loadAllJobsNames();
+
+    void recordNewJobName(Job job);
+
+    void recordNewJobName(Job job, int id);
+
+    // Points
+
+    Map<Integer, PlayerPoints> getAllPoints();
+
+    PlayerPoints getPlayerPoints(JobsPlayer player);
+
+    void loadPoints(JobsPlayer player);
+
+    void savePoints(JobsPlayer jPlayer);
+
+    default void savePointsAsync(JobsPlayer player) {
+        runAsync(() -> savePoints(player));
+    }
+
+    // Limits
+
+    Map<Integer, PaymentData> loadPlayerLimits();
+
+    PaymentData getPlayersLimits(JobsPlayer jPlayer);
+
+    void recordPlayersLimits(JobsPlayer jPlayer);
+
+    default void recordPlayersLimitsAsync(JobsPlayer player) {
+        runAsync(() -> recordPlayersLimits(player));
+    }
+
+    void clearLimitsTable();
+
+    default CompletableFuture<Void> clearLimitsTableAsync() {
+        return runAsync(this::clearLimitsTable);
+    }
+
+    // Logs
+
+    Map<Integer, Map<String, Log>> getAllLogs();
+
+    void loadLog(JobsPlayer player);
+
+    /**
+     * Saves log entries of player changed since last save
+     */
+    default void saveLog(JobsPlayer player) {
+        saveLog(player, Jobs.getLoging().takeChangedLog(player));
+    }
+
+    /**
+     * Writes given log entries, new entries are inserted and others replace their rows
+     * @param logs - entries copied by {@link com.gamingmesh.jobs.stuff.Loging#takeChangedLog(JobsPlayer)}
+     */
+    void saveLog(JobsPlayer player, Collection<Log> logs);
+
+    default void saveLogAsync(JobsPlayer player) {
+        runAsync(() -> saveLog(player));
+    }
+
+    List<Integer> getLognameList(int fromtime, int untiltime);
+
+    /**
+     * Get player log summed up from raw and rolled up log entries
+     * @param userId - player id
+     * @param fromtime - date from which entries should be included, rolled up weeks and months only when they start on or after it
+     * @return log by action type
+     */
+    Map<String, Log> getPlayerLog(int userId, int fromtime);
+
+    /**
+     * Get all players logs summed up from raw and rolled up log entries
+     * @param fromtime - date from which entries should be included, rolled up weeks and months only when they start on or after it
+     * @return log by player id and action type
+     */
+    Map<Integer, Map<String, Log>> getGlobalLog(int fromtime);
+
+    /**
+     * Rolls log entries older than given dates into weekly and monthly aggregate rows.
+     * @param weeklyUntil - raw log rows recorded before this date are moved into weekly rows
+     * @param monthlyUntil - weekly rows which started before this date are moved into monthly rows
+     * @param batchSize - max amount of rows processed at once
+     * @return total amount of compacted rows
+     */
+    default int rollupLogs(int weeklyUntil, int monthlyUntil, int batchSize) {
+        int total = 0;
+        int done;
+        while ((done = rollupLogBatch(null, weeklyUntil, batchSize)) > 0) {
+            total += done;
+        }
+        while ((done = rollupLogBatch(LogRollupTier.week, monthlyUntil, batchSize)) > 0) {
+            total += done;
+        }
+        return total;
+    }
+
+    /**
+     * Moves up to batch size of rows into rolled up rows of next tier, batch is committed on its own.
+     * @param from - tier of rows being moved, null for raw log rows which are moved into weekly rows
+     * @param until - rows which started before this date are moved
+     * @param batchSize - max amount of rows processed at once
+     * @return amount of moved rows
+     */
+    int rollupLogBatch(LogRollupTier from, int until, int batchSize);
+
+    // Archive
+
+    Map<Integer, ArchivedJobs> getAllArchivedJobs();
+
+    ArchivedJobs getArchivedJobs(JobsPlayer player);
+
+    void insertArchive(int userId, Job job, int level, double exp);
+
+    void deleteArchive(int userId, Job job);
+
+    /**
+     * Record job to archive
+     * @param player - player that wishes to quit the job
+     * @param job - job that the player wishes to quit
+     */
+    default void recordToArchive(JobsPlayer jPlayer, Job job) {
+        JobProgression jp = jPlayer.getJobProgression(job);
+        if (jp == null)
+            return;
+        jp.setLeftOn(System.currentTimeMillis());
+        jPlayer.getArchivedJobs().addArchivedJob(jp);
+        insertArchive(jPlayer.getUserId(), job, jp.getLevel(), jp.getExperience());
+    }
+
+    /**
+     * Record job to archive, archived job list is updated right away while storage entry is written on storage thread
+     * @param player - player that wishes to quit the job
+     * @param job - job that the player wishes to quit
+     */
+    default CompletableFuture<Void> recordToArchiveAsync(JobsPlayer jPlayer, Job job) {
+        JobProgression jp = jPlayer.getJobProgression(job);
+        if (jp == null)
+            return CompletableFuture.completedFuture(null);
+        jp.setLeftOn(System.currentTimeMillis());
+        jPlayer.getArchivedJobs().addArchivedJob(jp);
+        int userId = jPlayer.getUserId();
+        int level = jp.getLevel();
+        double experience = jp.getExperience();
+        return runAsync(() -> insertArchive(userId, job, level, experience));
+    }
+
+    /**
+     * Delete job from archive
+     * @param player - player that wishes to quit the job
+     * @param job - job that the player wishes to quit
+     */
+    default void deleteArchive(JobsPlayer jPlayer, Job job) {
+        jPlayer.getArchivedJobs().removeArchivedJob(job);
+        deleteArchive(jPlayer.getUserId(), job);
+    }
+
+    /**
+     * Delete job from archive, archived job list is updated right away while storage entry is removed on storage thread
+     * @param player - player that wishes to quit the job
+     * @param job - job that the player wishes to quit
+     */
+    default CompletableFuture<Void> deleteArchiveAsync(JobsPlayer jPlayer, Job job) {
+        jPlayer.getArchivedJobs().removeArchivedJob(job);
+        int userId = jPlayer.getUserId();
+        return runAsync(() -> deleteArchive(userId, job));
+    }
+
+    // Explore
+
+    /**
+     * Writes values of changed explored chunks, called on database thread
+     * @return ids of inserted chunks, or null if nothing was saved
+     */
+    Map<DirtyChunk, Integer> saveExplore(List<DirtyChunk> dirty);
+
+    void loadExplore();
+
+    boolean deleteExploredWorld(String worldName);
+
+    // Block protection
+
+    void saveBlockProtection(String world, Collection<BlockProtection> changed);
+
+    /**
+     * Removes expired block protection entries, entries themselves are loaded by region when chunks load
+     */
+    void loadBlockProtection();
+
+    /**
+     * Loads block protection entries of 32x32 chunk region
+     */
+    List<BlockProtection> loadBlockProtection(String world, int regionX, int regionZ);
+
+    // Conversion, rows start with their id followed by values in table field order
+
+    /**
+     * Gets full table names of this storage, they stay correct while other storage is current
+     */
+    Map<DBTables, String> getTableNames();
+
+    List<Object[]> readRows(DBTables table, String tableName, int afterId, int limit) throws SQLException;
+
+    void writeRows(DBTables table, String tableName, List<Object[]> rows) throws SQLException;
+
+    /**
+     * @return biggest row id in table or 0 if table is empty
+     */
+    int getMaxId(DBTables table, String tableName) throws SQLException;
+
+    void clearRows(DBTables table, String tableName) throws SQLException;
+}
@@ -25,9 +25,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
-import org.bukkit.Chunk;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -59,9 +59,12 @@ import org.bukkit.event.player.PlayerItemHeldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.event.world.StructureGrowEvent;
 import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
@@ -102,6 +105,19 @@ public class JobsListener implements Listener {
     private Jobs plugin;
 
     private final Map<UUID, Long> interactDelay = new HashMap<>();
+    // Chunk each player was last seen in, updated in place so moves inside same chunk do not allocate. Players are
+    // handled on their region threads on Folia, so map is shared between threads.
+    private final Map<UUID, LastChunk> lastChunks = new ConcurrentHashMap<>();
+
+    private static class LastChunk {
+        private World world;
+        private long chunk;
+
+        private LastChunk(World world, long chunk) {
+            this.world = world;
+            this.chunk = chunk;
+        }
+    }
 
     public JobsListener(Jobs plugin) {
         this.plugin = plugin;
@@ -119,9 +135,24 @@ public class JobsListener implements Listener {
         return time > 100;
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Jobs.getExploitManager().chunkLoaded(event.getChunk());
+        Jobs.getBpManager().chunkLoaded(event.getChunk());
+        Jobs.getChunkExplorationManager().chunkLoaded(event.getChunk());
+    }
+
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
     public void onChunkUnload(ChunkUnloadEvent event) {
         Jobs.getExploitManager().removePDC(event.getChunk());
+        Jobs.getBpManager().chunkUnloaded(event.getChunk());
+        Jobs.getChunkExplorationManager().chunkUnloaded(event.getChunk());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldSave(WorldSaveEvent event) {
+        Jobs.getExploitManager().save(event.getWorld());
+        Jobs.getChunkExplorationManager().save(event.getWorld());
     }
 
     @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
@@ -141,6 +172,10 @@ public class JobsListener implements Listener {
         if (!Jobs.getGCManager().canPerformActionInWorld(event.getBlock().getWorld()))
             return;
 
+        // Most flows reach blocks without any protection
+        if (Jobs.getGCManager().useNewBlockProtection && !Jobs.getExploitManager().mightBeProtected(event.getToBlock()))
+            return;
+
         // Ignoring air blocks
         if (CMIMaterial.isAir(event.getToBlock().getType()))
             return;
@@ -214,11 +249,13 @@ public class JobsListener implements Listener {
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         Jobs.getPlayerManager().playerQuit(event.getPlayer());
+        lastChunks.remove(event.getPlayer().getUniqueId());
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerWorldChange(PlayerChangedWorldEvent event) {
         Jobs.getPermissionHandler().recalculatePermissions(Jobs.getPlayerManager().getJobsPlayer(event.getPlayer()));
+        setLastChunk(event.getPlayer(), event.getPlayer().getLocation());
     }
 
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
@@ -575,34 +612,54 @@ public class JobsListener implements Listener {
         return true;
     }
 
+    private static long getChunkKey(Location loc) {
+        return ((long) (loc.getBlockX() >> 4) << 32) | ((loc.getBlockZ() >> 4) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Records chunk player is in without calling chunk change, so next move is compared with it and not with chunk
+     * player was in before teleport
+     */
+    private void setLastChunk(Player player, Location loc) {
+        LastChunk last = lastChunks.get(player.getUniqueId());
+        if (last == null) {
+            lastChunks.put(player.getUniqueId(), new LastChunk(loc.getWorld(), getChunkKey(loc)));
+            return;
+        }
+
+        last.world = loc.getWorld();
+        last.chunk = getChunkKey(loc);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onChunkChangeTeleport(PlayerTeleportEvent event) {
+        if (event.getTo() != null)
+            setLastChunk(event.getPlayer(), event.getTo());
+    }
+
     @EventHandler(ignoreCancelled = true)
     public void onChunkChangeMove(PlayerMoveEvent event) {
         if (!event.getPlayer().isOnline() || event.getTo() == null || !Jobs.getGCManager().canPerformActionInWorld(event.getTo().getWorld()))
             return;
 
-        final Player player = event.getPlayer();
-        final Location toLoc = event.getTo().clone();
-        final Location fromLoc = event.getFrom().clone();
-
-        CMIScheduler.runAtLocationLater(plugin, toLoc, () -> {
-            final Chunk to = toLoc.getChunk();
-            final int toX = to.getX();
-            final int toZ = to.getZ();
-            final World toWorld = to.getWorld();
+        Player player = event.getPlayer();
+        Location to = event.getTo();
+        World toWorld = to.getWorld();
+        long toChunk = getChunkKey(to);
+
+        LastChunk last = lastChunks.get(player.getUniqueId());
+        if (last == null) {
+            last = new LastChunk(event.getFrom().getWorld(), getChunkKey(event.getFrom()));
+            lastChunks.put(player.getUniqueId(), last);
+        }
 
-            CMIScheduler.runAtLocationLater(plugin, fromLoc, () -> {
-                final Chunk from = fromLoc.getChunk();
+        if (last.chunk == toChunk && last.world == toWorld)
+            return;
 
-                final boolean changed =
-                    from.getWorld() != toWorld ||
-                    from.getX() != toX ||
-                    from.getZ() != toZ;
+        last.world = toWorld;
+        last.chunk = toChunk;
 
-                if (changed) {
-                    plugin.getServer().getPluginManager().callEvent(new JobsChunkChangeEvent(player, from, to));
-                }
-            }, 1L);
-        }, 1L);
+        plugin.getServer().getPluginManager().callEvent(new JobsChunkChangeEvent(player, event.getFrom().getChunk(), to.getChunk()));
     }
 
     @EventHandler(ignoreCancelled = true)
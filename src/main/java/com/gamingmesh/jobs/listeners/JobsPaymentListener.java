@@ -27,6 +27,7 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -103,6 +104,7 @@ import com.gamingmesh.jobs.actions.PotionItemActionInfo;
 import com.gamingmesh.jobs.api.JobsChunkChangeEvent;
 import com.gamingmesh.jobs.container.ActionType;
 import com.gamingmesh.jobs.container.ExploreRespond;
+import com.gamingmesh.jobs.container.ExploredChunks;
 import com.gamingmesh.jobs.container.FastPayment;
 import com.gamingmesh.jobs.container.JobItems;
 import com.gamingmesh.jobs.container.JobProgression;
@@ -1879,12 +1881,21 @@ public final class JobsPaymentListener implements Listener {
         if (jPlayer == null)
             return;
 
+        Chunk chunk = event.getNewChunk();
+        ExploredChunks explored = jPlayer.getExploredChunks();
+
+        // Chunks player explored before are never new for him
+        if (explored.contains(playerWorld, chunk.getX(), chunk.getZ()))
+            return;
+
         ExploreRespond respond = null;
 
         if (Jobs.getGCManager().useNewExploration)
-            respond = Jobs.getChunkExplorationManager().chunkRespond(jPlayer.getUserId(), event.getNewChunk());
+            respond = Jobs.getChunkExplorationManager().chunkRespond(jPlayer.getUserId(), chunk);
         else
-            respond = Jobs.getExploreManager().chunkRespond(jPlayer.getUserId(), event.getNewChunk());
+            respond = Jobs.getExploreManager().chunkRespond(jPlayer.getUserId(), chunk);
+
+        explored.add(playerWorld, chunk.getX(), chunk.getZ());
 
         if (!respond.isNewChunk())
             return;
@@ -1,5 +1,8 @@
 package com.gamingmesh.jobs.stuff;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.gamingmesh.jobs.Jobs;
@@ -7,21 +10,27 @@ import com.gamingmesh.jobs.container.ActionInfo;
 import com.gamingmesh.jobs.container.CurrencyType;
 import com.gamingmesh.jobs.container.JobsPlayer;
 import com.gamingmesh.jobs.container.Log;
+import com.gamingmesh.jobs.container.LogAmounts;
 
 import net.Zrips.CMILib.Time.CMITimeManager;
 
+/**
+ * Player logs are changed on main thread and saved on database thread, every access to them goes through this class and
+ * is done under its lock.
+ */
 public class Loging {
 
     public void recordToLog(JobsPlayer jPlayer, ActionInfo info, Map<CurrencyType, Double> amounts) {
 	recordToLog(jPlayer, info.getType().getName(), info.getNameWithSub(), amounts);
     }
 
-    public void recordToLog(JobsPlayer jPlayer, String actionName, String item, Map<CurrencyType, Double> amounts) {
+    public synchronized void recordToLog(JobsPlayer jPlayer, String actionName, String item, Map<CurrencyType, Double> amounts) {
 	Map<String, Log> logList = jPlayer.getLog();
 	Log l = logList.values().stream().findFirst().orElse(null);
 	if (l != null && CMITimeManager.timeInInt() != l.getDate()) {
-	    Jobs.getJobsDAO().saveLog(jPlayer);
-	    jPlayer.getLog().clear();
+	    List<Log> changed = takeChangedLog(jPlayer);
+	    Jobs.getJobsDAO().runAsync(() -> Jobs.getJobsDAO().saveLog(jPlayer, changed));
+	    logList.clear();
 	}
 
 	Log log = logList.getOrDefault(actionName, new Log(actionName));
@@ -29,8 +38,81 @@ public class Loging {
 	logList.put(actionName, log);
     }
 
-    public void loadToLog(JobsPlayer jPlayer, String actionName, String item, int count, Map<CurrencyType, Double> amounts) {
-	jPlayer.getLog().getOrDefault(actionName, new Log(actionName)).add(item, count, amounts);
+    /**
+     * Copies entries changed since last save with their full values and marks them as saved
+     * @return logs which should be written into database
+     */
+    public synchronized List<Log> takeChangedLog(JobsPlayer jPlayer) {
+	List<Log> changed = new ArrayList<>();
+	for (Log log : jPlayer.getLog().values()) {
+	    Log copy = null;
+	    for (LogAmounts amounts : log.getAmountList().values()) {
+		if (!amounts.isChanged())
+		    continue;
+
+		if (copy == null) {
+		    copy = new Log(log.getActionType(), log.getDate());
+		    changed.add(copy);
+		}
+		copy.getAmountList().put(amounts.getItemName(), amounts.copy());
+		amounts.setNewEntry(false);
+		amounts.setSaved();
+	    }
+	}
+	return changed;
+    }
+
+    /**
+     * Copies whole player log
+     * @return log by action type
+     */
+    public synchronized Map<String, Log> copyLog(JobsPlayer jPlayer) {
+	Map<String, Log> copy = new HashMap<>();
+	for (Log log : jPlayer.getLog().values()) {
+	    Log one = new Log(log.getActionType(), log.getDate());
+	    for (LogAmounts amounts : log.getAmountList().values()) {
+		one.getAmountList().put(amounts.getItemName(), amounts.copy());
+	    }
+	    copy.put(log.getActionType(), one);
+	}
+	return copy;
+    }
+
+    /**
+     * Copies part of player log which is not yet written into database
+     * @return log by action type
+     */
+    public synchronized Map<String, Log> getUnsavedLog(JobsPlayer jPlayer) {
+	Map<String, Log> unsaved = new HashMap<>();
+	for (Log log : jPlayer.getLog().values()) {
+	    for (LogAmounts amounts : log.getAmountList().values()) {
+		int count = amounts.getUnsavedCount();
+		Map<CurrencyType, Double> unsavedAmounts = amounts.getUnsavedAmounts();
+		if (count != 0 || !unsavedAmounts.isEmpty())
+		    unsaved.computeIfAbsent(log.getActionType(), Log::new).sum(amounts.getItemName(), count, unsavedAmounts);
+	    }
+	}
+	return unsaved;
+    }
+
+    /**
+     * Sums given log entries into log list
+     */
+    public void addToLog(Map<String, Log> logList, Map<String, Log> add) {
+	for (Log log : add.values()) {
+	    Log into = logList.computeIfAbsent(log.getActionType(), Log::new);
+	    for (LogAmounts amounts : log.getAmountList().values()) {
+		Map<CurrencyType, Double> values = new HashMap<>();
+		for (CurrencyType type : CurrencyType.values()) {
+		    values.put(type, amounts.get(type));
+		}
+		into.sum(amounts.getItemName(), amounts.getCount(), values);
+	    }
+	}
+    }
+
+    public synchronized void loadToLog(JobsPlayer jPlayer, String actionName, String item, int count, Map<CurrencyType, Double> amounts) {
+	jPlayer.getLog().computeIfAbsent(actionName, Log::new).add(item, count, amounts);
     }
 
 }
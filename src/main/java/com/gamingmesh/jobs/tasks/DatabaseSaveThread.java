@@ -21,6 +21,7 @@ package com.gamingmesh.jobs.tasks;
 import com.gamingmesh.jobs.Jobs;
 
 import net.Zrips.CMILib.Messages.CMIMessages;
+import net.Zrips.CMILib.Version.Schedulers.CMIScheduler;
 
 public class DatabaseSaveThread extends Thread {
 
@@ -45,8 +46,13 @@ public class DatabaseSaveThread extends Thread {
                 continue;
             }
             try {
-                if (running)
-                    Jobs.getPlayerManager().saveAll();
+                // Saving on database thread so it won't interleave with other database tasks
+                if (running) {
+                    Jobs.getJobsDAO().runAsync(Jobs.getPlayerManager()::saveAll).join();
+                    // Only chunks changed since last save are written, they are taken on main thread where they change
+                    if (Jobs.getGCManager().ExploreSaveIntoDatabase)
+                        CMIScheduler.runTask(Jobs.getInstance(), () -> Jobs.getExploreManager().save(Jobs.getJobsDAO()));
+                }
             } catch (Throwable t) {
                 t.printStackTrace();
                 CMIMessages.consoleMessage("&c[Jobs] Exception in DatabaseSaveTask, stopping auto save!");
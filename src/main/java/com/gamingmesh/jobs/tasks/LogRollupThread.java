@@ -0,0 +1,98 @@
+/**
+ * Jobs Plugin for Bukkit
+ * Copyright (C) 2011 Zak Ford <zak.j.ford@gmail.com>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package com.gamingmesh.jobs.tasks;
+
+import java.time.LocalDate;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.dao.JobsDAO;
+import com.gamingmesh.jobs.dao.JobsDAO.LogRollupTier;
+import com.gamingmesh.jobs.dao.JobsStorage;
+
+import net.Zrips.CMILib.Messages.CMIMessages;
+
+public class LogRollupThread extends Thread {
+
+    private volatile boolean running = true;
+    private int sleep;
+
+    public LogRollupThread(int duration) {
+        super("Jobs-LogRollupTask");
+        this.sleep = duration * 60000;
+    }
+
+    @Override
+    public void run() {
+
+        CMIMessages.consoleMessage("&eStarted log rollup task.");
+
+        while (running) {
+            try {
+                sleep(sleep);
+            } catch (InterruptedException e) {
+                this.running = false;
+                continue;
+            }
+            try {
+                LocalDate now = LocalDate.now();
+                long time = System.currentTimeMillis();
+                int compacted = rollup(null, JobsDAO.toLogTime(now.minusDays(Jobs.getGCManager().LogRollupWeeklyAfterDays)));
+                compacted += rollup(LogRollupTier.week, JobsDAO.toLogTime(now.minusDays(Jobs.getGCManager().LogRollupMonthlyAfterDays)));
+                if (compacted > 0)
+                    CMIMessages.consoleMessage("&e[Jobs] Compacted " + compacted + " log entries in " + (System.currentTimeMillis() - time) + "ms");
+            } catch (InterruptedException e) {
+                this.running = false;
+            } catch (Throwable t) {
+                t.printStackTrace();
+                CMIMessages.consoleMessage("&c[Jobs] Exception in LogRollupTask, stopping log compaction!");
+                running = false;
+            }
+        }
+
+        CMIMessages.consoleMessage("&eLog rollup task shutdown!");
+    }
+
+    /**
+     * Runs every batch as separate task on database thread, so other database calls are not blocked until all of the
+     * rows are compacted
+     * @return amount of compacted rows
+     */
+    private int rollup(LogRollupTier from, int until) throws InterruptedException {
+        int total = 0;
+        while (running) {
+            JobsStorage dao = Jobs.getJobsDAO();
+            if (dao == null)
+                break;
+
+            int done = dao.supplyAsync(() -> dao.rollupLogBatch(from, until, Jobs.getGCManager().LogRollupBatchSize)).join();
+            if (done <= 0)
+                break;
+
+            total += done;
+            sleep(Jobs.getGCManager().LogRollupBatchPause);
+        }
+        return total;
+    }
+
+    public void shutdown() {
+        this.running = false;
+        interrupt();
+    }
+}
@@ -0,0 +1,154 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Open addressing map of block protection entries, removal shifts entries of same probe chain back
+ */
+class BlockProtectionMapTest {
+
+    private static long key(int i) {
+        return BlockProtectionMap.pack(i * 7, i % 300 - 64, -i * 3);
+    }
+
+    private static int capacity(BlockProtectionMap map) throws ReflectiveOperationException {
+        Field field = BlockProtectionMap.class.getDeclaredField("keys");
+        field.setAccessible(true);
+        return ((long[]) field.get(map)).length;
+    }
+
+    private static void assertContains(BlockProtectionMap map, Map<Long, Integer> expected) {
+        assertEquals(expected.size(), map.size());
+        for (Entry<Long, Integer> one : expected.entrySet()) {
+            int index = map.indexOf(one.getKey());
+            assertTrue(index >= 0, "missing entry " + one.getValue());
+            assertEquals((int) one.getValue(), map.getId(index));
+        }
+    }
+
+    @Test
+    void positionIsPackedAndUnpacked() {
+        int[][] positions = { { 0, 0, 0 }, { 15, 320, -15 }, { -30000000, -64, 29999999 }, { 29999999, 2047, -30000000 }, { -1, -1, -1 } };
+        for (int[] pos : positions) {
+            long key = BlockProtectionMap.pack(pos[0], pos[1], pos[2]);
+            assertEquals(pos[0], BlockProtectionMap.unpackX(key));
+            assertEquals(pos[1], BlockProtectionMap.unpackY(key));
+            assertEquals(pos[2], BlockProtectionMap.unpackZ(key));
+        }
+    }
+
+    @Test
+    void entryValuesAreKept() {
+        BlockProtectionMap map = new BlockProtectionMap();
+        long key = BlockProtectionMap.pack(10, -20, 30);
+        assertEquals(-1, map.indexOf(key));
+
+        BlockProtection bp = new BlockProtection(DBAction.UPDATE, 10, -20, 30);
+        bp.setId(42);
+        bp.setPaid(true);
+        bp.setTime(-1);
+        int index = map.put(key, bp);
+
+        assertEquals(index, map.indexOf(key));
+        assertEquals(42, map.getId(index));
+        assertEquals(DBAction.UPDATE, map.getAction(index));
+        assertTrue(map.isPaid(index));
+        assertEquals(-1, map.getTime(index));
+
+        map.setScheduled(index, true);
+        map.setPaid(index, false);
+        assertTrue(map.isScheduled(index));
+        assertFalse(map.isPaid(index));
+
+        BlockProtection read = map.get(index);
+        assertEquals(10, read.getX());
+        assertEquals(-20, read.getY());
+        assertEquals(30, read.getZ());
+        assertEquals(42, read.getId());
+        assertFalse(read.isPaid());
+    }
+
+    @Test
+    void removingAnyEntryOfFullMapKeepsOthers() {
+        // Map is filled up to its resize limit, so probe chains are long
+        int amount = 38;
+        for (int removed = 0; removed < amount; removed++) {
+            BlockProtectionMap map = new BlockProtectionMap();
+            Map<Long, Integer> expected = new HashMap<>();
+            for (int i = 0; i < amount; i++) {
+                map.setId(map.add(key(i)), i);
+                expected.put(key(i), i);
+            }
+
+            map.removeAt(map.indexOf(key(removed)));
+            expected.remove(key(removed));
+
+            assertEquals(-1, map.indexOf(key(removed)));
+            assertContains(map, expected);
+        }
+    }
+
+    @Test
+    void randomChangesMatchReferenceMap() {
+        Random random = new Random(5);
+        BlockProtectionMap map = new BlockProtectionMap();
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int step = 0; step < 20000; step++) {
+            long key = key(random.nextInt(2000));
+            int index = map.indexOf(key);
+            assertEquals(expected.containsKey(key), index >= 0);
+            if (index >= 0) {
+                map.removeAt(index);
+                expected.remove(key);
+            } else {
+                map.setId(map.add(key), step);
+                expected.put(key, step);
+            }
+        }
+
+        assertContains(map, expected);
+    }
+
+    @Test
+    void removeIfChecksShiftedEntriesAndShrinks() throws ReflectiveOperationException {
+        BlockProtectionMap map = new BlockProtectionMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            map.setId(map.add(key(i)), i);
+            if (i % 100 == 0)
+                expected.put(key(i), i);
+        }
+        int capacity = capacity(map);
+
+        // Entry shifted into removed slot has to be tested too, otherwise neighbours of removed entries are left
+        assertEquals(2000 - expected.size(), map.removeIf(index -> map.getId(index) % 100 != 0));
+        assertContains(map, expected);
+        assertTrue(capacity(map) < capacity);
+
+        List<Long> keys = new ArrayList<>(expected.keySet());
+        for (Long key : keys) {
+            map.removeAt(map.indexOf(key));
+        }
+        assertTrue(map.isEmpty());
+
+        // Map is still usable after it was shrunk
+        map.setId(map.add(key(1)), 1);
+        assertEquals(1, map.getId(map.indexOf(key(1))));
+        assertEquals(0, map.removeIf(index -> false));
+        assertEquals(1, map.removeIf(index -> true));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Chunk set regions kept as sorted places until they are dense enough for bitmap
+ */
+class ChunkBitmapTest {
+
+    private static ChunkBitmap copy(ChunkBitmap bitmap) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.write(out);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return ChunkBitmap.read(in);
+        }
+    }
+
+    private static void assertRegion(ChunkBitmap bitmap, int regionX, int regionZ, int amount) {
+        for (int i = 0; i < 1024; i++) {
+            int chunkX = regionX * 32 + (i & 31), chunkZ = regionZ * 32 + (i >> 5);
+            assertEquals(i < amount, bitmap.contains(chunkX, chunkZ), "chunk " + i);
+        }
+    }
+
+    private static void fillRegion(ChunkBitmap bitmap, int regionX, int regionZ, int amount) {
+        // Added in reverse order, so sorted places have to be shifted
+        for (int i = amount - 1; i >= 0; i--) {
+            assertTrue(bitmap.add(regionX * 32 + (i & 31), regionZ * 32 + (i >> 5)));
+        }
+    }
+
+    @Test
+    void chunksAreAddedOnce() {
+        ChunkBitmap bitmap = new ChunkBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertFalse(bitmap.contains(0, 0));
+
+        assertTrue(bitmap.add(-1, -1));
+        assertTrue(bitmap.add(31, 0));
+        assertTrue(bitmap.add(32, 0));
+        assertFalse(bitmap.add(-1, -1));
+
+        assertEquals(3, bitmap.size());
+        assertTrue(bitmap.contains(-1, -1));
+        assertTrue(bitmap.contains(31, 0));
+        assertTrue(bitmap.contains(32, 0));
+        assertFalse(bitmap.contains(-1, 0));
+        assertFalse(bitmap.contains(0, -1));
+    }
+
+    @Test
+    void denseRegionTurnsIntoBitmap() {
+        ChunkBitmap bitmap = new ChunkBitmap();
+        // One region at sparse limit and others past it
+        fillRegion(bitmap, 0, 0, 64);
+        fillRegion(bitmap, -2, 3, 65);
+        fillRegion(bitmap, 5, -1, 1024);
+
+        assertEquals(64 + 65 + 1024, bitmap.size());
+        assertRegion(bitmap, 0, 0, 64);
+        assertRegion(bitmap, -2, 3, 65);
+        assertRegion(bitmap, 5, -1, 1024);
+
+        // Chunks added after switch are still counted once
+        assertFalse(bitmap.add(-64, 96));
+        assertTrue(bitmap.add(-64 + 7, 96 + 20));
+        assertFalse(bitmap.add(-64 + 7, 96 + 20));
+        assertEquals(64 + 65 + 1024 + 1, bitmap.size());
+    }
+
+    @Test
+    void writtenSetIsReadBack() throws IOException {
+        ChunkBitmap bitmap = new ChunkBitmap();
+        fillRegion(bitmap, 0, 0, 10);
+        fillRegion(bitmap, -1, -1, 64);
+        fillRegion(bitmap, 100, -100, 300);
+
+        ChunkBitmap read = copy(bitmap);
+        assertEquals(bitmap.size(), read.size());
+        assertRegion(read, 0, 0, 10);
+        assertRegion(read, -1, -1, 64);
+        assertRegion(read, 100, -100, 300);
+
+        // Read regions can still grow, including switch of region read as sorted places
+        assertTrue(read.add(-32, -30));
+        assertTrue(read.add(10, 0));
+        assertEquals(bitmap.size() + 2, read.size());
+        assertTrue(read.contains(-32, -30));
+        assertTrue(read.contains(10, 0));
+        assertRegion(copy(read), 100, -100, 300);
+
+        assertTrue(copy(new ChunkBitmap()).isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Columns of tracked chunks which can hold protected blocks
+ */
+class ChunkColumnFilterTest {
+
+    @Test
+    void unknownChunkMightContainAnything() {
+        ChunkColumnFilter filter = new ChunkColumnFilter();
+        assertTrue(filter.mightContain(5, 5));
+
+        // Marking column of chunk which is not tracked does nothing
+        filter.mark(5, 5);
+        assertEquals(0, filter.size());
+        assertTrue(filter.mightContain(6, 5));
+    }
+
+    @Test
+    void markedColumnsAreKept() {
+        ChunkColumnFilter filter = new ChunkColumnFilter();
+        filter.clear(-1, 2);
+        assertEquals(1, filter.size());
+
+        for (int x = -16; x < 0; x++) {
+            for (int z = 32; z < 48; z++) {
+                assertFalse(filter.mightContain(x, z));
+            }
+        }
+
+        filter.mark(-16, 32);
+        filter.mark(-1, 47);
+        filter.mark(-9, 40);
+        assertTrue(filter.mightContain(-16, 32));
+        assertTrue(filter.mightContain(-1, 47));
+        assertTrue(filter.mightContain(-9, 40));
+        assertFalse(filter.mightContain(-9, 41));
+        assertFalse(filter.mightContain(-10, 40));
+        // Neighbour chunk is not tracked
+        assertTrue(filter.mightContain(0, 40));
+
+        // Clearing tracked chunk drops its marks
+        filter.clear(-1, 2);
+        assertEquals(1, filter.size());
+        assertFalse(filter.mightContain(-9, 40));
+
+        filter.remove(-1, 2);
+        assertEquals(0, filter.size());
+        assertTrue(filter.mightContain(-9, 41));
+    }
+
+    @Test
+    void removingChunksKeepsOthersAfterResize() {
+        Random random = new Random(11);
+        ChunkColumnFilter filter = new ChunkColumnFilter();
+        Set<Long> tracked = new HashSet<>();
+
+        for (int step = 0; step < 5000; step++) {
+            int chunkX = random.nextInt(60) - 30, chunkZ = random.nextInt(60) - 30;
+            long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+            if (tracked.remove(key)) {
+                filter.remove(chunkX, chunkZ);
+            } else {
+                tracked.add(key);
+                filter.clear(chunkX, chunkZ);
+                // Column marked from chunk coordinates, so it can be checked for every chunk below
+                filter.mark(chunkX * 16 + (chunkX & 15), chunkZ * 16 + (chunkZ & 15));
+            }
+        }
+
+        assertEquals(tracked.size(), filter.size());
+        for (int chunkX = -30; chunkX < 30; chunkX++) {
+            for (int chunkZ = -30; chunkZ < 30; chunkZ++) {
+                long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+                int x = chunkX * 16 + (chunkX & 15), z = chunkZ * 16 + (chunkZ & 15);
+                // Untracked chunk might contain anything, tracked one only its marked column
+                assertTrue(filter.mightContain(x, z));
+                assertEquals(!tracked.contains(key), filter.mightContain(x, z + ((z & 15) == 15 ? -1 : 1)));
+            }
+        }
+    }
+}
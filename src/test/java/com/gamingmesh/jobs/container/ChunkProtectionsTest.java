@@ -0,0 +1,141 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sorted section arrays of chunk protections and their packed form
+ */
+class ChunkProtectionsTest {
+
+    // Protection times are kept in seconds
+    private static final long NOW = 1760000000000L;
+
+    private static String block(int x, int y, int z) {
+        return x + ":" + y + ":" + z;
+    }
+
+    private static Map<String, Long> entries(ChunkProtections protections) {
+        Map<String, Long> map = new HashMap<>();
+        protections.forEach((x, y, z, time, paid) -> map.put(block(x, y, z), time));
+        return map;
+    }
+
+    @Test
+    void entriesAreKeptBySection() {
+        ChunkProtections protections = new ChunkProtections();
+        assertEquals(0, protections.getTime(1, 2, 3));
+        assertTrue(protections.isPaid(1, 2, 3));
+
+        protections.set(1, -64, 3, -1, true);
+        protections.set(15, 319, 0, NOW + 5000, false);
+        protections.set(0, 70, 15, NOW, true);
+        assertEquals(3, protections.size());
+
+        assertEquals(-1, protections.getTime(1, -64, 3));
+        assertEquals(NOW + 5000, protections.getTime(15, 319, 0));
+        assertFalse(protections.isPaid(15, 319, 0));
+        assertEquals(0, protections.getTime(1, -48, 3));
+
+        // Existing entry is replaced
+        protections.set(15, 319, 0, NOW + 9000, true);
+        assertEquals(3, protections.size());
+        assertEquals(NOW + 9000, protections.getTime(15, 319, 0));
+        assertTrue(protections.isPaid(15, 319, 0));
+
+        assertTrue(protections.setPaid(0, 70, 15, false));
+        assertFalse(protections.isPaid(0, 70, 15));
+        assertFalse(protections.setPaid(0, 71, 15, false));
+
+        assertTrue(protections.remove(1, -64, 3));
+        assertFalse(protections.remove(1, -64, 3));
+        assertEquals(2, protections.size());
+        assertEquals(0, protections.getTime(1, -64, 3));
+    }
+
+    @Test
+    void forEachGivesBlockPositionsBack() {
+        ChunkProtections protections = new ChunkProtections();
+        Map<String, Long> expected = new HashMap<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 500; i++) {
+            int x = random.nextInt(16), y = random.nextInt(384) - 64, z = random.nextInt(16);
+            long time = NOW + random.nextInt(100) * 1000L;
+            protections.set(x, y, z, time, true);
+            expected.put(block(x, y, z), time);
+        }
+
+        assertEquals(expected.size(), protections.size());
+        assertEquals(expected, entries(protections));
+    }
+
+    @Test
+    void bytesKeepAllEntries() {
+        ChunkProtections protections = new ChunkProtections();
+        protections.set(3, -60, 4, -1, false);
+        protections.set(3, 10, 4, NOW + 1000, true);
+        protections.set(7, 10, 2, NOW + 2000, true);
+        protections.set(0, 300, 0, NOW, false);
+
+        byte[] bytes = protections.toBytes();
+        ChunkProtections read = ChunkProtections.fromBytes(bytes);
+        assertEquals(4, read.size());
+        assertEquals(entries(protections), entries(read));
+        assertFalse(read.isPaid(3, -60, 4));
+        assertTrue(read.isPaid(7, 10, 2));
+        assertArrayEquals(bytes, read.toBytes());
+
+        // Read entries can still be changed
+        read.set(5, 10, 5, NOW, true);
+        read.remove(3, 10, 4);
+        assertEquals(4, read.size());
+        assertEquals(NOW, read.getTime(5, 10, 5));
+
+        ChunkProtections empty = ChunkProtections.fromBytes(new ChunkProtections().toBytes());
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    void unknownBytesAreNotRead() {
+        assertNull(ChunkProtections.fromBytes(null));
+        assertNull(ChunkProtections.fromBytes(new byte[] { 1 }));
+        assertNull(ChunkProtections.fromBytes(new byte[] { 9, 0, 0 }));
+    }
+
+    @Test
+    void expiredEntriesAreRemoved() {
+        ChunkProtections protections = new ChunkProtections();
+        protections.set(1, 1, 1, NOW - 1000, true);
+        protections.set(2, 1, 1, -1, true);
+        protections.set(3, 1, 1, NOW + 1000, true);
+        protections.set(4, 1, 1, NOW - 5000, false);
+        // Section which has only expired entries is dropped
+        protections.set(1, 40, 1, NOW - 1000, true);
+
+        assertEquals(3, protections.removeExpired(NOW));
+        assertEquals(2, protections.size());
+        assertEquals(-1, protections.getTime(2, 1, 1));
+        assertEquals(NOW + 1000, protections.getTime(3, 1, 1));
+        assertEquals(0, protections.getTime(1, 1, 1));
+        assertEquals(0, protections.getTime(4, 1, 1));
+        assertEquals(0, protections.getTime(1, 40, 1));
+
+        assertEquals(0, protections.removeExpired(NOW));
+        assertEquals(1, protections.removeExpired(NOW + 2000));
+        assertEquals(1, protections.size());
+
+        // Entries left after removal are still found and written
+        ChunkProtections read = ChunkProtections.fromBytes(protections.toBytes());
+        assertEquals(-1, read.getTime(2, 1, 1));
+        assertEquals(1, read.size());
+    }
+}
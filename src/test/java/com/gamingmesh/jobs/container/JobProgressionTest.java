@@ -0,0 +1,106 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gamingmesh.jobs.dao.JobsDAOData;
+
+/**
+ * Merging progression which other server sharing database has changed, every level needs 100 experience
+ */
+class JobProgressionTest {
+
+    Job job;
+    JobsPlayer jPlayer;
+
+    @BeforeEach
+    void setUp() {
+        job = mock(Job.class);
+        when(job.getMaxExp(anyMap())).thenReturn(100D);
+
+        jPlayer = mock(JobsPlayer.class);
+        when(jPlayer.getUniqueId()).thenReturn(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RankingUpdater.shutdown();
+    }
+
+    private JobProgression progression(int savedLevel, double savedExperience, int level, double experience) {
+        JobProgression prog = new JobProgression(job, jPlayer, level, experience);
+        prog.reloadMaxExperience();
+        prog.setSynced(savedLevel, savedExperience, 5);
+        return prog;
+    }
+
+    @Test
+    void levelsGainedHereAreAddedToNewerRow() {
+        // 90 experience to finish level 2 and 20 more in level 3
+        JobProgression prog = progression(2, 10, 3, 20);
+
+        JobsDAOData merged = prog.mergeWith(3, 20, new JobsDAOData("Miner", 4, 50, 8));
+
+        assertEquals(5, merged.getLevel());
+        assertEquals(60, merged.getExperience(), 0.0001);
+        // Progression is only changed once main thread takes merged row
+        assertEquals(3, prog.getLevel());
+    }
+
+    @Test
+    void experienceGainedHereIsAddedToNewerRow() {
+        JobProgression prog = progression(2, 10, 2, 40);
+
+        JobsDAOData merged = prog.mergeWith(2, 40, new JobsDAOData("Miner", 3, 80, 6));
+
+        assertEquals(4, merged.getLevel());
+        assertEquals(10, merged.getExperience(), 0.0001);
+    }
+
+    @Test
+    void mergedRowIsNotSavedUntilTaken() {
+        JobProgression prog = progression(2, 10, 2, 40);
+        JobsDAOData merged = prog.mergeWith(2, 40, new JobsDAOData("Miner", 3, 80, 6));
+
+        prog.setMerged(merged, 7);
+
+        assertTrue(prog.isMerging());
+        assertEquals(4, prog.getSavedLevel());
+        assertEquals(10, prog.getSavedExperience(), 0.0001);
+        assertEquals(7, prog.getVersion());
+
+        prog.applyMerge(2, 40, merged);
+
+        assertFalse(prog.isMerging());
+        assertEquals(4, prog.getLevel());
+        assertEquals(10, prog.getExperience(), 0.0001);
+        verify(jPlayer, never()).setSaved(false);
+    }
+
+    @Test
+    void progressMadeWhileMergingIsKept() {
+        JobProgression prog = progression(2, 10, 2, 40);
+        JobsDAOData merged = prog.mergeWith(2, 40, new JobsDAOData("Miner", 3, 80, 6));
+        prog.setMerged(merged, 7);
+
+        // Gained on main thread after row was merged
+        prog.addExperience(30);
+        prog.applyMerge(2, 40, merged);
+
+        assertEquals(4, prog.getLevel());
+        assertEquals(40, prog.getExperience(), 0.0001);
+        verify(jPlayer).setSaved(false);
+    }
+}
@@ -0,0 +1,85 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gamingmesh.jobs.container.JobsTop.topStats;
+
+/**
+ * Global total of player kept by job value differences
+ */
+class RankingUpdaterTest {
+
+    Job job;
+    JobsPlayer jPlayer;
+    UUID uuid;
+    List<JobProgression> progression = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        job = mock(Job.class);
+        when(job.getName()).thenReturn("Miner");
+        when(job.isSame(job)).thenReturn(true);
+        when(job.getMaxExp(anyMap())).thenReturn(100D);
+
+        uuid = UUID.randomUUID();
+        jPlayer = mock(JobsPlayer.class);
+        when(jPlayer.getUniqueId()).thenReturn(uuid);
+        when(jPlayer.isInJob(job)).thenAnswer(invocation -> !progression.isEmpty());
+
+        // Player can't be created outside of server and mock skips field initializers, ranking thread locks on this list
+        Field field = JobsPlayer.class.getField("progression");
+        field.setAccessible(true);
+        field.set(jPlayer, progression);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RankingUpdater.shutdown();
+        JobsTop.removeFromGlobalTop(uuid);
+    }
+
+    private void join(int level, double experience) {
+        progression.add(new JobProgression(job, jPlayer, level, experience));
+        RankingUpdater.apply();
+    }
+
+    private void leave() {
+        progression.clear();
+        RankingUpdater.remove(job, jPlayer);
+        RankingUpdater.apply();
+    }
+
+    @Test
+    void leavingLastJobRemovesPlayer() {
+        join(3, 10);
+        assertNotNull(JobsTop.getGlobalStats(uuid));
+
+        leave();
+        assertNull(JobsTop.getGlobalStats(uuid));
+    }
+
+    @Test
+    void rejoiningStartsFromNewJobOnly() {
+        join(3, 10);
+        leave();
+        join(2, 5);
+
+        topStats total = JobsTop.getGlobalStats(uuid);
+        assertEquals(2, total.getLevel());
+        assertEquals(5, total.getExperience(), 0.0001);
+    }
+}
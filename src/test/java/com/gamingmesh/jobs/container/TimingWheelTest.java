@@ -0,0 +1,103 @@
+package com.gamingmesh.jobs.container;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Keys expire at their deadline after being moved down through wheel levels
+ */
+class TimingWheelTest {
+
+    private static final long START = 1000;
+
+    /**
+     * Moves wheel one tick at a time
+     * @return tick at which each key expired
+     */
+    private static Map<Long, Long> runUntil(TimingWheel wheel, long end) {
+        Map<Long, Long> expired = new HashMap<>();
+        for (long now = START + 1; now <= end; now++) {
+            long tick = now;
+            wheel.advance(now, (key, deadline) -> expired.put(key, tick));
+        }
+        return expired;
+    }
+
+    @Test
+    void keysExpireAtDeadlineOnEveryLevel() {
+        TimingWheel wheel = new TimingWheel(START);
+        long[] delays = { 1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 100000, 262143, 262144, 262145, 600000 };
+        for (int i = 0; i < delays.length; i++) {
+            wheel.schedule(i, START + delays[i]);
+        }
+        assertEquals(delays.length, wheel.size());
+
+        Map<Long, Long> expired = runUntil(wheel, START + 600000);
+        assertEquals(delays.length, expired.size());
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals(START + delays[i], (long) expired.get((long) i), "delay " + delays[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineBeyondWheelRangeIsCarried() {
+        TimingWheel wheel = new TimingWheel(START);
+        long deadline = START + 3 * 262144 + 17;
+        wheel.schedule(1, deadline);
+
+        Map<Long, Long> expired = runUntil(wheel, deadline - 1);
+        assertTrue(expired.isEmpty());
+        // Key is placed again each time it reaches end of range, so it is still waiting
+        assertEquals(1, wheel.size());
+
+        wheel.advance(deadline, (key, at) -> expired.put(key, at));
+        assertEquals(deadline, (long) expired.get(1L));
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextTick() {
+        TimingWheel wheel = new TimingWheel(START);
+        wheel.schedule(1, START - 50);
+        wheel.schedule(2, START);
+
+        Map<Long, Long> deadlines = new HashMap<>();
+        wheel.advance(START + 1, (key, deadline) -> deadlines.put(key, deadline));
+        assertEquals(START - 50, (long) deadlines.get(1L));
+        assertEquals(START, (long) deadlines.get(2L));
+    }
+
+    @Test
+    void randomKeysExpireInOneJump() {
+        Random random = new Random(3);
+        TimingWheel wheel = new TimingWheel(START);
+        Map<Long, Long> scheduled = new HashMap<>();
+        for (long key = 0; key < 5000; key++) {
+            long deadline = START + 1 + random.nextInt(400000);
+            wheel.schedule(key, deadline);
+            scheduled.put(key, deadline);
+        }
+
+        long half = START + 200000;
+        Map<Long, Long> expired = new HashMap<>();
+        wheel.advance(half, (key, deadline) -> expired.put(key, deadline));
+        for (Map.Entry<Long, Long> one : scheduled.entrySet()) {
+            assertEquals(one.getValue() <= half, expired.containsKey(one.getKey()));
+        }
+        assertEquals(scheduled.size() - expired.size(), wheel.size());
+
+        // Keys added while wheel is already moved are placed from its current tick
+        wheel.schedule(9999, half + 70);
+        scheduled.put(9999L, half + 70);
+
+        wheel.advance(START + 400001, (key, deadline) -> expired.put(key, deadline));
+        assertEquals(scheduled, expired);
+        assertEquals(0, wheel.size());
+    }
+}
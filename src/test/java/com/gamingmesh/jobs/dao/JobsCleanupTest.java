@@ -0,0 +1,70 @@
+package com.gamingmesh.jobs.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+
+/**
+ * Range removal used by background database cleaning
+ */
+class JobsCleanupTest {
+
+    @TempDir
+    File folder;
+
+    JobsSQLite dao;
+    String table;
+
+    @BeforeAll
+    static void installServer() throws ReflectiveOperationException {
+        TestServer.install();
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dao = new JobsSQLite(null, folder);
+        dao.initialize();
+        table = DBTables.LogTable.getTableName();
+
+        int time = JobsDAO.toLogTime(LocalDate.now());
+        dao.writeRows(DBTables.LogTable, table, Arrays.asList(
+            new Object[] { 1, 1, time, "Break", "stone", 1, 1D, 1D, 0D },
+            new Object[] { 2, 2, time, "Break", "stone", 1, 1D, 1D, 0D },
+            new Object[] { 3, 3, time, "Break", "stone", 5, 1D, 1D, 0D },
+            new Object[] { 4, 4, time, "Break", "stone", 1, 1D, 1D, 0D }));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.closeConnections();
+    }
+
+    @Test
+    void matchingRowsInRangeAreRemoved() throws SQLException {
+        List<Integer> removed = dao.deleteRange(table, "userid", "`count` <= ?", 1, 4, Collections.emptySet(), 1);
+
+        assertEquals(Arrays.asList(1, 2), removed);
+        assertEquals(2, dao.readRows(DBTables.LogTable, table, 0, 10).size());
+    }
+
+    @Test
+    void loadedPlayersAreSkipped() throws SQLException {
+        List<Integer> removed = dao.deleteRange(table, "userid", "`count` <= ?", 1, 5, Arrays.asList(2, 4), 1);
+
+        assertEquals(Arrays.asList(1), removed);
+        assertEquals(3, dao.readRows(DBTables.LogTable, table, 0, 10).size());
+    }
+}
@@ -0,0 +1,13 @@
+package com.gamingmesh.jobs.dao;
+
+import java.io.File;
+
+class JobsEmbeddedStorageTest extends JobsStorageTest {
+
+    @Override
+    JobsStorage open(File folder) {
+        JobsEmbedded dao = new JobsEmbedded(folder, 1000);
+        dao.initialize();
+        return dao;
+    }
+}
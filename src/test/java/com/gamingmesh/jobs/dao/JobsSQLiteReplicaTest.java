@@ -0,0 +1,152 @@
+package com.gamingmesh.jobs.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+
+/**
+ * Main database and replica are two SQLite files, rows written into only one of them show which one was read
+ */
+class JobsSQLiteReplicaTest {
+
+    @TempDir
+    File mainFolder;
+
+    @TempDir
+    File replicaFolder;
+
+    JobsSQLite dao;
+
+    @BeforeAll
+    static void installServer() throws ReflectiveOperationException {
+        TestServer.install();
+    }
+
+    @BeforeEach
+    void setUp() {
+        dao = new JobsSQLite(null, mainFolder);
+        dao.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dao.closeConnections();
+    }
+
+    private static List<Object[]> logRows(int... ids) {
+        Object[][] rows = new Object[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            rows[i] = new Object[] { ids[i], 1, JobsDAO.toLogTime(LocalDate.now()), "Break", "stone", 1, 1D, 1D, 0D };
+        }
+        return Arrays.asList(rows);
+    }
+
+    /**
+     * Creates replica file with full schema and given log rows
+     */
+    private void createReplica(List<Object[]> rows) throws SQLException {
+        JobsSQLite source = new JobsSQLite(null, replicaFolder);
+        source.initialize();
+        source.writeRows(DBTables.LogTable, DBTables.LogTable.getTableName(), rows);
+        source.closeConnections();
+    }
+
+    private static int countLogRows(JobsConnection conn) throws SQLException {
+        try (Statement statement = conn.createStatement();
+            ResultSet res = statement.executeQuery("SELECT COUNT(*) FROM `" + DBTables.LogTable.getTableName() + "`;")) {
+            return res.next() ? res.getInt(1) : 0;
+        }
+    }
+
+    @Test
+    void missingReplicaIsNotCreated() {
+        dao.setReplica(replicaFolder, "missing.db");
+
+        assertFalse(dao.isReplicaUsed());
+        assertFalse(new File(replicaFolder, "missing.db").exists());
+    }
+
+    @Test
+    void replicaWithoutSchemaIsNotUsed() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + new File(replicaFolder, "empty.db").getPath());
+            Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE `other` (`id` INTEGER PRIMARY KEY);");
+        }
+
+        dao.setReplica(replicaFolder, "empty.db");
+        assertFalse(dao.isReplicaUsed());
+    }
+
+    @Test
+    void heavyReadsGoToReplica() throws SQLException {
+        createReplica(logRows(1, 2, 3));
+        dao.writeRows(DBTables.LogTable, DBTables.LogTable.getTableName(), logRows(1));
+
+        dao.setReplica(replicaFolder, "jobs.sqlite.db");
+        assertTrue(dao.isReplicaUsed());
+
+        assertEquals(3, dao.read(JobsSQLiteReplicaTest::countLogRows));
+    }
+
+    @Test
+    void failedReplicaQueryRunsOnMainDatabase() throws SQLException {
+        createReplica(logRows(1, 2, 3));
+        dao.writeRows(DBTables.LogTable, DBTables.LogTable.getTableName(), logRows(1));
+        dao.setReplica(replicaFolder, "jobs.sqlite.db");
+        assertTrue(dao.isReplicaUsed());
+
+        // Replica is read only, so write fails there and is done in main database instead
+        Integer written = dao.read(conn -> {
+            try (Statement statement = conn.createStatement()) {
+                return statement.executeUpdate("DELETE FROM `" + DBTables.LogTable.getTableName() + "`;");
+            }
+        });
+        assertEquals(1, written);
+
+        // Replica is skipped for a while after it failed
+        assertEquals(0, dao.read(JobsSQLiteReplicaTest::countLogRows));
+
+        JobsSQLite replica = new JobsSQLite(null, replicaFolder);
+        replica.initialize();
+        assertEquals(3, replica.readRows(DBTables.LogTable, DBTables.LogTable.getTableName(), 0, 10).size());
+        replica.closeConnections();
+    }
+
+    @Test
+    void logsAreReadFromReplica() throws SQLException {
+        createReplica(logRows(1, 2));
+        dao.setReplica(replicaFolder, "jobs.sqlite.db");
+        assertTrue(dao.isReplicaUsed());
+
+        dao.writeRows(DBTables.LogTable, DBTables.LogTable.getTableName(), logRows(1, 2, 3));
+
+        assertEquals(2, dao.getPlayerLog(1, JobsDAO.toLogTime(LocalDate.now())).get("Break").getCount("stone"));
+        assertEquals(Arrays.asList(1), dao.getLognameList(JobsDAO.toLogTime(LocalDate.now()), JobsDAO.toLogTime(LocalDate.now())));
+    }
+
+    @Test
+    void failedMainQueryReturnsNull() {
+        assertNull(dao.read(conn -> {
+            throw new SQLException("test");
+        }));
+    }
+}
@@ -0,0 +1,13 @@
+package com.gamingmesh.jobs.dao;
+
+import java.io.File;
+
+class JobsSQLiteStorageTest extends JobsStorageTest {
+
+    @Override
+    JobsStorage open(File folder) {
+        JobsSQLite dao = new JobsSQLite(null, folder);
+        dao.initialize();
+        return dao;
+    }
+}
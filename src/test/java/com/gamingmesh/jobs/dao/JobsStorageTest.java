@@ -0,0 +1,395 @@
+package com.gamingmesh.jobs.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Chunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.gamingmesh.jobs.Jobs;
+import com.gamingmesh.jobs.PlayerManager;
+import com.gamingmesh.jobs.config.ExploreManager;
+import com.gamingmesh.jobs.config.ExploreManager.DirtyChunk;
+import com.gamingmesh.jobs.config.GeneralConfigManager;
+import com.gamingmesh.jobs.container.BlockProtection;
+import com.gamingmesh.jobs.container.CurrencyLimit;
+import com.gamingmesh.jobs.container.CurrencyType;
+import com.gamingmesh.jobs.container.DBAction;
+import com.gamingmesh.jobs.container.Job;
+import com.gamingmesh.jobs.container.JobProgression;
+import com.gamingmesh.jobs.container.JobsPlayer;
+import com.gamingmesh.jobs.container.Log;
+import com.gamingmesh.jobs.container.PlayerInfo;
+import com.gamingmesh.jobs.container.PlayerPoints;
+import com.gamingmesh.jobs.container.RankingUpdater;
+import com.gamingmesh.jobs.dao.JobsDAO.DBTables;
+import com.gamingmesh.jobs.economy.PaymentData;
+import com.gamingmesh.jobs.stuff.Util;
+
+/**
+ * Cases every {@link JobsStorage} has to pass in the same way, so storages stay interchangeable
+ */
+abstract class JobsStorageTest {
+
+    @TempDir
+    File folder;
+
+    JobsStorage dao;
+    Job job;
+    JobsPlayer jPlayer;
+    List<JobProgression> progression = new ArrayList<>();
+    PlayerPoints points = new PlayerPoints();
+    PaymentData limits;
+
+    /**
+     * @return connected storage keeping its data in given folder
+     */
+    abstract JobsStorage open(File folder);
+
+    @BeforeAll
+    static void installServer() throws ReflectiveOperationException {
+        TestServer.install();
+    }
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        CurrencyLimit limit = mock(CurrencyLimit.class);
+        when(limit.getTimeLimit()).thenReturn(3600);
+        GeneralConfigManager config = mock(GeneralConfigManager.class);
+        when(config.getLimit(any())).thenReturn(limit);
+        TestServer.set("gConfigManager", config);
+
+        PlayerManager players = mock(PlayerManager.class);
+        when(players.getPlayerInfo(anyInt())).thenReturn(mock(PlayerInfo.class));
+        TestServer.set("pManager", players);
+
+        installExplore();
+
+        job = mock(Job.class);
+        when(job.getName()).thenReturn("Miner");
+        when(job.getJobFullName()).thenReturn("Miner");
+        when(job.getId()).thenReturn(1);
+        when(job.isSame(job)).thenReturn(true);
+        when(job.getMaxExp(anyMap())).thenReturn(100D);
+        Jobs.setJobs(new ArrayList<>(Collections.singletonList(job)));
+
+        limits = new PaymentData();
+        jPlayer = mock(JobsPlayer.class);
+        when(jPlayer.getUserId()).thenReturn(5);
+        when(jPlayer.getUniqueId()).thenReturn(UUID.randomUUID());
+        when(jPlayer.getJobProgression()).thenReturn(progression);
+        when(jPlayer.getPointsData()).thenReturn(points);
+        when(jPlayer.getPaymentLimit()).thenReturn(limits);
+
+        dao = open(folder);
+        assertTrue(dao.isConnected());
+        dao.recordNewWorld("world");
+    }
+
+    @AfterEach
+    void tearDown() throws ReflectiveOperationException {
+        dao.closeConnections();
+        RankingUpdater.shutdown();
+        Util.getJobsWorlds().clear();
+        Jobs.setJobs(new ArrayList<>());
+        TestServer.set("gConfigManager", null);
+        TestServer.set("pManager", null);
+        TestServer.set("exploreManager", null);
+    }
+
+    /**
+     * Explorer data is kept by manager, so new one is installed to see what was loaded
+     */
+    private static ExploreManager installExplore() throws ReflectiveOperationException {
+        ExploreManager explore = new ExploreManager();
+        explore.setExploreEnabled();
+        explore.setPlayerAmount(3);
+        TestServer.set("exploreManager", explore);
+        return explore;
+    }
+
+    private static Object[] logRow(int id, int userId, LocalDate date, String item, int count, double money) {
+        return new Object[] { id, userId, JobsDAO.toLogTime(date), "Break", item, count, money, count * 2D, 0D };
+    }
+
+    private static double sum(Map<Integer, Map<String, Log>> logs, String item, CurrencyType type) {
+        double total = 0;
+        for (Map<String, Log> one : logs.values()) {
+            for (Log log : one.values()) {
+                total += log.get(item, type);
+            }
+        }
+        return total;
+    }
+
+    private static int count(Map<Integer, Map<String, Log>> logs, String item) {
+        int total = 0;
+        for (Map<String, Log> one : logs.values()) {
+            for (Log log : one.values()) {
+                total += log.getCount(item);
+            }
+        }
+        return total;
+    }
+
+    @Test
+    void metaValueIsReplacedAndRemoved() {
+        assertNull(dao.getMeta("test"));
+
+        dao.setMeta("test", "one");
+        assertEquals("one", dao.getMeta("test"));
+
+        dao.setMeta("test", "two");
+        assertEquals("two", dao.getMeta("test"));
+
+        dao.setMeta("test", null);
+        assertNull(dao.getMeta("test"));
+    }
+
+    @Test
+    void rowsKeepTheirIds() throws SQLException {
+        String table = dao.getTableNames().get(DBTables.LogTable);
+        List<Object[]> rows = Arrays.asList(
+            logRow(3, 1, LocalDate.of(2025, 1, 6), "stone", 4, 1.5),
+            logRow(7, 2, LocalDate.of(2025, 1, 7), "dirt", 2, 0.5));
+        dao.writeRows(DBTables.LogTable, table, rows);
+
+        assertEquals(7, dao.getMaxId(DBTables.LogTable, table));
+
+        List<Object[]> read = dao.readRows(DBTables.LogTable, table, 0, 10);
+        assertEquals(2, read.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(((Number) rows.get(i)[0]).intValue(), ((Number) read.get(i)[0]).intValue());
+            assertEquals(rows.get(i)[4], read.get(i)[4]);
+            assertEquals(((Number) rows.get(i)[5]).intValue(), ((Number) read.get(i)[5]).intValue());
+        }
+
+        assertEquals(1, dao.readRows(DBTables.LogTable, table, 3, 10).size());
+
+        dao.clearRows(DBTables.LogTable, table);
+        assertTrue(dao.readRows(DBTables.LogTable, table, 0, 10).isEmpty());
+        assertEquals(0, dao.getMaxId(DBTables.LogTable, table));
+    }
+
+    @Test
+    void rollupKeepsLogTotals() throws SQLException {
+        String table = dao.getTableNames().get(DBTables.LogTable);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(logRow(1, 1, LocalDate.of(2025, 1, 6), "stone", 4, 1.5));
+        rows.add(logRow(2, 1, LocalDate.of(2025, 1, 8), "stone", 6, 2.5));
+        rows.add(logRow(3, 2, LocalDate.of(2025, 2, 3), "stone", 1, 0.25));
+        rows.add(logRow(4, 1, LocalDate.of(2025, 3, 17), "dirt", 3, 1));
+        rows.add(logRow(5, 2, LocalDate.of(2025, 9, 1), "dirt", 5, 2));
+        dao.writeRows(DBTables.LogTable, table, rows);
+
+        int from = JobsDAO.toLogTime(LocalDate.of(2024, 12, 1));
+        Map<Integer, Map<String, Log>> before = dao.getGlobalLog(from);
+
+        int compacted = dao.rollupLogs(JobsDAO.toLogTime(LocalDate.of(2025, 8, 1)), JobsDAO.toLogTime(LocalDate.of(2025, 3, 1)), 2);
+        assertTrue(compacted > 0);
+
+        // Only the row after weekly date is left as raw log row
+        List<Object[]> raw = dao.readRows(DBTables.LogTable, table, 0, 10);
+        assertEquals(1, raw.size());
+        assertEquals(5, ((Number) raw.get(0)[0]).intValue());
+
+        Map<Integer, Map<String, Log>> after = dao.getGlobalLog(from);
+        for (String item : Arrays.asList("stone", "dirt")) {
+            assertEquals(count(before, item), count(after, item));
+            assertEquals(sum(before, item, CurrencyType.MONEY), sum(after, item, CurrencyType.MONEY), 0.0001);
+            assertEquals(sum(before, item, CurrencyType.EXP), sum(after, item, CurrencyType.EXP), 0.0001);
+        }
+        assertEquals(11, count(after, "stone"));
+        assertEquals(8, count(after, "dirt"));
+
+        assertEquals(10, dao.getPlayerLog(1, from).get("Break").getCount("stone"));
+
+        // Rolling up again changes nothing
+        assertEquals(0, dao.rollupLogs(JobsDAO.toLogTime(LocalDate.of(2025, 8, 1)), JobsDAO.toLogTime(LocalDate.of(2025, 3, 1)), 2));
+    }
+
+    @Test
+    void rolledUpPeriodsStartingBeforeRangeAreLeftOut() throws SQLException {
+        String table = dao.getTableNames().get(DBTables.LogTable);
+        dao.writeRows(DBTables.LogTable, table, Arrays.asList(
+            logRow(1, 1, LocalDate.of(2025, 1, 6), "stone", 4, 1),
+            logRow(2, 1, LocalDate.of(2025, 1, 13), "stone", 2, 1)));
+        dao.rollupLogs(JobsDAO.toLogTime(LocalDate.of(2025, 2, 1)), JobsDAO.toLogTime(LocalDate.of(2025, 1, 1)), 10);
+
+        // Week starting 2025-01-06 begins before range, week starting 2025-01-13 within it
+        assertEquals(2, count(dao.getGlobalLog(JobsDAO.toLogTime(LocalDate.of(2025, 1, 8))), "stone"));
+        assertEquals(6, count(dao.getGlobalLog(JobsDAO.toLogTime(LocalDate.of(2025, 1, 6))), "stone"));
+    }
+
+    @Test
+    void progressionIsSavedAndRemoved() {
+        JobProgression prog = new JobProgression(job, jPlayer, 2, 30);
+        progression.add(prog);
+        dao.insertJob(jPlayer, prog);
+
+        List<JobsDAOData> jobs = dao.getAllJobs().get(5);
+        assertEquals(1, jobs.size());
+        assertEquals(2, jobs.get(0).getLevel());
+        assertEquals(30, jobs.get(0).getExperience(), 0.0001);
+
+        prog.setLevel(4);
+        prog.setExperience(55);
+        dao.save(jPlayer);
+
+        jobs = dao.getAllJobs().get(5);
+        assertEquals(1, jobs.size());
+        assertEquals("Miner", jobs.get(0).getJobName());
+        assertEquals(4, jobs.get(0).getLevel());
+        assertEquals(55, jobs.get(0).getExperience(), 0.0001);
+        assertEquals(1, (int) dao.getJobCounts().get(1));
+
+        assertTrue(dao.quitJob(jPlayer, job));
+        assertNull(dao.getAllJobs().get(5));
+    }
+
+    @Test
+    void pointsAreReplacedOnSave() {
+        points.addPoints(10);
+        dao.savePoints(jPlayer);
+        points.takePoints(4);
+        dao.savePoints(jPlayer);
+
+        PlayerPoints saved = dao.getPlayerPoints(jPlayer);
+        assertEquals(6, saved.getCurrentPoints(), 0.0001);
+        assertEquals(10, saved.getTotalPoints(), 0.0001);
+
+        Map<Integer, PlayerPoints> all = dao.getAllPoints();
+        assertEquals(1, all.size());
+        assertEquals(6, all.get(5).getCurrentPoints(), 0.0001);
+    }
+
+    @Test
+    void limitsAreReplacedOnSave() {
+        long started = System.currentTimeMillis();
+        limits.addNewAmount(CurrencyType.MONEY, 12.5, started);
+        dao.recordPlayersLimits(jPlayer);
+        limits.addNewAmount(CurrencyType.EXP, 3D, started);
+        dao.recordPlayersLimits(jPlayer);
+
+        PaymentData saved = dao.getPlayersLimits(jPlayer);
+        assertEquals(12.5, saved.getAmount(CurrencyType.MONEY), 0.0001);
+        assertEquals(3, saved.getAmount(CurrencyType.EXP), 0.0001);
+        assertEquals(started, (long) saved.getTime(CurrencyType.MONEY));
+
+        Map<Integer, PaymentData> all = dao.loadPlayerLimits();
+        assertEquals(1, all.size());
+        assertEquals(12.5, all.get(5).getAmount(CurrencyType.MONEY), 0.0001);
+    }
+
+    @Test
+    void archivedJobIsReadAndRemoved() {
+        dao.insertArchive(5, job, 3, 40);
+
+        JobProgression archived = dao.getArchivedJobs(jPlayer).getArchivedJobProgression(job);
+        assertEquals(3, archived.getLevel());
+        assertEquals(40, archived.getExperience(), 0.0001);
+        assertTrue(archived.getLeftOn() > 0);
+        assertEquals(3, dao.getAllArchivedJobs().get(5).getArchivedJobProgression(job).getLevel());
+
+        dao.deleteArchive(5, job);
+        assertTrue(dao.getArchivedJobs(jPlayer).getArchivedJobs().isEmpty());
+        assertTrue(dao.getAllArchivedJobs().isEmpty());
+    }
+
+    @Test
+    void explorersAreLoadedInOrderAndRemovedWithWorld() throws ReflectiveOperationException {
+        ExploreManager explore = Jobs.getExploreManager();
+        explore.chunkRespond(7, "world", 3, 4);
+        explore.chunkRespond(3, "world", 3, 4);
+
+        Map<DirtyChunk, Integer> ids = dao.saveExplore(explore.takeDirtyChunks());
+        assertEquals(1, ids.size());
+
+        Chunk chunk = mock(Chunk.class, RETURNS_DEEP_STUBS);
+        when(chunk.getWorld().getName()).thenReturn("world");
+        when(chunk.getX()).thenReturn(3);
+        when(chunk.getZ()).thenReturn(4);
+
+        explore = installExplore();
+        dao.loadExplore();
+        assertEquals(Arrays.asList(7, 3), explore.getVisitors(chunk));
+
+        assertTrue(dao.deleteExploredWorld("world"));
+        explore = installExplore();
+        dao.loadExplore();
+        assertNull(explore.getVisitors(chunk));
+    }
+
+    @Test
+    void blockProtectionIsLoadedByRegion() {
+        BlockProtection first = new BlockProtection(DBAction.INSERT, 10, 64, 20);
+        first.setTime(-1);
+        BlockProtection second = new BlockProtection(DBAction.INSERT, 11, 64, 20);
+        second.setTime(-1);
+        // Outside of region 0, 0
+        BlockProtection other = new BlockProtection(DBAction.INSERT, 600, 64, 20);
+        other.setTime(-1);
+        dao.saveBlockProtection("world", Arrays.asList(first, second, other));
+        assertTrue(first.getId() > 0);
+        assertTrue(second.getId() > first.getId());
+
+        List<BlockProtection> loaded = dao.loadBlockProtection("world", 0, 0);
+        assertEquals(2, loaded.size());
+        assertEquals(1, dao.loadBlockProtection("world", 1, 0).size());
+
+        first.setAction(DBAction.DELETE);
+        dao.saveBlockProtection("world", Collections.singletonList(first));
+
+        loaded = dao.loadBlockProtection("world", 0, 0);
+        assertEquals(1, loaded.size());
+        assertEquals(second.getId(), loaded.get(0).getId());
+        assertEquals(11, loaded.get(0).getX());
+        assertEquals(-1, loaded.get(0).getTime());
+    }
+
+    @Test
+    void removedIdsAreNotGivenAgainAfterRestart() throws SQLException {
+        String table = dao.getTableNames().get(DBTables.ArchiveTable);
+        dao.insertArchive(5, job, 2, 10);
+        dao.insertArchive(6, job, 3, 20);
+        int removed = dao.getMaxId(DBTables.ArchiveTable, table);
+        dao.deleteArchive(6, job);
+
+        dao.closeConnections();
+        dao = open(folder);
+
+        dao.insertArchive(7, job, 4, 30);
+        assertTrue(dao.getMaxId(DBTables.ArchiveTable, table) > removed);
+    }
+
+    @Test
+    void truncateRemovesRows() throws SQLException {
+        String table = dao.getTableNames().get(DBTables.LogTable);
+        dao.writeRows(DBTables.LogTable, table, Arrays.<Object[]>asList(logRow(1, 1, LocalDate.of(2025, 1, 6), "stone", 1, 1)));
+
+        assertTrue(dao.truncate(table));
+        assertArrayEquals(new Object[0], dao.readRows(DBTables.LogTable, table, 0, 10).toArray());
+    }
+}
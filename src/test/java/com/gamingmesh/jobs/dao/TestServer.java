@@ -0,0 +1,48 @@
+package com.gamingmesh.jobs.dao;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import com.gamingmesh.jobs.Jobs;
+
+/**
+ * Minimal server for storage tests, console messages go to logger and database drivers are loaded by test class loader
+ */
+final class TestServer {
+
+    private TestServer() {
+    }
+
+    static synchronized void install() throws ReflectiveOperationException {
+        if (Bukkit.getServer() == null) {
+            Server server = mock(Server.class, RETURNS_DEEP_STUBS);
+            when(server.getLogger()).thenReturn(Logger.getLogger("Jobs"));
+            when(server.getName()).thenReturn("Test");
+            when(server.getVersion()).thenReturn("1.21.10-R0.1-SNAPSHOT (MC: 1.21.10)");
+            when(server.getBukkitVersion()).thenReturn("1.21.10-R0.1-SNAPSHOT");
+            Bukkit.setServer(server);
+        }
+
+        // Plugin instance does not exist outside of server, so class loader is set directly
+        Field field = Jobs.class.getDeclaredField("classLoader");
+        field.setAccessible(true);
+        if (field.get(null) == null)
+            field.set(null, new JobsClassLoader(mock(Jobs.class)));
+    }
+
+    /**
+     * Replaces manager kept by plugin, null makes it created again when it is needed
+     */
+    static void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = Jobs.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+}
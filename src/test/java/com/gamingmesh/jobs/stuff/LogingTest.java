@@ -0,0 +1,111 @@
+package com.gamingmesh.jobs.stuff;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.gamingmesh.jobs.container.CurrencyType;
+import com.gamingmesh.jobs.container.JobsPlayer;
+import com.gamingmesh.jobs.container.Log;
+
+/**
+ * Log entries which are not yet saved are combined with log read from database
+ */
+class LogingTest {
+
+    Loging loging;
+    JobsPlayer jPlayer;
+    Map<String, Log> playerLog;
+
+    @BeforeEach
+    void setUp() {
+        loging = new Loging();
+        playerLog = new HashMap<>();
+        jPlayer = mock(JobsPlayer.class);
+        when(jPlayer.getLog()).thenReturn(playerLog);
+    }
+
+    private static Map<CurrencyType, Double> money(double amount) {
+        return Collections.singletonMap(CurrencyType.MONEY, amount);
+    }
+
+    @Test
+    void loadedEntriesAreNotUnsaved() {
+        Log log = new Log("Break");
+        log.add("stone", 5, money(2));
+        playerLog.put("Break", log);
+
+        assertTrue(loging.getUnsavedLog(jPlayer).isEmpty());
+    }
+
+    @Test
+    void onlyGainSinceSaveIsUnsaved() {
+        Log log = new Log("Break");
+        log.add("stone", 5, money(2));
+        playerLog.put("Break", log);
+
+        log.add("stone", money(1.5));
+        log.add("dirt", money(0.5));
+
+        Map<String, Log> unsaved = loging.getUnsavedLog(jPlayer);
+        assertEquals(1, unsaved.get("Break").getCount("stone"));
+        assertEquals(1.5, unsaved.get("Break").get("stone", CurrencyType.MONEY), 0.0001);
+        assertEquals(1, unsaved.get("Break").getCount("dirt"));
+
+        log.getAmountList().values().forEach(amounts -> amounts.setSaved());
+        assertTrue(loging.getUnsavedLog(jPlayer).isEmpty());
+    }
+
+    @Test
+    void changedEntriesAreTakenOnce() {
+        Log log = new Log("Break");
+        log.add("stone", 5, money(2));
+        log.add("dirt", money(0.5));
+        playerLog.put("Break", log);
+
+        List<Log> changed = loging.takeChangedLog(jPlayer);
+        assertEquals(1, changed.size());
+        assertEquals(1, changed.get(0).getAmountList().size());
+        assertTrue(changed.get(0).getAmountList().get("dirt").isNewEntry());
+        assertEquals(log.getDate(), changed.get(0).getDate());
+
+        assertTrue(loging.takeChangedLog(jPlayer).isEmpty());
+        assertTrue(loging.getUnsavedLog(jPlayer).isEmpty());
+
+        // Saved entry is written again with its full values
+        log.add("dirt", money(1));
+        changed = loging.takeChangedLog(jPlayer);
+        assertFalse(changed.get(0).getAmountList().get("dirt").isNewEntry());
+        assertEquals(2, changed.get(0).getCount("dirt"));
+        assertEquals(1.5, changed.get(0).get("dirt", CurrencyType.MONEY), 0.0001);
+    }
+
+    @Test
+    void unsavedLogIsAddedToDatabaseLog() {
+        Log log = new Log("Break");
+        log.add("stone", money(1));
+        playerLog.put("Break", log);
+
+        Log stored = new Log("Break");
+        stored.sum("stone", 10, money(4));
+        Map<String, Log> logList = new HashMap<>();
+        logList.put("Break", stored);
+
+        loging.addToLog(logList, loging.getUnsavedLog(jPlayer));
+
+        assertEquals(11, logList.get("Break").getCount("stone"));
+        assertEquals(5, logList.get("Break").get("stone", CurrencyType.MONEY), 0.0001);
+        // Player log itself is left untouched
+        assertEquals(1, log.getCount("stone"));
+    }
+}